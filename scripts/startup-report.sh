@@ -0,0 +1,63 @@
+#!/bin/sh
+# Report the startup time and the resident memory (RSS) of the Patient Microservice for each packaging mode :
+#   fat-jar      : java -jar on the Spring Boot jar
+#   layered      : extracted layers started with an explicit class path
+#   layered-cds  : extracted layers started with an application class data sharing archive (JDK 11+)
+#   lazy         : layered-cds with all the beans initialized lazily
+#
+# Usage (from the repository root, with the database of the chosen profile running) :
+#   gradle bootJar && sh scripts/startup-report.sh [profile]
+#
+# The native image mode is not reported : it needs Spring Native, which requires Spring Boot 2.4+.
+
+set -e
+
+PROFILE=${1:-dev}
+JAR=build/libs/Mediscreen_Patient-1.0.0.jar
+WORK=build/startup-report
+MAIN=com.mediscreen.patient.PatientApplication
+
+if [ ! -f "$JAR" ]; then
+    echo "$JAR not found, run 'gradle bootJar' first" >&2
+    exit 1
+fi
+
+rm -rf "$WORK" && mkdir -p "$WORK/app/lib"
+JAR_PATH="$(pwd)/$JAR"
+(mkdir "$WORK/extracted" && cd "$WORK/extracted" && java -Djarmode=layertools -jar "$JAR_PATH" extract)
+cp "$WORK"/extracted/dependencies/BOOT-INF/lib/*.jar "$WORK/app/lib/"
+cp "$WORK"/extracted/snapshot-dependencies/BOOT-INF/lib/*.jar "$WORK/app/lib/" 2>/dev/null || true
+jar cf "$WORK/app/classes.jar" -C "$WORK/extracted/application/BOOT-INF/classes" .
+CLASSPATH_ARG="$WORK/app/classes.jar:$(sed -n "s#^- \"BOOT-INF/lib/\(.*\)\"\$#$WORK/app/lib/\1#p" "$WORK/extracted/application/BOOT-INF/classpath.idx" | paste -sd:)"
+
+echo "Creating the class data sharing archive (training run)..."
+java -Xshare:off -XX:DumpLoadedClassList="$WORK/classes.lst" -cp "$CLASSPATH_ARG" $MAIN \
+    --spring.profiles.active=prod,cds --patientUpdateQueue.journalPath="$WORK/training/journal" > "$WORK/training.log" 2>&1
+java -Xshare:dump -XX:SharedClassListFile="$WORK/classes.lst" -XX:SharedArchiveFile="$WORK/app.jsa" -cp "$CLASSPATH_ARG" > "$WORK/dump.log" 2>&1
+
+# start the application, wait until it is started, then print its startup time and RSS and stop it
+measure() {
+    mode=$1
+    shift
+    log="$WORK/$mode.log"
+    "$@" --spring.profiles.active="$PROFILE" --patientUpdateQueue.journalPath="$WORK/$mode/journal" > "$log" 2>&1 &
+    pid=$!
+    while ! grep -q "Started PatientApplication" "$log"; do
+        if ! kill -0 $pid 2>/dev/null; then
+            echo "$mode : application failed to start, see $log" >&2
+            return
+        fi
+        sleep 0.2
+    done
+    started=$(grep -o "Started PatientApplication in [0-9.]* seconds (JVM running for [0-9.]*)" "$log")
+    rss=$(awk '/VmRSS/ {print $2 " " $3}' /proc/$pid/status)
+    printf "%-12s | %s | RSS %s\n" "$mode" "$started" "$rss"
+    kill $pid
+    wait $pid 2>/dev/null || true
+}
+
+echo
+measure fat-jar java -jar "$JAR"
+measure layered java -cp "$CLASSPATH_ARG" $MAIN
+measure layered-cds java -XX:SharedArchiveFile="$WORK/app.jsa" -Xshare:auto -cp "$CLASSPATH_ARG" $MAIN
+measure lazy java -XX:SharedArchiveFile="$WORK/app.jsa" -Xshare:auto -cp "$CLASSPATH_ARG" $MAIN --spring.main.lazy-initialization=true
@@ -0,0 +1,106 @@
+package com.mediscreen.patient.configuration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Param;
+import feign.RequestLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class measuring the latency of the requests to the Rapport Microservice at a high request rate (32 concurrent threads),
+ * with the default client of Feign and with the pooled client of FeignHttpClientConfig, against a local stub.
+ * The default client keeps at most 5 idle connections per host : most requests then open a new connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(32)
+public class FeignHttpClientBenchmark {
+
+    /**
+     * The GET "/assess/id" request of the RapportMicroserviceProxy.
+     */
+    interface RapportApi {
+
+        @RequestLine("GET /assess/id?id={id}")
+        String getPatientRapportById(@Param("id") long id);
+    }
+
+    private HttpServer stub;
+
+    private ExecutorService stubExecutor;
+
+    private CloseableHttpClient pooledHttpClient;
+
+    private RapportApi defaultClientApi;
+
+    private RapportApi pooledClientApi;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        stubExecutor = Executors.newFixedThreadPool(64);
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/assess/id", FeignHttpClientBenchmark::assess);
+        stub.start();
+        String url = "http://localhost:" + stub.getAddress().getPort();
+
+        FeignHttpClientConfig config = new FeignHttpClientConfig();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pooledHttpClient = config.feignHttpClient(config.feignConnectionManager(meterRegistry, 200, 50, 900000, 2000), meterRegistry, 30000, 1000);
+
+        defaultClientApi = Feign.builder().client(new Client.Default(null, null)).target(RapportApi.class, url);
+        pooledClientApi = Feign.builder().client(config.feignClient(pooledHttpClient)).target(RapportApi.class, url);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pooledHttpClient.close();
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public String defaultClient() {
+        return defaultClientApi.getPatientRapportById(1);
+    }
+
+    @Benchmark
+    public String pooledClient() {
+        return pooledClientApi.getPatientRapportById(1);
+    }
+
+    private static void assess(HttpExchange exchange) throws IOException {
+        byte[] body = "{\"lastName\":\"Ferguson\",\"firstName\":\"Lucas\",\"sex\":\"M\",\"age\":52,\"assessment\":\"Borderline\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,51 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class measuring the cost of converting the request parameters of the POST "/patients/add" and "/patients/update" endpoints to a patient.
+ * Run with the gc profiler to compare the bytes allocated per request ("gc.alloc.rate.norm").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestConversionBenchmark {
+
+    private final String dob = "1968-06-22";
+
+    private final String sex = "M";
+
+    private final StringToLocalDate stringToLocalDate = new StringToLocalDate();
+
+    private final StringToSex stringToSex = new StringToSex();
+
+    /**
+     * Conversion as previously done in the controller : a DateTimeFormatter built for each request.
+     */
+    @Benchmark
+    public Patient formatterPerRequest() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        LocalDate dateOfBirth = LocalDate.parse(dob, formatter);
+        return new Patient("Ferguson", "Lucas", dateOfBirth, Sex.valueOf(sex), "2 Warren Street", "387-866-1399");
+    }
+
+    /**
+     * Conversion done by the registered converters, sharing a precompiled DateTimeFormatter.
+     */
+    @Benchmark
+    public Patient registeredConverters() {
+        LocalDate dateOfBirth = stringToLocalDate.convert(dob);
+        return new Patient("Ferguson", "Lucas", dateOfBirth, stringToSex.convert(sex), "2 Warren Street", "387-866-1399");
+    }
+}
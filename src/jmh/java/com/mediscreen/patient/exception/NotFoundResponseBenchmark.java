@@ -0,0 +1,92 @@
+package com.mediscreen.patient.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.domain.Problem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class measuring the throughput of the two parts of a 404 response to a lookup of an unknown patient :
+ * throwing the ResourceNotFoundException from the depth of a request handled by Spring MVC, then rendering the error body.
+ * The previous path captures a stack trace and renders the Thymeleaf error page, the API clients now get a stackless exception and a problem+json body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NotFoundResponseBenchmark {
+
+    // frames below the service of a request handled by Spring MVC in Tomcat, filters and proxies included
+    private static final int REQUEST_DEPTH = 120;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final TemplateEngine templateEngine = new TemplateEngine();
+
+    public NotFoundResponseBenchmark() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateEngine.setTemplateResolver(templateResolver);
+    }
+
+    /**
+     * Exception as previously thrown : the stack trace is captured.
+     */
+    @Benchmark
+    public RuntimeException throwWithStackTrace() {
+        return throwAtDepth(REQUEST_DEPTH, () -> new IllegalStateException("No patient found for last name and first name : Ferguson Lucas"));
+    }
+
+    /**
+     * ResourceNotFoundException, not capturing its stack trace.
+     */
+    @Benchmark
+    public RuntimeException throwStackless() {
+        return throwAtDepth(REQUEST_DEPTH, () -> new ResourceNotFoundException("Ferguson", "Lucas"));
+    }
+
+    /**
+     * Error page rendered for every client before, for the browsers only now.
+     */
+    @Benchmark
+    public String renderErrorPage() {
+        Context context = new Context();
+        context.setVariable("exception", new ResourceNotFoundException("Ferguson", "Lucas"));
+        return templateEngine.process("errorResourceNotFound", context);
+    }
+
+    /**
+     * Error body of the API clients.
+     */
+    @Benchmark
+    public byte[] renderProblemJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new Problem("Not Found", 404, new ResourceNotFoundException("Ferguson", "Lucas").getMessage(),
+                "/patients/patientByFamilyAndGiven"));
+    }
+
+    private static RuntimeException throwAtDepth(int depth, ExceptionFactory factory) {
+        if (depth > 0) {
+            return throwAtDepth(depth - 1, factory);
+        }
+        try {
+            throw factory.create();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private interface ExceptionFactory {
+
+        RuntimeException create();
+    }
+}
@@ -0,0 +1,100 @@
+package com.mediscreen.patient.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class in charge of driving the load : each virtual user sends the requests of the traffic mix one after the other, without think time.
+ * Latencies are recorded per operation, the ones of the warm-up phase are discarded.
+ */
+public class LoadDriver {
+
+    // latencies recorded up to 1 minute, with 3 significant digits
+    private static final long HIGHEST_TRACKABLE_LATENCY_NS = TimeUnit.MINUTES.toNanos(1);
+
+    private final TrafficMix trafficMix;
+
+    private final int users;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    private volatile boolean running;
+
+    public LoadDriver(TrafficMix trafficMix, int users) {
+        this.trafficMix = trafficMix;
+        this.users = users;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_LATENCY_NS, 3));
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Run the warm-up phase then the measured phase.
+     *
+     * @param warmupSeconds The duration of the warm-up phase
+     * @param durationSeconds The duration of the measured phase
+     * @return The result of the measured phase
+     * @throws InterruptedException if interrupted while waiting for the virtual users
+     */
+    public LoadResult run(long warmupSeconds, long durationSeconds) throws InterruptedException {
+
+        running = true;
+        Thread[] virtualUsers = new Thread[users];
+        for (int i = 0; i < users; i++) {
+            virtualUsers[i] = new Thread(this::virtualUser, "load-test-user-" + i);
+            virtualUsers[i].start();
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        for (Operation operation : Operation.values()) {
+            recorders.get(operation).reset();
+            errors.get(operation).set(0);
+        }
+
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, recorders.get(operation).getIntervalHistogram());
+            errorCounts.put(operation, errors.get(operation).get());
+        }
+        long elapsedNs = System.nanoTime() - start;
+
+        running = false;
+        for (Thread virtualUser : virtualUsers) {
+            virtualUser.join();
+        }
+
+        return new LoadResult(latencies, errorCounts, elapsedNs);
+    }
+
+    private void virtualUser() {
+        Random random = ThreadLocalRandom.current();
+        while (running) {
+            Operation operation = trafficMix.next(random);
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                int status = trafficMix.execute(operation, random);
+                success = status < 400;
+            } catch (Exception e) {
+                success = false;
+            }
+            recorders.get(operation).recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_LATENCY_NS));
+            if (!success) {
+                errors.get(operation).incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mediscreen.patient.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class materializing the result of the measured phase of a load test : latencies and errors per operation, and throughput.
+ * The result is compared to, or stored as, the baseline.
+ */
+public class LoadResult {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final Map<Operation, Histogram> latencies;
+
+    private final Map<Operation, Long> errors;
+
+    private final long elapsedNs;
+
+    public LoadResult(Map<Operation, Histogram> latencies, Map<Operation, Long> errors, long elapsedNs) {
+        this.latencies = latencies;
+        this.errors = errors;
+        this.elapsedNs = elapsedNs;
+    }
+
+    public double getThroughput() {
+        long requests = 0;
+        for (Histogram histogram : latencies.values()) {
+            requests += histogram.getTotalCount();
+        }
+        return requests / (elapsedNs / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public double getPercentileMs(Operation operation, double percentile) {
+        return latencies.get(operation).getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    public double getErrorRate(Operation operation) {
+        long requests = latencies.get(operation).getTotalCount();
+        return requests == 0 ? 0 : errors.get(operation) / (double) requests;
+    }
+
+    /**
+     * Return the report of the result : throughput, then latency percentiles and errors per operation.
+     *
+     * @return The report
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Throughput : %.1f requests/s%n", getThroughput()));
+        report.append(String.format(Locale.ROOT, "%-11s %9s %9s %9s %9s %9s %9s%n", "Operation", "Requests", "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)", "Errors"));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            report.append(String.format(Locale.ROOT, "%-11s %9d %9.1f %9.1f %9.1f %9.1f %9d%n", operation, histogram.getTotalCount(),
+                    getPercentileMs(operation, 50), getPercentileMs(operation, 95), getPercentileMs(operation, 99),
+                    histogram.getMaxValue() / NANOS_PER_MILLI, errors.get(operation)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Compare the result to a baseline.
+     *
+     * @param baselineFile The baseline file
+     * @param tolerance The relative degradation tolerated (e.g. 0.2 for 20%)
+     * @param maxErrorRate The error rate tolerated for each operation
+     * @return The regressions found, empty if none
+     * @throws IOException if the baseline can not be read
+     */
+    public List<String> findRegressions(Path baselineFile, double tolerance, double maxErrorRate) throws IOException {
+
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(baselineFile)) {
+            baseline.load(in);
+        }
+
+        List<String> regressions = new ArrayList<>();
+        double baselineThroughput = Double.parseDouble(baseline.getProperty("throughput"));
+        if (getThroughput() < baselineThroughput * (1 - tolerance)) {
+            regressions.add(String.format(Locale.ROOT, "throughput %.1f requests/s < baseline %.1f requests/s", getThroughput(), baselineThroughput));
+        }
+        for (Operation operation : Operation.values()) {
+            String baselineP99 = baseline.getProperty(operation + ".p99Ms");
+            if (baselineP99 != null && getPercentileMs(operation, 99) > Double.parseDouble(baselineP99) * (1 + tolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s p99 %.1f ms > baseline %s ms", operation, getPercentileMs(operation, 99), baselineP99));
+            }
+            if (getErrorRate(operation) > maxErrorRate) {
+                regressions.add(String.format(Locale.ROOT, "%s error rate %.2f%% > %.2f%%", operation, getErrorRate(operation) * 100, maxErrorRate * 100));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Store the result as the baseline.
+     *
+     * @param baselineFile The baseline file
+     * @throws IOException if the baseline can not be written
+     */
+    public void storeAsBaseline(Path baselineFile) throws IOException {
+        Properties baseline = new Properties();
+        baseline.setProperty("throughput", String.format(Locale.ROOT, "%.1f", getThroughput()));
+        for (Operation operation : Operation.values()) {
+            baseline.setProperty(operation + ".p99Ms", String.format(Locale.ROOT, "%.1f", getPercentileMs(operation, 99)));
+        }
+        if (baselineFile.getParent() != null) {
+            Files.createDirectories(baselineFile.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(baselineFile)) {
+            baseline.store(out, "Load test baseline : throughput (requests/s) and p99 latency (ms) per operation");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.mediscreen.patient.loadtest;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.mediscreen.patient.PatientApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Class in charge of running the load test of the Patient Microservice.
+ * The service is started against an embedded MariaDB (MySQL compatible) and a local stub of the Rapport Microservice, the database is seeded,
+ * then the traffic mix is replayed by concurrent virtual users. The result is compared to the stored baseline : the run fails if it regresses, or if there is no baseline.
+ *
+ * Options (system properties) :
+ * loadtest.users (32), loadtest.warmupSeconds (20), loadtest.durationSeconds (60), loadtest.patients (1000), loadtest.rapportLatencyMs (20),
+ * loadtest.tolerance (0.2), loadtest.maxErrorRate (0.01), loadtest.baselineFile, loadtest.updateBaseline (false), loadtest.workDirectory.
+ */
+public class LoadTestRunner {
+
+    private static final String DATABASE_NAME = "patientload";
+
+    public static void main(String[] args) throws Exception {
+
+        int users = Integer.getInteger("loadtest.users", 32);
+        long warmupSeconds = Long.getLong("loadtest.warmupSeconds", 20);
+        long durationSeconds = Long.getLong("loadtest.durationSeconds", 60);
+        int patients = Integer.getInteger("loadtest.patients", 1000);
+        long rapportLatencyMs = Long.getLong("loadtest.rapportLatencyMs", 20);
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+        Path baselineFile = Paths.get(System.getProperty("loadtest.baselineFile", "src/loadTest/baseline.properties"));
+        boolean updateBaseline = Boolean.getBoolean("loadtest.updateBaseline");
+        Path workDirectory = Paths.get(System.getProperty("loadtest.workDirectory", "build/loadTest"));
+
+        DBConfigurationBuilder databaseConfiguration = DBConfigurationBuilder.newBuilder();
+        databaseConfiguration.setPort(0);
+        DB database = DB.newEmbeddedDB(databaseConfiguration.build());
+        database.start();
+        database.createDB(DATABASE_NAME);
+        String jdbcUrl = databaseConfiguration.getURL(DATABASE_NAME);
+
+        int exitCode;
+        try (RapportStub rapportStub = new RapportStub(rapportLatencyMs, users * 2)) {
+            rapportStub.start();
+
+            ConfigurableApplicationContext context = SpringApplication.run(PatientApplication.class,
+                    "--spring.profiles.active=loadtest",
+                    "--server.port=0",
+                    "--spring.datasource.url=" + jdbcUrl,
+                    "--rapportMicroserviceUrl=" + rapportStub.getUrl(),
+                    "--patientUpdateQueue.journalPath=" + workDirectory.resolve("patient-update-queue.journal"));
+            try {
+                SeedData.insertPatients(jdbcUrl, patients);
+
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                TrafficMix trafficMix = new TrafficMix("http://localhost:" + port, patients);
+                System.out.printf("Load test : %d users, %d s warm-up, %d s measured, %d patients%n", users, warmupSeconds, durationSeconds, patients);
+                LoadResult result = new LoadDriver(trafficMix, users).run(warmupSeconds, durationSeconds);
+                System.out.println(result.report());
+
+                exitCode = compareToBaseline(result, baselineFile, updateBaseline, tolerance, maxErrorRate);
+            } finally {
+                context.close();
+            }
+        } finally {
+            database.stop();
+        }
+
+        System.exit(exitCode);
+    }
+
+    private static int compareToBaseline(LoadResult result, Path baselineFile, boolean updateBaseline, double tolerance, double maxErrorRate) throws Exception {
+
+        if (updateBaseline) {
+            result.storeAsBaseline(baselineFile);
+            System.out.println("Baseline stored in " + baselineFile);
+            return 0;
+        }
+        // without a baseline nothing is compared : the run fails rather than passing unchecked
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline " + baselineFile + " : measure it on the reference machine with -Dloadtest.updateBaseline=true and commit it");
+            return 1;
+        }
+
+        List<String> regressions = result.findRegressions(baselineFile, tolerance, maxErrorRate);
+        if (regressions.isEmpty()) {
+            System.out.println("No regression against the baseline " + baselineFile);
+            return 0;
+        }
+        System.out.println("Regressions against the baseline " + baselineFile + " :");
+        regressions.forEach(regression -> System.out.println("- " + regression));
+        return 1;
+    }
+}
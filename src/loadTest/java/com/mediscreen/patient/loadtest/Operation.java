@@ -0,0 +1,23 @@
+package com.mediscreen.patient.loadtest;
+
+/**
+ * Enumeration materializing the operations replayed by the load test, with their share of the traffic (in percent).
+ */
+public enum Operation {
+    List(2),
+    FindByName(35),
+    FindById(25),
+    Add(8),
+    Update(20),
+    Rapport(10);
+
+    private final int weight;
+
+    Operation(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
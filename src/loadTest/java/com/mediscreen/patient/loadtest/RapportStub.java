@@ -0,0 +1,76 @@
+package com.mediscreen.patient.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class materializing a local HTTP stub of the Mediscreen Rapport Microservice, answering the GET "/assess/id" requests of the RapportMicroserviceProxy.
+ * The response is delayed to simulate the latency of the real service.
+ */
+public class RapportStub implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long latencyMs;
+
+    public RapportStub(long latencyMs, int threads) throws IOException {
+        this.latencyMs = latencyMs;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/assess/id", this::assess);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Return the address of the stub, in the format of the rapportMicroserviceUrl property.
+     *
+     * @return The address of the stub
+     */
+    public String getUrl() {
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    private void assess(HttpExchange exchange) throws IOException {
+        try {
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            String query = exchange.getRequestURI().getQuery();
+            String id = query != null && query.startsWith("id=") ? query.substring(3) : "0";
+            byte[] body = ("{\"lastName\":\"LoadTestLastName" + id + "\",\"firstName\":\"LoadTestFirstName" + id
+                    + "\",\"sex\":\"M\",\"age\":52,\"assessment\":\"Borderline\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.stop(0);
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
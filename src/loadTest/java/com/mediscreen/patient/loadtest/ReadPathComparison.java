@@ -0,0 +1,94 @@
+package com.mediscreen.patient.loadtest;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.mediscreen.patient.PatientApplication;
+import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.service.IPatientService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Class in charge of comparing the latency and the bytes allocated by the ways of reading the whole patients list,
+ * on an embedded MariaDB seeded with patients :
+ * - entities in a read-write transaction, as previously done by findAllPatients (snapshots, then dirty checking at flush),
+ * - entities in a read-only transaction,
+ * - list items projection in a read-only transaction, as now done for the list page.
+ *
+ * Options (system properties) : readpaths.patients (100000), readpaths.warmupRuns (5), readpaths.runs (10), readpaths.workDirectory.
+ */
+public class ReadPathComparison {
+
+    private static final String DATABASE_NAME = "patientreadpaths";
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+
+        int patients = Integer.getInteger("readpaths.patients", 100000);
+        int warmupRuns = Integer.getInteger("readpaths.warmupRuns", 5);
+        int runs = Integer.getInteger("readpaths.runs", 10);
+        String workDirectory = System.getProperty("readpaths.workDirectory", "build/readPathComparison");
+
+        DBConfigurationBuilder databaseConfiguration = DBConfigurationBuilder.newBuilder();
+        databaseConfiguration.setPort(0);
+        DB database = DB.newEmbeddedDB(databaseConfiguration.build());
+        database.start();
+        database.createDB(DATABASE_NAME);
+        String jdbcUrl = databaseConfiguration.getURL(DATABASE_NAME);
+
+        try {
+            ConfigurableApplicationContext context = SpringApplication.run(PatientApplication.class,
+                    "--spring.profiles.active=loadtest",
+                    "--server.port=0",
+                    "--spring.datasource.url=" + jdbcUrl,
+                    "--rapportMicroserviceUrl=localhost:1",
+                    "--patientUpdateQueue.journalPath=" + workDirectory + "/patient-update-queue.journal",
+                    "--patientSnapshot.initialDelayMs=3600000");
+            try {
+                SeedData.insertPatients(jdbcUrl, patients);
+
+                PatientRepository patientRepository = context.getBean(PatientRepository.class);
+                IPatientService patientService = context.getBean("patientServiceImpl", IPatientService.class);
+                PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+                TransactionTemplate readWriteTransaction = new TransactionTemplate(transactionManager);
+                TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+                readOnlyTransaction.setReadOnly(true);
+
+                System.out.printf("Read paths comparison : %d patients, %d warm-up runs, %d measured runs%n", patients, warmupRuns, runs);
+                System.out.printf(Locale.ROOT, "%-36s %12s %14s%n", "Read path", "Mean (ms)", "Allocated (MB)");
+                measure("Entities, read-write transaction", warmupRuns, runs, () -> readWriteTransaction.execute(status -> patientRepository.findAll()));
+                measure("Entities, read-only transaction", warmupRuns, runs, () -> readOnlyTransaction.execute(status -> patientRepository.findAll()));
+                measure("List items, read-only transaction", warmupRuns, runs, patientService::findAllPatientListItems);
+            } finally {
+                context.close();
+            }
+        } finally {
+            database.stop();
+        }
+    }
+
+    private static void measure(String readPath, int warmupRuns, int runs, Supplier<List<?>> read) {
+        for (int run = 0; run < warmupRuns; run++) {
+            read.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int run = 0; run < runs; run++) {
+            read.get();
+        }
+        long elapsedNs = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf(Locale.ROOT, "%-36s %12.1f %14.1f%n", readPath, elapsedNs / (double) TimeUnit.MILLISECONDS.toNanos(1) / runs,
+                allocated / 1024.0 / 1024.0 / runs);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mediscreen.patient.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Class in charge of seeding the database with the patients targeted by the load test.
+ * The patient number n (from 1) gets the id n and deterministic fields, so that the traffic mix can address it without querying the database.
+ */
+public final class SeedData {
+
+    private static final int BATCH_SIZE = 500;
+
+    private SeedData() {
+    }
+
+    public static String lastName(int patient) {
+        return "LoadTestLastName" + patient;
+    }
+
+    public static String firstName(int patient) {
+        return "LoadTestFirstName" + patient;
+    }
+
+    public static LocalDate dateOfBirth(int patient) {
+        return LocalDate.of(1940, 1, 1).plusDays(patient * 7L % 25000);
+    }
+
+    public static String sex(int patient) {
+        return patient % 2 == 0 ? "F" : "M";
+    }
+
+    public static String phoneNumber(int patient) {
+        return String.format("555-%03d-%04d", patient / 10000 % 1000, patient % 10000);
+    }
+
+    /**
+     * Insert the patients, in batches.
+     *
+     * @param jdbcUrl The URL of the database, whose schema is already migrated
+     * @param patients The number of patients to insert
+     * @throws SQLException if the patients can not be inserted
+     */
+    public static void insertPatients(String jdbcUrl, int patients) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, "root", "");
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into patient (id, last_name, first_name, date_of_birth, sex, home_address, phone_number) values (?, ?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int patient = 1; patient <= patients; patient++) {
+                insert.setLong(1, patient);
+                insert.setString(2, lastName(patient));
+                insert.setString(3, firstName(patient));
+                insert.setObject(4, dateOfBirth(patient));
+                insert.setString(5, sex(patient));
+                insert.setString(6, patient + " Load Test Street");
+                insert.setString(7, phoneNumber(patient));
+                insert.addBatch();
+                if (patient % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+}
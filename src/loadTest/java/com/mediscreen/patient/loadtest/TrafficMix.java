@@ -0,0 +1,126 @@
+package com.mediscreen.patient.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class in charge of picking the operations according to their share of the traffic and sending the corresponding HTTP requests to the service.
+ * Lookups, updates and reports target the patients seeded before the test, additions create new patients.
+ */
+public class TrafficMix {
+
+    private static final int TIMEOUT_MS = 10000;
+
+    private final String baseUrl;
+
+    private final int seededPatients;
+
+    private final Operation[] operationsByPercent = new Operation[100];
+
+    private final AtomicLong addedPatients = new AtomicLong();
+
+    public TrafficMix(String baseUrl, int seededPatients) {
+        this.baseUrl = baseUrl;
+        this.seededPatients = seededPatients;
+        int index = 0;
+        for (Operation operation : Operation.values()) {
+            for (int i = 0; i < operation.getWeight(); i++) {
+                operationsByPercent[index++] = operation;
+            }
+        }
+        if (index != operationsByPercent.length) {
+            throw new IllegalStateException("The operation weights must add up to 100, found " + index);
+        }
+    }
+
+    /**
+     * Pick the next operation according to the traffic mix.
+     *
+     * @param random The random generator of the virtual user
+     * @return The operation
+     */
+    public Operation next(Random random) {
+        return operationsByPercent[random.nextInt(operationsByPercent.length)];
+    }
+
+    /**
+     * Send the HTTP request of an operation and read the response.
+     *
+     * @param operation The operation
+     * @param random The random generator of the virtual user
+     * @return The HTTP status code of the response
+     * @throws IOException if the request fails
+     */
+    public int execute(Operation operation, Random random) throws IOException {
+        int patient = random.nextInt(seededPatients) + 1;
+        switch (operation) {
+            case List:
+                return get("/patients/list");
+            case FindByName:
+                return get("/patients/patientByFamilyAndGiven?family=" + SeedData.lastName(patient) + "&given=" + SeedData.firstName(patient));
+            case FindById:
+                return get("/patients/patientById?id=" + patient);
+            case Add:
+                long added = addedPatients.incrementAndGet();
+                return post("/patients/add", "family=LoadTestAddedLastName" + added + "&given=LoadTestAddedFirstName" + added
+                        + "&dob=1980-01-01&sex=F&address=" + encode(added + " Load Test Street") + "&phone=" + encode("555-010-" + (1000 + added % 9000)));
+            case Update:
+                return post("/patients/update", "family=" + SeedData.lastName(patient) + "&given=" + SeedData.firstName(patient)
+                        + "&dob=" + SeedData.dateOfBirth(patient) + "&sex=" + SeedData.sex(patient)
+                        + "&address=" + encode(random.nextInt(10000) + " Updated Street") + "&phone=" + encode(SeedData.phoneNumber(patient)));
+            case Rapport:
+                return get("/patients/rapport/" + patient);
+            default:
+                throw new IllegalArgumentException("Unknown operation : " + operation);
+        }
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        return readResponse(connection);
+    }
+
+    private int post(String path, String form) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        return readResponse(connection);
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        connection.setInstanceFollowRedirects(false);
+        return connection;
+    }
+
+    // the response body is fully read so that the keep-alive connection is reused by the next request
+    private int readResponse(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    // discard
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+}
@@ -3,12 +3,14 @@ package com.mediscreen.patient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Class in charge of launching the Patient Microservices in charge of managing patient data.
  */
 @SpringBootApplication
 @EnableFeignClients("com.mediscreen.patient")
+@EnableScheduling
 public class PatientApplication {
 
 	public static void main(String[] args) {
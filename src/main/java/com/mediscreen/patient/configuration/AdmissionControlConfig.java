@@ -0,0 +1,62 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.filter.AdmissionControlFilter;
+import com.mediscreen.patient.service.IStartupWarmUpService;
+import com.mediscreen.patient.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration class for the admission control of the requests to the patient endpoints, enabled by the "admissionControl.enabled" property.
+ */
+@Configuration
+@ConditionalOnProperty(name = "admissionControl.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdmissionControlFilter admissionControlFilter(@Value("${admissionControl.maxClients:10000}") int maxClients,
+                                                         @Value("${admissionControl.clientRatePerSecond:50}") double clientRatePerSecond,
+                                                         @Value("${admissionControl.clientBurst:100}") int clientBurst,
+                                                         @Value("${admissionControl.initialConcurrencyLimit:20}") int initialConcurrencyLimit,
+                                                         @Value("${admissionControl.minConcurrencyLimit:4}") int minConcurrencyLimit,
+                                                         @Value("${admissionControl.maxConcurrencyLimit:100}") int maxConcurrencyLimit,
+                                                         @Value("${admissionControl.latencyTolerance:2.0}") double latencyTolerance,
+                                                         @Value("${admissionControl.backoffRatio:0.9}") double backoffRatio,
+                                                         MeterRegistry meterRegistry, ObjectProvider<IStartupWarmUpService> startupWarmUpService) {
+        Map<TrafficClass, AdaptiveConcurrencyLimit> concurrencyLimits = new EnumMap<>(TrafficClass.class);
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            concurrencyLimits.put(trafficClass, new AdaptiveConcurrencyLimit(initialConcurrencyLimit, minConcurrencyLimit, maxConcurrencyLimit,
+                    latencyTolerance, backoffRatio));
+        }
+        return new AdmissionControlFilter(concurrencyLimits, maxClients, () -> isWarmingUp(startupWarmUpService), clientRatePerSecond,
+                clientBurst, meterRegistry);
+    }
+
+    // the warm-up service is only present when the warm-up is enabled
+    private static boolean isWarmingUp(ObjectProvider<IStartupWarmUpService> startupWarmUpService) {
+        IStartupWarmUpService warmUpService = startupWarmUpService.getIfAvailable();
+        return warmUpService != null && warmUpService.isWarmingUp();
+    }
+
+    /**
+     * Register the admission control filter on the patient endpoints only : the actuator endpoints stay available under load.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration(AdmissionControlFilter admissionControlFilter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(admissionControlFilter);
+        registration.addUrlPatterns("/patients/*", "/notes/*");
+        // after the TrafficClassFilter, which classifies the requests
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
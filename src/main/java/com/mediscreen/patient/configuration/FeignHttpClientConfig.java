@@ -0,0 +1,74 @@
+package com.mediscreen.patient.configuration;
+
+import feign.Client;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.MicrometerHttpClientInterceptor;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class for the HTTP client of the Feign proxies : a pool of keep-alive connections (Apache HttpClient) replacing
+ * the default client of Feign, which is based on HttpURLConnection and keeps at most 5 idle connections per host.
+ * The pool, the opening of connections and the requests are measured by host in the "httpcomponents.httpclient.*" metrics.
+ * Compressed responses are requested and decompressed by the client. The connect and read timeouts remain the ones of Feign
+ * ("feign.client.config.*" properties). The requests of a hedged call losing to the other one are aborted by the client.
+ */
+@Configuration
+public class FeignHttpClientConfig {
+
+    private static final String HTTP_CLIENT_NAME = "feign";
+
+    @Bean(destroyMethod = "close")
+    public TimedHttpClientConnectionManager feignConnectionManager(MeterRegistry meterRegistry,
+                                                                   @Value("${feignHttpClient.maxConnections:200}") int maxConnections,
+                                                                   @Value("${feignHttpClient.maxConnectionsPerRoute:50}") int maxConnectionsPerRoute,
+                                                                   @Value("${feignHttpClient.timeToLiveMs:900000}") long timeToLiveMs,
+                                                                   @Value("${feignHttpClient.validateAfterInactivityMs:2000}") int validateAfterInactivityMs) {
+        TimedHttpClientConnectionManager connectionManager = new TimedHttpClientConnectionManager(meterRegistry, HTTP_CLIENT_NAME, timeToLiveMs);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        // a connection idle for a while may have been closed by the server : checked before being reused
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+        return connectionManager;
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(TimedHttpClientConnectionManager feignConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(feignConnectionManager, HTTP_CLIENT_NAME);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient feignHttpClient(TimedHttpClientConnectionManager feignConnectionManager, MeterRegistry meterRegistry,
+                                               @Value("${feignHttpClient.idleTimeoutMs:30000}") long idleTimeoutMs,
+                                               @Value("${feignHttpClient.connectionRequestTimeoutMs:1000}") int connectionRequestTimeoutMs) {
+        // the query string is left out of the uri tag, so that the number of metrics does not grow with the ids
+        MicrometerHttpClientInterceptor interceptor = new MicrometerHttpClientInterceptor(meterRegistry,
+                request -> request.getRequestLine().getUri().split("\\?", 2)[0], Tags.of("httpclient", HTTP_CLIENT_NAME), true);
+        return HttpClients.custom()
+                .setConnectionManager(feignConnectionManager)
+                // idle connections closed in background, before the server closes them
+                .evictIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS)
+                .evictExpiredConnections()
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectionRequestTimeout(connectionRequestTimeoutMs).build())
+                .addInterceptorFirst(interceptor.getRequestInterceptor())
+                .addInterceptorFirst(HedgingLoadBalancingClient.abortingInterceptor())
+                .addInterceptorLast(interceptor.getResponseInterceptor())
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Bean
+    public Client feignClient(CloseableHttpClient feignHttpClient) {
+        return new ApacheHttpClient(feignHttpClient);
+    }
+}
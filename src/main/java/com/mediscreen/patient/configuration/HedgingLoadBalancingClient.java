@@ -0,0 +1,431 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.util.SlidingWindowPercentile;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class materializing a Feign client spreading the requests of a proxy over several instances of a Microservice, and hedging the slow ones.
+ * Each request goes to the less loaded of two instances picked at random (power of two choices), the load being the requests outstanding.
+ * A GET request not answered within the observed 95th percentile latency is sent again to another instance, and the first response is used :
+ * the other request is aborted as soon as the first response arrives, or never sent if it is not started yet. The HTTP requests of the
+ * Apache HttpClient are aborted, closing their connection, when the interceptor returned by abortingInterceptor is added to the client :
+ * otherwise the thread of the other request is only interrupted and its response closed once it arrives. Hedges are limited by a budget,
+ * a fraction of the requests, so that a slow Microservice never receives much more than its usual load. With a single instance, nothing
+ * is hedged. Requests are sent on a bounded pool of threads : when it is saturated, a request is sent without hedging by the caller thread.
+ */
+public class HedgingLoadBalancingClient implements Client, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingLoadBalancingClient.class);
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private static final long HEDGE_DELAY_REFRESH_NS = TimeUnit.SECONDS.toNanos(1);
+
+    // the attempt sent by the current thread of the pool, whose HTTP request is captured by the aborting interceptor
+    private static final ThreadLocal<Attempt> currentAttempt = new ThreadLocal<>();
+
+    private final Client delegate;
+
+    private final List<Endpoint> endpoints;
+
+    private final boolean hedgingEnabled;
+
+    private final long minHedgeDelayNs;
+
+    private final int minSamples;
+
+    private final double hedgeRatio;
+
+    private final double maxHedgeBurst;
+
+    private final SlidingWindowPercentile latencies;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Counter hedges;
+
+    private final Counter hedgesWon;
+
+    // hedges allowed : credited by each request, up to the burst
+    private double hedgeCredits;
+
+    private volatile long hedgeDelayNs = -1;
+
+    private volatile long hedgeDelayComputedNs = System.nanoTime() - HEDGE_DELAY_REFRESH_NS;
+
+    /**
+     * Constructs the client.
+     *
+     * @param name The name of the Microservice, used in the metrics and the names of the threads
+     * @param delegate The client sending the requests
+     * @param urls The addresses of the instances of the Microservice, with or without scheme
+     * @param hedgingEnabled Whether the slow GET requests are hedged
+     * @param minHedgeDelayMs The minimum delay before hedging a request
+     * @param minSamples The number of latencies observed before hedging any request
+     * @param windowSize The number of latencies the 95th percentile is computed from
+     * @param hedgeRatio The fraction of the requests which can be hedged
+     * @param maxHedgeBurst The maximum number of hedges at once after a calm period
+     * @param maxThreads The maximum number of requests sent concurrently by the pool of threads
+     * @param meterRegistry The registry of the metrics
+     */
+    public HedgingLoadBalancingClient(String name, Client delegate, List<String> urls, boolean hedgingEnabled, long minHedgeDelayMs, int minSamples,
+                                      int windowSize, double hedgeRatio, int maxHedgeBurst, int maxThreads, MeterRegistry meterRegistry) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("No address of the " + name + " Microservice");
+        }
+        this.delegate = delegate;
+        List<Endpoint> endpointList = new ArrayList<>();
+        for (String url : urls) {
+            Endpoint endpoint = new Endpoint(url.trim());
+            Gauge.builder(name + ".requests.outstanding", endpoint.outstanding, AtomicInteger::get).tag("endpoint", endpoint.baseUrl)
+                    .description("Requests outstanding to an instance of the " + name + " Microservice").register(meterRegistry);
+            endpointList.add(endpoint);
+        }
+        this.endpoints = Collections.unmodifiableList(endpointList);
+        // a hedge sent to the same instance would only add to its load
+        this.hedgingEnabled = hedgingEnabled && endpoints.size() > 1;
+        this.minHedgeDelayNs = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.minSamples = minSamples;
+        this.hedgeRatio = hedgeRatio;
+        this.maxHedgeBurst = maxHedgeBurst;
+        this.hedgeCredits = maxHedgeBurst;
+        this.latencies = new SlidingWindowPercentile(windowSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-hedging-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedges = Counter.builder(name + ".hedges").description("Requests sent again to another instance of the " + name + " Microservice")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder(name + ".hedges.won").description("Hedged requests answered first by the hedge")
+                .register(meterRegistry);
+        logger.info("Requests to the {} Microservice spread over {}, hedging {}", name, endpoints, this.hedgingEnabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Return the interceptor to add to the Apache HttpClient sending the requests, so that the HTTP request of an attempt which lost to the
+     * other one is aborted. The requests not sent by this client are left as is.
+     *
+     * @return The interceptor capturing the HTTP requests of the attempts
+     */
+    public static HttpRequestInterceptor abortingInterceptor() {
+        return (request, context) -> {
+            Attempt attempt = currentAttempt.get();
+            if (attempt != null && request instanceof HttpRequestWrapper && ((HttpRequestWrapper) request).getOriginal() instanceof HttpUriRequest) {
+                attempt.sending((HttpUriRequest) ((HttpRequestWrapper) request).getOriginal());
+            }
+        };
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+
+        Endpoint primary = choose(null);
+
+        if (!hedgingEnabled || request.httpMethod() != Request.HttpMethod.GET) {
+            return send(primary, request, options);
+        }
+
+        creditHedge();
+        HedgedRequest hedgedRequest = new HedgedRequest(request, options);
+        if (!hedgedRequest.start(primary, false)) {
+            return send(primary, request, options);
+        }
+
+        long delayNs = hedgeDelayNs();
+        if (delayNs >= 0) {
+            Response response = hedgedRequest.await(delayNs);
+            if (response != null) {
+                return response;
+            }
+            if (!hedgedRequest.isDone() && takeHedgeCredit() && hedgedRequest.start(choose(primary), true)) {
+                hedges.increment();
+            }
+        }
+        return hedgedRequest.await(-1);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Return the addresses of the instances, with their scheme.
+     *
+     * @return The addresses of the instances
+     */
+    public List<String> getUrls() {
+        List<String> urls = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            urls.add(endpoint.baseUrl);
+        }
+        return urls;
+    }
+
+    // power of two choices : the less loaded of two instances picked at random, other than the excluded one if possible
+    private Endpoint choose(Endpoint excluded) {
+        int count = endpoints.size();
+        if (count == 1) {
+            return endpoints.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        if (a == excluded) {
+            return b;
+        }
+        if (b == excluded) {
+            return a;
+        }
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    private Response send(Endpoint endpoint, Request request, Request.Options options) throws IOException {
+        long start = System.nanoTime();
+        endpoint.outstanding.incrementAndGet();
+        try {
+            Response response = delegate.execute(endpoint.rewrite(request), options);
+            latencies.record(System.nanoTime() - start);
+            return response;
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+        }
+    }
+
+    // the observed 95th percentile latency, -1 while too few latencies are observed to hedge
+    private long hedgeDelayNs() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedNs >= HEDGE_DELAY_REFRESH_NS) {
+            hedgeDelayComputedNs = now;
+            hedgeDelayNs = latencies.getCount() < minSamples ? -1 : Math.max(minHedgeDelayNs, latencies.percentile(HEDGE_PERCENTILE));
+        }
+        return hedgeDelayNs;
+    }
+
+    private synchronized void creditHedge() {
+        hedgeCredits = Math.min(maxHedgeBurst, hedgeCredits + hedgeRatio);
+    }
+
+    private synchronized boolean takeHedgeCredit() {
+        if (hedgeCredits < 1) {
+            return false;
+        }
+        hedgeCredits--;
+        return true;
+    }
+
+    private static void closeQuietly(Response response) {
+        try {
+            response.close();
+        } catch (RuntimeException e) {
+            logger.debug("Response not closed : {}", e.toString());
+        }
+    }
+
+    /**
+     * Class materializing an instance of the Microservice, with its requests outstanding.
+     */
+    private static final class Endpoint {
+
+        private final String baseUrl;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private Endpoint(String url) {
+            String withScheme = url.startsWith("http://") || url.startsWith("https://") ? url : "http://" + url;
+            this.baseUrl = withScheme.endsWith("/") ? withScheme.substring(0, withScheme.length() - 1) : withScheme;
+        }
+
+        // the request sent to this instance : the scheme, host and port of the url replaced by the ones of the instance
+        private Request rewrite(Request request) {
+            URI uri = URI.create(request.url());
+            StringBuilder url = new StringBuilder(baseUrl).append(uri.getRawPath() == null ? "" : uri.getRawPath());
+            if (uri.getRawQuery() != null) {
+                url.append('?').append(uri.getRawQuery());
+            }
+            return Request.create(request.httpMethod(), url.toString(), request.headers(), request.body(), request.charset(), request.requestTemplate());
+        }
+
+        @Override
+        public String toString() {
+            return baseUrl;
+        }
+    }
+
+    /**
+     * Class materializing the sending of a request to one instance, which can be aborted once the other attempt is answered.
+     */
+    private static final class Attempt {
+
+        private volatile Future<?> future;
+
+        private volatile HttpUriRequest httpRequest;
+
+        private volatile boolean aborted;
+
+        // the first HTTP request sent, the one the redirects are executed for
+        private void sending(HttpUriRequest request) {
+            if (httpRequest == null) {
+                httpRequest = request;
+                if (aborted) {
+                    request.abort();
+                }
+            }
+        }
+
+        private void abort() {
+            aborted = true;
+            HttpUriRequest request = httpRequest;
+            if (request != null) {
+                request.abort();
+            }
+            Future<?> sending = future;
+            if (sending != null) {
+                sending.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Class materializing a request sent to one or two instances, completed by the first response or by the last failure.
+     */
+    private final class HedgedRequest {
+
+        private final Request request;
+
+        private final Request.Options options;
+
+        private final CompletableFuture<Response> firstResponse = new CompletableFuture<>();
+
+        private final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+
+        // attempts started and not failed yet
+        private final AtomicInteger pendingAttempts = new AtomicInteger();
+
+        private volatile Exception lastFailure;
+
+        private HedgedRequest(Request request, Request.Options options) {
+            this.request = request;
+            this.options = options;
+        }
+
+        private boolean isDone() {
+            return firstResponse.isDone();
+        }
+
+        private boolean start(Endpoint endpoint, boolean hedge) {
+            pendingAttempts.incrementAndGet();
+            Attempt attempt = new Attempt();
+            attempts.add(attempt);
+            try {
+                attempt.future = executor.submit(() -> attempt(attempt, endpoint, hedge));
+                return true;
+            } catch (RejectedExecutionException e) {
+                attempts.remove(attempt);
+                failed(null);
+                return false;
+            }
+        }
+
+        private void attempt(Attempt attempt, Endpoint endpoint, boolean hedge) {
+            // the other attempt answered while this one was waiting for a thread : never sent
+            if (firstResponse.isDone()) {
+                failed(null);
+                return;
+            }
+            currentAttempt.set(attempt);
+            try {
+                Response response = send(endpoint, request, options);
+                if (!firstResponse.complete(response)) {
+                    closeQuietly(response);
+                    return;
+                }
+                if (hedge) {
+                    hedgesWon.increment();
+                }
+                abortAttemptsOtherThan(attempt);
+            } catch (IOException | RuntimeException e) {
+                failed(e);
+            } finally {
+                currentAttempt.remove();
+            }
+        }
+
+        private void abortAttemptsOtherThan(Attempt winner) {
+            for (Attempt attempt : attempts) {
+                if (attempt != winner) {
+                    attempt.abort();
+                }
+            }
+        }
+
+        private void failed(Exception e) {
+            if (e != null) {
+                lastFailure = e;
+            }
+            if (pendingAttempts.decrementAndGet() == 0 && lastFailure != null) {
+                firstResponse.completeExceptionally(lastFailure);
+            }
+        }
+
+        // the first response, null if none within the timeout ; no timeout if negative
+        private Response await(long timeoutNs) throws IOException {
+            try {
+                return timeoutNs < 0 ? firstResponse.get() : firstResponse.get(timeoutNs, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (RuntimeException) cause;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // the response arriving later is closed by the attempt
+                firstResponse.cancel(false);
+                abortAttemptsOtherThan(null);
+                throw new InterruptedIOException("Interrupted while waiting for a response");
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.filter.IdempotencyFilter;
+import com.mediscreen.patient.repository.IdempotencyKeyRepository;
+import com.mediscreen.patient.service.IIdempotencyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Configuration class for the idempotency keys of the write endpoints, enabled by the "idempotency.enabled" property.
+ */
+@Configuration
+@ConditionalOnProperty(name = "idempotency.enabled", havingValue = "true")
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyKeyRepository idempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        return new IdempotencyKeyRepository(jdbcTemplate);
+    }
+
+    @Bean
+    public IdempotencyFilter idempotencyFilter(IIdempotencyService idempotencyService, MeterRegistry meterRegistry) {
+        return new IdempotencyFilter(idempotencyService, meterRegistry);
+    }
+
+    /**
+     * Register the idempotency filter on the write endpoints of the other Microservices and the command line clients.
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilterRegistration(IdempotencyFilter idempotencyFilter) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(idempotencyFilter);
+        registration.addUrlPatterns("/patients/add", "/patients/update");
+        // before the TrafficClassFilter and the AdmissionControlFilter : a repeated request is answered without taking their capacity
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+        return registration;
+    }
+}
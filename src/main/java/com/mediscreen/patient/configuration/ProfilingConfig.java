@@ -0,0 +1,42 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.filter.PatientRequestRecordingInterceptor;
+import com.mediscreen.patient.service.IPatientService;
+import com.mediscreen.patient.service.PatientServiceCallRecorder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class for the Flight Recorder events of the requests and the patient service calls, enabled by the "profiling.enabled" property.
+ * The calls of the Rapport Microservice are recorded by the client set in RapportClientConfig.
+ */
+@Configuration
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingConfig implements WebMvcConfigurer {
+
+    /**
+     * Record the calls of the patient service reaching the database or the Rapport Microservice : the service behind the coalescing one,
+     * wrapped once its transactional proxy is created.
+     */
+    @Bean
+    public static BeanPostProcessor patientServiceCallRecorderPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof IPatientService && "patientServiceImpl".equals(beanName)) {
+                    return PatientServiceCallRecorder.wrap((IPatientService) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PatientRequestRecordingInterceptor());
+    }
+}
@@ -0,0 +1,77 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.event.RapportCallEvent;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Class materializing a Feign client recording the calls of the Rapport Microservice sent by another client as Flight Recorder events,
+ * with the id of the patient assessed, the outcome and the duration. Nothing is recorded unless a recording enables the event,
+ * and only the calls slower than its threshold are.
+ */
+public class RapportCallRecordingClient implements Client, Closeable {
+
+    private static final String ID_PARAMETER = "id=";
+
+    private final Client delegate;
+
+    public RapportCallRecordingClient(Client delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        RapportCallEvent event = new RapportCallEvent();
+        if (!event.isEnabled()) {
+            return delegate.execute(request, options);
+        }
+        event.begin();
+        String outcome = null;
+        try {
+            Response response = delegate.execute(request, options);
+            outcome = String.valueOf(response.status());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                URI uri = URI.create(request.url());
+                event.method = request.httpMethod().name();
+                event.path = uri.getPath();
+                event.patientId = patientId(uri.getRawQuery());
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+    private static long patientId(String query) {
+        if (query == null) {
+            return 0;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(ID_PARAMETER)) {
+                try {
+                    return Long.parseLong(parameter.substring(ID_PARAMETER.length()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
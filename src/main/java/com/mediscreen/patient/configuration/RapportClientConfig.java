@@ -0,0 +1,35 @@
+package com.mediscreen.patient.configuration;
+
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+
+/**
+ * Configuration class for the Feign client of the Rapport Microservice only, set on the RapportMicroserviceProxy : the requests are spread
+ * over the instances listed by the "rapportMicroserviceUrls" property (the "rapportMicroserviceUrl" instance by default), and the slow ones
+ * are hedged. The requests are sent by the pooled HTTP client of all the Feign proxies. When the profiling is enabled, each call is recorded
+ * as a Flight Recorder event.
+ * Not annotated with @Configuration, so that it is only used by the context of the proxy declaring it rather than by all the Feign proxies.
+ */
+public class RapportClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public Client rapportFeignClient(@Qualifier("feignClient") Client feignClient, MeterRegistry meterRegistry,
+                                     @Value("${rapportMicroserviceUrls:${rapportMicroserviceUrl}}") String[] urls,
+                                     @Value("${rapportHedging.enabled:true}") boolean hedgingEnabled,
+                                     @Value("${rapportHedging.minDelayMs:20}") long minDelayMs,
+                                     @Value("${rapportHedging.minSamples:100}") int minSamples,
+                                     @Value("${rapportHedging.windowSize:1000}") int windowSize,
+                                     @Value("${rapportHedging.budgetRatio:0.05}") double budgetRatio,
+                                     @Value("${rapportHedging.maxBurst:10}") int maxBurst,
+                                     @Value("${rapportHedging.maxThreads:200}") int maxThreads,
+                                     @Value("${profiling.enabled:false}") boolean profilingEnabled) {
+        HedgingLoadBalancingClient client = new HedgingLoadBalancingClient("rapport", feignClient, Arrays.asList(urls), hedgingEnabled, minDelayMs,
+                minSamples, windowSize, budgetRatio, maxBurst, maxThreads, meterRegistry);
+        return profilingEnabled ? new RapportCallRecordingClient(client) : client;
+    }
+}
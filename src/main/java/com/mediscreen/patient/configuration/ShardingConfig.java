@@ -0,0 +1,100 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.repository.PatientShardRouter;
+import com.mediscreen.patient.repository.PatientShards;
+import com.mediscreen.patient.repository.ShardRoutingDataSource;
+import com.mediscreen.patient.repository.ShardedPatientRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class for the sharding of the patient registry across several databases, enabled by the "sharding.enabled" property.
+ * The shards share the username and password of the "spring.datasource" properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final String SCHEMA_MIGRATIONS_LOCATION = "classpath:db/migration";
+
+    @Bean
+    public PatientShards patientShards(@Value("${sharding.urls}") String[] urls, DataSourceProperties dataSourceProperties) {
+        List<DataSource> dataSources = new ArrayList<>(urls.length);
+        for (int shard = 0; shard < urls.length; shard++) {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls[shard].trim())
+                    .build();
+            dataSource.setPoolName("patient-shard-" + shard);
+            dataSource.setConnectionInitSql(PatientShardRouter.connectionInitSql(shard));
+            dataSources.add(dataSource);
+        }
+        return new PatientShards(dataSources);
+    }
+
+    /**
+     * The data source of the JPA provider, routing the connections to the shard of the current thread.
+     * The connections are fetched lazily, when the first statement of a transaction is executed : the shard only needs to be set by then.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(PatientShards patientShards) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        for (int shard = 0; shard < patientShards.getShardCount(); shard++) {
+            targetDataSources.put(shard, patientShards.getDataSource(shard));
+        }
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(patientShards.getDataSource(0));
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public PatientShardRouter patientShardRouter(PatientShards patientShards) {
+        return new PatientShardRouter(patientShards.getShardCount(), new JdbcTemplate(patientShards.getDataSource(0)));
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @Primary
+    public ShardedPatientRepository shardedPatientRepository(@Qualifier("patientRepository") PatientRepository patientRepository,
+                                                             PatientShardRouter patientShardRouter, PlatformTransactionManager transactionManager) {
+        return new ShardedPatientRepository(patientRepository, patientShardRouter, transactionManager);
+    }
+
+    /**
+     * Migrate the schema of every shard, with the Flyway configuration of the application.
+     * Only the first shard gets the migrations of the additional locations, such as the patients of the development database.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(PatientShards patientShards) {
+        return flyway -> {
+            flyway.migrate();
+            for (int shard = 1; shard < patientShards.getShardCount(); shard++) {
+                Flyway.configure().configuration(flyway.getConfiguration())
+                        .dataSource(patientShards.getDataSource(shard))
+                        .locations(SCHEMA_MIGRATIONS_LOCATION)
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.filter.SqlStatementBudgetFilter;
+import com.mediscreen.patient.repository.StatementCountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration class for the budgets of SQL statements of the endpoints, enabled by the "sqlStatementBudget.enabled" property.
+ * The data source is wrapped to count the statements of each request, the budgets are given as "METHOD pattern=max" entries.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sqlStatementBudget.enabled", havingValue = "true")
+public class SqlStatementBudgetConfig {
+
+    /**
+     * Wrap the data source, routing or not, used by Hibernate, the JdbcTemplate and Flyway.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource) && "dataSource".equals(beanName)) {
+                    return new StatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatementBudgetFilter sqlStatementBudgetFilter(@Value("${sqlStatementBudget.budgets:}") String[] budgets,
+                                                             @Value("${sqlStatementBudget.defaultBudget:0}") int defaultBudget,
+                                                             @Value("${sqlStatementBudget.repeatThreshold:10}") int repeatThreshold,
+                                                             @Value("${sqlStatementBudget.headers:false}") boolean headersEnabled,
+                                                             @Value("${sqlStatementBudget.failOnExceeded:false}") boolean failOnExceeded,
+                                                             MeterRegistry meterRegistry) {
+        Map<String, Integer> budgetsByEndpoint = new HashMap<>();
+        for (String budget : budgets) {
+            if (budget.trim().isEmpty()) {
+                continue;
+            }
+            int separator = budget.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("SQL statements budget not in the METHOD pattern=max form : " + budget);
+            }
+            budgetsByEndpoint.put(budget.substring(0, separator).trim(), Integer.parseInt(budget.substring(separator + 1).trim()));
+        }
+        return new SqlStatementBudgetFilter(budgetsByEndpoint, defaultBudget, repeatThreshold, headersEnabled, failOnExceeded, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementBudgetFilter> sqlStatementBudgetFilterRegistration(SqlStatementBudgetFilter sqlStatementBudgetFilter) {
+        FilterRegistrationBean<SqlStatementBudgetFilter> registration = new FilterRegistrationBean<>(sqlStatementBudgetFilter);
+        registration.addUrlPatterns("/patients/*", "/notes/*");
+        // before the IdempotencyFilter, whose statements are counted as well
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 3);
+        return registration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mediscreen.patient.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Configuration class for the training run made when building the Docker image : the application exits as soon as it is ready,
+ * so that the JVM can record the classes loaded at startup in a class data sharing archive.
+ */
+@Configuration
+@ConditionalOnProperty(name = "startup.exitWhenReady", havingValue = "true")
+public class StartupTrainingRunConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTrainingRunConfig.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exitWhenReady(ApplicationReadyEvent event) {
+        logger.info("Training run : application ready, exiting");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
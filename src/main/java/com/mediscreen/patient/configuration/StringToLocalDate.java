@@ -0,0 +1,21 @@
+package com.mediscreen.patient.configuration;
+
+import org.springframework.core.convert.converter.Converter;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Class in charge of converting the request parameters to LocalDate, accepting both "2000-01-01" and "2000-1-1".
+ */
+public class StringToLocalDate implements Converter<String, LocalDate> {
+
+    // DateTimeFormatter is immutable and thread-safe : built once instead of for each request
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-M-d");
+
+    @Override
+    public LocalDate convert(String source) {
+        return LocalDate.parse(source.trim(), FORMATTER);
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.constant.Sex;
+import org.springframework.core.convert.converter.Converter;
+
+/**
+ * Class in charge of converting the request parameters to Sex, ignoring the case.
+ */
+public class StringToSex implements Converter<String, Sex> {
+
+    @Override
+    public Sex convert(String source) {
+        String sex = source.trim();
+        if (sex.length() == 1) {
+            switch (sex.charAt(0)) {
+                case 'F':
+                case 'f':
+                    return Sex.F;
+                case 'M':
+                case 'm':
+                    return Sex.M;
+                default:
+                    break;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sex : " + source);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.mediscreen.patient.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class materializing a pool of HTTP connections recording the time spent opening new connections, by target host.
+ * The connections reused from the pool do not pay this time : its count is the number of connections opened.
+ */
+public class TimedHttpClientConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private final MeterRegistry meterRegistry;
+
+    private final String name;
+
+    public TimedHttpClientConnectionManager(MeterRegistry meterRegistry, String name, long timeToLiveMs) {
+        super(timeToLiveMs, TimeUnit.MILLISECONDS);
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+    }
+
+    @Override
+    public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "FAILURE";
+        try {
+            super.connect(managedConn, route, connectTimeout, context);
+            outcome = "SUCCESS";
+        } finally {
+            sample.stop(Timer.builder("httpcomponents.httpclient.connect")
+                    .description("Time spent opening the connections of the pool")
+                    .tag("httpclient", name)
+                    .tag("target.host", route.getTargetHost().getHostName())
+                    .tag("target.port", String.valueOf(route.getTargetHost().getPort()))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
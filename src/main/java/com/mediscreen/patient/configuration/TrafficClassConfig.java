@@ -0,0 +1,49 @@
+package com.mediscreen.patient.configuration;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.filter.TrafficClassFilter;
+import com.mediscreen.patient.util.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuration class for the isolation of the traffic classes, enabled by the "trafficClass.enabled" property.
+ * The threads of the server are partitioned between the classes : for each class, maxConcurrent + maxQueued threads at most.
+ */
+@Configuration
+@ConditionalOnProperty(name = "trafficClass.enabled", havingValue = "true")
+public class TrafficClassConfig {
+
+    @Bean
+    public TrafficClassFilter trafficClassFilter(@Value("${trafficClass.uiPaths}") String[] uiPaths,
+                                                 @Value("${trafficClass.api.maxConcurrent:150}") int apiMaxConcurrent,
+                                                 @Value("${trafficClass.api.maxQueued:20}") int apiMaxQueued,
+                                                 @Value("${trafficClass.api.maxWaitMs:500}") long apiMaxWaitMs,
+                                                 @Value("${trafficClass.ui.maxConcurrent:5}") int uiMaxConcurrent,
+                                                 @Value("${trafficClass.ui.maxQueued:25}") int uiMaxQueued,
+                                                 @Value("${trafficClass.ui.maxWaitMs:5000}") long uiMaxWaitMs,
+                                                 MeterRegistry meterRegistry) {
+        Map<TrafficClass, Bulkhead> bulkheads = new EnumMap<>(TrafficClass.class);
+        bulkheads.put(TrafficClass.Api, new Bulkhead(apiMaxConcurrent, apiMaxQueued, apiMaxWaitMs));
+        bulkheads.put(TrafficClass.Ui, new Bulkhead(uiMaxConcurrent, uiMaxQueued, uiMaxWaitMs));
+        return new TrafficClassFilter(Arrays.asList(uiPaths), bulkheads, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<TrafficClassFilter> trafficClassFilterRegistration(TrafficClassFilter trafficClassFilter) {
+        FilterRegistrationBean<TrafficClassFilter> registration = new FilterRegistrationBean<>(trafficClassFilter);
+        registration.addUrlPatterns("/patients/*", "/notes/*");
+        // before the AdmissionControlFilter, which applies the concurrency limit of the class
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
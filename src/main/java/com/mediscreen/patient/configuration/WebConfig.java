@@ -4,10 +4,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+/**
+ * Configuration class for the conversion of the request parameters.
+ */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
     @Override
     public void addFormatters(FormatterRegistry registry) {
         registry.addConverter(new StringToLocalDate());
+        registry.addConverter(new StringToSex());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.mediscreen.patient.constant;
+
+/**
+ * Enumeration materializing the types of change that can happen to a patient.
+ */
+public enum PatientChangeType {
+    Created,
+    Updated
+}
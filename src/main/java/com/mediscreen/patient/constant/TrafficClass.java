@@ -0,0 +1,10 @@
+package com.mediscreen.patient.constant;
+
+/**
+ * Enumeration materializing the classes of traffic served by the Microservice, isolated from each other :
+ * the JSON endpoints called by the other Microservices, and the pages of the user interface.
+ */
+public enum TrafficClass {
+    Api,
+    Ui
+}
@@ -0,0 +1,10 @@
+package com.mediscreen.patient.constant;
+
+/**
+ * Enumeration materializing the status of an asynchronous patient update.
+ */
+public enum UpdateStatus {
+    Pending,
+    Committed,
+    Failed
+}
@@ -0,0 +1,133 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.PatientSnapshotQuery;
+import com.mediscreen.patient.service.IPatientSnapshotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Controller in charge of managing the endpoints for population-level analytics on patients, served from the patients columnar snapshot.
+ * Rarely used : created on the first request rather than at startup.
+ */
+@Controller
+@Lazy
+public class PatientAnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientAnalyticsController.class);
+
+    private final IPatientSnapshotService patientSnapshotService;
+
+    public PatientAnalyticsController(IPatientSnapshotService patientSnapshotService) {
+        this.patientSnapshotService = patientSnapshotService;
+    }
+
+    /**
+     * Method managing the GET "/patients/analytics/count" endpoint HTTP request to count the patients matching the filters in JSON data.
+     *
+     * @param sex The sex of the patients
+     * @param minAge The minimum age of the patients
+     * @param maxAge The maximum age of the patients
+     * @param lastName The last name of the patients
+     * @param firstName The first name of the patients
+     * @return A ResponseEntity containing the number of patients and the HTTP status code
+     */
+    @GetMapping("/patients/analytics/count")
+    public ResponseEntity<Long> countPatients(@RequestParam(required = false) Sex sex, @RequestParam(required = false) Integer minAge, @RequestParam(required = false) Integer maxAge, @RequestParam(value = "family", required = false) String lastName, @RequestParam(value = "given", required = false) String firstName) {
+
+        logger.info("Request : GET /patients/analytics/count");
+
+        long count = patientSnapshotService.getSnapshot().count(buildQuery(sex, minAge, maxAge, lastName, firstName));
+
+        logger.info("Success : {} patients counted", count);
+
+        return new ResponseEntity<>(count, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the GET "/patients/analytics/countBySex" endpoint HTTP request to count the patients matching the filters by sex in JSON data.
+     *
+     * @param minAge The minimum age of the patients
+     * @param maxAge The maximum age of the patients
+     * @param lastName The last name of the patients
+     * @param firstName The first name of the patients
+     * @return A ResponseEntity containing the number of patients for each sex and the HTTP status code
+     */
+    @GetMapping("/patients/analytics/countBySex")
+    public ResponseEntity<Map<Sex, Long>> countPatientsBySex(@RequestParam(required = false) Integer minAge, @RequestParam(required = false) Integer maxAge, @RequestParam(value = "family", required = false) String lastName, @RequestParam(value = "given", required = false) String firstName) {
+
+        logger.info("Request : GET /patients/analytics/countBySex");
+
+        Map<Sex, Long> countBySex = patientSnapshotService.getSnapshot().countBySex(buildQuery(null, minAge, maxAge, lastName, firstName));
+
+        logger.info("Success : patients counted by sex");
+
+        return new ResponseEntity<>(countBySex, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the GET "/patients/analytics/countByAgeBracket" endpoint HTTP request to count the patients matching the filters by age bracket in JSON data.
+     *
+     * @param bracketWidth The width in years of each age bracket
+     * @param sex The sex of the patients
+     * @param lastName The last name of the patients
+     * @param firstName The first name of the patients
+     * @return A ResponseEntity containing the number of patients for each age bracket and the HTTP status code
+     */
+    @GetMapping("/patients/analytics/countByAgeBracket")
+    public ResponseEntity<SortedMap<Integer, Long>> countPatientsByAgeBracket(@RequestParam(defaultValue = "10") int bracketWidth, @RequestParam(required = false) Sex sex, @RequestParam(value = "family", required = false) String lastName, @RequestParam(value = "given", required = false) String firstName) {
+
+        logger.info("Request : GET /patients/analytics/countByAgeBracket with bracket width = {}", bracketWidth);
+
+        if (bracketWidth <= 0) {
+            logger.error("Error : bracket width must be positive");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        SortedMap<Integer, Long> countByAgeBracket = patientSnapshotService.getSnapshot().countByAgeBracket(buildQuery(sex, null, null, lastName, firstName), bracketWidth, LocalDate.now());
+
+        logger.info("Success : patients counted by age bracket");
+
+        return new ResponseEntity<>(countByAgeBracket, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the GET "/patients/analytics/cohort" endpoint HTTP request to get the ids of the patients matching the filters in JSON data.
+     *
+     * @param sex The sex of the patients
+     * @param minAge The minimum age of the patients
+     * @param maxAge The maximum age of the patients
+     * @param lastName The last name of the patients
+     * @param firstName The first name of the patients
+     * @return A ResponseEntity containing the ids of the patients and the HTTP status code
+     */
+    @GetMapping("/patients/analytics/cohort")
+    public ResponseEntity<long[]> getCohort(@RequestParam(required = false) Sex sex, @RequestParam(required = false) Integer minAge, @RequestParam(required = false) Integer maxAge, @RequestParam(value = "family", required = false) String lastName, @RequestParam(value = "given", required = false) String firstName) {
+
+        logger.info("Request : GET /patients/analytics/cohort");
+
+        long[] ids = patientSnapshotService.getSnapshot().findIds(buildQuery(sex, minAge, maxAge, lastName, firstName));
+
+        logger.info("Success : cohort of {} patients found", ids.length);
+
+        return new ResponseEntity<>(ids, HttpStatus.OK);
+    }
+
+    private PatientSnapshotQuery buildQuery(Sex sex, Integer minAge, Integer maxAge, String lastName, String firstName) {
+        return PatientSnapshotQuery.all()
+                .withSex(sex)
+                .agedBetween(minAge, maxAge, LocalDate.now())
+                .withLastName(lastName)
+                .withFirstName(firstName);
+    }
+}
@@ -1,13 +1,19 @@
 package com.mediscreen.patient.controller;
 
+import com.mediscreen.patient.constant.Assessment;
 import com.mediscreen.patient.constant.Sex;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.domain.PatientUpdateTicket;
 import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.service.IPatientChangeStreamService;
 import com.mediscreen.patient.service.IPatientService;
+import com.mediscreen.patient.service.IPatientUpdateQueueService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,15 +22,18 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.*;
 import java.net.URI;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Controller in charge of managing the endpoints for Patient entities.
@@ -34,34 +43,83 @@ public class PatientController {
 
     private static final Logger logger = LoggerFactory.getLogger(PatientController.class);
 
+    private static final String SORT_BY_RISK = "risk";
+
+    private static final String PREFER_HEADER = "Prefer";
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
     @Value("${noteMicroserviceUrl}")
     private String noteMicroserviceUrl;
 
     private final IPatientService patientService;
 
-    public PatientController(IPatientService patientService) {
+    private final IPatientUpdateQueueService patientUpdateQueueService;
+
+    private final IPatientChangeStreamService patientChangeStreamService;
+
+    private final Validator validator;
+
+    public PatientController(IPatientService patientService, IPatientUpdateQueueService patientUpdateQueueService,
+                             IPatientChangeStreamService patientChangeStreamService, Validator validator) {
         this.patientService = patientService;
+        this.patientUpdateQueueService = patientUpdateQueueService;
+        this.patientChangeStreamService = patientChangeStreamService;
+        this.validator = validator;
     }
 
     /**
      * Method managing the GET "/patients/list" endpoint HTTP request to get the list of all patients in a HTML page.
+     * The patients can be filtered by risk assessment, or sorted by decreasing risk, from their latest risk assessment stored.
      *
+     * @param risk The risk assessment of the patients to list, all patients if not given
+     * @param sort "risk" to sort the patients by decreasing risk, by id otherwise
      * @param model The Model containing the list of all patients
      * @return The name of the View
      */
     @GetMapping("/patients/list")
-    public String getPatients(Model model) {
+    public String getPatients(@RequestParam(required = false) Assessment risk, @RequestParam(required = false) String sort, Model model) {
 
-        logger.info("Request : GET /patients/list");
+        logger.info("Request : GET /patients/list with risk = {} & sort = {}", risk, sort);
 
-        List<Patient> patients = patientService.findAllPatients();
+        // read before the list : the page subscribes to the changes from this one, a change already in the list is only patched again
+        String lastChangeId = patientChangeStreamService.getLastChangeId();
+        List<PatientListItem> patients = risk != null || SORT_BY_RISK.equals(sort)
+                ? patientService.findPatientListItemsByRisk(risk) : patientService.findAllPatientListItems();
         model.addAttribute("patients", patients);
+        model.addAttribute("lastChangeId", lastChangeId);
+        model.addAttribute("risks", Assessment.values());
+        model.addAttribute("risk", risk);
 
         logger.info("Success : patients found, returning 'patients/list' view");
 
         return "patients/list";
     }
 
+    /**
+     * Method managing the GET "/patients/list/changes" endpoint HTTP request to get the stream of the patients created or updated as Server-Sent Events,
+     * used by the patients list page to patch its rows.
+     *
+     * @param since The id of the change the patients list page was read at
+     * @param lastEventId The id of the last change received, sent by the browser when it reconnects
+     * @return A ResponseEntity containing the emitter of the events and the HTTP status code
+     */
+    @GetMapping(value = "/patients/list/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getPatientChanges(@RequestParam(required = false) String since, @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        logger.info("Request : GET /patients/list/changes");
+
+        SseEmitter emitter = patientChangeStreamService.subscribe(lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            logger.error("Error : too many subscribers to the patient changes");
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        logger.info("Success : subscribed to the patient changes");
+
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+
     /**
      * Method managing the GET "/patients/patientByFamilyAndGiven" endpoint HTTP request to get a patient given its last name and first name in JSON data.
      *
@@ -99,6 +157,24 @@ public class PatientController {
         return new ResponseEntity<>(patient, HttpStatus.OK);
     }
 
+    /**
+     * Method managing the GET "/patients/byPhone" endpoint HTTP request to get the patients given their phone number in JSON data.
+     *
+     * @param phone The phone number of the patients, in any format
+     * @return A ResponseEntity containing the patients and the HTTP status code
+     */
+    @GetMapping("/patients/byPhone")
+    public ResponseEntity<List<Patient>> getPatientsByPhoneNumber(@RequestParam("phone") String phone) {
+
+        logger.info("Request : GET /patients/byPhone with phone = {}", phone);
+
+        List<Patient> patients = patientService.findPatientsByPhoneNumber(phone);
+
+        logger.info("Success : {} patients with phone {} found", patients.size(), phone);
+
+        return new ResponseEntity<>(patients, HttpStatus.OK);
+    }
+
     /**
      * Method managing the GET "/patients/updateform/{id}" endpoint HTTP request to update a patient using a HTML form.
      *
@@ -147,6 +223,8 @@ public class PatientController {
 
     /**
      * Method managing the POST "/patients/update" endpoint HTTP request to update a patient using a command line HTTP client and parameters in the URL request.
+     * Sent with a "Prefer" header including the "respond-async" preference, the update is accepted once made durable, then committed to the database
+     * in the background.
      *
      * @param family The last name of the patient
      * @param given The first name of the patient
@@ -154,20 +232,26 @@ public class PatientController {
      * @param sex The sex of the patient
      * @param address The home address of the patient
      * @param phone The phone number of the patient
-     * @return A ResponseEntity containing the updated patient and the HTTP status code
+     * @param prefer The "Prefer" header, if any
+     * @return A ResponseEntity containing the updated patient, or the ticket of the update and the location of its status if asynchronous,
+     * and the HTTP status code
      */
     @PostMapping("/patients/update")
-    public ResponseEntity<Patient> updatePatient(@RequestParam(required = true) String family, @RequestParam(required = true) String given, @RequestParam(required = true) String dob, @RequestParam(required = true) Sex sex, @RequestParam(required = false) String address, @RequestParam(required = false) String phone) {
+    public ResponseEntity<?> updatePatient(@RequestParam(required = true) String family, @RequestParam(required = true) String given, @RequestParam(required = true) LocalDate dob, @RequestParam(required = true) Sex sex, @RequestParam(required = false) String address, @RequestParam(required = false) String phone,
+                                           @RequestHeader(value = PREFER_HEADER, required = false) String prefer) {
 
         logger.info("Request : POST /patients/update");
 
-        Patient patientToUpdate = patientService.findPatientByLastNameAndFirstName(family, given);
+        Patient patientUpdated = new Patient(family, given, dob, sex, address, phone);
+        validate(patientUpdated);
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        LocalDate dateOfBirth = LocalDate.parse(dob, formatter);
-        Patient patientUpdated = new Patient(family, given, dateOfBirth, sex, address, phone);
+        Patient patientToUpdate = patientService.findPatientByLastNameAndFirstName(family, given);
         patientUpdated.setId(patientToUpdate.getId());
 
+        if (prefersRespondAsync(prefer)) {
+            return acceptUpdate(patientUpdated);
+        }
+
         patientService.updatePatient(patientUpdated);
 
         logger.info("Success : patient updated");
@@ -175,6 +259,53 @@ public class PatientController {
         return new ResponseEntity<>(patientUpdated, HttpStatus.OK);
     }
 
+    /**
+     * Method managing the POST "/patients/update" endpoint HTTP request to update a patient using a command line HTTP client and the patient in JSON data.
+     * Sent with a "Prefer" header including the "respond-async" preference, the update is accepted once made durable, then committed to the database
+     * in the background.
+     *
+     * @param patient The patient to update, identified by its last name and first name
+     * @param prefer The "Prefer" header, if any
+     * @return A ResponseEntity containing the updated patient, or the ticket of the update and the location of its status if asynchronous,
+     * and the HTTP status code
+     */
+    @PostMapping(value = "/patients/update", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> updatePatientFromJson(@Valid @RequestBody Patient patient, @RequestHeader(value = PREFER_HEADER, required = false) String prefer) {
+
+        logger.info("Request : POST /patients/update with JSON body");
+
+        Patient patientToUpdate = patientService.findPatientByLastNameAndFirstName(patient.getLastName(), patient.getFirstName());
+        patient.setId(patientToUpdate.getId());
+
+        if (prefersRespondAsync(prefer)) {
+            return acceptUpdate(patient);
+        }
+
+        patientService.updatePatient(patient);
+
+        logger.info("Success : patient updated");
+
+        return new ResponseEntity<>(patient, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the GET "/patients/update/status/{ticketId}" endpoint HTTP request to get the status of an asynchronous patient update in JSON data.
+     *
+     * @param ticketId The ticket of the update
+     * @return A ResponseEntity containing the ticket of the update and the HTTP status code
+     */
+    @GetMapping("/patients/update/status/{ticketId}")
+    public ResponseEntity<PatientUpdateTicket> getPatientUpdateStatus(@PathVariable("ticketId") String ticketId) {
+
+        logger.info("Request : GET /patients/update/status/{}", ticketId);
+
+        PatientUpdateTicket ticket = patientUpdateQueueService.getTicket(ticketId);
+
+        logger.info("Success : patient update with ticket {} is {}", ticketId, ticket.getStatus());
+
+        return new ResponseEntity<>(ticket, HttpStatus.OK);
+    }
+
     /**
      * Method managing the GET "/patients/addform" endpoint HTTP request to add a patient using a HTML form.
      *
@@ -227,13 +358,12 @@ public class PatientController {
      * @return A ResponseEntity containing the location of the patient created and the HTTP status code
      */
     @PostMapping("/patients/add")
-    public ResponseEntity<Patient> addPatient(@RequestParam(required = true) String family, @RequestParam(required = true) String given, @RequestParam(required = true) String dob, @RequestParam(required = true) Sex sex, @RequestParam(required = false) String address, @RequestParam(required = false) String phone) {
+    public ResponseEntity<Patient> addPatient(@RequestParam(required = true) String family, @RequestParam(required = true) String given, @RequestParam(required = true) LocalDate dob, @RequestParam(required = true) Sex sex, @RequestParam(required = false) String address, @RequestParam(required = false) String phone) {
 
         logger.info("Request : POST /patients/add");
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        LocalDate dateOfBirth = LocalDate.parse(dob, formatter);
-        Patient patientToAdd = new Patient(family, given, dateOfBirth, sex, address, phone);
+        Patient patientToAdd = new Patient(family, given, dob, sex, address, phone);
+        validate(patientToAdd);
 
         patientService.createPatient(patientToAdd);
 
@@ -245,6 +375,29 @@ public class PatientController {
         return ResponseEntity.created(location).build();
     }
 
+    /**
+     * Method managing the POST "/patients/add" endpoint HTTP request to add a patient using a command line HTTP client and the patient in JSON data.
+     *
+     * @param patient The patient to add
+     * @return A ResponseEntity containing the location of the patient created and the HTTP status code
+     */
+    @PostMapping(value = "/patients/add", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Patient> addPatientFromJson(@Valid @RequestBody Patient patient) {
+
+        logger.info("Request : POST /patients/add with JSON body");
+
+        // the id is generated by the database, an id sent by the client must not update an existing patient
+        patient.setId(0);
+        patientService.createPatient(patient);
+
+        logger.info("Success : new patient created");
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}")
+                .buildAndExpand(patient.getId()).toUri();
+
+        return ResponseEntity.created(location).build();
+    }
+
     /**
      * Method managing the GET "/notes/{lastName}/{firstName}" endpoint HTTP request to redirect to the patient notes view in the Mediscreen Note Microservice
      *
@@ -286,4 +439,56 @@ public class PatientController {
 
         return "patients/rapport";
     }
+
+    /**
+     * Enqueue the update of a patient, to be applied asynchronously.
+     *
+     * @param patient The patient to update
+     * @return A ResponseEntity containing the ticket of the update, the location of its status and the HTTP status code
+     */
+    private ResponseEntity<PatientUpdateTicket> acceptUpdate(Patient patient) {
+
+        PatientUpdateTicket ticket = patientUpdateQueueService.enqueueUpdate(patient);
+
+        logger.info("Success : patient update accepted with ticket {}", ticket.getTicketId());
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/status/{ticketId}")
+                .buildAndExpand(ticket.getTicketId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(ticket);
+    }
+
+    /**
+     * Tell whether a "Prefer" header (RFC 7240) asks for an asynchronous response.
+     * The preferences are comma separated, each one possibly followed by parameters or a value.
+     *
+     * @param prefer The value of the "Prefer" header, null if not sent
+     * @return true if the "respond-async" preference is given, false otherwise
+     */
+    static boolean prefersRespondAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            String token = preference.split("[;=]", 2)[0].trim();
+            if (RESPOND_ASYNC.equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validate a patient built from the request parameters.
+     * The patients are validated only once, in the controller : the validation by the JPA provider when the patient is saved is disabled.
+     *
+     * @param patient The patient to validate
+     * @throws ConstraintViolationException if the patient is not valid
+     */
+    private void validate(Patient patient) throws ConstraintViolationException {
+        Set<ConstraintViolation<Patient>> violations = validator.validate(patient);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
 }
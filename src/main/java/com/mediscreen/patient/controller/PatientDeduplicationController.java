@@ -0,0 +1,68 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.domain.MergeCandidate;
+import com.mediscreen.patient.service.IPatientDeduplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.util.List;
+
+/**
+ * Controller in charge of managing the endpoints for the detection of duplicate patients.
+ * Rarely used : created on the first request rather than at startup.
+ */
+@Controller
+@Lazy
+public class PatientDeduplicationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientDeduplicationController.class);
+
+    private final IPatientDeduplicationService patientDeduplicationService;
+
+    public PatientDeduplicationController(IPatientDeduplicationService patientDeduplicationService) {
+        this.patientDeduplicationService = patientDeduplicationService;
+    }
+
+    /**
+     * Method managing the GET "/patients/duplicates" endpoint HTTP request to get the pairs of patients suspected to be duplicates in JSON data.
+     *
+     * @return A ResponseEntity containing the merge candidates and the HTTP status code
+     */
+    @GetMapping("/patients/duplicates")
+    public ResponseEntity<List<MergeCandidate>> getMergeCandidates() {
+
+        logger.info("Request : GET /patients/duplicates");
+
+        List<MergeCandidate> mergeCandidates = patientDeduplicationService.getMergeCandidates();
+
+        logger.info("Success : {} merge candidates found", mergeCandidates.size());
+
+        return new ResponseEntity<>(mergeCandidates, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the POST "/patients/duplicates/scan" endpoint HTTP request to start a scan of the whole registry for duplicate patients.
+     *
+     * @return A ResponseEntity containing the HTTP status code
+     */
+    @PostMapping("/patients/duplicates/scan")
+    public ResponseEntity<Void> scanAllPatients() {
+
+        logger.info("Request : POST /patients/duplicates/scan");
+
+        if (!patientDeduplicationService.startFullScan()) {
+            logger.error("Error : duplicate patients scan already in progress");
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+
+        logger.info("Success : duplicate patients scan started");
+
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.service.IPatientReshardingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Map;
+
+/**
+ * Controller in charge of managing the endpoints for the administration of the shards of the sharded patient registry.
+ * Rarely used : created on the first request rather than at startup.
+ */
+@Controller
+@Lazy
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class PatientShardingController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientShardingController.class);
+
+    private final IPatientReshardingService patientReshardingService;
+
+    public PatientShardingController(IPatientReshardingService patientReshardingService) {
+        this.patientReshardingService = patientReshardingService;
+    }
+
+    /**
+     * Method managing the GET "/patients/shards" endpoint HTTP request to get the number of patients held by each shard in JSON data.
+     *
+     * @return A ResponseEntity containing the number of patients by shard and the HTTP status code
+     */
+    @GetMapping("/patients/shards")
+    public ResponseEntity<Map<Integer, Long>> countPatientsByShard() {
+
+        logger.info("Request : GET /patients/shards");
+
+        Map<Integer, Long> counts = patientReshardingService.countPatientsByShard();
+
+        logger.info("Success : patients counted on {} shards", counts.size());
+
+        return new ResponseEntity<>(counts, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the POST "/patients/shards/buckets/{bucket}/move" endpoint HTTP request to move a bucket of patients to another shard.
+     *
+     * @param bucket The bucket
+     * @param targetShard The shard to move the bucket to
+     * @return A ResponseEntity containing the number of patients moved and the HTTP status code
+     */
+    @PostMapping("/patients/shards/buckets/{bucket}/move")
+    public ResponseEntity<Integer> moveBucket(@PathVariable int bucket, @RequestParam int targetShard) {
+
+        logger.info("Request : POST /patients/shards/buckets/{}/move with target shard {}", bucket, targetShard);
+
+        int moved;
+        try {
+            moved = patientReshardingService.moveBucket(bucket, targetShard);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error : {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        logger.info("Success : {} patients moved", moved);
+
+        return new ResponseEntity<>(moved, HttpStatus.OK);
+    }
+}
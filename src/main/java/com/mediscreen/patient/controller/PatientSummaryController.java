@@ -0,0 +1,74 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.domain.PatientSummary;
+import com.mediscreen.patient.service.IPatientSummaryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Controller in charge of managing the endpoints for the summaries of patients, i.e. a patient and its diabetes risk assessment report in one request.
+ */
+@Controller
+public class PatientSummaryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSummaryController.class);
+
+    private final IPatientSummaryService patientSummaryService;
+
+    public PatientSummaryController(IPatientSummaryService patientSummaryService) {
+        this.patientSummaryService = patientSummaryService;
+    }
+
+    /**
+     * Method managing the GET "/patients/summary/{id}" endpoint HTTP request to get the summary of a patient given its identifier in JSON data.
+     * A summary missing a part is returned with the 200 HTTP status code and the part listed as unavailable, an empty summary with the 503 HTTP status code.
+     *
+     * @param id The id of the patient
+     * @return A ResponseEntity containing the summary and the HTTP status code
+     */
+    @GetMapping("/patients/summary/{id}")
+    public ResponseEntity<PatientSummary> getPatientSummary(@PathVariable("id") long id) {
+
+        logger.info("Request : GET /patients/summary/{}", id);
+
+        PatientSummary summary = patientSummaryService.getPatientSummary(id);
+
+        if (summary.getPatient() == null && summary.getRapport() == null) {
+            logger.error("Error : summary of patient with id {} unavailable", id);
+            return new ResponseEntity<>(summary, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        logger.info("Success : summary of patient with id {} returned, unavailable parts : {}", id, summary.getUnavailableParts());
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    /**
+     * Method managing the GET "/patients/summary/{id}" endpoint HTTP request to get the summary of a patient given its identifier in HTML form.
+     *
+     * @param id The id of the patient
+     * @param model The Model containing the summary
+     * @return The name of the View
+     */
+    @GetMapping(value = "/patients/summary/{id}", produces = MediaType.TEXT_HTML_VALUE)
+    public String getPatientSummaryPage(@PathVariable("id") long id, Model model) {
+
+        logger.info("Request : GET /patients/summary/{} in HTML form", id);
+
+        PatientSummary summary = patientSummaryService.getPatientSummary(id);
+        model.addAttribute("summary", summary);
+        model.addAttribute("patient", summary.getPatient());
+        model.addAttribute("rapport", summary.getRapport());
+
+        logger.info("Success : summary of patient with id {} generated, unavailable parts : {}, returning '/patients/rapport' view", id, summary.getUnavailableParts());
+
+        return "patients/rapport";
+    }
+}
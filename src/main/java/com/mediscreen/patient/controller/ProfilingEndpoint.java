@@ -0,0 +1,136 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.service.IProfilingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Actuator endpoint in charge of the profiling of the Microservice with Flight Recorder, without restarting it.
+ * Served with the other actuator endpoints, on the management port ("management.server.port") rather than on the port of the patient
+ * endpoints, and only once exposed ("management.endpoints.web.exposure.include").
+ */
+@Component
+@WebEndpoint(id = "profiling")
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingEndpoint.class);
+
+    private static final String START = "start";
+
+    private static final String STOP = "stop";
+
+    private static final String RECORDING = "recording";
+
+    private static final String CONTINUOUS = "continuous";
+
+    private static final String JFR_CONTENT_TYPE = "application/octet-stream";
+
+    private final IProfilingService profilingService;
+
+    public ProfilingEndpoint(IProfilingService profilingService) {
+        this.profilingService = profilingService;
+    }
+
+    /**
+     * Method managing the POST "/actuator/profiling/start" endpoint HTTP request to start an on-demand recording, and the
+     * POST "/actuator/profiling/stop" one to stop the running on-demand recording and download it.
+     *
+     * @param action start or stop
+     * @param durationSeconds The duration of the recording, after which it is stopped : 60 seconds by default
+     * @return A WebEndpointResponse containing the HTTP status code : 202 if started, 409 if a recording is already running,
+     * or the .jfr file once stopped
+     */
+    @WriteOperation(produces = JFR_CONTENT_TYPE)
+    public WebEndpointResponse<Resource> recording(@Selector String action, @Nullable Long durationSeconds) {
+
+        logger.info("Request : POST /actuator/profiling/{}", action);
+
+        if (START.equals(action)) {
+            return startRecording(durationSeconds != null ? durationSeconds : 60);
+        }
+        if (STOP.equals(action)) {
+            return fileResponse(profilingService.stopRecording(), "no recording running");
+        }
+
+        logger.error("Error : unknown profiling action {}", action);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    /**
+     * Method managing the GET "/actuator/profiling/recording" endpoint HTTP request to download the last on-demand recording, once stopped,
+     * and the GET "/actuator/profiling/continuous" one to download the last minutes of the continuous recording of the slow operations.
+     *
+     * @param name recording or continuous
+     * @return A WebEndpointResponse containing the .jfr file and the HTTP status code
+     */
+    @ReadOperation(produces = JFR_CONTENT_TYPE)
+    public WebEndpointResponse<Resource> recordingFile(@Selector String name) {
+
+        logger.info("Request : GET /actuator/profiling/{}", name);
+
+        if (RECORDING.equals(name)) {
+            return fileResponse(profilingService.getLastRecording(), "no recording stopped");
+        }
+        if (!CONTINUOUS.equals(name)) {
+            logger.error("Error : unknown recording {}", name);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        try {
+            return fileResponse(profilingService.dumpContinuousRecording(), "continuous recording disabled");
+        } catch (IOException e) {
+            logger.error("Error : continuous recording not dumped", e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private WebEndpointResponse<Resource> startRecording(long durationSeconds) {
+
+        boolean started;
+        try {
+            started = profilingService.startRecording(durationSeconds);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error : {}", e.getMessage());
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IOException e) {
+            logger.error("Error : recording not started", e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+
+        if (!started) {
+            logger.error("Error : a recording is already running");
+            return new WebEndpointResponse<>(HttpStatus.CONFLICT.value());
+        }
+
+        logger.info("Success : recording started for {} seconds", durationSeconds);
+
+        return new WebEndpointResponse<>(HttpStatus.ACCEPTED.value());
+    }
+
+    private static WebEndpointResponse<Resource> fileResponse(Path file, String missingReason) {
+
+        if (file == null) {
+            logger.error("Error : {}", missingReason);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+
+        logger.info("Success : returning {}", file);
+
+        return new WebEndpointResponse<>(new FileSystemResource(file), WebEndpointResponse.STATUS_OK);
+    }
+}
@@ -0,0 +1,29 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Assessment;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Class in charge of storing a diabetes risk assessment as its risk level in a TINYINT column, from 0 (None) to 3 (EarlyOnset),
+ * so that the patients sort by risk in the database. The assessments are declared by increasing risk.
+ */
+@Converter
+public class AssessmentAttributeConverter implements AttributeConverter<Assessment, Integer> {
+
+    private static final Assessment[] ASSESSMENTS = Assessment.values();
+
+    @Override
+    public Integer convertToDatabaseColumn(Assessment assessment) {
+        return assessment == null ? null : assessment.ordinal();
+    }
+
+    @Override
+    public Assessment convertToEntityAttribute(Integer riskLevel) {
+        if (riskLevel == null || riskLevel < 0 || riskLevel >= ASSESSMENTS.length) {
+            return null;
+        }
+        return ASSESSMENTS[riskLevel];
+    }
+}
@@ -0,0 +1,60 @@
+package com.mediscreen.patient.domain;
+
+/**
+ * Class materializing the record of a request sent with an idempotency key : the fingerprint of the request, and its response once completed.
+ */
+public class IdempotencyRecord {
+
+    private final String fingerprint;
+
+    // null while the request is in progress
+    private final Integer status;
+
+    private final String contentType;
+
+    private final String location;
+
+    private final byte[] body;
+
+    public IdempotencyRecord(String fingerprint, Integer status, String contentType, String location, byte[] body) {
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.contentType = contentType;
+        this.location = location;
+        this.body = body;
+    }
+
+    /**
+     * Create the record of a request in progress.
+     *
+     * @param fingerprint The fingerprint of the request
+     * @return The record
+     */
+    public static IdempotencyRecord inProgress(String fingerprint) {
+        return new IdempotencyRecord(fingerprint, null, null, null, null);
+    }
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
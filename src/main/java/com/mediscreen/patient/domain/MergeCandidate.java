@@ -0,0 +1,102 @@
+package com.mediscreen.patient.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Class materializing a pair of patients suspected to be the same person, to be reviewed before being merged.
+ */
+public class MergeCandidate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long firstPatientId;
+    private String firstPatientLastName;
+    private String firstPatientFirstName;
+
+    private long secondPatientId;
+    private String secondPatientLastName;
+    private String secondPatientFirstName;
+
+    private LocalDate dateOfBirth;
+
+    private double score;
+
+    public MergeCandidate() {
+    }
+
+    public MergeCandidate(long firstPatientId, String firstPatientLastName, String firstPatientFirstName, long secondPatientId, String secondPatientLastName, String secondPatientFirstName, LocalDate dateOfBirth, double score) {
+        this.firstPatientId = firstPatientId;
+        this.firstPatientLastName = firstPatientLastName;
+        this.firstPatientFirstName = firstPatientFirstName;
+        this.secondPatientId = secondPatientId;
+        this.secondPatientLastName = secondPatientLastName;
+        this.secondPatientFirstName = secondPatientFirstName;
+        this.dateOfBirth = dateOfBirth;
+        this.score = score;
+    }
+
+    public long getFirstPatientId() {
+        return firstPatientId;
+    }
+
+    public void setFirstPatientId(long firstPatientId) {
+        this.firstPatientId = firstPatientId;
+    }
+
+    public String getFirstPatientLastName() {
+        return firstPatientLastName;
+    }
+
+    public void setFirstPatientLastName(String firstPatientLastName) {
+        this.firstPatientLastName = firstPatientLastName;
+    }
+
+    public String getFirstPatientFirstName() {
+        return firstPatientFirstName;
+    }
+
+    public void setFirstPatientFirstName(String firstPatientFirstName) {
+        this.firstPatientFirstName = firstPatientFirstName;
+    }
+
+    public long getSecondPatientId() {
+        return secondPatientId;
+    }
+
+    public void setSecondPatientId(long secondPatientId) {
+        this.secondPatientId = secondPatientId;
+    }
+
+    public String getSecondPatientLastName() {
+        return secondPatientLastName;
+    }
+
+    public void setSecondPatientLastName(String secondPatientLastName) {
+        this.secondPatientLastName = secondPatientLastName;
+    }
+
+    public String getSecondPatientFirstName() {
+        return secondPatientFirstName;
+    }
+
+    public void setSecondPatientFirstName(String secondPatientFirstName) {
+        this.secondPatientFirstName = secondPatientFirstName;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -14,6 +14,11 @@ import java.time.LocalDate;
  * Class materializing a patient.
  */
 @Entity
+// the schema, indexes included, is owned by the Flyway migrations in db/migration : the indexes are listed here to document the query paths
+@Table(indexes = {
+        @Index(name = "idx_patient_normalized_phone_number", columnList = "normalizedPhoneNumber"),
+        @Index(name = "idx_patient_last_name_first_name", columnList = "lastName, firstName"),
+        @Index(name = "idx_patient_date_of_birth", columnList = "dateOfBirth")})
 public class Patient implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -24,12 +29,12 @@ public class Patient implements Serializable {
 
     @Size(max = 125, message = "Maximum length = 125 characters")
     @NotBlank(message = "LastName is mandatory")
-    @Column(nullable = false)
+    @Column(nullable = false, length = 125)
     private String lastName;
 
     @Size(max = 125, message = "Maximum length = 125 characters")
     @NotBlank(message = "FirstName is mandatory")
-    @Column(nullable = false)
+    @Column(nullable = false, length = 125)
     private String firstName;
 
     @NotNull(message = "DateOfBirth is mandatory")
@@ -46,9 +51,15 @@ public class Patient implements Serializable {
     @Column(nullable = true)
     private String homeAddress;
 
+    // bounded by the validation only : shrinking the varchar(255) column would rebuild the table
+    @Size(max = 32, message = "Maximum length = 32 characters")
     @Column(nullable = true)
     private String phoneNumber;
 
+    // phone number in the E.164 format, computed from phoneNumber when the patient is saved
+    @Column(nullable = true, length = 16)
+    private String normalizedPhoneNumber;
+
     public Patient() {
     }
 
@@ -116,4 +127,12 @@ public class Patient implements Serializable {
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
     }
+
+    public String getNormalizedPhoneNumber() {
+        return normalizedPhoneNumber;
+    }
+
+    public void setNormalizedPhoneNumber(String normalizedPhoneNumber) {
+        this.normalizedPhoneNumber = normalizedPhoneNumber;
+    }
 }
@@ -0,0 +1,453 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Sex;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Class materializing a column oriented snapshot of all patients used for population-level analytics.
+ * Each column is stored in a primitive array : names are dictionary-encoded, dates of birth are stored as epoch days and sex is bit-packed.
+ * Rows are sorted by patient id. The snapshots derived from one another by withChanges share an append-only dictionary, and their columns
+ * as long as no patient is created : the dictionary only drops the names no longer used when the snapshot is built again from scratch.
+ */
+public final class PatientColumnarSnapshot {
+
+    private static final int NO_FILTER = -1;
+
+    private static final int NO_MATCH = -2;
+
+    private static final int MAX_AGE = 150;
+
+    private final int size;
+
+    private final long[] ids;
+
+    private final int[] lastNameCodes;
+
+    private final int[] firstNameCodes;
+
+    private final int[] dateOfBirthEpochDays;
+
+    // bit set to 1 for Sex.M, 0 for Sex.F
+    private final long[] sexBits;
+
+    private final NameDictionary dictionary;
+
+    private final Instant builtAt;
+
+    // the columns of the builder handed over as is, the builder being unusable once built
+    private PatientColumnarSnapshot(Builder builder) {
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.lastNameCodes = builder.lastNameCodes;
+        this.firstNameCodes = builder.firstNameCodes;
+        this.dateOfBirthEpochDays = builder.dateOfBirthEpochDays;
+        this.sexBits = builder.sexBits;
+        this.dictionary = builder.dictionary;
+        this.builtAt = Instant.now();
+    }
+
+    // the columns of the given snapshot, patched in place
+    private PatientColumnarSnapshot(PatientColumnarSnapshot patched) {
+        this.size = patched.size;
+        this.ids = patched.ids;
+        this.lastNameCodes = patched.lastNameCodes;
+        this.firstNameCodes = patched.firstNameCodes;
+        this.dateOfBirthEpochDays = patched.dateOfBirthEpochDays;
+        this.sexBits = patched.sexBits;
+        this.dictionary = patched.dictionary;
+        this.builtAt = Instant.now();
+    }
+
+    /**
+     * Return an empty snapshot.
+     *
+     * @return The empty snapshot
+     */
+    public static PatientColumnarSnapshot empty() {
+        return new Builder(0).build();
+    }
+
+    /**
+     * Return a new builder, rows must be added in ascending id order.
+     *
+     * @param expectedSize The expected number of rows
+     * @return The builder
+     */
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    /**
+     * Return a new snapshot including the given created or updated patients.
+     * When the patients are only updated, their rows are patched in the columns shared with this snapshot, whose queries in progress may
+     * see some of the changes : otherwise the columns are copied, and this snapshot is left unchanged.
+     *
+     * @param patients The patients created or updated since this snapshot was built
+     * @return The new snapshot
+     */
+    public PatientColumnarSnapshot withChanges(Collection<Patient> patients) {
+
+        TreeMap<Long, Patient> changes = new TreeMap<>();
+        for (Patient patient : patients) {
+            changes.put(patient.getId(), patient);
+        }
+
+        int[] changedRows = new int[changes.size()];
+        int changedRowCount = 0;
+        for (Long id : changes.keySet()) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                break;
+            }
+            changedRows[changedRowCount++] = row;
+        }
+        if (changedRowCount == changes.size()) {
+            int changedRow = 0;
+            for (Patient patient : changes.values()) {
+                patchRow(changedRows[changedRow++], patient);
+            }
+            return new PatientColumnarSnapshot(this);
+        }
+
+        Builder builder = new Builder(size + changes.size(), dictionary);
+        Iterator<Patient> changesIterator = changes.values().iterator();
+        Patient nextChange = changesIterator.hasNext() ? changesIterator.next() : null;
+
+        for (int row = 0; row < size; row++) {
+            while (nextChange != null && nextChange.getId() < ids[row]) {
+                builder.add(nextChange);
+                nextChange = changesIterator.hasNext() ? changesIterator.next() : null;
+            }
+            if (nextChange != null && nextChange.getId() == ids[row]) {
+                builder.add(nextChange);
+                nextChange = changesIterator.hasNext() ? changesIterator.next() : null;
+            } else {
+                builder.addEncoded(ids[row], lastNameCodes[row], firstNameCodes[row], dateOfBirthEpochDays[row], isMale(row));
+            }
+        }
+        while (nextChange != null) {
+            builder.add(nextChange);
+            nextChange = changesIterator.hasNext() ? changesIterator.next() : null;
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Return the number of patients in the snapshot.
+     *
+     * @return The number of patients
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the instant at which the snapshot was built.
+     *
+     * @return The build instant
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Return the number of patients matching the query.
+     *
+     * @param query The query
+     * @return The number of patients matching
+     */
+    public long count(PatientSnapshotQuery query) {
+        long[] count = new long[1];
+        forEachMatch(query, row -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Return the number of patients matching the query, grouped by sex.
+     *
+     * @param query The query
+     * @return The number of patients matching for each sex
+     */
+    public Map<Sex, Long> countBySex(PatientSnapshotQuery query) {
+        long[] males = new long[1];
+        long[] females = new long[1];
+        forEachMatch(query, row -> {
+            if (isMale(row)) {
+                males[0]++;
+            } else {
+                females[0]++;
+            }
+        });
+
+        Map<Sex, Long> countBySex = new EnumMap<>(Sex.class);
+        countBySex.put(Sex.F, females[0]);
+        countBySex.put(Sex.M, males[0]);
+        return countBySex;
+    }
+
+    /**
+     * Return the number of patients matching the query, grouped by age bracket.
+     *
+     * @param query The query
+     * @param bracketWidth The width in years of each age bracket
+     * @param referenceDate The date at which ages are computed
+     * @return The number of patients matching for each age bracket, keyed by the lower age of the bracket
+     */
+    public SortedMap<Integer, Long> countByAgeBracket(PatientSnapshotQuery query, int bracketWidth, LocalDate referenceDate) {
+
+        if (bracketWidth <= 0) {
+            throw new IllegalArgumentException("Bracket width must be positive");
+        }
+
+        // bracketStarts[k] is the earliest date of birth of patients aged less than (k + 1) * bracketWidth years
+        int brackets = MAX_AGE / bracketWidth + 1;
+        int[] bracketStarts = new int[brackets];
+        for (int k = 0; k < brackets; k++) {
+            bracketStarts[k] = (int) referenceDate.minusYears((long) (k + 1) * bracketWidth).plusDays(1).toEpochDay();
+        }
+        long[] counts = new long[brackets + 1];
+
+        forEachMatch(query, row -> {
+            int dateOfBirth = dateOfBirthEpochDays[row];
+            int bracket = 0;
+            while (bracket < brackets && dateOfBirth < bracketStarts[bracket]) {
+                bracket++;
+            }
+            counts[bracket]++;
+        });
+
+        SortedMap<Integer, Long> countByAgeBracket = new TreeMap<>();
+        for (int k = 0; k <= brackets; k++) {
+            if (counts[k] > 0) {
+                countByAgeBracket.put(k * bracketWidth, counts[k]);
+            }
+        }
+        return countByAgeBracket;
+    }
+
+    /**
+     * Return the ids of the patients matching the query, in ascending order.
+     *
+     * @param query The query
+     * @return The ids of the patients matching
+     */
+    public long[] findIds(PatientSnapshotQuery query) {
+        int[] count = new int[1];
+        long[][] holder = {new long[16]};
+        forEachMatch(query, row -> {
+            if (count[0] == holder[0].length) {
+                holder[0] = Arrays.copyOf(holder[0], holder[0].length * 2);
+            }
+            holder[0][count[0]++] = ids[row];
+        });
+        return Arrays.copyOf(holder[0], count[0]);
+    }
+
+    private void forEachMatch(PatientSnapshotQuery query, IntConsumer action) {
+
+        int lastNameCode = resolveCode(query.getLastName());
+        int firstNameCode = resolveCode(query.getFirstName());
+        if (lastNameCode == NO_MATCH || firstNameCode == NO_MATCH) {
+            return;
+        }
+
+        int minDateOfBirth = query.getMinDateOfBirthEpochDay();
+        int maxDateOfBirth = query.getMaxDateOfBirthEpochDay();
+        boolean filterSex = query.getSex() != null;
+        boolean male = query.getSex() == Sex.M;
+
+        for (int row = 0; row < size; row++) {
+            int dateOfBirth = dateOfBirthEpochDays[row];
+            if (dateOfBirth < minDateOfBirth || dateOfBirth > maxDateOfBirth) {
+                continue;
+            }
+            if (filterSex && isMale(row) != male) {
+                continue;
+            }
+            if (lastNameCode != NO_FILTER && lastNameCodes[row] != lastNameCode) {
+                continue;
+            }
+            if (firstNameCode != NO_FILTER && firstNameCodes[row] != firstNameCode) {
+                continue;
+            }
+            action.accept(row);
+        }
+    }
+
+    private int resolveCode(String name) {
+        if (name == null) {
+            return NO_FILTER;
+        }
+        Integer code = dictionary.code(name);
+        return code == null ? NO_MATCH : code;
+    }
+
+    private void patchRow(int row, Patient patient) {
+        lastNameCodes[row] = dictionary.encode(patient.getLastName());
+        firstNameCodes[row] = dictionary.encode(patient.getFirstName());
+        dateOfBirthEpochDays[row] = (int) patient.getDateOfBirth().toEpochDay();
+        if (patient.getSex() == Sex.M) {
+            sexBits[row >>> 6] |= 1L << row;
+        } else {
+            sexBits[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private boolean isMale(int row) {
+        return (sexBits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Class materializing the dictionary of the names, append-only so that it can be shared by the snapshots : a code is never reassigned,
+     * and a snapshot never holds the codes of the names added after it was built.
+     */
+    private static final class NameDictionary {
+
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+        private final AtomicInteger nextCode = new AtomicInteger();
+
+        private Integer code(String name) {
+            return codes.get(name);
+        }
+
+        private int encode(String name) {
+            return codes.computeIfAbsent(name, added -> nextCode.getAndIncrement());
+        }
+    }
+
+    /**
+     * Class in charge of building a PatientColumnarSnapshot, once : its columns are handed over to the snapshot.
+     */
+    public static final class Builder {
+
+        private int size;
+
+        private long[] ids;
+
+        private int[] lastNameCodes;
+
+        private int[] firstNameCodes;
+
+        private int[] dateOfBirthEpochDays;
+
+        private long[] sexBits;
+
+        private final NameDictionary dictionary;
+
+        private boolean built;
+
+        private Builder(int expectedSize) {
+            this(expectedSize, new NameDictionary());
+        }
+
+        private Builder(int expectedSize, NameDictionary dictionary) {
+            int capacity = Math.max(expectedSize, 16);
+            this.ids = new long[capacity];
+            this.lastNameCodes = new int[capacity];
+            this.firstNameCodes = new int[capacity];
+            this.dateOfBirthEpochDays = new int[capacity];
+            this.sexBits = new long[(capacity + 63) >>> 6];
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Add a patient to the snapshot.
+         *
+         * @param patient The patient
+         * @return The builder
+         */
+        public Builder add(Patient patient) {
+            return add(patient.getId(), patient.getLastName(), patient.getFirstName(), patient.getDateOfBirth(), patient.getSex());
+        }
+
+        /**
+         * Add a patient to the snapshot.
+         *
+         * @param columns The patient columns
+         * @return The builder
+         */
+        public Builder add(PatientColumns columns) {
+            return add(columns.getId(), columns.getLastName(), columns.getFirstName(), columns.getDateOfBirth(), columns.getSex());
+        }
+
+        /**
+         * Add a patient to the snapshot.
+         *
+         * @param id The id of the patient
+         * @param lastName The last name of the patient
+         * @param firstName The first name of the patient
+         * @param dateOfBirth The date of birth of the patient
+         * @param sex The sex of the patient
+         * @return The builder
+         */
+        public Builder add(long id, String lastName, String firstName, LocalDate dateOfBirth, Sex sex) {
+            return addEncoded(id, dictionary.encode(lastName), dictionary.encode(firstName), (int) dateOfBirth.toEpochDay(), sex == Sex.M);
+        }
+
+        /**
+         * Build the snapshot, the builder being unusable afterwards.
+         *
+         * @return The snapshot
+         */
+        public PatientColumnarSnapshot build() {
+            checkNotBuilt();
+            built = true;
+            // the spare capacity of a builder grown well beyond the rows added trimmed
+            if (ids.length - size > size / 2 + 16) {
+                resize(size);
+            }
+            return new PatientColumnarSnapshot(this);
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("Snapshot already built");
+            }
+        }
+
+        private Builder addEncoded(long id, int lastNameCode, int firstNameCode, int dateOfBirthEpochDay, boolean male) {
+            checkNotBuilt();
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Patients must be added in ascending id order");
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            lastNameCodes[size] = lastNameCode;
+            firstNameCodes[size] = firstNameCode;
+            dateOfBirthEpochDays[size] = dateOfBirthEpochDay;
+            if (male) {
+                sexBits[size >>> 6] |= 1L << size;
+            }
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            resize(ids.length * 2);
+        }
+
+        private void resize(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            lastNameCodes = Arrays.copyOf(lastNameCodes, capacity);
+            firstNameCodes = Arrays.copyOf(firstNameCodes, capacity);
+            dateOfBirthEpochDays = Arrays.copyOf(dateOfBirthEpochDays, capacity);
+            sexBits = Arrays.copyOf(sexBits, (capacity + 63) >>> 6);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Sex;
+
+import java.time.LocalDate;
+
+/**
+ * Interface projection exposing the patient columns loaded into the columnar snapshot.
+ */
+public interface PatientColumns {
+
+    long getId();
+
+    String getLastName();
+
+    String getFirstName();
+
+    LocalDate getDateOfBirth();
+
+    Sex getSex();
+}
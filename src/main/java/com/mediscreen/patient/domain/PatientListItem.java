@@ -0,0 +1,88 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Class materializing a line of the patients list page : the patient columns rendered by the page, read without loading the entity,
+ * and the latest diabetes risk assessment of the patient, null if not assessed yet.
+ */
+public class PatientListItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+
+    private final String lastName;
+
+    private final String firstName;
+
+    private final LocalDate dateOfBirth;
+
+    private final Sex sex;
+
+    private final String homeAddress;
+
+    private final String phoneNumber;
+
+    private final Assessment assessment;
+
+    private final Instant assessedAt;
+
+    public PatientListItem(long id, String lastName, String firstName, LocalDate dateOfBirth, Sex sex, String homeAddress, String phoneNumber) {
+        this(id, lastName, firstName, dateOfBirth, sex, homeAddress, phoneNumber, null, null);
+    }
+
+    public PatientListItem(long id, String lastName, String firstName, LocalDate dateOfBirth, Sex sex, String homeAddress, String phoneNumber,
+                           Assessment assessment, Instant assessedAt) {
+        this.id = id;
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.dateOfBirth = dateOfBirth;
+        this.sex = sex;
+        this.homeAddress = homeAddress;
+        this.phoneNumber = phoneNumber;
+        this.assessment = assessment;
+        this.assessedAt = assessedAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public Sex getSex() {
+        return sex;
+    }
+
+    public String getHomeAddress() {
+        return homeAddress;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public Assessment getAssessment() {
+        return assessment;
+    }
+
+    public Instant getAssessedAt() {
+        return assessedAt;
+    }
+}
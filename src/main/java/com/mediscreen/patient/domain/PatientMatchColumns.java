@@ -0,0 +1,21 @@
+package com.mediscreen.patient.domain;
+
+import java.time.LocalDate;
+
+/**
+ * Interface projection exposing the patient columns compared when detecting duplicate patients.
+ */
+public interface PatientMatchColumns {
+
+    long getId();
+
+    String getLastName();
+
+    String getFirstName();
+
+    LocalDate getDateOfBirth();
+
+    String getHomeAddress();
+
+    String getPhoneNumber();
+}
@@ -0,0 +1,11 @@
+package com.mediscreen.patient.domain;
+
+/**
+ * Interface projection exposing the patient columns read when normalizing phone numbers.
+ */
+public interface PatientPhoneColumns {
+
+    long getId();
+
+    String getPhoneNumber();
+}
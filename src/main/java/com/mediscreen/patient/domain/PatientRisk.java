@@ -0,0 +1,55 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Assessment;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Class materializing the latest diabetes risk assessment of a patient, refreshed from the Rapport Microservice, with the time it was assessed at.
+ * Only written by the patient risk service : the entity maps the table so that the patients list queries can join it.
+ */
+@Entity
+// the schema, indexes included, is owned by the Flyway migrations in db/migration : the indexes are listed here to document the query paths
+@Table(name = "patient_risk", indexes = @Index(name = "idx_patient_risk_assessment", columnList = "assessment, patientId"))
+public class PatientRisk implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private long patientId;
+
+    @Convert(converter = AssessmentAttributeConverter.class)
+    @Column(nullable = false, columnDefinition = "TINYINT")
+    private Assessment assessment;
+
+    @Column(nullable = false, columnDefinition = "TIMESTAMP(3)")
+    private Instant assessedAt;
+
+    public PatientRisk() {
+    }
+
+    public PatientRisk(long patientId, Assessment assessment, Instant assessedAt) {
+        this.patientId = patientId;
+        this.assessment = assessment;
+        this.assessedAt = assessedAt;
+    }
+
+    public long getPatientId() {
+        return patientId;
+    }
+
+    public Assessment getAssessment() {
+        return assessment;
+    }
+
+    public Instant getAssessedAt() {
+        return assessedAt;
+    }
+}
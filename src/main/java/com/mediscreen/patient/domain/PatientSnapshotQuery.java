@@ -0,0 +1,111 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Sex;
+
+import java.time.LocalDate;
+
+/**
+ * Class materializing the filters applied when querying the patients columnar snapshot.
+ * A filter left unset matches every patient.
+ */
+public class PatientSnapshotQuery {
+
+    private Sex sex;
+
+    private int minDateOfBirthEpochDay = Integer.MIN_VALUE;
+
+    private int maxDateOfBirthEpochDay = Integer.MAX_VALUE;
+
+    private String lastName;
+
+    private String firstName;
+
+    /**
+     * Return a query matching all patients.
+     *
+     * @return The query
+     */
+    public static PatientSnapshotQuery all() {
+        return new PatientSnapshotQuery();
+    }
+
+    /**
+     * Restrict the query to patients of the given sex.
+     *
+     * @param sex The sex of the patients
+     * @return The query
+     */
+    public PatientSnapshotQuery withSex(Sex sex) {
+        this.sex = sex;
+        return this;
+    }
+
+    /**
+     * Restrict the query to patients born between the two given dates (inclusive).
+     *
+     * @param from The lower bound of the date of birth, or null for no lower bound
+     * @param to The upper bound of the date of birth, or null for no upper bound
+     * @return The query
+     */
+    public PatientSnapshotQuery bornBetween(LocalDate from, LocalDate to) {
+        this.minDateOfBirthEpochDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        this.maxDateOfBirthEpochDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        return this;
+    }
+
+    /**
+     * Restrict the query to patients whose age at the reference date is between the two given ages (inclusive).
+     *
+     * @param minAge The minimum age, or null for no minimum
+     * @param maxAge The maximum age, or null for no maximum
+     * @param referenceDate The date at which ages are computed
+     * @return The query
+     */
+    public PatientSnapshotQuery agedBetween(Integer minAge, Integer maxAge, LocalDate referenceDate) {
+        LocalDate from = maxAge == null ? null : referenceDate.minusYears(maxAge + 1L).plusDays(1);
+        LocalDate to = minAge == null ? null : referenceDate.minusYears(minAge);
+        return bornBetween(from, to);
+    }
+
+    /**
+     * Restrict the query to patients having the given last name.
+     *
+     * @param lastName The last name of the patients
+     * @return The query
+     */
+    public PatientSnapshotQuery withLastName(String lastName) {
+        this.lastName = lastName;
+        return this;
+    }
+
+    /**
+     * Restrict the query to patients having the given first name.
+     *
+     * @param firstName The first name of the patients
+     * @return The query
+     */
+    public PatientSnapshotQuery withFirstName(String firstName) {
+        this.firstName = firstName;
+        return this;
+    }
+
+    public Sex getSex() {
+        return sex;
+    }
+
+    public int getMinDateOfBirthEpochDay() {
+        return minDateOfBirthEpochDay;
+    }
+
+    public int getMaxDateOfBirthEpochDay() {
+        return maxDateOfBirthEpochDay;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mediscreen.patient.domain;
+
+import java.util.List;
+
+/**
+ * Class materializing the summary of a patient : the patient and its diabetes risk assessment report, loaded concurrently.
+ * A part not loaded within its latency budget, or failing, is missing from the summary and listed in the unavailable parts.
+ */
+public class PatientSummary {
+
+    public static final String PATIENT = "patient";
+
+    public static final String RAPPORT = "rapport";
+
+    private final Patient patient;
+
+    private final Rapport rapport;
+
+    private final List<String> unavailableParts;
+
+    public PatientSummary(Patient patient, Rapport rapport, List<String> unavailableParts) {
+        this.patient = patient;
+        this.rapport = rapport;
+        this.unavailableParts = unavailableParts;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public Rapport getRapport() {
+        return rapport;
+    }
+
+    public List<String> getUnavailableParts() {
+        return unavailableParts;
+    }
+
+    public boolean isPartial() {
+        return !unavailableParts.isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.UpdateStatus;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Class materializing the ticket returned for an asynchronous patient update, used to follow the update until it is committed.
+ */
+public class PatientUpdateTicket implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String ticketId;
+
+    private long patientId;
+
+    private volatile UpdateStatus status;
+
+    private volatile String message;
+
+    private Instant acceptedAt;
+
+    private volatile Instant completedAt;
+
+    public PatientUpdateTicket() {
+    }
+
+    public PatientUpdateTicket(String ticketId, long patientId, Instant acceptedAt) {
+        this.ticketId = ticketId;
+        this.patientId = patientId;
+        this.status = UpdateStatus.Pending;
+        this.acceptedAt = acceptedAt;
+    }
+
+    /**
+     * Mark the update as completed.
+     *
+     * @param status The final status of the update
+     * @param message The message explaining the status, null if none
+     */
+    public void complete(UpdateStatus status, String message) {
+        this.message = message;
+        this.completedAt = Instant.now();
+        this.status = status;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(long patientId) {
+        this.patientId = patientId;
+    }
+
+    public UpdateStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UpdateStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public void setAcceptedAt(Instant acceptedAt) {
+        this.acceptedAt = acceptedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mediscreen.patient.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Class materializing the body of an error response to the API clients, as a "application/problem+json" document (RFC 7807).
+ * The type is omitted, i.e. "about:blank" : the status and the title are the ones of the HTTP status.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Problem {
+
+    private final String title;
+
+    private final int status;
+
+    private final String detail;
+
+    private final String instance;
+
+    public Problem(String title, int status, String detail, String instance) {
+        this.title = title;
+        this.status = status;
+        this.detail = detail;
+        this.instance = instance;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mediscreen.patient.event;
+
+import com.mediscreen.patient.constant.PatientChangeType;
+import com.mediscreen.patient.domain.Patient;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Class materializing the event published each time a patient is created or updated.
+ */
+public class PatientChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Patient patient;
+
+    private final PatientChangeType changeType;
+
+    /**
+     * Constructs a new PatientChangedEvent.
+     *
+     * @param source The object on which the event initially occurred
+     * @param patient The patient created or updated
+     * @param changeType The type of change
+     */
+    public PatientChangedEvent(Object source, Patient patient, PatientChangeType changeType) {
+        super(source);
+        this.patient = patient;
+        this.changeType = changeType;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public PatientChangeType getChangeType() {
+        return changeType;
+    }
+}
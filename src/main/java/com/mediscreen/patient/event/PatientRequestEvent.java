@@ -0,0 +1,36 @@
+package com.mediscreen.patient.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class materializing the Flight Recorder event of an HTTP request handled by a controller of the patients.
+ * Only recorded by the recordings enabling it, above their threshold.
+ */
+@Name(PatientRequestEvent.NAME)
+@Label("Patient Request")
+@Category({"Mediscreen", "Patient"})
+@Description("HTTP request handled by a controller of the patients")
+@StackTrace(false)
+public class PatientRequestEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.mediscreen.patient.Request";
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    @Description("Path pattern of the endpoint")
+    public String uri;
+
+    @Label("Patient Id")
+    @Description("Id of the patient requested, 0 if none")
+    public long patientId;
+
+    @Label("Outcome")
+    @Description("HTTP status code, or exception not handled")
+    public String outcome;
+}
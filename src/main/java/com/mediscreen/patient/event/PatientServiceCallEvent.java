@@ -0,0 +1,33 @@
+package com.mediscreen.patient.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class materializing the Flight Recorder event of a call of the patient service reaching the database or the Rapport Microservice,
+ * i.e. not answered by a read shared with another caller.
+ * Only recorded by the recordings enabling it, above their threshold.
+ */
+@Name(PatientServiceCallEvent.NAME)
+@Label("Patient Service Call")
+@Category({"Mediscreen", "Patient"})
+@Description("Call of the patient service")
+@StackTrace(false)
+public class PatientServiceCallEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.mediscreen.patient.ServiceCall";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Patient Id")
+    @Description("Id of the patient, 0 if none")
+    public long patientId;
+
+    @Label("Outcome")
+    @Description("success, or exception thrown")
+    public String outcome;
+}
@@ -0,0 +1,35 @@
+package com.mediscreen.patient.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Class materializing the Flight Recorder event of a call of the Rapport Microservice, including its hedge if any.
+ * Only recorded by the recordings enabling it, above their threshold.
+ */
+@Name(RapportCallEvent.NAME)
+@Label("Rapport Call")
+@Category({"Mediscreen", "Rapport"})
+@Description("Call of the Rapport Microservice")
+@StackTrace(false)
+public class RapportCallEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.mediscreen.patient.RapportCall";
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Patient Id")
+    @Description("Id of the patient assessed, 0 for a batch")
+    public long patientId;
+
+    @Label("Outcome")
+    @Description("HTTP status code, or exception thrown")
+    public String outcome;
+}
@@ -1,55 +1,135 @@
 package com.mediscreen.patient.exception;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.domain.Problem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolationException;
 
 /**
  * Class in charge of handling application exceptions.
+ * The error pages are only rendered for the browsers, i.e. the requests accepting HTML : the API clients, such as the other Microservices,
+ * get a compact "application/problem+json" body.
  */
 @ControllerAdvice(basePackages = {"com.mediscreen.patient"})
 public class ExceptionHandlerAdvice {
 
     private static final Logger logger = LoggerFactory.getLogger(ExceptionHandlerAdvice.class);
 
+    private static final String PROBLEM_JSON = "application/problem+json";
+
+    private final MappingJackson2JsonView problemView;
+
+    public ExceptionHandlerAdvice(ObjectMapper objectMapper) {
+        this.problemView = new MappingJackson2JsonView(objectMapper);
+        this.problemView.setContentType(PROBLEM_JSON);
+        this.problemView.setExtractValueFromSingleKeyModel(true);
+        this.problemView.setDisableCaching(false);
+    }
+
     /**
      * Method managing the ResourceNotFoundException.
      *
      * @param e The exception
+     * @param request The request
      * @return A ModelAndView object including information for this exception
      */
     @ExceptionHandler(ResourceNotFoundException.class)
     @ResponseStatus(value = HttpStatus.NOT_FOUND)
-    public ModelAndView handleException(ResourceNotFoundException e) {
+    public ModelAndView handleException(ResourceNotFoundException e, HttpServletRequest request) {
 
         logger.error("Error : patient not found");
 
-        ModelAndView mav = new ModelAndView();
-        mav.addObject("exception", e);
-        mav.setViewName("errorResourceNotFound");
-        return mav;
+        return errorView(e, request, HttpStatus.NOT_FOUND, "errorResourceNotFound");
     }
 
     /**
      * Method managing the ResourceAlreadyExistException.
      *
      * @param e The exception
+     * @param request The request
      * @return A ModelAndView object including information for this exception
      */
     @ExceptionHandler(ResourceAlreadyExistException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-    public ModelAndView handleException(ResourceAlreadyExistException e) {
+    public ModelAndView handleException(ResourceAlreadyExistException e, HttpServletRequest request) {
 
         logger.error("Error : patient already exists");
 
+        return errorView(e, request, HttpStatus.BAD_REQUEST, "errorResourceAlreadyExist");
+    }
+
+    /**
+     * Method managing the ConstraintViolationException.
+     *
+     * @param e The exception
+     * @param request The request
+     * @return A ModelAndView object including information for this exception
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public ModelAndView handleException(ConstraintViolationException e, HttpServletRequest request) {
+
+        logger.error("Error : patient not valid");
+
+        return errorView(e, request, HttpStatus.BAD_REQUEST, "errorValidation");
+    }
+
+    /**
+     * Method managing the InvalidPhoneNumberException.
+     *
+     * @param e The exception
+     * @param request The request
+     * @return A ModelAndView object including information for this exception
+     */
+    @ExceptionHandler(InvalidPhoneNumberException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public ModelAndView handleException(InvalidPhoneNumberException e, HttpServletRequest request) {
+
+        logger.error("Error : phone number not valid");
+
+        return errorView(e, request, HttpStatus.BAD_REQUEST, "errorInvalidPhoneNumber");
+    }
+
+    private ModelAndView errorView(Exception e, HttpServletRequest request, HttpStatus status, String viewName) {
         ModelAndView mav = new ModelAndView();
-        mav.addObject("exception", e);
-        mav.setViewName("errorResourceAlreadyExist");
+        if (acceptsHtml(request)) {
+            mav.addObject("exception", e);
+            mav.setViewName(viewName);
+        } else {
+            mav.addObject("problem", new Problem(status.getReasonPhrase(), status.value(), e.getMessage(), request.getRequestURI()));
+            mav.setView(problemView);
+        }
         return mav;
     }
 
+    // browsers list text/html explicitly, a wildcard is not enough : the API clients often accept anything
+    private static boolean acceptsHtml(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains("html")) {
+            return false;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if ((mediaType.isCompatibleWith(MediaType.TEXT_HTML) || mediaType.isCompatibleWith(MediaType.APPLICATION_XHTML_XML))
+                        && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype() && mediaType.getQualityValue() > 0) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+        return false;
+    }
 }
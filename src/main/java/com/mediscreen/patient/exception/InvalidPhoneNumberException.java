@@ -0,0 +1,26 @@
+package com.mediscreen.patient.exception;
+
+/**
+ * Class materializing the InvalidPhoneNumberException.
+ * Thrown for a lookup by a phone number that can not be normalized, it is an error of the request rather than a failure : its stack trace is not captured.
+ */
+public class InvalidPhoneNumberException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String phoneNumber;
+
+    /**
+     * Constructs a new InvalidPhoneNumberException.
+     *
+     * @param phoneNumber the phone number that can not be normalized
+     */
+    public InvalidPhoneNumberException(String phoneNumber) {
+        super("Invalid phone number : " + phoneNumber, null, false, false);
+        this.phoneNumber = phoneNumber;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+}
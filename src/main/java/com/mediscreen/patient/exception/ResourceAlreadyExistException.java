@@ -2,6 +2,7 @@ package com.mediscreen.patient.exception;
 
 /**
  * Class materializing the ResourceAlreadyExistException.
+ * It is an expected outcome of a creation or an update rather than a failure : its stack trace is not captured.
  */
 public class ResourceAlreadyExistException extends RuntimeException {
 
@@ -17,6 +18,7 @@ public class ResourceAlreadyExistException extends RuntimeException {
      * @param firstName the first name of the patient that already exists
      */
     public ResourceAlreadyExistException(String lastName, String firstName) {
+            super("A patient already exists for last name and first name : " + lastName + " " + firstName, null, false, false);
             this.lastName = lastName;
             this.firstName = firstName;
         }
@@ -2,6 +2,7 @@ package com.mediscreen.patient.exception;
 
 /**
  * Class materializing the ResourceNotFoundException.
+ * Thrown for every lookup of an unknown patient, it is an expected outcome rather than a failure : its stack trace is not captured.
  */
 public class ResourceNotFoundException extends RuntimeException {
 
@@ -17,6 +18,7 @@ public class ResourceNotFoundException extends RuntimeException {
      * @param id the id of the patient that is not found
      */
     public ResourceNotFoundException(long id) {
+        this("No patient found for id : " + id);
         this.id = id;
     }
 
@@ -27,6 +29,7 @@ public class ResourceNotFoundException extends RuntimeException {
      * @param firstName the first name of the patient that is not found
      */
     public ResourceNotFoundException(String lastName, String firstName) {
+        this("No patient found for last name and first name : " + lastName + " " + firstName);
         this.lastName = lastName;
         this.firstName = firstName;
     }
@@ -37,6 +40,6 @@ public class ResourceNotFoundException extends RuntimeException {
      * @param message the error message
      */
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
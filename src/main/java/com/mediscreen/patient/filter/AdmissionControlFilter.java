@@ -0,0 +1,162 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.util.AdaptiveConcurrencyLimit;
+import com.mediscreen.patient.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class in charge of the admission control of the requests to the patient endpoints : the requests are rejected at once with
+ * the 429 HTTP status code and a Retry-After header, rather than queued until they time out, when either
+ * - their client exceeds its rate limit (token bucket per client, identified by its authenticated principal or else by its address,
+ *   never by a value it chooses : a client can not take a fresh bucket by sending another identifier),
+ * - or the adaptive concurrency limit of their traffic class is reached, i.e. the database or the threads are saturated.
+ * Each traffic class has its own concurrency limit, adapted to its own latency : a load of slow pages does not lower the limit
+ * of the calls of the other Microservices.
+ * The requests made from the loopback address while the Microservice warms up are not rate limited : the warm-up runs before
+ * the Microservice reports itself ready, so that no other client is exempted by it.
+ * The limits and the rejections are published as "admission.*" metrics.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    // a request rejected by the concurrency limit is retried once the requests in flight are completed
+    private static final long CONCURRENCY_RETRY_AFTER_SECONDS = 1;
+
+    private final ConcurrentMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+    // shared by the clients beyond maxClients, so that the memory of the buckets is bounded whatever the number of addresses
+    private final TokenBucket overflowBucket;
+
+    private final Map<TrafficClass, AdaptiveConcurrencyLimit> concurrencyLimits;
+
+    private final int maxClients;
+
+    private final BooleanSupplier warmingUp;
+
+    private final double clientRatePerSecond;
+
+    private final int clientBurst;
+
+    private final Counter rateLimitRejections;
+
+    private final Counter concurrencyLimitRejections;
+
+    public AdmissionControlFilter(Map<TrafficClass, AdaptiveConcurrencyLimit> concurrencyLimits, int maxClients, BooleanSupplier warmingUp,
+                                  double clientRatePerSecond, int clientBurst, MeterRegistry meterRegistry) {
+        this.concurrencyLimits = concurrencyLimits;
+        this.maxClients = maxClients;
+        this.overflowBucket = new TokenBucket(clientRatePerSecond, clientBurst, System.nanoTime());
+        this.warmingUp = warmingUp;
+        this.clientRatePerSecond = clientRatePerSecond;
+        this.clientBurst = clientBurst;
+        this.rateLimitRejections = Counter.builder("admission.rejected").description("Requests rejected by the admission control")
+                .tag("reason", "rateLimit").register(meterRegistry);
+        this.concurrencyLimitRejections = Counter.builder("admission.rejected").description("Requests rejected by the admission control")
+                .tag("reason", "concurrencyLimit").register(meterRegistry);
+        for (Map.Entry<TrafficClass, AdaptiveConcurrencyLimit> concurrencyLimit : concurrencyLimits.entrySet()) {
+            Gauge.builder("admission.concurrency.limit", concurrencyLimit.getValue(), AdaptiveConcurrencyLimit::getLimit)
+                    .description("Adaptive concurrency limit").tag("trafficClass", concurrencyLimit.getKey().name()).register(meterRegistry);
+            Gauge.builder("admission.concurrency.inflight", concurrencyLimit.getValue(), AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests in flight").tag("trafficClass", concurrencyLimit.getKey().name()).register(meterRegistry);
+        }
+        Gauge.builder("admission.clients", clientBuckets, ConcurrentMap::size)
+                .description("Clients with a rate limit bucket").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        String clientId = clientIdOf(request);
+        long now = System.nanoTime();
+        long waitNs = isWarmUpRequest(request) ? 0 : bucketOf(clientId, now).tryAcquire(now);
+        if (waitNs > 0) {
+            rateLimitRejections.increment();
+            logger.debug("Request {} {} of client {} rejected : rate limit exceeded", request.getMethod(), request.getRequestURI(), clientId);
+            reject(response, TimeUnit.NANOSECONDS.toSeconds(waitNs - 1) + 1);
+            return;
+        }
+
+        // classified by the TrafficClassFilter, when it is enabled
+        Object trafficClass = request.getAttribute(TrafficClassFilter.TRAFFIC_CLASS_ATTRIBUTE);
+        AdaptiveConcurrencyLimit concurrencyLimit = concurrencyLimits.get(trafficClass instanceof TrafficClass ? (TrafficClass) trafficClass : TrafficClass.Api);
+        if (!concurrencyLimit.tryAcquire()) {
+            concurrencyLimitRejections.increment();
+            logger.debug("Request {} {} of client {} rejected : concurrency limit {} reached", request.getMethod(), request.getRequestURI(), clientId, concurrencyLimit.getLimit());
+            reject(response, CONCURRENCY_RETRY_AFTER_SECONDS);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Forget the rate limit buckets of the clients idle long enough for their bucket to be full again.
+     */
+    @Scheduled(fixedDelayString = "${admissionControl.clientEvictionIntervalMs:60000}")
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private boolean isWarmUpRequest(HttpServletRequest request) {
+        if (!warmingUp.getAsBoolean()) {
+            return false;
+        }
+        try {
+            // the remote address is a literal address : no name resolution
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static String clientIdOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private TokenBucket bucketOf(String clientId, long now) {
+        TokenBucket bucket = clientBuckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        // the buckets of the idle clients are evicted periodically, not on the request path
+        if (clientBuckets.size() >= maxClients) {
+            return overflowBucket;
+        }
+        return clientBuckets.computeIfAbsent(clientId, id -> new TokenBucket(clientRatePerSecond, clientBurst, now));
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+}
@@ -0,0 +1,220 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.domain.IdempotencyRecord;
+import com.mediscreen.patient.service.IIdempotencyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class in charge of the idempotency of the POST requests to the write endpoints sent with an "Idempotency-Key" header :
+ * the first request with a key is processed and its response stored, the requests repeated with the same key, e.g. retried by a client
+ * on a timeout, get the stored response at once with an "Idempotent-Replayed" header, without being processed again.
+ * The keys are scoped to the endpoint and to the client, identified by the authenticated user or else by its address :
+ * a client can not read the stored response of another one by sending its identifier.
+ * A key repeated while its first request is in progress gets the 409 HTTP status code, a key reused for another request (parameters or body) gets the 422 HTTP status code.
+ * The responses of server errors and rejections (409, 429, 503) are not stored : the key is released and the request can be retried.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IIdempotencyService idempotencyService;
+
+    private final Counter replays;
+
+    public IdempotencyFilter(IIdempotencyService idempotencyService, MeterRegistry meterRegistry) {
+        this.idempotencyService = idempotencyService;
+        this.replays = Counter.builder("idempotency.replayed").description("Requests answered with the stored response of their idempotency key")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        HttpServletRequest fingerprintedRequest = isForm(request) ? request : new CachedBodyRequest(request);
+        String fingerprint = fingerprintOf(fingerprintedRequest);
+        String keyHash = sha256(clientIdOf(request) + '\n' + request.getRequestURI() + '\n' + key);
+
+        IdempotencyRecord existing = idempotencyService.claim(keyHash, fingerprint);
+        if (existing != null) {
+            if (!existing.getFingerprint().equals(fingerprint)) {
+                logger.debug("Request {} with idempotency key {} rejected : key reused for another request", request.getRequestURI(), key);
+                response.setStatus(HttpStatus.UNPROCESSABLE_ENTITY.value());
+            } else if (!existing.isCompleted()) {
+                logger.debug("Request {} with idempotency key {} rejected : first request in progress", request.getRequestURI(), key);
+                response.setStatus(HttpStatus.CONFLICT.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            } else {
+                replays.increment();
+                replay(existing, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(fingerprintedRequest, cachingResponse);
+            int status = cachingResponse.getStatus();
+            if (isStored(status)) {
+                idempotencyService.complete(keyHash, new IdempotencyRecord(fingerprint, status, cachingResponse.getContentType(),
+                        cachingResponse.getHeader(HttpHeaders.LOCATION), cachingResponse.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyService.release(keyHash);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getLocation() != null) {
+            response.setHeader(HttpHeaders.LOCATION, record.getLocation());
+        }
+        if (record.getBody() != null && record.getBody().length > 0) {
+            response.setContentLength(record.getBody().length);
+            response.getOutputStream().write(record.getBody());
+        }
+    }
+
+    private static String clientIdOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : request.getRemoteAddr();
+    }
+
+    private static boolean isStored(int status) {
+        return status < 500 && status != HttpStatus.CONFLICT.value() && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        return request.getContentType() == null || request.getContentType().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    // the parameters of a form, or else the query string and the body
+    private static String fingerprintOf(HttpServletRequest request) {
+        StringBuilder fingerprint = new StringBuilder();
+        if (request instanceof CachedBodyRequest) {
+            fingerprint.append(request.getQueryString()).append('\n').append(new String(((CachedBodyRequest) request).body, StandardCharsets.UTF_8));
+        } else {
+            for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+                fingerprint.append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue())).append('&');
+            }
+        }
+        return sha256(fingerprint.toString());
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Class materializing a request whose body is read at once, to be fingerprinted, then read again by the controller.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.controller.PatientController;
+import com.mediscreen.patient.event.PatientRequestEvent;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * Class in charge of recording the requests handled by the controllers of the patients as Flight Recorder events, with the id of the patient
+ * (the "id" path variable or request parameter), the outcome and the duration. Nothing is recorded unless a recording enables the event,
+ * and only the requests slower than its threshold are. The event streams are not recorded.
+ */
+public class PatientRequestRecordingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = PatientRequestRecordingInterceptor.class.getName() + ".event";
+
+    private static final String CONTROLLER_PACKAGE = PatientController.class.getPackage().getName();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod)
+                || !((HandlerMethod) handler).getBeanType().getName().startsWith(CONTROLLER_PACKAGE)) {
+            return true;
+        }
+        PatientRequestEvent event = new PatientRequestEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            request.setAttribute(EVENT_ATTRIBUTE, event);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.removeAttribute(EVENT_ATTRIBUTE);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object attribute = request.getAttribute(EVENT_ATTRIBUTE);
+        if (!(attribute instanceof PatientRequestEvent)) {
+            return;
+        }
+        request.removeAttribute(EVENT_ATTRIBUTE);
+        PatientRequestEvent event = (PatientRequestEvent) attribute;
+        event.end();
+        if (event.shouldCommit()) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.method = request.getMethod();
+            event.uri = pattern != null ? pattern.toString() : request.getRequestURI();
+            event.patientId = patientId(request);
+            event.outcome = ex != null ? ex.getClass().getSimpleName() : String.valueOf(response.getStatus());
+            event.commit();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long patientId(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String id = variables instanceof Map ? ((Map<String, String>) variables).get("id") : null;
+        if (id == null) {
+            id = request.getParameter("id");
+        }
+        try {
+            return id != null ? Long.parseLong(id) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.repository.SqlStatementContext;
+import com.mediscreen.patient.repository.SqlStatementStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class in charge of counting the SQL statements executed by each HTTP request, and their total execution time, through the
+ * StatementCountingDataSource : both are returned as response headers when enabled (in development), and recorded as metrics by endpoint.
+ * Each endpoint, identified by its method and its path pattern (e.g. "GET /patients/updateform/{id}"), has a budget of statements :
+ * a request exceeding it is logged and counted, or fails when failOnExceeded is set, so that the integration tests catch the regressions.
+ * A statement executed many times by one request, a sign of a N+1 select, is logged as well.
+ * Only the statements executed by the thread of the request are counted, and the event streams are not.
+ */
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private static final String UNMATCHED_PATTERN = "UNMATCHED";
+
+    private final Map<String, Integer> budgets;
+
+    private final int defaultBudget;
+
+    private final int repeatThreshold;
+
+    private final boolean headersEnabled;
+
+    private final boolean failOnExceeded;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs the filter.
+     *
+     * @param budgets The budgets of statements by endpoint, e.g. "GET /patients/list" : 1
+     * @param defaultBudget The budget of the endpoints without one, none if not positive
+     * @param repeatThreshold The number of executions of a statement by one request from which it is logged as a N+1 select
+     * @param headersEnabled Whether the number of statements and their time are returned as response headers
+     * @param failOnExceeded Whether a request exceeding its budget fails
+     * @param meterRegistry The registry of the metrics
+     */
+    public SqlStatementBudgetFilter(Map<String, Integer> budgets, int defaultBudget, int repeatThreshold, boolean headersEnabled,
+                                    boolean failOnExceeded, MeterRegistry meterRegistry) {
+        this.budgets = budgets;
+        this.defaultBudget = defaultBudget;
+        this.repeatThreshold = repeatThreshold;
+        this.headersEnabled = headersEnabled;
+        this.failOnExceeded = failOnExceeded;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        SqlStatementStats stats = SqlStatementContext.start();
+        // the response buffered, so that the headers are set once the statements of the whole request are counted
+        ContentCachingResponseWrapper responseWrapper = headersEnabled ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, responseWrapper != null ? responseWrapper : response);
+        } finally {
+            SqlStatementContext.clear();
+            if (responseWrapper != null) {
+                response.setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatementCount()));
+                response.setHeader(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.getTimeNs())));
+                responseWrapper.copyBodyToResponse();
+            }
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNMATCHED_PATTERN;
+        String endpoint = request.getMethod() + " " + uri;
+
+        DistributionSummary.builder("http.server.requests.sql.statements").description("SQL statements executed by a request")
+                .tag("method", request.getMethod()).tag("uri", uri).register(meterRegistry).record(stats.getStatementCount());
+        Timer.builder("http.server.requests.sql.time").description("Total execution time of the SQL statements of a request")
+                .tag("method", request.getMethod()).tag("uri", uri).register(meterRegistry).record(stats.getTimeNs(), TimeUnit.NANOSECONDS);
+
+        if (stats.getMostRepeatedCount() >= repeatThreshold) {
+            Counter.builder("http.server.requests.sql.repeated").description("Requests executing a statement many times, a sign of a N+1 select")
+                    .tag("method", request.getMethod()).tag("uri", uri).register(meterRegistry).increment();
+            logger.warn("Statement executed {} times by {} : {}", stats.getMostRepeatedCount(), endpoint, stats.getMostRepeatedSql());
+        }
+
+        Integer budget = budgets.get(endpoint);
+        if (budget == null && defaultBudget > 0) {
+            budget = defaultBudget;
+        }
+        if (budget != null && stats.getStatementCount() > budget) {
+            Counter.builder("http.server.requests.sql.overBudget").description("Requests exceeding the SQL statements budget of their endpoint")
+                    .tag("method", request.getMethod()).tag("uri", uri).register(meterRegistry).increment();
+            String message = endpoint + " executed " + stats.getStatementCount() + " SQL statements, budget " + budget
+                    + (stats.getMostRepeatedSql() != null ? ", most repeated " + stats.getMostRepeatedCount() + " times : " + stats.getMostRepeatedSql() : "");
+            if (failOnExceeded) {
+                throw new IllegalStateException(message);
+            }
+            logger.warn(message);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.util.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class in charge of isolating the classes of traffic from each other : each request is classified as a page of the user interface
+ * or as a call of another Microservice, by its path, then executed within the bulkhead of its class.
+ * The threads of the server are thereby partitioned between the classes : slow pages can not take the threads (nor the database
+ * connections) the other Microservices depend on. The requests beyond the concurrency and the queue of their class are rejected
+ * at once with the 503 HTTP status code and a Retry-After header. The class is set as a request attribute for the next filters.
+ */
+public class TrafficClassFilter extends OncePerRequestFilter {
+
+    public static final String TRAFFIC_CLASS_ATTRIBUTE = TrafficClassFilter.class.getName() + ".trafficClass";
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficClassFilter.class);
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final List<String> uiPaths;
+
+    private final Map<TrafficClass, Bulkhead> bulkheads;
+
+    private final Map<TrafficClass, Counter> rejections = new EnumMap<>(TrafficClass.class);
+
+    public TrafficClassFilter(List<String> uiPaths, Map<TrafficClass, Bulkhead> bulkheads, MeterRegistry meterRegistry) {
+        this.uiPaths = uiPaths;
+        this.bulkheads = bulkheads;
+        for (Map.Entry<TrafficClass, Bulkhead> bulkhead : bulkheads.entrySet()) {
+            String trafficClass = bulkhead.getKey().name();
+            rejections.put(bulkhead.getKey(), Counter.builder("bulkhead.rejected").description("Requests rejected by the bulkhead of their class")
+                    .tag("trafficClass", trafficClass).register(meterRegistry));
+            Gauge.builder("bulkhead.active", bulkhead.getValue(), Bulkhead::getActive).description("Requests executed")
+                    .tag("trafficClass", trafficClass).register(meterRegistry);
+            Gauge.builder("bulkhead.queued", bulkhead.getValue(), Bulkhead::getQueued).description("Requests waiting for a slot")
+                    .tag("trafficClass", trafficClass).register(meterRegistry);
+        }
+    }
+
+    /**
+     * Return the class of a request, by its path.
+     *
+     * @param request The request
+     * @return The traffic class
+     */
+    public TrafficClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String uiPath : uiPaths) {
+            if (pathMatcher.match(uiPath, path)) {
+                return TrafficClass.Ui;
+            }
+        }
+        return TrafficClass.Api;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+
+        TrafficClass trafficClass = classify(request);
+        request.setAttribute(TRAFFIC_CLASS_ATTRIBUTE, trafficClass);
+        Bulkhead bulkhead = bulkheads.get(trafficClass);
+
+        boolean entered;
+        try {
+            entered = bulkhead.tryEnter();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entered = false;
+        }
+        if (!entered) {
+            rejections.get(trafficClass).increment();
+            logger.debug("Request {} {} rejected : bulkhead of the {} traffic full", request.getMethod(), request.getRequestURI(), trafficClass);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.exit();
+        }
+    }
+}
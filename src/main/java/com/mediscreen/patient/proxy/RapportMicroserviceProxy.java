@@ -1,15 +1,22 @@
 package com.mediscreen.patient.proxy;
 
 
+import com.mediscreen.patient.configuration.RapportClientConfig;
 import com.mediscreen.patient.domain.Rapport;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Proxy for the Rapport Microservice using Feign to communicate with the Rapport Microservice.
+ * The requests are spread over the instances of the Rapport Microservice, and the slow ones hedged, by the client of the RapportClientConfig.
  */
-@FeignClient(name = "rapport", url = "${rapportMicroserviceUrl}")
+@FeignClient(name = "rapport", url = "${rapportMicroserviceUrl}", configuration = RapportClientConfig.class)
 public interface RapportMicroserviceProxy {
 
     /**
@@ -21,4 +28,13 @@ public interface RapportMicroserviceProxy {
     @GetMapping(value = "/assess/id")
     Rapport getPatientRapportById(@RequestParam("id") long id);
 
+    /**
+     * Get the diabetes risk assessment reports of several patients in one request.
+     *
+     * @param ids The ids of the patients
+     * @return The rapports by patient id, a patient not found being absent
+     */
+    @PostMapping(value = "/assess/ids")
+    Map<Long, Rapport> getPatientRapportsByIds(@RequestBody List<Long> ids);
+
 }
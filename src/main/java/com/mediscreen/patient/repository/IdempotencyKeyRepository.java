@@ -0,0 +1,98 @@
+package com.mediscreen.patient.repository;
+
+import com.mediscreen.patient.domain.IdempotencyRecord;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Class in charge of the idempotency keys table, shared by all the instances of the Microservice.
+ * A key is claimed by inserting its row : the primary key lets only one request claim it, whatever the instance receiving it.
+ * With sharding, the table is used in the first shard only.
+ */
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the row of a key for a request in progress, unless the key already has a row.
+     *
+     * @param keyHash The hash of the key
+     * @param fingerprint The fingerprint of the request
+     * @param expiresAtMs The time the row expires at, in epoch milliseconds
+     * @return true if the row is inserted, false if the key already has a row
+     */
+    public boolean insertInProgress(String keyHash, String fingerprint, long expiresAtMs) {
+        try {
+            jdbcTemplate.update("insert into idempotency_key (key_hash, fingerprint, expires_at) values (?, ?, ?)", keyHash, fingerprint, new Timestamp(expiresAtMs));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return the record of a key, unless it is expired.
+     *
+     * @param keyHash The hash of the key
+     * @param nowMs The current time, in epoch milliseconds
+     * @return The record, empty if the key has no row or an expired one
+     */
+    public Optional<IdempotencyRecord> find(String keyHash, long nowMs) {
+        List<IdempotencyRecord> records = jdbcTemplate.query(
+                "select fingerprint, status, content_type, location, body from idempotency_key where key_hash = ? and expires_at > ?",
+                (resultSet, rowNum) -> new IdempotencyRecord(resultSet.getString("fingerprint"), (Integer) resultSet.getObject("status"),
+                        resultSet.getString("content_type"), resultSet.getString("location"), resultSet.getBytes("body")),
+                keyHash, new Timestamp(nowMs));
+        return records.stream().findFirst();
+    }
+
+    /**
+     * Store the response of the request of a key.
+     *
+     * @param keyHash The hash of the key
+     * @param record The record of the request completed
+     * @param expiresAtMs The time the row expires at, in epoch milliseconds
+     */
+    public void complete(String keyHash, IdempotencyRecord record, long expiresAtMs) {
+        jdbcTemplate.update("update idempotency_key set status = ?, content_type = ?, location = ?, body = ?, expires_at = ? where key_hash = ?",
+                record.getStatus(), record.getContentType(), record.getLocation(), record.getBody(), new Timestamp(expiresAtMs), keyHash);
+    }
+
+    /**
+     * Delete the row of a key.
+     *
+     * @param keyHash The hash of the key
+     */
+    public void delete(String keyHash) {
+        jdbcTemplate.update("delete from idempotency_key where key_hash = ?", keyHash);
+    }
+
+    /**
+     * Delete the row of a key if it is expired.
+     *
+     * @param keyHash The hash of the key
+     * @param nowMs The current time, in epoch milliseconds
+     * @return true if an expired row is deleted
+     */
+    public boolean deleteIfExpired(String keyHash, long nowMs) {
+        return jdbcTemplate.update("delete from idempotency_key where key_hash = ? and expires_at <= ?", keyHash, new Timestamp(nowMs)) > 0;
+    }
+
+    /**
+     * Delete the expired rows.
+     *
+     * @param nowMs The current time, in epoch milliseconds
+     * @return The number of rows deleted
+     */
+    public int deleteExpired(long nowMs) {
+        return jdbcTemplate.update("delete from idempotency_key where expires_at <= ?", new Timestamp(nowMs));
+    }
+}
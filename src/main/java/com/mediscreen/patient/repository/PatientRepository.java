@@ -1,13 +1,35 @@
 package com.mediscreen.patient.repository;
 
+import com.mediscreen.patient.constant.Assessment;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.domain.PatientMatchColumns;
+import com.mediscreen.patient.domain.PatientPhoneColumns;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Interface extending the JpaRepository interface to manage CRUD methods for Patient entities, using Spring DataJPA.
+ * The repository is not exported by Spring Data REST : the patients are only written through the controller,
+ * which validates them and publishes their changes.
  */
 @Repository
+@RepositoryRestResource(exported = false)
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
     /**
@@ -19,4 +41,131 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      */
     Patient findByLastNameAndFirstName (String lastName, String firstName);
 
+    /**
+     * Return whether a patient exists given its last name and first name, read from the index of the names only.
+     *
+     * @param lastName The last name of the patient
+     * @param firstName The first name of the patient
+     * @return true if a patient exists with these names, false otherwise
+     */
+    boolean existsByLastNameAndFirstName(String lastName, String firstName);
+
+    /**
+     * Return a patient given its id, locking it until the end of the transaction.
+     *
+     * @param id The id of the patient
+     * @return The patient, empty if not found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Patient p where p.id = :id")
+    Optional<Patient> findForUpdateById(@Param("id") long id);
+
+    /**
+     * Return the columns of all patients rendered by the patients list page, with their latest risk assessment, ordered by id.
+     *
+     * @return The list items of all patients
+     */
+    @Query("select new com.mediscreen.patient.domain.PatientListItem(p.id, p.lastName, p.firstName, p.dateOfBirth, p.sex, p.homeAddress, p.phoneNumber, r.assessment, r.assessedAt) from Patient p left join PatientRisk r on r.patientId = p.id order by p.id")
+    List<PatientListItem> findListItemsOrderById();
+
+    /**
+     * Return the columns of all patients rendered by the patients list page, with their latest risk assessment,
+     * ordered by decreasing risk then id, the patients not assessed yet last (nulls sort last in descending order).
+     *
+     * @return The list items of all patients
+     */
+    @Query("select new com.mediscreen.patient.domain.PatientListItem(p.id, p.lastName, p.firstName, p.dateOfBirth, p.sex, p.homeAddress, p.phoneNumber, r.assessment, r.assessedAt) from Patient p left join PatientRisk r on r.patientId = p.id order by r.assessment desc, p.id")
+    List<PatientListItem> findListItemsOrderByRisk();
+
+    /**
+     * Return the columns rendered by the patients list page of the patients whose latest risk assessment is the given one, ordered by id.
+     *
+     * @param assessment The risk assessment
+     * @return The list items of the patients
+     */
+    @Query("select new com.mediscreen.patient.domain.PatientListItem(p.id, p.lastName, p.firstName, p.dateOfBirth, p.sex, p.homeAddress, p.phoneNumber, r.assessment, r.assessedAt) from PatientRisk r join Patient p on p.id = r.patientId where r.assessment = :assessment order by p.id")
+    List<PatientListItem> findListItemsByAssessmentOrderById(@Param("assessment") Assessment assessment);
+
+    /**
+     * Store the latest risk assessment of a patient, unless an assessment more recent is already stored or the patient does not exist anymore.
+     *
+     * @param id The id of the patient
+     * @param riskLevel The risk level of the assessment, as stored by the AssessmentAttributeConverter
+     * @param assessedAt The time the patient was assessed at
+     * @return The number of assessments inserted or updated
+     */
+    @Modifying
+    @Query(value = "insert into patient_risk (patient_id, assessment, assessed_at) select p.id, :riskLevel, :assessedAt from patient p where p.id = :id"
+            + " on duplicate key update assessment = if(values(assessed_at) >= assessed_at, values(assessment), assessment), assessed_at = greatest(assessed_at, values(assessed_at))",
+            nativeQuery = true)
+    int upsertRisk(@Param("id") long id, @Param("riskLevel") int riskLevel, @Param("assessedAt") Instant assessedAt);
+
+    /**
+     * Return the patients given their phone number in the E.164 format.
+     *
+     * @param normalizedPhoneNumber The phone number in the E.164 format
+     * @return The patients having this phone number
+     */
+    List<Patient> findByNormalizedPhoneNumber(String normalizedPhoneNumber);
+
+    /**
+     * Return the phone number of the patients having a phone number not yet normalized and an id greater than the given one, ordered by id.
+     *
+     * @param afterId The id after which patients are returned
+     * @param pageable The page size limiting the number of patients returned
+     * @return The id and phone number of the patients
+     */
+    @Query("select p.id as id, p.phoneNumber as phoneNumber from Patient p where p.normalizedPhoneNumber is null and p.phoneNumber is not null and p.id > :afterId order by p.id")
+    List<PatientPhoneColumns> findPhoneColumnsToNormalize(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Update the phone number in the E.164 format of a patient, if not normalized yet : a phone number normalized by a concurrent save is kept.
+     *
+     * @param id The id of the patient
+     * @param normalizedPhoneNumber The phone number in the E.164 format
+     * @return The number of patients updated
+     */
+    @Modifying
+    @Query("update Patient p set p.normalizedPhoneNumber = :normalizedPhoneNumber where p.id = :id and p.normalizedPhoneNumber is null")
+    int updateNormalizedPhoneNumber(@Param("id") long id, @Param("normalizedPhoneNumber") String normalizedPhoneNumber);
+
+    /**
+     * Return the columns used by the columnar snapshot for the patients having an id greater than the given one, ordered by id.
+     *
+     * @param afterId The id after which patients are returned
+     * @param pageable The page size limiting the number of patients returned
+     * @return The columns of the patients
+     */
+    @Query("select p.id as id, p.lastName as lastName, p.firstName as firstName, p.dateOfBirth as dateOfBirth, p.sex as sex from Patient p where p.id > :afterId order by p.id")
+    List<PatientColumns> findColumnsByIdGreaterThan(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Return the columns compared to detect duplicates for the first patients, ordered by date of birth and id.
+     *
+     * @param pageable The page size limiting the number of patients returned
+     * @return The columns of the patients
+     */
+    @Query("select p.id as id, p.lastName as lastName, p.firstName as firstName, p.dateOfBirth as dateOfBirth, p.homeAddress as homeAddress, p.phoneNumber as phoneNumber from Patient p order by p.dateOfBirth, p.id")
+    List<PatientMatchColumns> findMatchColumnsOrderByDateOfBirth(Pageable pageable);
+
+    /**
+     * Return the columns compared to detect duplicates for the patients following the given date of birth and id, ordered by date of birth and id.
+     *
+     * @param afterDateOfBirth The date of birth of the last patient already returned
+     * @param afterId The id of the last patient already returned
+     * @param pageable The page size limiting the number of patients returned
+     * @return The columns of the patients
+     */
+    @Query("select p.id as id, p.lastName as lastName, p.firstName as firstName, p.dateOfBirth as dateOfBirth, p.homeAddress as homeAddress, p.phoneNumber as phoneNumber from Patient p where p.dateOfBirth > :afterDateOfBirth or (p.dateOfBirth = :afterDateOfBirth and p.id > :afterId) order by p.dateOfBirth, p.id")
+    List<PatientMatchColumns> findMatchColumnsOrderByDateOfBirthAfter(@Param("afterDateOfBirth") LocalDate afterDateOfBirth, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Return the columns compared to detect duplicates for the patients born at one of the given dates.
+     *
+     * @param datesOfBirth The dates of birth
+     * @return The columns of the patients
+     */
+    @Query("select p.id as id, p.lastName as lastName, p.firstName as firstName, p.dateOfBirth as dateOfBirth, p.homeAddress as homeAddress, p.phoneNumber as phoneNumber from Patient p where p.dateOfBirth in :datesOfBirth")
+    List<PatientMatchColumns> findMatchColumnsByDateOfBirthIn(@Param("datesOfBirth") Collection<LocalDate> datesOfBirth);
+
 }
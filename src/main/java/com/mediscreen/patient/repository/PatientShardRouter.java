@@ -0,0 +1,146 @@
+package com.mediscreen.patient.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Locale;
+
+/**
+ * Class in charge of routing the patients to the shards of the sharded patient registry.
+ * Patients are spread over a fixed number of buckets by the hash of their last name and first name, each bucket being held by one shard :
+ * resharding moves whole buckets, and the bucket directory is stored in the first shard.
+ * Ids are generated by each shard with an auto-increment step of ID_SLOTS and an offset specific to the shard, so that the id encodes the shard
+ * where the patient was created. Routing only selects the shard to query first : a patient not found there is searched in the other shards.
+ */
+public class PatientShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientShardRouter.class);
+
+    public static final int BUCKETS = 1024;
+
+    // maximum number of shards
+    public static final int ID_SLOTS = 64;
+
+    private final int shardCount;
+
+    private final JdbcTemplate directory;
+
+    private volatile int[] bucketShards;
+
+    public PatientShardRouter(int shardCount, JdbcTemplate directory) {
+        if (shardCount < 1 || shardCount > ID_SLOTS) {
+            throw new IllegalArgumentException("The number of shards must be between 1 and " + ID_SLOTS + ", found " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.directory = directory;
+        this.bucketShards = defaultBucketShards(shardCount);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Return the SQL statement to run on each connection to a shard, so that the ids generated by the shard encode it.
+     *
+     * @param shard The shard
+     * @return The SQL statement
+     */
+    public static String connectionInitSql(int shard) {
+        return "SET SESSION auto_increment_increment = " + ID_SLOTS + ", auto_increment_offset = " + (shard + 1);
+    }
+
+    /**
+     * Return the bucket of a patient.
+     *
+     * @param lastName The last name of the patient
+     * @param firstName The first name of the patient
+     * @return The bucket
+     */
+    public int bucketOf(String lastName, String firstName) {
+        // case-insensitive and trimmed, as the comparison of names by the database
+        int hash = (lastName.trim().toUpperCase(Locale.ROOT) + '\u0000' + firstName.trim().toUpperCase(Locale.ROOT)).hashCode();
+        // String.hashCode spreads similar names poorly : mixed as the finalizer of MurmurHash3
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % BUCKETS;
+    }
+
+    /**
+     * Return the shard holding a bucket.
+     *
+     * @param bucket The bucket
+     * @return The shard
+     */
+    public int shardOfBucket(int bucket) {
+        return bucketShards[bucket];
+    }
+
+    /**
+     * Return the shard expected to hold a patient given its last name and first name.
+     *
+     * @param lastName The last name of the patient
+     * @param firstName The first name of the patient
+     * @return The shard
+     */
+    public int shardOfNames(String lastName, String firstName) {
+        return shardOfBucket(bucketOf(lastName, firstName));
+    }
+
+    /**
+     * Return the shard where a patient was created, encoded in its id. The patient may have been moved since by a resharding.
+     *
+     * @param id The id of the patient
+     * @return The shard, or the first shard if the id does not encode a known shard
+     */
+    public int shardOfId(long id) {
+        int shard = (int) ((id - 1) % ID_SLOTS);
+        return shard >= 0 && shard < shardCount ? shard : 0;
+    }
+
+    /**
+     * Assign a bucket to a shard in the bucket directory.
+     *
+     * @param bucket The bucket
+     * @param shard The shard
+     */
+    public void assignBucket(int bucket, int shard) {
+        directory.update("insert into patient_shard_bucket (bucket, shard) values (?, ?) on duplicate key update shard = values(shard)", bucket, shard);
+        refresh();
+    }
+
+    /**
+     * Reload the bucket directory, so that the buckets moved by other instances are routed to their new shard.
+     */
+    @Scheduled(fixedDelayString = "${sharding.bucketRefreshIntervalMs:10000}")
+    public void refresh() {
+        int[] refreshed = defaultBucketShards(shardCount);
+        try {
+            directory.query("select bucket, shard from patient_shard_bucket", resultSet -> {
+                int bucket = resultSet.getInt("bucket");
+                int shard = resultSet.getInt("shard");
+                if (bucket >= 0 && bucket < BUCKETS && shard >= 0 && shard < shardCount) {
+                    refreshed[bucket] = shard;
+                }
+            });
+            bucketShards = refreshed;
+        } catch (DataAccessException e) {
+            // routing stays correct with a stale directory, only slower
+            logger.warn("Bucket directory could not be loaded, keeping the previous one : {}", e.getMessage());
+        }
+    }
+
+    private static int[] defaultBucketShards(int shardCount) {
+        int[] bucketShards = new int[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketShards[bucket] = bucket % shardCount;
+        }
+        return bucketShards;
+    }
+}
@@ -0,0 +1,41 @@
+package com.mediscreen.patient.repository;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class materializing the databases of the sharded patient registry, the first one holding the bucket directory.
+ */
+public class PatientShards implements Closeable {
+
+    private final List<DataSource> dataSources;
+
+    public PatientShards(List<DataSource> dataSources) {
+        this.dataSources = Collections.unmodifiableList(new ArrayList<>(dataSources));
+    }
+
+    public int getShardCount() {
+        return dataSources.size();
+    }
+
+    public DataSource getDataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    public List<DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
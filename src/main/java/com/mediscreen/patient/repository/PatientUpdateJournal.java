@@ -0,0 +1,217 @@
+package com.mediscreen.patient.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.domain.Patient;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class materializing the append-only journal file making the asynchronous patient updates durable until they are committed to the database.
+ * Each line is a JSON entry : either an update accepted, or the tickets of the updates completed.
+ * The journal is emptied once every update is completed, or compacted to the updates not completed yet so that it stays bounded under steady load.
+ */
+public class PatientUpdateJournal implements Closeable {
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean fsync;
+
+    private FileChannel channel;
+
+    public PatientUpdateJournal(Path path, ObjectMapper objectMapper, boolean fsync) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the journal and return the updates accepted but not completed before the previous shutdown, in acceptance order.
+     *
+     * @return The updates not completed
+     * @throws IOException if the journal can not be read or opened
+     */
+    public synchronized List<Entry> open() throws IOException {
+
+        Map<String, Entry> notCompleted = new LinkedHashMap<>();
+
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = objectMapper.readValue(line, Entry.class);
+                    } catch (IOException e) {
+                        // line partially written during a crash
+                        continue;
+                    }
+                    if (entry.getPatient() != null) {
+                        notCompleted.put(entry.getTicketIds().get(0), entry);
+                    } else {
+                        entry.getTicketIds().forEach(notCompleted::remove);
+                    }
+                }
+            }
+        } else if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+
+        // terminate a line partially written during a crash so that it does not corrupt the next entry
+        if (channel.size() > 0) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, channel.size() - 1);
+            if (lastByte.get(0) != '\n') {
+                channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            }
+        }
+
+        return new ArrayList<>(notCompleted.values());
+    }
+
+    /**
+     * Append an accepted update to the journal.
+     *
+     * @param ticketId The ticket of the update
+     * @param patient The patient to update
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void appendAccepted(String ticketId, Patient patient) throws IOException {
+        List<String> ticketIds = new ArrayList<>(1);
+        ticketIds.add(ticketId);
+        append(new Entry(ticketIds, patient));
+    }
+
+    /**
+     * Append completed updates to the journal.
+     *
+     * @param ticketIds The tickets of the updates completed
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void appendCompleted(Collection<String> ticketIds) throws IOException {
+        append(new Entry(new ArrayList<>(ticketIds), null));
+    }
+
+    /**
+     * Empty the journal, to be called when every update accepted is completed.
+     *
+     * @throws IOException if the journal can not be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        if (fsync) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Return the size of the journal.
+     *
+     * @return The size of the journal in bytes
+     * @throws IOException if the size can not be read
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Replace the journal by the given updates, to be called with every update accepted and not completed yet.
+     * The compacted journal is written aside then moved over the journal atomically : a crash leaves either journal, both complete.
+     *
+     * @param notCompleted The updates not completed
+     * @throws IOException if the journal can not be compacted
+     */
+    public synchronized void compact(Collection<Entry> notCompleted) throws IOException {
+        Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Entry entry : notCompleted) {
+                write(compacted, entry);
+            }
+            if (fsync) {
+                compacted.force(true);
+            }
+        }
+        channel.close();
+        Files.move(compactedPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void append(Entry entry) throws IOException {
+        write(channel, entry);
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private void write(FileChannel target, Entry entry) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * Class materializing a journal entry : an update accepted if the patient is set, the updates completed otherwise.
+     */
+    public static class Entry {
+
+        private List<String> ticketIds;
+
+        private Patient patient;
+
+        public Entry() {
+        }
+
+        public Entry(List<String> ticketIds, Patient patient) {
+            this.ticketIds = ticketIds;
+            this.patient = patient;
+        }
+
+        public List<String> getTicketIds() {
+            return ticketIds;
+        }
+
+        public void setTicketIds(List<String> ticketIds) {
+            this.ticketIds = ticketIds;
+        }
+
+        public Patient getPatient() {
+            return patient;
+        }
+
+        public void setPatient(Patient patient) {
+            this.patient = patient;
+        }
+    }
+}
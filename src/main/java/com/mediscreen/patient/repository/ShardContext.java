@@ -0,0 +1,34 @@
+package com.mediscreen.patient.repository;
+
+/**
+ * Class holding the shard the database connections of the current thread are routed to.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Return the shard of the current thread.
+     *
+     * @return The shard, null if none is set
+     */
+    public static Integer get() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * Set the shard of the current thread.
+     *
+     * @param shard The shard, null to clear it
+     */
+    public static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.mediscreen.patient.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Class materializing the data source routing the connections to the shard of the current thread (the first shard if none is set).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.get();
+    }
+}
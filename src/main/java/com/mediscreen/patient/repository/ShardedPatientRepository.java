@@ -0,0 +1,648 @@
+package com.mediscreen.patient.repository;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.domain.PatientMatchColumns;
+import com.mediscreen.patient.domain.PatientPhoneColumns;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityNotFoundException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Class materializing the sharded patient registry, used in place of the PatientRepository when sharding is enabled.
+ * Each call is executed by the PatientRepository on the shard selected by the PatientShardRouter : a patient is looked up first in its expected shard
+ * then in the other ones, the lists are gathered from all the shards in parallel and merged in the order of the query, keeping only the requested page.
+ * Outside a transaction, each call is its own transaction on its shard. Within the transaction of a service call, the writes to a shard, and the reads
+ * following them, run in one transaction on this shard, kept open by its own thread and committed when the transaction of the service call commits,
+ * so that the changes of a service call are committed or rolled back together (there is no two-phase commit : a failure to commit one shard rolls back
+ * the shards not yet committed only).
+ */
+public class ShardedPatientRepository implements PatientRepository {
+
+    private static final Comparator<Patient> BY_ID = Comparator.comparingLong(Patient::getId);
+
+    private static final Comparator<PatientMatchColumns> BY_DATE_OF_BIRTH_AND_ID =
+            Comparator.comparing(PatientMatchColumns::getDateOfBirth).thenComparingLong(PatientMatchColumns::getId);
+
+    private static final Comparator<PatientListItem> BY_RISK =
+            Comparator.comparing(PatientListItem::getAssessment, Comparator.nullsLast(Comparator.<Assessment>reverseOrder())).thenComparingLong(PatientListItem::getId);
+
+    private final PatientRepository shardRepository;
+
+    private final PatientShardRouter router;
+
+    private final TransactionTemplate shardTransaction;
+
+    private final TransactionTemplate readOnlyShardTransaction;
+
+    private final ExecutorService scatterExecutor;
+
+    private final ExecutorService shardTransactionExecutor;
+
+    /**
+     * Constructs the sharded patient registry.
+     *
+     * @param shardRepository The repository executing the queries on the shard of the ShardContext
+     * @param router The router of the patients to the shards
+     * @param transactionManager The transaction manager of the repository
+     */
+    public ShardedPatientRepository(PatientRepository shardRepository, PatientShardRouter router, PlatformTransactionManager transactionManager) {
+        this.shardRepository = shardRepository;
+        this.router = router;
+        this.shardTransaction = new TransactionTemplate(transactionManager);
+        // a new transaction : the connection of a transaction is bound to the shard of its first statement
+        this.shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // the reads are not flushed, and the entities read are not snapshotted for dirty checking
+        this.readOnlyShardTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyShardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyShardTransaction.setReadOnly(true);
+        this.scatterExecutor = Executors.newFixedThreadPool(router.getShardCount(), runnable -> {
+            Thread thread = new Thread(runnable, "patient-shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shardTransactionExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "patient-shard-transaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void shutdown() {
+        scatterExecutor.shutdownNow();
+        shardTransactionExecutor.shutdownNow();
+    }
+
+    @Override
+    public Patient findByLastNameAndFirstName(String lastName, String firstName) {
+        int expectedShard = router.shardOfNames(lastName, firstName);
+        Patient patient = onShard(expectedShard, () -> shardRepository.findByLastNameAndFirstName(lastName, firstName));
+        if (patient != null) {
+            return patient;
+        }
+        return onOtherShards(expectedShard, () -> shardRepository.findByLastNameAndFirstName(lastName, firstName)).stream()
+                .filter(found -> found != null)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public boolean existsByLastNameAndFirstName(String lastName, String firstName) {
+        int expectedShard = router.shardOfNames(lastName, firstName);
+        if (onShard(expectedShard, () -> shardRepository.existsByLastNameAndFirstName(lastName, firstName))) {
+            return true;
+        }
+        return onOtherShards(expectedShard, () -> shardRepository.existsByLastNameAndFirstName(lastName, firstName)).contains(Boolean.TRUE);
+    }
+
+    @Override
+    public Optional<Patient> findById(Long id) {
+        int shard = locate(id);
+        return shard < 0 ? Optional.empty() : onShard(shard, () -> shardRepository.findById(id));
+    }
+
+    @Override
+    public Optional<Patient> findForUpdateById(long id) {
+        int shard = locate(id);
+        return shard < 0 ? Optional.empty() : onShardForWrite(shard, () -> shardRepository.findForUpdateById(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return locate(id) >= 0;
+    }
+
+    @Override
+    public <S extends Patient> S save(S patient) {
+        if (patient.getId() == 0) {
+            return onShardForWrite(router.shardOfNames(patient.getLastName(), patient.getFirstName()), () -> shardRepository.save(patient));
+        }
+        // the patient is updated in the shard holding it : locked first, so that it can not be moved by a resharding meanwhile
+        while (true) {
+            int shard = locate(patient.getId());
+            if (shard < 0) {
+                return onShardForWrite(router.shardOfNames(patient.getLastName(), patient.getFirstName()), () -> shardRepository.save(patient));
+            }
+            S saved = onShardForWrite(shard, () -> shardRepository.findForUpdateById(patient.getId()).isPresent() ? shardRepository.save(patient) : null);
+            if (saved != null) {
+                return saved;
+            }
+        }
+    }
+
+    @Override
+    public <S extends Patient> List<S> saveAll(Iterable<S> patients) {
+        List<S> saved = new ArrayList<>();
+        for (S patient : patients) {
+            saved.add(save(patient));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends Patient> S saveAndFlush(S patient) {
+        S saved = save(patient);
+        flush();
+        return saved;
+    }
+
+    @Override
+    public void flush() {
+        // outside a service call, each call is committed in its own transaction : nothing to flush
+        ServiceCallTransaction transaction = serviceCallTransaction(false);
+        if (transaction != null) {
+            transaction.flush();
+        }
+    }
+
+    @Override
+    public int updateNormalizedPhoneNumber(long id, String normalizedPhoneNumber) {
+        int shard = locate(id);
+        return shard < 0 ? 0 : onShardForWrite(shard, () -> shardRepository.updateNormalizedPhoneNumber(id, normalizedPhoneNumber));
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        int shard = locate(id);
+        if (shard < 0) {
+            throw new EntityNotFoundException("No patient with id " + id);
+        }
+        onShardForWrite(shard, () -> {
+            shardRepository.deleteById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Patient patient) {
+        int shard = locate(patient.getId());
+        if (shard >= 0) {
+            onShardForWrite(shard, () -> {
+                shardRepository.delete(patient);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Patient> patients) {
+        patients.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteInBatch(Iterable<Patient> patients) {
+        patients.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        onAllShardsForWrite(() -> {
+            shardRepository.deleteAll();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        onAllShardsForWrite(() -> {
+            shardRepository.deleteAllInBatch();
+            return null;
+        });
+    }
+
+    @Override
+    public Patient getOne(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No patient with id " + id));
+    }
+
+    @Override
+    public long count() {
+        return onAllShards(shardRepository::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public List<Patient> findAll() {
+        return merge(onAllShards(shardRepository::findAll), BY_ID, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Patient> findAll(Sort sort) {
+        return merge(onAllShards(() -> shardRepository.findAll(sort)), comparator(sort), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<Patient> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(pageable.getSort()));
+        }
+        // each shard returns the patients up to the end of the page, the page is then cut from the merged lists
+        Pageable upToPageEnd = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        List<Page<Patient>> pages = onAllShards(() -> shardRepository.findAll(upToPageEnd));
+        return page(pages, comparator(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public List<Patient> findAllById(Iterable<Long> ids) {
+        return merge(onAllShards(() -> shardRepository.findAllById(ids)), BY_ID, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<PatientListItem> findListItemsOrderById() {
+        return merge(onAllShards(shardRepository::findListItemsOrderById), Comparator.comparingLong(PatientListItem::getId), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<PatientListItem> findListItemsOrderByRisk() {
+        return merge(onAllShards(shardRepository::findListItemsOrderByRisk), BY_RISK, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<PatientListItem> findListItemsByAssessmentOrderById(Assessment assessment) {
+        return merge(onAllShards(() -> shardRepository.findListItemsByAssessmentOrderById(assessment)), Comparator.comparingLong(PatientListItem::getId), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int upsertRisk(long id, int riskLevel, Instant assessedAt) {
+        int shard = locate(id);
+        return shard < 0 ? 0 : onShardForWrite(shard, () -> shardRepository.upsertRisk(id, riskLevel, assessedAt));
+    }
+
+    @Override
+    public List<Patient> findByNormalizedPhoneNumber(String normalizedPhoneNumber) {
+        return merge(onAllShards(() -> shardRepository.findByNormalizedPhoneNumber(normalizedPhoneNumber)), BY_ID, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<PatientPhoneColumns> findPhoneColumnsToNormalize(long afterId, Pageable pageable) {
+        return merge(onAllShards(() -> shardRepository.findPhoneColumnsToNormalize(afterId, pageable)),
+                Comparator.comparingLong(PatientPhoneColumns::getId), pageable.getPageSize());
+    }
+
+    @Override
+    public List<PatientColumns> findColumnsByIdGreaterThan(long afterId, Pageable pageable) {
+        return merge(onAllShards(() -> shardRepository.findColumnsByIdGreaterThan(afterId, pageable)),
+                Comparator.comparingLong(PatientColumns::getId), pageable.getPageSize());
+    }
+
+    @Override
+    public List<PatientMatchColumns> findMatchColumnsOrderByDateOfBirth(Pageable pageable) {
+        return merge(onAllShards(() -> shardRepository.findMatchColumnsOrderByDateOfBirth(pageable)), BY_DATE_OF_BIRTH_AND_ID, pageable.getPageSize());
+    }
+
+    @Override
+    public List<PatientMatchColumns> findMatchColumnsOrderByDateOfBirthAfter(LocalDate afterDateOfBirth, long afterId, Pageable pageable) {
+        return merge(onAllShards(() -> shardRepository.findMatchColumnsOrderByDateOfBirthAfter(afterDateOfBirth, afterId, pageable)),
+                BY_DATE_OF_BIRTH_AND_ID, pageable.getPageSize());
+    }
+
+    @Override
+    public List<PatientMatchColumns> findMatchColumnsByDateOfBirthIn(Collection<LocalDate> datesOfBirth) {
+        return merge(onAllShards(() -> shardRepository.findMatchColumnsByDateOfBirthIn(datesOfBirth)), BY_DATE_OF_BIRTH_AND_ID, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public <S extends Patient> Optional<S> findOne(Example<S> example) {
+        return onAllShards(() -> shardRepository.findOne(example)).stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .findFirst();
+    }
+
+    @Override
+    public <S extends Patient> List<S> findAll(Example<S> example) {
+        return merge(onAllShards(() -> shardRepository.findAll(example)), BY_ID, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public <S extends Patient> List<S> findAll(Example<S> example, Sort sort) {
+        return merge(onAllShards(() -> shardRepository.findAll(example, sort)), comparator(sort), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public <S extends Patient> Page<S> findAll(Example<S> example, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(example, pageable.getSort()));
+        }
+        Pageable upToPageEnd = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        List<Page<S>> pages = onAllShards(() -> shardRepository.findAll(example, upToPageEnd));
+        return page(pages, comparator(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends Patient> long count(Example<S> example) {
+        return onAllShards(() -> shardRepository.count(example)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public <S extends Patient> boolean exists(Example<S> example) {
+        return onAllShards(() -> shardRepository.exists(example)).contains(Boolean.TRUE);
+    }
+
+    /**
+     * Return the shard holding a patient : the shard encoded in its id first, then the other shards.
+     *
+     * @param id The id of the patient
+     * @return The shard, -1 if the patient is not found
+     */
+    private int locate(long id) {
+        int expectedShard = router.shardOfId(id);
+        if (onShard(expectedShard, () -> shardRepository.existsById(id))) {
+            return expectedShard;
+        }
+        List<Integer> otherShards = otherShards(expectedShard);
+        List<Boolean> found = onShards(otherShards, () -> shardRepository.existsById(id));
+        for (int i = 0; i < otherShards.size(); i++) {
+            if (found.get(i)) {
+                return otherShards.get(i);
+            }
+        }
+        return -1;
+    }
+
+    private <T> T onShard(int shard, Supplier<T> query) {
+        return onShard(shard, false, query);
+    }
+
+    private <T> T onShardForWrite(int shard, Supplier<T> update) {
+        return onShard(shard, true, update);
+    }
+
+    // within a service call, the writes and the reads of the shards already written run in the transaction of the service call on their shard
+    private <T> T onShard(int shard, boolean write, Supplier<T> call) {
+        ServiceCallTransaction transaction = serviceCallTransaction(write);
+        if (transaction != null && (write || transaction.holds(shard))) {
+            return transaction.onShard(shard, call);
+        }
+        return onShard(shard, write ? shardTransaction : readOnlyShardTransaction, call);
+    }
+
+    private static <T> T onShard(int shard, TransactionTemplate transaction, Supplier<T> call) {
+        Integer previousShard = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            return transaction.execute(status -> call.get());
+        } finally {
+            ShardContext.set(previousShard);
+        }
+    }
+
+    private <T> List<T> onAllShards(Supplier<T> query) {
+        return onShards(otherShards(-1), false, query);
+    }
+
+    private <T> List<T> onAllShardsForWrite(Supplier<T> update) {
+        return onShards(otherShards(-1), true, update);
+    }
+
+    private <T> List<T> onOtherShards(int excludedShard, Supplier<T> query) {
+        return onShards(otherShards(excludedShard), false, query);
+    }
+
+    private <T> List<T> onShards(List<Integer> shards, Supplier<T> query) {
+        return onShards(shards, false, query);
+    }
+
+    // calls the shards in parallel, except the ones in the transaction of the service call, the results being returned in the order of the shards
+    private <T> List<T> onShards(List<Integer> shards, boolean write, Supplier<T> call) {
+        ServiceCallTransaction transaction = serviceCallTransaction(write);
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            boolean inServiceCall = transaction != null && (write || transaction.holds(shard));
+            futures.add(shards.size() == 1 || inServiceCall ? null
+                    : CompletableFuture.supplyAsync(() -> onShard(shard, write ? shardTransaction : readOnlyShardTransaction, call), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            results.add(futures.get(i) == null ? onShard(shards.get(i), write, call) : futures.get(i).join());
+        }
+        return results;
+    }
+
+    /**
+     * Return the shard transactions of the service call of the current thread, i.e. of the transaction the repository is called in.
+     *
+     * @param create true to start them if the service call has none yet
+     * @return The shard transactions, null outside a transaction, or if the service call has none and create is false
+     */
+    private ServiceCallTransaction serviceCallTransaction(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        // the synchronizations are those of the current transaction : they are suspended with it by a nested new transaction
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ServiceCallTransaction && ((ServiceCallTransaction) synchronization).getRepository() == this) {
+                return (ServiceCallTransaction) synchronization;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        ServiceCallTransaction transaction = new ServiceCallTransaction();
+        TransactionSynchronizationManager.registerSynchronization(transaction);
+        return transaction;
+    }
+
+    /**
+     * Class materializing the transactions on the shards of a service call, committed before the transaction of the service call
+     * and rolled back with it. Only used by the thread of the service call.
+     */
+    private final class ServiceCallTransaction implements TransactionSynchronization {
+
+        private final Map<Integer, ShardTransaction> shardTransactions = new LinkedHashMap<>();
+
+        ShardedPatientRepository getRepository() {
+            return ShardedPatientRepository.this;
+        }
+
+        boolean holds(int shard) {
+            return shardTransactions.containsKey(shard);
+        }
+
+        <T> T onShard(int shard, Supplier<T> call) {
+            return shardTransactions.computeIfAbsent(shard, ShardTransaction::new).execute(call);
+        }
+
+        void flush() {
+            for (ShardTransaction transaction : shardTransactions.values()) {
+                transaction.execute(() -> {
+                    shardRepository.flush();
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // a shard failing to commit makes the transaction of the service call, and the shards not committed yet, roll back
+            for (ShardTransaction transaction : shardTransactions.values()) {
+                transaction.complete(true);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            for (ShardTransaction transaction : shardTransactions.values()) {
+                transaction.complete(false);
+            }
+        }
+    }
+
+    /**
+     * Class materializing the transaction of a service call on one shard : its thread runs the calls of the service call
+     * in one transaction, until it is completed.
+     */
+    private final class ShardTransaction {
+
+        private final BlockingQueue<FutureTask<?>> calls = new LinkedBlockingQueue<>();
+
+        // queued once the transaction is completed, after the last call
+        private final FutureTask<?> end = new FutureTask<>(() -> null);
+
+        private final CompletableFuture<Void> completion;
+
+        private volatile boolean commit;
+
+        private boolean completed;
+
+        ShardTransaction(int shard) {
+            this.completion = CompletableFuture.runAsync(() -> {
+                ShardContext.set(shard);
+                try {
+                    shardTransaction.execute(status -> {
+                        if (!runCalls()) {
+                            status.setRollbackOnly();
+                        }
+                        return null;
+                    });
+                } finally {
+                    ShardContext.set(null);
+                }
+            }, shardTransactionExecutor);
+        }
+
+        <T> T execute(Supplier<T> call) {
+            FutureTask<T> task = new FutureTask<>(call::get);
+            calls.add(task);
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConcurrencyFailureException("Interrupted while waiting for the transaction of the shard", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Commit or roll back the transaction, once.
+         *
+         * @param commit true to commit it, false to roll it back
+         */
+        void complete(boolean commit) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            this.commit = commit;
+            calls.add(end);
+            try {
+                completion.join();
+            } catch (CompletionException e) {
+                // a failure to roll back is left to the database, which rolls back the transaction of a closed connection
+                if (commit) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+
+        // returns whether the transaction must be committed
+        private boolean runCalls() {
+            try {
+                for (FutureTask<?> call = calls.take(); call != end; call = calls.take()) {
+                    call.run();
+                }
+                return commit;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                calls.forEach(call -> call.cancel(false));
+                return false;
+            }
+        }
+    }
+
+    private List<Integer> otherShards(int excludedShard) {
+        List<Integer> shards = new ArrayList<>(router.getShardCount());
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            if (shard != excludedShard) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    // merges lists already sorted by the shards, keeping the first elements only
+    private static <T> List<T> merge(List<? extends Iterable<? extends T>> shardResults, Comparator<? super T> order, int limit) {
+        List<T> merged = new ArrayList<>();
+        for (Iterable<? extends T> shardResult : shardResults) {
+            shardResult.forEach(merged::add);
+        }
+        merged.sort(order);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private static <T> Page<T> page(List<Page<T>> shardPages, Comparator<? super T> order, Pageable pageable) {
+        List<T> merged = merge(shardPages, order, Integer.MAX_VALUE);
+        long total = shardPages.stream().mapToLong(Page::getTotalElements).sum();
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, total);
+    }
+
+    private static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (first, second) -> 0;
+        for (Sort.Order order : sort) {
+            comparator = comparator.thenComparing(new PropertyComparator<>(order.getProperty(), order.isIgnoreCase(), order.isAscending()));
+        }
+        // the order of the patients with equal sort properties is unspecified : the id makes the merged order stable
+        return comparator.thenComparing(new PropertyComparator<>("id", false, true));
+    }
+}
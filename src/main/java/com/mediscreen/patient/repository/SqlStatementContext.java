@@ -0,0 +1,39 @@
+package com.mediscreen.patient.repository;
+
+/**
+ * Class holding the SQL statements statistics of the HTTP request executed by the current thread.
+ */
+public final class SqlStatementContext {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT_STATS = new ThreadLocal<>();
+
+    private SqlStatementContext() {
+    }
+
+    /**
+     * Return the statistics of the current thread.
+     *
+     * @return The statistics, null if the statements of the current thread are not counted
+     */
+    public static SqlStatementStats get() {
+        return CURRENT_STATS.get();
+    }
+
+    /**
+     * Start counting the statements of the current thread.
+     *
+     * @return The statistics, updated by the statements executed from now on
+     */
+    public static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats();
+        CURRENT_STATS.set(stats);
+        return stats;
+    }
+
+    /**
+     * Stop counting the statements of the current thread.
+     */
+    public static void clear() {
+        CURRENT_STATS.remove();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mediscreen.patient.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class materializing the SQL statements executed for one HTTP request : their number, their total execution time,
+ * and the statement executed the most times, a sign of a N+1 select when it is repeated many times.
+ * Only updated by the thread of the request.
+ */
+public class SqlStatementStats {
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+    private int statementCount;
+
+    private long timeNs;
+
+    private String mostRepeatedSql;
+
+    private int mostRepeatedCount;
+
+    /**
+     * Record a statement executed.
+     *
+     * @param sql The SQL of the statement, null if unknown
+     * @param elapsedNs The execution time of the statement in nanoseconds
+     */
+    public void record(String sql, long elapsedNs) {
+        statementCount++;
+        timeNs += elapsedNs;
+        if (sql != null) {
+            int executions = executionsBySql.merge(sql, 1, Integer::sum);
+            if (executions > mostRepeatedCount) {
+                mostRepeatedCount = executions;
+                mostRepeatedSql = sql;
+            }
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getTimeNs() {
+        return timeNs;
+    }
+
+    public String getMostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+}
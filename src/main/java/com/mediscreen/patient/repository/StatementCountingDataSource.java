@@ -0,0 +1,91 @@
+package com.mediscreen.patient.repository;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Class materializing a data source counting and timing the SQL statements executed by the threads whose statements are counted
+ * (see SqlStatementContext), in their statistics. A batch counts as one statement.
+ * The connections of all the threads are proxied : the statements created by the other threads, e.g. the background jobs, are the ones of
+ * the target data source and are not counted, but each call on their connection still goes through the proxy.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (!(result instanceof Statement) || SqlStatementContext.get() == null) {
+                        return result;
+                    }
+                    // the SQL of a prepared statement is known at its creation, the one of a plain statement at its execution
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    Class<?> statementType = result instanceof CallableStatement ? CallableStatement.class
+                            : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                    return Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(), new Class<?>[]{statementType},
+                            new CountingStatementHandler((Statement) result, sql));
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Class in charge of counting and timing the executions of a statement.
+     */
+    private static final class CountingStatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private final String preparedSql;
+
+        private CountingStatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            SqlStatementStats stats = SqlStatementContext.get();
+            if (stats == null || !method.getName().startsWith("execute")) {
+                return StatementCountingDataSource.invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return StatementCountingDataSource.invoke(statement, method, args);
+            } finally {
+                stats.record(sql, System.nanoTime() - start);
+            }
+        }
+    }
+}
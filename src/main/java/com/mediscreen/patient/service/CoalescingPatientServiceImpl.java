@@ -0,0 +1,209 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.exception.InvalidPhoneNumberException;
+import com.mediscreen.patient.exception.ResourceAlreadyExistException;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import com.mediscreen.patient.proxy.RapportMicroserviceProxy;
+import com.mediscreen.patient.util.BatchLoader;
+import com.mediscreen.patient.util.SingleFlight;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class in charge of coalescing the concurrent identical reads of patients and reports : the callers asking for the same patient
+ * or the same report at the same time share one query to the database or one call to the Rapport Microservice.
+ * The writes are delegated as is. A caller arriving after a patient is created or updated never shares a read started before.
+ * The lookups of names for which the patient name filter knows that no patient exists are answered without any read.
+ * When enabled, the reports of distinct patients requested within a few milliseconds are requested from the Rapport Microservice in one batch,
+ * trading this delay for fewer requests : if the Rapport Microservice answers the batch endpoint with a client error, as a version without the
+ * batch endpoint does, the reports are requested one by one again until the restart of the Microservice.
+ */
+@Service
+@Primary
+public class CoalescingPatientServiceImpl implements IPatientService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingPatientServiceImpl.class);
+
+    private final IPatientService patientService;
+
+    private final IPatientNameFilterService patientNameFilterService;
+
+    private final SingleFlight singleFlight;
+
+    private final RapportMicroserviceProxy rapportProxy;
+
+    // null when the batching of the reports is disabled
+    private final BatchLoader<Long, Rapport> rapportLoader;
+
+    private volatile boolean rapportBatchEndpointFound = true;
+
+    public CoalescingPatientServiceImpl(@Qualifier("patientServiceImpl") IPatientService patientService, IPatientNameFilterService patientNameFilterService,
+                                        @Lazy RapportMicroserviceProxy rapportProxy,
+                                        @Value("${singleFlight.maxWaitMs:5000}") long maxWaitMs,
+                                        @Value("${rapportBatching.enabled:false}") boolean rapportBatchingEnabled,
+                                        @Value("${rapportBatching.maxBatchSize:50}") int maxBatchSize,
+                                        @Value("${rapportBatching.maxDelayMs:5}") long maxDelayMs,
+                                        @Value("${rapportBatching.maxWaitMs:10000}") long maxBatchWaitMs,
+                                        @Value("${rapportBatching.dispatcherThreads:8}") int dispatcherThreads) {
+        this.patientService = patientService;
+        this.patientNameFilterService = patientNameFilterService;
+        this.singleFlight = new SingleFlight(maxWaitMs);
+        this.rapportProxy = rapportProxy;
+        this.rapportLoader = rapportBatchingEnabled
+                ? new BatchLoader<>("patient-rapport", this::loadPatientRapports, maxBatchSize, maxDelayMs, maxBatchWaitMs, dispatcherThreads)
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Patient findPatientById(Long id) throws ResourceNotFoundException {
+        return singleFlight.execute(Arrays.asList("patientById", id), () -> patientService.findPatientById(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Patient findPatientByLastNameAndFirstName(String lastName, String firstName) throws ResourceNotFoundException {
+        if (!patientNameFilterService.mightExist(lastName, firstName)) {
+            throw new ResourceNotFoundException(lastName, firstName);
+        }
+        return singleFlight.execute(Arrays.asList("patientByLastNameAndFirstName", lastName, firstName),
+                () -> patientService.findPatientByLastNameAndFirstName(lastName, firstName));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Patient> findPatientsByPhoneNumber(String phoneNumber) throws ResourceNotFoundException, InvalidPhoneNumberException {
+        return singleFlight.execute(Arrays.asList("patientsByPhoneNumber", phoneNumber), () -> patientService.findPatientsByPhoneNumber(phoneNumber));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Patient> findAllPatients() {
+        return singleFlight.execute("allPatients", patientService::findAllPatients);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PatientListItem> findAllPatientListItems() {
+        return singleFlight.execute("allPatientListItems", patientService::findAllPatientListItems);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<PatientListItem> findPatientListItemsByRisk(Assessment assessment) {
+        return singleFlight.execute(Arrays.asList("patientListItemsByRisk", assessment), () -> patientService.findPatientListItemsByRisk(assessment));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Patient updatePatient(Patient patient) throws ResourceNotFoundException, ResourceAlreadyExistException {
+        return patientService.updatePatient(patient);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Patient createPatient(Patient patient) throws ResourceAlreadyExistException {
+        return patientService.createPatient(patient);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Rapport getPatientRapport(long id) {
+        if (rapportLoader == null || !rapportBatchEndpointFound) {
+            return singleFlight.execute(Arrays.asList("patientRapport", id), () -> patientService.getPatientRapport(id));
+        }
+        return singleFlight.execute(Arrays.asList("patientRapport", id), () -> {
+            Rapport rapport = rapportLoader.load(id);
+            if (rapport == null) {
+                throw new ResourceNotFoundException(id);
+            }
+            return rapport;
+        });
+    }
+
+    /**
+     * Detach the reads in flight once a patient is created or updated, so that the callers arriving from now on read the change.
+     *
+     * @param event The event published for the patient created or updated
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        singleFlight.forgetAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rapportLoader != null) {
+            rapportLoader.shutdown();
+        }
+    }
+
+    private Map<Long, Rapport> loadPatientRapports(List<Long> ids) {
+        if (rapportBatchEndpointFound) {
+            try {
+                return rapportProxy.getPatientRapportsByIds(ids);
+            } catch (ResourceNotFoundException e) {
+                // a patient not found is only absent from the batch : the batch endpoint itself is not found
+                batchEndpointMissing(404);
+            } catch (FeignException e) {
+                // 405 or 400 from a version of the Rapport Microservice without the batch endpoint, the server errors being thrown to the callers
+                if (e.status() < 400 || e.status() >= 500) {
+                    throw e;
+                }
+                batchEndpointMissing(e.status());
+            }
+        }
+        Map<Long, Rapport> rapports = new HashMap<>();
+        for (Long id : ids) {
+            try {
+                rapports.put(id, patientService.getPatientRapport(id));
+            } catch (ResourceNotFoundException e) {
+                // absent from the reports returned
+            }
+        }
+        return rapports;
+    }
+
+    private void batchEndpointMissing(int status) {
+        if (rapportBatchEndpointFound) {
+            logger.error("Batch endpoint of the Rapport Microservice answered {}, reports requested one by one from now on", status);
+            rapportBatchEndpointFound = false;
+        }
+    }
+}
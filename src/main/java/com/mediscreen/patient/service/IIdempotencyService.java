@@ -0,0 +1,38 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.IdempotencyRecord;
+
+/**
+ * Interface to be implemented to manage the idempotency keys of the requests to the write endpoints.
+ */
+public interface IIdempotencyService {
+
+    /**
+     * Claim a key for a request, unless another request already claimed it.
+     *
+     * @param keyHash The hash of the key, scoped to the client and the endpoint
+     * @param fingerprint The fingerprint of the request
+     * @return null if the key is claimed for the request, otherwise the record of the request which claimed it, completed or in progress
+     */
+    IdempotencyRecord claim(String keyHash, String fingerprint);
+
+    /**
+     * Store the response of the request of a key claimed, to be returned to the requests repeated with the same key.
+     *
+     * @param keyHash The hash of the key
+     * @param record The record of the request completed
+     */
+    void complete(String keyHash, IdempotencyRecord record);
+
+    /**
+     * Release a key claimed without storing the response of its request, so that the request can be retried with the same key.
+     *
+     * @param keyHash The hash of the key
+     */
+    void release(String keyHash);
+
+    /**
+     * Delete the expired keys.
+     */
+    void purgeExpiredKeys();
+}
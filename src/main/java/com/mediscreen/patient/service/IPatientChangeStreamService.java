@@ -0,0 +1,29 @@
+package com.mediscreen.patient.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Interface to be implemented to manage the stream of the patient changes sent to the patients list pages as Server-Sent Events.
+ */
+public interface IPatientChangeStreamService {
+
+    /**
+     * Return the id of the last change streamed, to subscribe from once the patients list is read.
+     *
+     * @return The id of the last change
+     */
+    String getLastChangeId();
+
+    /**
+     * Subscribe to the stream of the patient changes.
+     *
+     * @param lastChangeId The id of the last change received by the subscriber, null if none : the changes since are sent first
+     * @return The emitter of the events, or null if the maximum number of subscribers is reached
+     */
+    SseEmitter subscribe(String lastChangeId);
+
+    /**
+     * Send a heartbeat to the idle subscribers, so that the closed connections are detected and the open ones are kept alive by the proxies.
+     */
+    void sendHeartbeats();
+}
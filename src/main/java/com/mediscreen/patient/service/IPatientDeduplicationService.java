@@ -0,0 +1,35 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.MergeCandidate;
+
+import java.util.List;
+
+/**
+ * Interface to be implemented to manage the detection of duplicate patients.
+ */
+public interface IPatientDeduplicationService {
+
+    /**
+     * Return the pairs of patients suspected to be duplicates, best scores first.
+     *
+     * @return The merge candidates
+     */
+    List<MergeCandidate> getMergeCandidates();
+
+    /**
+     * Start a scan of the whole registry in background.
+     *
+     * @return true if the scan is started, false if a scan is already in progress
+     */
+    boolean startFullScan();
+
+    /**
+     * Scan the whole registry for duplicate patients, replacing the current merge candidates.
+     */
+    void scanAllPatients();
+
+    /**
+     * Re-check the patients created or updated since the last scan.
+     */
+    void scanChangedPatients();
+}
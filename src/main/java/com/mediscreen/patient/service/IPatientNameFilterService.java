@@ -0,0 +1,21 @@
+package com.mediscreen.patient.service;
+
+/**
+ * Interface to be implemented to manage the filter of the names of the existing patients, answering the lookups of unknown names without loading a patient.
+ */
+public interface IPatientNameFilterService {
+
+    /**
+     * Return whether a patient may exist with the given last name and first name.
+     *
+     * @param lastName The last name of the patient
+     * @param firstName The first name of the patient
+     * @return false if no patient exists with these names, true if one may exist
+     */
+    boolean mightExist(String lastName, String firstName);
+
+    /**
+     * Rebuild the filter from the database.
+     */
+    void rebuildFilter();
+}
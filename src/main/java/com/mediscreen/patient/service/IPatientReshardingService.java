@@ -0,0 +1,25 @@
+package com.mediscreen.patient.service;
+
+import java.util.Map;
+
+/**
+ * Interface to be implemented to manage the distribution of the patients across the shards of the sharded patient registry.
+ */
+public interface IPatientReshardingService {
+
+    /**
+     * Return the number of patients held by each shard.
+     *
+     * @return The number of patients by shard
+     */
+    Map<Integer, Long> countPatientsByShard();
+
+    /**
+     * Move a bucket of patients to another shard, while the registry stays online.
+     *
+     * @param bucket The bucket
+     * @param targetShard The shard to move the bucket to
+     * @return The number of patients moved
+     */
+    int moveBucket(int bucket, int targetShard);
+}
@@ -0,0 +1,20 @@
+package com.mediscreen.patient.service;
+
+/**
+ * Interface to be implemented to manage the latest diabetes risk assessments of the patients, stored to list the patients by risk.
+ */
+public interface IPatientRiskService {
+
+    /**
+     * Refresh the risk assessment of all patients from the Rapport Microservice, in the background.
+     */
+    void refreshAllAssessments();
+
+    /**
+     * Request the refresh of the risk assessment of a patient from the Rapport Microservice, in the background.
+     *
+     * @param id The id of the patient
+     * @return true if the refresh is queued, false if it is already queued or can not be queued
+     */
+    boolean refreshAssessment(long id);
+}
@@ -1,7 +1,10 @@
 package com.mediscreen.patient.service;
 
+import com.mediscreen.patient.constant.Assessment;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
 import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.exception.InvalidPhoneNumberException;
 import com.mediscreen.patient.exception.ResourceAlreadyExistException;
 import com.mediscreen.patient.exception.ResourceNotFoundException;
 
@@ -31,6 +34,16 @@ public interface IPatientService {
      */
     Patient findPatientByLastNameAndFirstName(String lastName, String firstName) throws ResourceNotFoundException;
 
+    /**
+     * Return the patients given their phone number, whatever its format.
+     *
+     * @param phoneNumber The phone number of the patients
+     * @return The patients having this phone number
+     * @throws ResourceNotFoundException if no patient is found for the given phone number
+     * @throws InvalidPhoneNumberException if the phone number can not be normalized
+     */
+    List<Patient> findPatientsByPhoneNumber(String phoneNumber) throws ResourceNotFoundException, InvalidPhoneNumberException;
+
     /**
      * Return all patients.
      *
@@ -38,6 +51,21 @@ public interface IPatientService {
      */
     List<Patient> findAllPatients();
 
+    /**
+     * Return the list items of all patients, i.e. the columns rendered by the patients list page.
+     *
+     * @return The list items of all patients, ordered by id
+     */
+    List<PatientListItem> findAllPatientListItems();
+
+    /**
+     * Return the list items of the patients by diabetes risk, read from their latest risk assessment stored.
+     *
+     * @param assessment The risk assessment of the patients to return, null to return all patients
+     * @return The list items of the patients, ordered by decreasing risk then id, the patients not assessed yet last
+     */
+    List<PatientListItem> findPatientListItemsByRisk(Assessment assessment);
+
     /**
      * Update a patient.
      *
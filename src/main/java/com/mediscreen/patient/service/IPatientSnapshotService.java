@@ -0,0 +1,26 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.PatientColumnarSnapshot;
+
+/**
+ * Interface to be implemented to manage the columnar snapshot of patients used for analytics.
+ */
+public interface IPatientSnapshotService {
+
+    /**
+     * Return the current snapshot of patients.
+     *
+     * @return The current snapshot
+     */
+    PatientColumnarSnapshot getSnapshot();
+
+    /**
+     * Rebuild the snapshot from the database, in the background.
+     */
+    void refreshSnapshot();
+
+    /**
+     * Apply the patient changes received since the last refresh to the snapshot.
+     */
+    void applyPendingChanges();
+}
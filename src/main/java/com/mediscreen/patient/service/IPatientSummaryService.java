@@ -0,0 +1,19 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.PatientSummary;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+
+/**
+ * Interface to be implemented to manage the summaries of patients.
+ */
+public interface IPatientSummaryService {
+
+    /**
+     * Return the summary of a patient : the patient and its diabetes risk assessment report, loaded concurrently within their latency budget.
+     *
+     * @param id The id of the patient
+     * @return The summary, partial if a part is not loaded within its budget
+     * @throws ResourceNotFoundException if no patient is found for the given id
+     */
+    PatientSummary getPatientSummary(long id) throws ResourceNotFoundException;
+}
@@ -0,0 +1,33 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientUpdateTicket;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+
+/**
+ * Interface to be implemented to manage the asynchronous updates of patients.
+ */
+public interface IPatientUpdateQueueService {
+
+    /**
+     * Accept a patient update to be committed asynchronously.
+     *
+     * @param patient The patient to update
+     * @return The ticket to follow the update
+     */
+    PatientUpdateTicket enqueueUpdate(Patient patient);
+
+    /**
+     * Return the ticket of an asynchronous update.
+     *
+     * @param ticketId The identifier of the ticket
+     * @return The ticket
+     * @throws ResourceNotFoundException if no ticket is found for the given identifier
+     */
+    PatientUpdateTicket getTicket(String ticketId) throws ResourceNotFoundException;
+
+    /**
+     * Commit the pending updates to the database.
+     */
+    void flush();
+}
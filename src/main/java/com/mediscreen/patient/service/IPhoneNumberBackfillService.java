@@ -0,0 +1,14 @@
+package com.mediscreen.patient.service;
+
+/**
+ * Interface to be implemented to manage the normalization of the phone numbers of existing patients.
+ */
+public interface IPhoneNumberBackfillService {
+
+    /**
+     * Normalize the phone numbers of the patients not yet normalized.
+     *
+     * @return The number of patients updated
+     */
+    int backfillNormalizedPhoneNumbers();
+}
@@ -0,0 +1,41 @@
+package com.mediscreen.patient.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Interface to be implemented to manage the Flight Recorder recordings of the Microservice, started and downloaded on demand.
+ */
+public interface IProfilingService {
+
+    /**
+     * Start an on-demand recording, stopped after the given duration at most.
+     *
+     * @param durationSeconds The duration of the recording
+     * @return true if started, false if an on-demand recording is already running
+     * @throws IOException If the file of the recording can not be created
+     */
+    boolean startRecording(long durationSeconds) throws IOException;
+
+    /**
+     * Stop the running on-demand recording.
+     *
+     * @return The file of the recording, null if no on-demand recording is running
+     */
+    Path stopRecording();
+
+    /**
+     * Return the file of the last on-demand recording, once stopped.
+     *
+     * @return The file of the recording, null if none is stopped
+     */
+    Path getLastRecording();
+
+    /**
+     * Write the last minutes of the continuous recording, holding the slow operations only, to a file.
+     *
+     * @return The file of the recording, null if the continuous recording is disabled
+     * @throws IOException If the file of the recording can not be written
+     */
+    Path dumpContinuousRecording() throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.mediscreen.patient.service;
+
+/**
+ * Interface to be implemented to manage the warm-up of the Microservice at startup.
+ */
+public interface IStartupWarmUpService {
+
+    /**
+     * Warm up the Microservice : open the database connections, and execute representative requests so that the query plans,
+     * the serializers and the templates are built, and the hot paths compiled, before the first real requests.
+     *
+     * @return The duration of the warm-up in milliseconds
+     */
+    long warmUp();
+
+    /**
+     * Return whether the warm-up is running.
+     *
+     * @return true while the warm-up requests are executed
+     */
+    boolean isWarmingUp();
+}
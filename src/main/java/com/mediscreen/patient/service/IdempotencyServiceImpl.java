@@ -0,0 +1,157 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.IdempotencyRecord;
+import com.mediscreen.patient.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Class in charge of managing the idempotency keys of the requests to the write endpoints.
+ * The keys are claimed and the responses stored in the database, shared by all the instances. The most recently used responses
+ * are also kept in memory, bounded in number, so that the requests repeated on the same instance are answered without querying the database.
+ * A key claimed by a request which never completes, e.g. on a crash of its instance, is released after the in-progress timeout.
+ */
+@Service
+@ConditionalOnProperty(name = "idempotency.enabled", havingValue = "true")
+public class IdempotencyServiceImpl implements IIdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final long ttlMs;
+
+    private final long inProgressTimeoutMs;
+
+    private final Map<String, CachedRecord> cachedRecords;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  @Value("${idempotency.ttlMs:86400000}") long ttlMs,
+                                  @Value("${idempotency.inProgressTimeoutMs:60000}") long inProgressTimeoutMs,
+                                  @Value("${idempotency.maxCachedResponses:10000}") int maxCachedResponses) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttlMs = ttlMs;
+        this.inProgressTimeoutMs = inProgressTimeoutMs;
+        // least recently used first
+        this.cachedRecords = new LinkedHashMap<String, CachedRecord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRecord> eldest) {
+                return size() > maxCachedResponses;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IdempotencyRecord claim(String keyHash, String fingerprint) {
+
+        long now = System.currentTimeMillis();
+        IdempotencyRecord cached = getCached(keyHash, now);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (idempotencyKeyRepository.insertInProgress(keyHash, fingerprint, now + inProgressTimeoutMs)) {
+            return null;
+        }
+        Optional<IdempotencyRecord> existing = idempotencyKeyRepository.find(keyHash, now);
+        if (existing.isPresent()) {
+            if (existing.get().isCompleted()) {
+                putCached(keyHash, existing.get(), now + ttlMs);
+            }
+            return existing.get();
+        }
+
+        // the row found is expired : the key is claimed again, unless another request claims it first
+        idempotencyKeyRepository.deleteIfExpired(keyHash, now);
+        if (idempotencyKeyRepository.insertInProgress(keyHash, fingerprint, now + inProgressTimeoutMs)) {
+            return null;
+        }
+        return idempotencyKeyRepository.find(keyHash, now).orElse(IdempotencyRecord.inProgress(fingerprint));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void complete(String keyHash, IdempotencyRecord record) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        idempotencyKeyRepository.complete(keyHash, record, expiresAt);
+        putCached(keyHash, record, expiresAt);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(String keyHash) {
+        idempotencyKeyRepository.delete(keyHash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${idempotency.purgeIntervalMs:600000}")
+    public void purgeExpiredKeys() {
+
+        long now = System.currentTimeMillis();
+        synchronized (cachedRecords) {
+            Iterator<CachedRecord> iterator = cachedRecords.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAtMs <= now) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        int deleted = idempotencyKeyRepository.deleteExpired(now);
+        logger.debug("{} expired idempotency keys deleted", deleted);
+    }
+
+    private IdempotencyRecord getCached(String keyHash, long now) {
+        synchronized (cachedRecords) {
+            CachedRecord cached = cachedRecords.get(keyHash);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAtMs <= now) {
+                cachedRecords.remove(keyHash);
+                return null;
+            }
+            return cached.record;
+        }
+    }
+
+    private void putCached(String keyHash, IdempotencyRecord record, long expiresAtMs) {
+        synchronized (cachedRecords) {
+            cachedRecords.put(keyHash, new CachedRecord(record, expiresAtMs));
+        }
+    }
+
+    /**
+     * Class materializing a completed record kept in memory until it expires.
+     */
+    private static class CachedRecord {
+
+        private final IdempotencyRecord record;
+
+        private final long expiresAtMs;
+
+        private CachedRecord(IdempotencyRecord record, long expiresAtMs) {
+            this.record = record;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
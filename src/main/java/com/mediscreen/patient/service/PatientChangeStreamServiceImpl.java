@@ -0,0 +1,282 @@
+package com.mediscreen.patient.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class in charge of streaming the patients created or updated to the patients list pages as Server-Sent Events, so that the pages patch the changed rows
+ * rather than reloading the whole list.
+ * Each change is serialized once, as a line of the list, then queued to every subscriber : the queue of a subscriber is bounded, and a subscriber too slow
+ * to keep up gets a "resync" event instead of its backlog, on which the page reloads the list once. The events are sent by a small pool of threads,
+ * so that a slow connection never blocks the thread committing a change.
+ * The last changes are kept to be sent again to a subscriber reconnecting, from the id of the last change it received.
+ * Only the changes made by this instance are streamed.
+ */
+@Service
+public class PatientChangeStreamServiceImpl implements IPatientChangeStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientChangeStreamServiceImpl.class);
+
+    private static final String PATIENT_EVENT = "patient";
+
+    private static final String RESYNC_EVENT = "resync";
+
+    // the ids of the changes are only meaningful to the instance which streamed them
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Deque<Change> recentChanges = new ArrayDeque<>();
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxSubscribers;
+
+    private final int bufferSize;
+
+    private final int replaySize;
+
+    private final long timeoutMs;
+
+    private final ExecutorService senderExecutor;
+
+    private final Counter resyncs;
+
+    private long lastSequence;
+
+    public PatientChangeStreamServiceImpl(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                          @Value("${patientChangeStream.maxSubscribers:500}") int maxSubscribers,
+                                          @Value("${patientChangeStream.bufferSize:100}") int bufferSize,
+                                          @Value("${patientChangeStream.replaySize:1000}") int replaySize,
+                                          @Value("${patientChangeStream.timeoutMs:1800000}") long timeoutMs,
+                                          @Value("${patientChangeStream.senderThreads:4}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senderExecutor = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "patient-change-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.resyncs = Counter.builder("patient.changes.resyncs").description("Subscribers too slow to keep up with the patient changes, sent a resync event")
+                .register(meterRegistry);
+        Gauge.builder("patient.changes.subscribers", subscribers, Set::size).description("Subscribers to the patient changes").register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String getLastChangeId() {
+        return changeId(lastSequence);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SseEmitter subscribe(String lastChangeId) {
+
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize + 1);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // registered and sent the changes missed under the lock of the changes : no change is missed nor sent twice
+        synchronized (this) {
+            if (lastChangeId != null && !lastChangeId.isEmpty()) {
+                Long lastReceived = sequenceOf(lastChangeId);
+                if (lastReceived == null || (!recentChanges.isEmpty() && lastReceived < recentChanges.peekFirst().sequence - 1)) {
+                    subscriber.queue.offer(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                } else {
+                    for (Change change : recentChanges) {
+                        if (change.sequence > lastReceived && !subscriber.queue.offer(change.event())) {
+                            subscriber.resync();
+                            break;
+                        }
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+
+        return emitter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${patientChangeStream.heartbeatIntervalMs:15000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty() && subscriber.queue.offer(SseEmitter.event().comment("heartbeat"))) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Stream a patient created or updated, once its transaction is committed.
+     *
+     * @param event The patient change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+
+        Patient patient = event.getPatient();
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(new PatientListItem(patient.getId(), patient.getLastName(), patient.getFirstName(),
+                    patient.getDateOfBirth(), patient.getSex(), patient.getHomeAddress(), patient.getPhoneNumber()));
+        } catch (JsonProcessingException e) {
+            logger.error("Patient change of patient with id {} not streamed", patient.getId(), e);
+            return;
+        }
+
+        synchronized (this) {
+            Change change = new Change(++lastSequence, data);
+            recentChanges.addLast(change);
+            if (recentChanges.size() > replaySize) {
+                recentChanges.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(change.event())) {
+                    subscriber.resync();
+                }
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senderExecutor.shutdownNow();
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            senderExecutor.execute(() -> send(subscriber));
+        }
+    }
+
+    // sends the queued events of a subscriber, by one thread at a time
+    private void send(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // connection closed by the client, or emitter already completed
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            logger.debug("Patient changes subscriber removed : {}", e.toString());
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // an event queued between the last poll and the end of sending
+        if (subscribers.contains(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    private String changeId(long sequence) {
+        return instanceId + "-" + sequence;
+    }
+
+    private Long sequenceOf(String changeId) {
+        if (!changeId.startsWith(instanceId + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(changeId.substring(instanceId.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Class materializing a change streamed : a line of the patients list in JSON data.
+     */
+    private final class Change {
+
+        private final long sequence;
+
+        private final String data;
+
+        private Change(long sequence, String data) {
+            this.sequence = sequence;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder event() {
+            return SseEmitter.event().id(changeId(sequence)).name(PATIENT_EVENT).data(data);
+        }
+    }
+
+    /**
+     * Class materializing a subscriber, with its bounded queue of events to send.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // the backlog of a subscriber too slow is replaced by a resync event : the page reloads the list once
+        private void resync() {
+            queue.clear();
+            queue.offer(SseEmitter.event().name(RESYNC_EVENT).data(""));
+            resyncs.increment();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.MergeCandidate;
+import com.mediscreen.patient.domain.PatientMatchColumns;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.util.PatientSimilarity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class in charge of detecting duplicate patients.
+ * Patients are blocked by date of birth and by the phonetic keys of their names (in any order, to catch swapped first and last names),
+ * then the pairs of patients of a same block are scored by names, phone number and address similarity.
+ * Blocks are compared in parallel using a fork/join pool.
+ */
+@Service
+public class PatientDeduplicationServiceImpl implements IPatientDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientDeduplicationServiceImpl.class);
+
+    private static final double NAME_WEIGHT = 0.6;
+
+    private static final double PHONE_WEIGHT = 0.2;
+
+    private static final double ADDRESS_WEIGHT = 0.2;
+
+    private static final int PHONE_SIGNIFICANT_DIGITS = 10;
+
+    private static final int BLOCKS_PER_TASK = 64;
+
+    private static final int DATES_OF_BIRTH_PER_QUERY = 500;
+
+    private final PatientRepository patientRepository;
+
+    private final boolean enabled;
+
+    private final double threshold;
+
+    private final int pageSize;
+
+    private final int maxBlockSize;
+
+    private final ForkJoinPool forkJoinPool;
+
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor();
+
+    private final AtomicBoolean scanInProgress = new AtomicBoolean();
+
+    // held by the full and the incremental scans so that they never update the merge candidates concurrently
+    private final Object scanLock = new Object();
+
+    private final Map<Long, LocalDate> changedPatients = new ConcurrentHashMap<>();
+
+    private volatile Map<String, MergeCandidate> mergeCandidates = new ConcurrentHashMap<>();
+
+    public PatientDeduplicationServiceImpl(PatientRepository patientRepository,
+                                           @Value("${patientDeduplication.enabled:true}") boolean enabled,
+                                           @Value("${patientDeduplication.threshold:0.88}") double threshold,
+                                           @Value("${patientDeduplication.pageSize:10000}") int pageSize,
+                                           @Value("${patientDeduplication.maxBlockSize:500}") int maxBlockSize,
+                                           @Value("${patientDeduplication.parallelism:0}") int parallelism) {
+        this.patientRepository = patientRepository;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.pageSize = pageSize;
+        this.maxBlockSize = maxBlockSize;
+        this.forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Return the pairs of patients suspected to be duplicates, best scores first.
+     *
+     * @return The merge candidates
+     */
+    @Override
+    public List<MergeCandidate> getMergeCandidates() {
+        List<MergeCandidate> candidates = new ArrayList<>(mergeCandidates.values());
+        candidates.sort(Comparator.comparingDouble(MergeCandidate::getScore).reversed());
+        return candidates;
+    }
+
+    /**
+     * Start a scan of the whole registry in background.
+     *
+     * @return true if the scan is started, false if a scan is already in progress
+     */
+    @Override
+    public boolean startFullScan() {
+        if (scanInProgress.get()) {
+            return false;
+        }
+        scanExecutor.execute(this::scanAllPatients);
+        return true;
+    }
+
+    /**
+     * Scan the whole registry for duplicate patients, replacing the current merge candidates.
+     */
+    @Override
+    @Scheduled(cron = "${patientDeduplication.fullScanCron:0 0 3 * * *}")
+    public void scanAllPatients() {
+
+        if (!scanInProgress.compareAndSet(false, true)) {
+            logger.info("Duplicate patients scan already in progress");
+            return;
+        }
+
+        try {
+            synchronized (scanLock) {
+                scanAllPatientsByDateOfBirth();
+            }
+        } finally {
+            scanInProgress.set(false);
+        }
+    }
+
+    /**
+     * Re-check the patients created or updated since the last scan, only the patients born at the same dates being loaded.
+     * The changes are neither recorded nor re-checked when the detection is disabled, the full scans staying available on request.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${patientDeduplication.changedScanIntervalMs:60000}")
+    public void scanChangedPatients() {
+
+        if (!enabled || changedPatients.isEmpty() || scanInProgress.get()) {
+            return;
+        }
+
+        synchronized (scanLock) {
+            Map<Long, LocalDate> changed = new HashMap<>();
+            for (Long id : changedPatients.keySet()) {
+                LocalDate dateOfBirth = changedPatients.remove(id);
+                if (dateOfBirth != null) {
+                    changed.put(id, dateOfBirth);
+                }
+            }
+
+            Map<String, MergeCandidate> current = mergeCandidates;
+            current.values().removeIf(candidate -> changed.containsKey(candidate.getFirstPatientId()) || changed.containsKey(candidate.getSecondPatientId()));
+
+            List<LocalDate> datesOfBirth = new ArrayList<>(new HashSet<>(changed.values()));
+            for (int from = 0; from < datesOfBirth.size(); from += DATES_OF_BIRTH_PER_QUERY) {
+                List<LocalDate> chunk = datesOfBirth.subList(from, Math.min(from + DATES_OF_BIRTH_PER_QUERY, datesOfBirth.size()));
+                compare(patientRepository.findMatchColumnsByDateOfBirthIn(chunk), changed.keySet(), current);
+            }
+
+            logger.info("Duplicate patients re-checked for {} changed patients", changed.size());
+        }
+    }
+
+    /**
+     * Record a patient change to be re-checked by the next incremental scan.
+     *
+     * @param event The patient change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        changedPatients.put(event.getPatient().getId(), event.getPatient().getDateOfBirth());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanExecutor.shutdownNow();
+        forkJoinPool.shutdownNow();
+    }
+
+    /**
+     * Scan the whole registry, patients being streamed ordered by date of birth so that only the patients of a few dates of birth are held in memory.
+     */
+    private void scanAllPatientsByDateOfBirth() {
+
+        long start = System.currentTimeMillis();
+
+        Map<String, MergeCandidate> found = new ConcurrentHashMap<>();
+        List<PatientMatchColumns> pending = new ArrayList<>();
+        long scanned = 0;
+
+        List<PatientMatchColumns> page = patientRepository.findMatchColumnsOrderByDateOfBirth(PageRequest.of(0, pageSize));
+        while (!page.isEmpty()) {
+            scanned += page.size();
+            pending.addAll(page);
+            PatientMatchColumns last = page.get(page.size() - 1);
+
+            // the patients born at the last date of birth of the page may continue on the next page
+            int complete = pending.size();
+            if (page.size() == pageSize) {
+                while (complete > 0 && pending.get(complete - 1).getDateOfBirth().equals(last.getDateOfBirth())) {
+                    complete--;
+                }
+            }
+            List<PatientMatchColumns> completeRows = pending.subList(0, complete);
+            compare(completeRows, null, found);
+            completeRows.clear();
+
+            page = page.size() < pageSize ? Collections.emptyList()
+                    : patientRepository.findMatchColumnsOrderByDateOfBirthAfter(last.getDateOfBirth(), last.getId(), PageRequest.of(0, pageSize));
+        }
+        compare(pending, null, found);
+
+        mergeCandidates = found;
+
+        logger.info("Duplicate patients scan of {} patients done in {} ms : {} merge candidates found", scanned, System.currentTimeMillis() - start, found.size());
+    }
+
+    private void compare(List<PatientMatchColumns> rows, Set<Long> onlyInvolving, Map<String, MergeCandidate> found) {
+
+        Map<String, List<Candidate>> blocks = new HashMap<>();
+        for (PatientMatchColumns row : rows) {
+            Candidate candidate = new Candidate(row);
+            blocks.computeIfAbsent(candidate.blockKey, key -> new ArrayList<>(2)).add(candidate);
+        }
+
+        List<List<Candidate>> blocksToCompare = new ArrayList<>();
+        for (Map.Entry<String, List<Candidate>> block : blocks.entrySet()) {
+            if (block.getValue().size() > maxBlockSize) {
+                logger.warn("Block {} of {} patients too large, skipped", block.getKey(), block.getValue().size());
+            } else if (block.getValue().size() > 1) {
+                blocksToCompare.add(block.getValue());
+            }
+        }
+
+        if (!blocksToCompare.isEmpty()) {
+            for (MergeCandidate candidate : forkJoinPool.invoke(new BlockComparisonTask(blocksToCompare, 0, blocksToCompare.size(), onlyInvolving, threshold))) {
+                found.put(candidate.getFirstPatientId() + ":" + candidate.getSecondPatientId(), candidate);
+            }
+        }
+    }
+
+    /**
+     * Return the similarity score of two patients, between 0 and 1.
+     * Phone number and address only weigh in when both patients have one.
+     */
+    private static double score(Candidate a, Candidate b) {
+
+        double nameScore = Math.max(
+                (PatientSimilarity.jaroWinkler(a.lastName, b.lastName) + PatientSimilarity.jaroWinkler(a.firstName, b.firstName)) / 2,
+                (PatientSimilarity.jaroWinkler(a.lastName, b.firstName) + PatientSimilarity.jaroWinkler(a.firstName, b.lastName)) / 2);
+
+        double weightedScore = NAME_WEIGHT * nameScore;
+        double weights = NAME_WEIGHT;
+        if (!a.phoneDigits.isEmpty() && !b.phoneDigits.isEmpty()) {
+            weightedScore += a.phoneDigits.equals(b.phoneDigits) ? PHONE_WEIGHT : 0;
+            weights += PHONE_WEIGHT;
+        }
+        if (!a.address.isEmpty() && !b.address.isEmpty()) {
+            weightedScore += ADDRESS_WEIGHT * PatientSimilarity.jaroWinkler(a.address, b.address);
+            weights += ADDRESS_WEIGHT;
+        }
+        return weightedScore / weights;
+    }
+
+    /**
+     * Class holding the normalized values of a patient compared to detect duplicates.
+     */
+    private static final class Candidate {
+
+        private final PatientMatchColumns row;
+        private final String lastName;
+        private final String firstName;
+        private final String phoneDigits;
+        private final String address;
+        private final String blockKey;
+
+        private Candidate(PatientMatchColumns row) {
+            this.row = row;
+            this.lastName = PatientSimilarity.normalizeName(row.getLastName());
+            this.firstName = PatientSimilarity.normalizeName(row.getFirstName());
+            String digits = PatientSimilarity.normalizePhoneDigits(row.getPhoneNumber());
+            this.phoneDigits = digits.length() > PHONE_SIGNIFICANT_DIGITS ? digits.substring(digits.length() - PHONE_SIGNIFICANT_DIGITS) : digits;
+            this.address = PatientSimilarity.normalizeAddress(row.getHomeAddress());
+
+            String lastNameKey = PatientSimilarity.soundex(lastName);
+            String firstNameKey = PatientSimilarity.soundex(firstName);
+            this.blockKey = row.getDateOfBirth() + "|" + (lastNameKey.compareTo(firstNameKey) <= 0 ? lastNameKey + "|" + firstNameKey : firstNameKey + "|" + lastNameKey);
+        }
+    }
+
+    /**
+     * Class in charge of comparing the pairs of patients of a range of blocks, splitting the range among the fork/join pool threads.
+     */
+    private static final class BlockComparisonTask extends RecursiveTask<List<MergeCandidate>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<List<Candidate>> blocks;
+        private final int from;
+        private final int to;
+        private final transient Set<Long> onlyInvolving;
+        private final double threshold;
+
+        private BlockComparisonTask(List<List<Candidate>> blocks, int from, int to, Set<Long> onlyInvolving, double threshold) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.onlyInvolving = onlyInvolving;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected List<MergeCandidate> compute() {
+
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                BlockComparisonTask left = new BlockComparisonTask(blocks, from, middle, onlyInvolving, threshold);
+                left.fork();
+                List<MergeCandidate> found = new BlockComparisonTask(blocks, middle, to, onlyInvolving, threshold).compute();
+                found.addAll(left.join());
+                return found;
+            }
+
+            List<MergeCandidate> found = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                List<Candidate> block = blocks.get(i);
+                for (int a = 0; a < block.size(); a++) {
+                    for (int b = a + 1; b < block.size(); b++) {
+                        Candidate first = block.get(a);
+                        Candidate second = block.get(b);
+                        if (onlyInvolving != null && !onlyInvolving.contains(first.row.getId()) && !onlyInvolving.contains(second.row.getId())) {
+                            continue;
+                        }
+                        double score = score(first, second);
+                        if (score >= threshold) {
+                            found.add(toMergeCandidate(first, second, score));
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+
+        private static MergeCandidate toMergeCandidate(Candidate first, Candidate second, double score) {
+            if (first.row.getId() > second.row.getId()) {
+                Candidate swap = first;
+                first = second;
+                second = swap;
+            }
+            return new MergeCandidate(first.row.getId(), first.row.getLastName(), first.row.getFirstName(),
+                    second.row.getId(), second.row.getLastName(), second.row.getFirstName(),
+                    first.row.getDateOfBirth(), score);
+        }
+    }
+}
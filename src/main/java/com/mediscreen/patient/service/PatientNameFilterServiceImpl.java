@@ -0,0 +1,224 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Class in charge of maintaining a Bloom filter of the names of the existing patients, so that the lookups of unknown names are answered without loading a patient.
+ * The filter is periodically rebuilt from the database and the names of the patients created or updated by this instance are added in between,
+ * before their transaction is committed : a name readable in the database is always in the filter. The names changed from the start of a rebuild,
+ * and the ones of the changes not committed yet when it starts (which it may not read), are added to the rebuilt filter before it replaces the current one.
+ * A Bloom filter can not remove a name : the former name of a renamed patient stays in the filter, as a false positive, until the next rebuild.
+ * The patients created or renamed by other instances, or by statements run directly on the database, are only added by the next rebuild :
+ * unless this instance is declared the only writer of the patients, a name missing from the filter is confirmed by a lookup of the index of the names,
+ * a name found this way being added to the filter. Until the filter is built, every name may exist.
+ */
+@Service
+public class PatientNameFilterServiceImpl implements IPatientNameFilterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientNameFilterServiceImpl.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final PatientRepository patientRepository;
+
+    private final boolean enabled;
+
+    private final boolean singleWriter;
+
+    private final long expectedPatients;
+
+    private final double falsePositiveRate;
+
+    private final long maxBytes;
+
+    private final int pageSize;
+
+    private final Counter definiteMisses;
+
+    // names added while a rebuild is in progress, added again to the rebuilt filter as the rebuild may have read older rows
+    private final List<String> keysAddedDuringRebuild = new ArrayList<>();
+
+    // names of the changes whose transaction is not completed yet, as many times as they are changed
+    private final List<String> keysOfUncommittedChanges = new ArrayList<>();
+
+    private boolean rebuildInProgress;
+
+    private volatile BloomFilter filter;
+
+    private volatile long keyCount;
+
+    public PatientNameFilterServiceImpl(PatientRepository patientRepository, MeterRegistry meterRegistry,
+                                        @Value("${patientNameFilter.enabled:true}") boolean enabled,
+                                        @Value("${patientNameFilter.singleWriter:false}") boolean singleWriter,
+                                        @Value("${patientNameFilter.expectedPatients:100000}") long expectedPatients,
+                                        @Value("${patientNameFilter.falsePositiveRate:0.01}") double falsePositiveRate,
+                                        @Value("${patientNameFilter.maxBytes:4194304}") long maxBytes,
+                                        @Value("${patientNameFilter.pageSize:10000}") int pageSize) {
+        this.patientRepository = patientRepository;
+        this.enabled = enabled;
+        this.singleWriter = singleWriter;
+        this.expectedPatients = expectedPatients;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxBytes = maxBytes;
+        this.pageSize = pageSize;
+        this.definiteMisses = Counter.builder("patient.name.filter.misses")
+                .description("Lookups of patients by names answered by the name filter without loading a patient")
+                .register(meterRegistry);
+        Gauge.builder("patient.name.filter.memory", this, service -> service.filter == null ? 0 : service.filter.getMemoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (enabled) {
+            BloomFilter sizing = BloomFilter.create(expectedPatients, falsePositiveRate, maxBytes);
+            logger.info("Patient name filter enabled for {} patients : {} KiB of a {} KiB budget, {} hashes, false positive rate {}",
+                    expectedPatients, sizing.getMemoryBytes() / 1024, maxBytes / 1024, sizing.getHashCount(),
+                    String.format(Locale.ROOT, "%.4f", sizing.expectedFalsePositiveRate(expectedPatients)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean mightExist(String lastName, String firstName) {
+        BloomFilter current = filter;
+        if (!enabled || current == null || lastName == null || firstName == null) {
+            return true;
+        }
+        String key = key(lastName, firstName);
+        if (current.mightContain(key)) {
+            return true;
+        }
+        // written by another instance or directly on the database since the last rebuild
+        if (!singleWriter && patientRepository.existsByLastNameAndFirstName(lastName, firstName)) {
+            add(key, false);
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * Rebuild the filter from the database, loading the names of the patients page by page in id order.
+     * The filter is sized for twice the patients found by the previous rebuild, and at least the expected patients.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${patientNameFilter.initialDelayMs:0}", fixedDelayString = "${patientNameFilter.rebuildIntervalMs:60000}")
+    public void rebuildFilter() {
+
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        synchronized (this) {
+            rebuildInProgress = true;
+            keysAddedDuringRebuild.clear();
+            keysAddedDuringRebuild.addAll(keysOfUncommittedChanges);
+        }
+
+        try {
+            BloomFilter rebuilt = BloomFilter.create(Math.max(expectedPatients, 2 * keyCount), falsePositiveRate, maxBytes);
+            long keys = 0;
+            long lastId = 0;
+            List<PatientColumns> page;
+            do {
+                page = patientRepository.findColumnsByIdGreaterThan(lastId, PageRequest.of(0, pageSize));
+                for (PatientColumns columns : page) {
+                    rebuilt.put(key(columns.getLastName(), columns.getFirstName()));
+                    lastId = columns.getId();
+                    keys++;
+                }
+            } while (page.size() == pageSize);
+
+            synchronized (this) {
+                for (String key : keysAddedDuringRebuild) {
+                    rebuilt.put(key);
+                }
+                filter = rebuilt;
+                keyCount = keys;
+            }
+
+            logger.info("Patient name filter rebuilt with {} patients in {} ms : {} KiB, {} hashes, false positive rate {}", keys,
+                    System.currentTimeMillis() - start, rebuilt.getMemoryBytes() / 1024, rebuilt.getHashCount(),
+                    String.format(Locale.ROOT, "%.4f", rebuilt.expectedFalsePositiveRate(keys)));
+        } finally {
+            synchronized (this) {
+                rebuildInProgress = false;
+                keysAddedDuringRebuild.clear();
+            }
+        }
+    }
+
+    /**
+     * Add the names of a patient created or updated to the filter.
+     * Listened within the transaction of the change, so that the names are in the filter before they can be read from the database;
+     * the names of a change rolled back are only false positives.
+     *
+     * @param event The patient change event
+     */
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        Patient patient = event.getPatient();
+        if (!enabled || patient.getLastName() == null || patient.getFirstName() == null) {
+            return;
+        }
+        String key = key(patient.getLastName(), patient.getFirstName());
+        boolean uncommitted = TransactionSynchronizationManager.isSynchronizationActive();
+        add(key, uncommitted);
+        if (uncommitted) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (PatientNameFilterServiceImpl.this) {
+                        keysOfUncommittedChanges.remove(key);
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized void add(String key, boolean uncommitted) {
+        if (filter != null) {
+            filter.put(key);
+        }
+        if (rebuildInProgress) {
+            keysAddedDuringRebuild.add(key);
+        }
+        if (uncommitted) {
+            keysOfUncommittedChanges.add(key);
+        }
+    }
+
+    // at least as lenient as the comparison of names by the database (case, accents, surrounding spaces) : names merged here only add false positives
+    private static String key(String lastName, String firstName) {
+        return normalize(lastName) + '\u0000' + normalize(firstName);
+    }
+
+    private static String normalize(String name) {
+        return COMBINING_MARKS.matcher(Normalizer.normalize(name.trim(), Normalizer.Form.NFKD)).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,154 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.repository.PatientShardRouter;
+import com.mediscreen.patient.repository.PatientShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class in charge of moving buckets of patients between the shards of the sharded patient registry, while it stays online.
+ * The bucket is first assigned to its new shard, so that new patients are created there, then its patients are copied one by one,
+ * each being locked in the source shard until it is deleted there. The patients created in the source shard by the instances not yet aware
+ * of the new assignment are moved by the next passes, until a pass finds none.
+ */
+@Service
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class PatientReshardingServiceImpl implements IPatientReshardingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientReshardingServiceImpl.class);
+
+    private static final String PATIENT_COLUMNS =
+            "id, last_name, first_name, date_of_birth, sex, home_address, phone_number, normalized_phone_number";
+
+    private static final int SCAN_CHUNK_SIZE = 1000;
+
+    private final PatientShards patientShards;
+
+    private final PatientShardRouter router;
+
+    private final long bucketRefreshIntervalMs;
+
+    public PatientReshardingServiceImpl(PatientShards patientShards, PatientShardRouter router,
+                                        @Value("${sharding.bucketRefreshIntervalMs:10000}") long bucketRefreshIntervalMs) {
+        this.patientShards = patientShards;
+        this.router = router;
+        this.bucketRefreshIntervalMs = bucketRefreshIntervalMs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Long> countPatientsByShard() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (int shard = 0; shard < patientShards.getShardCount(); shard++) {
+            Long count = new JdbcTemplate(patientShards.getDataSource(shard)).queryForObject("select count(*) from patient", Long.class);
+            counts.put(shard, count);
+        }
+        return counts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int moveBucket(int bucket, int targetShard) {
+
+        if (bucket < 0 || bucket >= PatientShardRouter.BUCKETS) {
+            throw new IllegalArgumentException("The bucket must be between 0 and " + (PatientShardRouter.BUCKETS - 1) + ", found " + bucket);
+        }
+        if (targetShard < 0 || targetShard >= patientShards.getShardCount()) {
+            throw new IllegalArgumentException("The shard must be between 0 and " + (patientShards.getShardCount() - 1) + ", found " + targetShard);
+        }
+
+        router.assignBucket(bucket, targetShard);
+        logger.info("Bucket {} assigned to shard {}", bucket, targetShard);
+
+        int moved = 0;
+        int movedByPass;
+        do {
+            movedByPass = 0;
+            for (int shard = 0; shard < patientShards.getShardCount(); shard++) {
+                if (shard != targetShard) {
+                    movedByPass += moveBucketPatients(bucket, shard, targetShard);
+                }
+            }
+            moved += movedByPass;
+            if (movedByPass > 0) {
+                // let the other instances reload the bucket directory before looking for patients they created in the source shards
+                sleep(bucketRefreshIntervalMs);
+            }
+        } while (movedByPass > 0);
+
+        logger.info("Bucket {} moved to shard {} : {} patients moved", bucket, targetShard, moved);
+        return moved;
+    }
+
+    private int moveBucketPatients(int bucket, int sourceShard, int targetShard) {
+
+        JdbcTemplate source = new JdbcTemplate(patientShards.getDataSource(sourceShard));
+        JdbcTemplate target = new JdbcTemplate(patientShards.getDataSource(targetShard));
+        TransactionTemplate sourceTransaction = new TransactionTemplate(new DataSourceTransactionManager(patientShards.getDataSource(sourceShard)));
+
+        int moved = 0;
+        long afterId = 0;
+        List<Map<String, Object>> chunk;
+        do {
+            chunk = source.queryForList("select id, last_name, first_name from patient where id > ? order by id limit ?", afterId, SCAN_CHUNK_SIZE);
+            for (Map<String, Object> row : chunk) {
+                long id = ((Number) row.get("id")).longValue();
+                afterId = id;
+                if (router.bucketOf((String) row.get("last_name"), (String) row.get("first_name")) == bucket) {
+                    Boolean patientMoved = sourceTransaction.execute(status -> movePatient(id, bucket, source, target));
+                    if (Boolean.TRUE.equals(patientMoved)) {
+                        moved++;
+                    }
+                }
+            }
+        } while (chunk.size() == SCAN_CHUNK_SIZE);
+        return moved;
+    }
+
+    private boolean movePatient(long id, int bucket, JdbcTemplate source, JdbcTemplate target) {
+
+        // locked until deleted : an update of the patient in the source shard waits, then retries on the target shard
+        List<Map<String, Object>> rows = source.queryForList("select " + PATIENT_COLUMNS + " from patient where id = ? for update", id);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Map<String, Object> row = rows.get(0);
+        if (router.bucketOf((String) row.get("last_name"), (String) row.get("first_name")) != bucket) {
+            // renamed since the scan
+            return false;
+        }
+
+        // ids are unique across the shards : the copy of a previous interrupted move is overwritten
+        target.update("insert into patient (" + PATIENT_COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update "
+                        + "last_name = values(last_name), first_name = values(first_name), date_of_birth = values(date_of_birth), sex = values(sex), "
+                        + "home_address = values(home_address), phone_number = values(phone_number), normalized_phone_number = values(normalized_phone_number)",
+                row.get("id"), row.get("last_name"), row.get("first_name"), row.get("date_of_birth"), row.get("sex"),
+                row.get("home_address"), row.get("phone_number"), row.get("normalized_phone_number"));
+        source.update("delete from patient where id = ?", id);
+        return true;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving a bucket", e);
+        }
+    }
+}
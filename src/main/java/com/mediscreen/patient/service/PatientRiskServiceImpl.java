@@ -0,0 +1,233 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.AssessmentAttributeConverter;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class in charge of storing the latest diabetes risk assessment of each patient, requested from the Rapport Microservice,
+ * so that the patients list can be filtered and sorted by risk from the database.
+ * All the patients are assessed again periodically, in id order, and a patient is assessed again once created or updated. The requests to the
+ * Rapport Microservice run on a small pool of threads : the periodic refresh never has more requests in flight than threads, so that the refreshes
+ * of the patients changed are only queued behind a few of them. A refresh which can not be queued is left to the next periodic refresh.
+ * The periodic refresh runs on its own thread, the scheduler thread only starting it.
+ * An assessment is only stored if no assessment requested later is already stored, and the assessments of a failed request are kept as is.
+ */
+@Service
+public class PatientRiskServiceImpl implements IPatientRiskService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientRiskServiceImpl.class);
+
+    private static final AssessmentAttributeConverter ASSESSMENT_CONVERTER = new AssessmentAttributeConverter();
+
+    private final IPatientService patientService;
+
+    private final PatientRepository patientRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int threads;
+
+    private final int pageSize;
+
+    private final ThreadPoolExecutor executor;
+
+    // thread loading the patients of the periodic refresh and submitting their requests
+    private final ExecutorService refreshAllExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patient-risk-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // requests of the periodic refresh in flight, at most one per thread
+    private final Semaphore refreshPermits;
+
+    // patients whose refresh is queued and not started yet
+    private final Set<Long> pendingPatients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+
+    private final Counter assessed;
+
+    private final Counter failed;
+
+    private final Counter dropped;
+
+    public PatientRiskServiceImpl(IPatientService patientService, PatientRepository patientRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${patientRisk.enabled:true}") boolean enabled,
+                                  @Value("${patientRisk.threads:4}") int threads,
+                                  @Value("${patientRisk.queueSize:1000}") int queueSize,
+                                  @Value("${patientRisk.pageSize:1000}") int pageSize) {
+        this.patientService = patientService;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.threads = threads;
+        this.pageSize = pageSize;
+        this.refreshPermits = new Semaphore(threads);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "patient-risk-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.assessed = refreshCounter(meterRegistry, "assessed");
+        this.failed = refreshCounter(meterRegistry, "failed");
+        this.dropped = refreshCounter(meterRegistry, "dropped");
+    }
+
+    /**
+     * Start the refresh of the risk assessment of all patients on its own thread and return, unless the previous refresh is still in progress.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${patientRisk.initialDelayMs:60000}", fixedDelayString = "${patientRisk.refreshIntervalMs:3600000}")
+    public void refreshAllAssessments() {
+
+        if (!enabled || !refreshInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshAllExecutor.execute(this::refreshAll);
+        } catch (RejectedExecutionException e) {
+            refreshInProgress.set(false);
+        }
+    }
+
+    /**
+     * Refresh the risk assessment of all patients, loading the ids of the patients page by page in id order.
+     * Returns once all the assessments are stored.
+     */
+    private void refreshAll() {
+
+        long start = System.currentTimeMillis();
+        double failedBefore = failed.count();
+        long patients = 0;
+        try {
+            long lastId = 0;
+            List<PatientColumns> page;
+            do {
+                page = patientRepository.findColumnsByIdGreaterThan(lastId, PageRequest.of(0, pageSize));
+                for (PatientColumns columns : page) {
+                    lastId = columns.getId();
+                    refreshPermits.acquire();
+                    if (!submit(lastId, refreshPermits::release)) {
+                        refreshPermits.release();
+                    }
+                    patients++;
+                }
+            } while (page.size() == pageSize);
+
+            // the last requests in flight
+            refreshPermits.acquire(threads);
+            refreshPermits.release(threads);
+
+            logger.info("Patient risk assessments refreshed in {} ms : {} patients, {} failed", System.currentTimeMillis() - start, patients, (long) (failed.count() - failedBefore));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            refreshInProgress.set(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean refreshAssessment(long id) {
+        return enabled && submit(id, () -> { });
+    }
+
+    /**
+     * Refresh the risk assessment of a patient created or updated, once its transaction is committed.
+     *
+     * @param event The patient change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        refreshAssessment(event.getPatient().getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshAllExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private boolean submit(long id, Runnable whenDone) {
+        if (!pendingPatients.add(id)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                // a change made from now on queues the patient again
+                pendingPatients.remove(id);
+                try {
+                    refresh(id);
+                } finally {
+                    whenDone.run();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingPatients.remove(id);
+            dropped.increment();
+            return false;
+        }
+    }
+
+    private void refresh(long id) {
+        // the time of the request rather than of its response : an assessment requested after a change is never overwritten by one requested before
+        Instant assessedAt = Instant.now();
+        try {
+            Rapport rapport = patientService.getPatientRapport(id);
+            if (rapport == null || rapport.getAssessment() == null) {
+                failed.increment();
+                return;
+            }
+            int riskLevel = ASSESSMENT_CONVERTER.convertToDatabaseColumn(rapport.getAssessment());
+            transactionTemplate.execute(status -> patientRepository.upsertRisk(id, riskLevel, assessedAt));
+            assessed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            logger.debug("Risk assessment of patient with id {} not refreshed : {}", id, e.toString());
+        }
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("patient.risk.refreshes").tag("outcome", outcome)
+                .description("Refreshes of the risk assessments of the patients from the Rapport Microservice")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.event.PatientServiceCallEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Class in charge of recording the calls of a patient service as Flight Recorder events, with the id of the patient, the outcome and the duration.
+ * Nothing is recorded unless a recording enables the event, and only the calls slower than its threshold are.
+ */
+public final class PatientServiceCallRecorder implements InvocationHandler {
+
+    private final IPatientService patientService;
+
+    private PatientServiceCallRecorder(IPatientService patientService) {
+        this.patientService = patientService;
+    }
+
+    /**
+     * Return the patient service recording the calls of the given one.
+     *
+     * @param patientService The patient service
+     * @return The recording patient service
+     */
+    public static IPatientService wrap(IPatientService patientService) {
+        return (IPatientService) Proxy.newProxyInstance(PatientServiceCallRecorder.class.getClassLoader(), new Class<?>[]{IPatientService.class},
+                new PatientServiceCallRecorder(patientService));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invoke(method, args);
+        }
+        PatientServiceCallEvent event = new PatientServiceCallEvent();
+        if (!event.isEnabled()) {
+            return invoke(method, args);
+        }
+        event.begin();
+        String outcome = "success";
+        try {
+            return invoke(method, args);
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = method.getName();
+                event.patientId = patientId(args);
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(patientService, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long patientId(Object[] args) {
+        Object argument = args != null && args.length > 0 ? args[0] : null;
+        if (argument instanceof Patient) {
+            argument = ((Patient) argument).getId();
+        }
+        return argument instanceof Long ? (Long) argument : 0;
+    }
+}
@@ -1,18 +1,28 @@
 package com.mediscreen.patient.service;
 
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.PatientChangeType;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
 import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.exception.InvalidPhoneNumberException;
 import com.mediscreen.patient.exception.ResourceAlreadyExistException;
 import com.mediscreen.patient.exception.ResourceNotFoundException;
 import com.mediscreen.patient.proxy.RapportMicroserviceProxy;
 import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.util.PhoneNumberNormalizer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
 import java.util.List;
 
 /**
  * Class in charge of managing the services for Patient entities.
+ * The reads are made in read-only transactions : Hibernate neither snapshots the entities read for dirty checking nor flushes them.
  */
 @Service
 @Transactional
@@ -22,9 +32,16 @@ public class PatientServiceImpl implements IPatientService {
 
     private final RapportMicroserviceProxy rapportProxy;
 
-    public PatientServiceImpl(PatientRepository patientRepository, RapportMicroserviceProxy rapportProxy) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PhoneNumberNormalizer phoneNumberNormalizer;
+
+    // the Feign client of the Rapport Microservice, only used for the reports, is created on its first call rather than at startup
+    public PatientServiceImpl(PatientRepository patientRepository, @Lazy RapportMicroserviceProxy rapportProxy, ApplicationEventPublisher eventPublisher, PhoneNumberNormalizer phoneNumberNormalizer) {
         this.patientRepository = patientRepository;
         this.rapportProxy = rapportProxy;
+        this.eventPublisher = eventPublisher;
+        this.phoneNumberNormalizer = phoneNumberNormalizer;
     }
 
     /**
@@ -35,6 +52,7 @@ public class PatientServiceImpl implements IPatientService {
      * @throws ResourceNotFoundException if no patient is found for the given id
      */
     @Override
+    @Transactional(readOnly = true)
     public Patient findPatientById(Long id) throws ResourceNotFoundException {
         return patientRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException(id));
     }
@@ -48,6 +66,7 @@ public class PatientServiceImpl implements IPatientService {
      * @throws ResourceNotFoundException if no patient is found for the given last name and first name
      */
     @Override
+    @Transactional(readOnly = true)
     public Patient findPatientByLastNameAndFirstName(String lastName, String firstName) throws ResourceNotFoundException {
         Patient patient = patientRepository.findByLastNameAndFirstName(lastName, firstName);
 
@@ -58,16 +77,65 @@ public class PatientServiceImpl implements IPatientService {
         return patient;
     }
 
+    /**
+     * Return the patients given their phone number, whatever its format.
+     *
+     * @param phoneNumber The phone number of the patients
+     * @return The patients having this phone number
+     * @throws ResourceNotFoundException if no patient is found for the given phone number
+     * @throws InvalidPhoneNumberException if the phone number can not be normalized
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Patient> findPatientsByPhoneNumber(String phoneNumber) throws ResourceNotFoundException, InvalidPhoneNumberException {
+
+        String normalizedPhoneNumber = phoneNumberNormalizer.normalize(phoneNumber);
+        if(normalizedPhoneNumber==null) {
+            throw new InvalidPhoneNumberException(phoneNumber);
+        }
+
+        List<Patient> patients = patientRepository.findByNormalizedPhoneNumber(normalizedPhoneNumber);
+        if(patients.isEmpty()) {
+            throw new ResourceNotFoundException("No patient found for phone number : " + phoneNumber);
+        }
+
+        return patients;
+    }
+
     /**
      * Return all patients.
      *
      * @return The list of all patients
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Patient> findAllPatients() {
         return patientRepository.findAll();
     }
 
+    /**
+     * Return the list items of all patients, i.e. the columns rendered by the patients list page.
+     *
+     * @return The list items of all patients, ordered by id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientListItem> findAllPatientListItems() {
+        return patientRepository.findListItemsOrderById();
+    }
+
+    /**
+     * Return the list items of the patients by diabetes risk, read from their latest risk assessment stored.
+     *
+     * @param assessment The risk assessment of the patients to return, null to return all patients
+     * @return The list items of the patients, ordered by decreasing risk then id, the patients not assessed yet last
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<PatientListItem> findPatientListItemsByRisk(Assessment assessment) {
+        return assessment == null ? patientRepository.findListItemsOrderByRisk() : patientRepository.findListItemsByAssessmentOrderById(assessment);
+    }
+
     /**
      * Update a patient.
      *
@@ -87,7 +155,11 @@ public class PatientServiceImpl implements IPatientService {
             throw new ResourceAlreadyExistException(patient.getLastName(), patient.getFirstName());
         }
 
-        return patientRepository.save(patient);
+        patient.setNormalizedPhoneNumber(phoneNumberNormalizer.normalize(patient.getPhoneNumber()));
+        Patient patientUpdated = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(this, patientUpdated, PatientChangeType.Updated));
+
+        return patientUpdated;
     }
 
     /**
@@ -106,7 +178,11 @@ public class PatientServiceImpl implements IPatientService {
             throw new ResourceAlreadyExistException(patient.getLastName(), patient.getFirstName());
         }
 
-        return patientRepository.save(patient);
+        patient.setNormalizedPhoneNumber(phoneNumberNormalizer.normalize(patient.getPhoneNumber()));
+        Patient patientCreated = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(this, patientCreated, PatientChangeType.Created));
+
+        return patientCreated;
     }
 
     /**
@@ -116,6 +192,8 @@ public class PatientServiceImpl implements IPatientService {
      * @return The rapport
      */
     @Override
+    // no database access : no transaction, so that no database connection is held during the call to the Rapport Microservice
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Rapport getPatientRapport(long id){
         return rapportProxy.getPatientRapportById(id);
     }
@@ -0,0 +1,178 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientColumnarSnapshot;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class in charge of maintaining the columnar snapshot of patients used for analytics.
+ * The snapshot is periodically rebuilt from the database and kept up to date in between using the patient change events.
+ * The rebuild runs on its own thread, the scheduler thread only starting it.
+ */
+@Service
+public class PatientSnapshotServiceImpl implements IPatientSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSnapshotServiceImpl.class);
+
+    private final PatientRepository patientRepository;
+
+    private final int pageSize;
+
+    private final Map<Long, Patient> pendingChanges = new ConcurrentHashMap<>();
+
+    // changes applied while a refresh is in progress, re-applied to the refreshed snapshot as the refresh may have read older rows
+    private final List<Patient> changesAppliedDuringRefresh = new ArrayList<>();
+
+    private boolean refreshInProgress;
+
+    private final AtomicBoolean refreshStarted = new AtomicBoolean();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patient-snapshot-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile PatientColumnarSnapshot snapshot = PatientColumnarSnapshot.empty();
+
+    public PatientSnapshotServiceImpl(PatientRepository patientRepository, @Value("${patientSnapshot.pageSize:10000}") int pageSize) {
+        this.patientRepository = patientRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Return the current snapshot of patients.
+     *
+     * @return The current snapshot
+     */
+    @Override
+    public PatientColumnarSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Start the rebuild of the snapshot on its own thread and return, unless the previous rebuild is still in progress.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${patientSnapshot.initialDelayMs:0}", fixedDelayString = "${patientSnapshot.refreshIntervalMs:3600000}")
+    public void refreshSnapshot() {
+
+        if (!refreshStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    rebuildSnapshot();
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        refreshInProgress = false;
+                        changesAppliedDuringRefresh.clear();
+                    }
+                    logger.error("Patients snapshot not refreshed", e);
+                } finally {
+                    refreshStarted.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshStarted.set(false);
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the database, loading patients page by page in id order.
+     */
+    private void rebuildSnapshot() {
+
+        long start = System.currentTimeMillis();
+
+        synchronized (this) {
+            refreshInProgress = true;
+            changesAppliedDuringRefresh.clear();
+        }
+
+        PatientColumnarSnapshot.Builder builder = PatientColumnarSnapshot.builder(snapshot.size());
+        long lastId = 0;
+        List<PatientColumns> page;
+        do {
+            page = patientRepository.findColumnsByIdGreaterThan(lastId, PageRequest.of(0, pageSize));
+            for (PatientColumns columns : page) {
+                builder.add(columns);
+                lastId = columns.getId();
+            }
+        } while (page.size() == pageSize);
+
+        PatientColumnarSnapshot refreshed = builder.build();
+        synchronized (this) {
+            snapshot = changesAppliedDuringRefresh.isEmpty() ? refreshed : refreshed.withChanges(changesAppliedDuringRefresh);
+            refreshInProgress = false;
+            changesAppliedDuringRefresh.clear();
+        }
+
+        logger.info("Patients snapshot refreshed with {} patients in {} ms", refreshed.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Apply the patient changes received since the last refresh to the snapshot.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${patientSnapshot.changeFeedIntervalMs:2000}")
+    public void applyPendingChanges() {
+
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+
+        List<Patient> changes = new ArrayList<>(pendingChanges.size());
+        for (Long id : pendingChanges.keySet()) {
+            Patient patient = pendingChanges.remove(id);
+            if (patient != null) {
+                changes.add(patient);
+            }
+        }
+
+        synchronized (this) {
+            snapshot = snapshot.withChanges(changes);
+            if (refreshInProgress) {
+                changesAppliedDuringRefresh.addAll(changes);
+            }
+        }
+
+        logger.debug("{} patient changes applied to the patients snapshot", changes.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Record a patient change to be applied to the snapshot.
+     *
+     * @param event The patient change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        pendingChanges.put(event.getPatient().getId(), event.getPatient());
+    }
+}
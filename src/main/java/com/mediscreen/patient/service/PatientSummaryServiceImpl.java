@@ -0,0 +1,134 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientSummary;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class in charge of building the summaries of patients : the patient is loaded and the report requested from the Rapport Microservice concurrently,
+ * so that a summary takes about the slower of both rather than their sum.
+ * Each part has its own latency budget, from the start of the summary : a part not loaded within its budget, or failing, is left out of a partial summary,
+ * and its call is cancelled. The calls run on a bounded executor : when it is saturated, the parts not submitted are unavailable.
+ */
+@Service
+public class PatientSummaryServiceImpl implements IPatientSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSummaryServiceImpl.class);
+
+    private final IPatientService patientService;
+
+    private final long patientBudgetMs;
+
+    private final long rapportBudgetMs;
+
+    private final ExecutorService executor;
+
+    public PatientSummaryServiceImpl(IPatientService patientService, MeterRegistry meterRegistry,
+                                     @Value("${patientSummary.patientBudgetMs:500}") long patientBudgetMs,
+                                     @Value("${patientSummary.rapportBudgetMs:1500}") long rapportBudgetMs,
+                                     @Value("${patientSummary.threads:32}") int threads,
+                                     @Value("${patientSummary.queueSize:64}") int queueSize) {
+        this.patientService = patientService;
+        this.patientBudgetMs = patientBudgetMs;
+        this.rapportBudgetMs = rapportBudgetMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patient-summary-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, "patient.summary");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PatientSummary getPatientSummary(long id) throws ResourceNotFoundException {
+
+        long start = System.nanoTime();
+        Future<Rapport> rapportFuture = submit(() -> patientService.getPatientRapport(id));
+        Future<Patient> patientFuture = submit(() -> patientService.findPatientById(id));
+
+        List<String> unavailableParts = new ArrayList<>(2);
+        Patient patient;
+        try {
+            patient = await(patientFuture, start, patientBudgetMs, PatientSummary.PATIENT, id);
+        } catch (ResourceNotFoundException e) {
+            if (rapportFuture != null) {
+                rapportFuture.cancel(true);
+            }
+            throw e;
+        }
+        if (patient == null) {
+            unavailableParts.add(PatientSummary.PATIENT);
+        }
+        Rapport rapport = await(rapportFuture, start, rapportBudgetMs, PatientSummary.RAPPORT, id);
+        if (rapport == null) {
+            unavailableParts.add(PatientSummary.RAPPORT);
+        }
+
+        return new PatientSummary(patient, rapport, Collections.unmodifiableList(unavailableParts));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(Callable<T> call) {
+        try {
+            return executor.submit(call);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    // the part, or null if it is not loaded within its budget or fails ; only a patient not found is thrown
+    private <T> T await(Future<T> future, long startNs, long budgetMs, String part, long id) {
+        if (future == null) {
+            logger.warn("Summary of patient {} : {} not requested, the executor is saturated", id, part);
+            return null;
+        }
+        long remainingNs = TimeUnit.MILLISECONDS.toNanos(budgetMs) - (System.nanoTime() - startNs);
+        try {
+            return future.get(Math.max(0, remainingNs), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Summary of patient {} : {} not loaded within {} ms", id, part, budgetMs);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceNotFoundException && PatientSummary.PATIENT.equals(part)) {
+                throw (ResourceNotFoundException) e.getCause();
+            }
+            logger.warn("Summary of patient {} : {} failed : {}", id, part, e.getCause().toString());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
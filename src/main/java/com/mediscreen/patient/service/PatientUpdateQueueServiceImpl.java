@@ -0,0 +1,286 @@
+package com.mediscreen.patient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.constant.UpdateStatus;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientUpdateTicket;
+import com.mediscreen.patient.exception.ResourceAlreadyExistException;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import com.mediscreen.patient.repository.PatientUpdateJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class in charge of managing the asynchronous updates of patients.
+ * Updates are made durable in a local journal, coalesced by patient id while pending, then committed to the database in batched transactions.
+ * After each flush, the journal is emptied if no update is pending, or compacted to the pending updates once it exceeds compactThresholdBytes.
+ */
+@Service
+public class PatientUpdateQueueServiceImpl implements IPatientUpdateQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientUpdateQueueServiceImpl.class);
+
+    private static final String COALESCED_MESSAGE = "Superseded by a later update of the same patient committed in the same batch";
+
+    private final IPatientService patientService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PatientUpdateJournal journal;
+
+    private final int batchSize;
+
+    private final long ticketRetentionMs;
+
+    private final long compactThresholdBytes;
+
+    private final Map<Long, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+
+    private final Map<String, PatientUpdateTicket> tickets = new ConcurrentHashMap<>();
+
+    // held while appending to the journal and updating the pending updates, so that the journal is never truncated while an update is being accepted
+    private final Object journalLock = new Object();
+
+    public PatientUpdateQueueServiceImpl(IPatientService patientService, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                         @Value("${patientUpdateQueue.journalPath:./data/patient-update-queue.journal}") String journalPath,
+                                         @Value("${patientUpdateQueue.fsync:true}") boolean fsync,
+                                         @Value("${patientUpdateQueue.batchSize:100}") int batchSize,
+                                         @Value("${patientUpdateQueue.ticketRetentionMs:3600000}") long ticketRetentionMs,
+                                         @Value("${patientUpdateQueue.compactThresholdBytes:1048576}") long compactThresholdBytes) {
+        this.patientService = patientService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new PatientUpdateJournal(Paths.get(journalPath), objectMapper, fsync);
+        this.batchSize = batchSize;
+        this.ticketRetentionMs = ticketRetentionMs;
+        this.compactThresholdBytes = compactThresholdBytes;
+    }
+
+    /**
+     * Open the journal and re-enqueue the updates not committed before the previous shutdown.
+     *
+     * @throws IOException if the journal can not be opened
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        List<PatientUpdateJournal.Entry> notCompleted = journal.open();
+        for (PatientUpdateJournal.Entry entry : notCompleted) {
+            String ticketId = entry.getTicketIds().get(0);
+            enqueue(ticketId, entry.getPatient());
+        }
+        if (!notCompleted.isEmpty()) {
+            logger.info("{} patient updates recovered from the journal", notCompleted.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Accept a patient update to be committed asynchronously, replacing the update pending for the same patient if any.
+     *
+     * @param patient The patient to update
+     * @return The ticket to follow the update
+     */
+    @Override
+    public PatientUpdateTicket enqueueUpdate(Patient patient) {
+        String ticketId = UUID.randomUUID().toString();
+        synchronized (journalLock) {
+            try {
+                journal.appendAccepted(ticketId, patient);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Patient update could not be written to the journal", e);
+            }
+            return enqueue(ticketId, patient);
+        }
+    }
+
+    /**
+     * Return the ticket of an asynchronous update.
+     *
+     * @param ticketId The identifier of the ticket
+     * @return The ticket
+     * @throws ResourceNotFoundException if no ticket is found for the given identifier
+     */
+    @Override
+    public PatientUpdateTicket getTicket(String ticketId) throws ResourceNotFoundException {
+        PatientUpdateTicket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("No patient update found for ticket : " + ticketId);
+        }
+        return ticket;
+    }
+
+    /**
+     * Commit the pending updates to the database, by batches of updates committed in a single transaction.
+     * If a batch fails, its updates are committed one by one so that a single invalid update does not fail the others.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${patientUpdateQueue.flushIntervalMs:200}")
+    public synchronized void flush() {
+
+        // the updates pending when the flush starts : the ones accepted meanwhile wait for the next flush, which bounds each flush under steady load
+        int toDrain = pendingUpdates.size();
+        while (toDrain > 0) {
+            List<PendingUpdate> batch = drainBatch(Math.min(batchSize, toDrain));
+            if (batch.isEmpty()) {
+                break;
+            }
+            toDrain -= batch.size();
+
+            try {
+                transactionTemplate.execute(status -> {
+                    for (PendingUpdate update : batch) {
+                        patientService.updatePatient(update.patient);
+                    }
+                    return null;
+                });
+                for (PendingUpdate update : batch) {
+                    update.complete(UpdateStatus.Committed, null);
+                }
+            } catch (RuntimeException batchException) {
+                logger.warn("Batch of {} patient updates failed, committing them one by one", batch.size());
+                for (PendingUpdate update : batch) {
+                    commitAlone(update);
+                }
+            }
+
+            List<String> completedTicketIds = new ArrayList<>();
+            for (PendingUpdate update : batch) {
+                for (PatientUpdateTicket ticket : update.tickets) {
+                    completedTicketIds.add(ticket.getTicketId());
+                }
+            }
+            try {
+                journal.appendCompleted(completedTicketIds);
+            } catch (IOException e) {
+                logger.error("Completed patient updates could not be written to the journal, they will be replayed at next startup", e);
+            }
+
+            logger.debug("{} patient updates committed", batch.size());
+        }
+
+        // the updates accepted while flushing are still pending : under steady load the journal is compacted rather than emptied
+        synchronized (journalLock) {
+            try {
+                if (pendingUpdates.isEmpty()) {
+                    journal.truncate();
+                } else if (journal.size() > compactThresholdBytes) {
+                    List<PatientUpdateJournal.Entry> notCompleted = new ArrayList<>(pendingUpdates.size());
+                    for (PendingUpdate update : pendingUpdates.values()) {
+                        notCompleted.add(update.journalEntry());
+                    }
+                    journal.compact(notCompleted);
+                    logger.debug("Patient updates journal compacted to {} pending updates", notCompleted.size());
+                }
+            } catch (IOException e) {
+                logger.error("Patient updates journal could not be truncated or compacted", e);
+            }
+        }
+    }
+
+    /**
+     * Remove the tickets of the updates completed for longer than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${patientUpdateQueue.ticketCleanupIntervalMs:60000}")
+    public void evictCompletedTickets() {
+        Instant expiry = Instant.now().minusMillis(ticketRetentionMs);
+        tickets.values().removeIf(ticket -> ticket.getCompletedAt() != null && ticket.getCompletedAt().isBefore(expiry));
+    }
+
+    private PatientUpdateTicket enqueue(String ticketId, Patient patient) {
+        PatientUpdateTicket ticket = new PatientUpdateTicket(ticketId, patient.getId(), Instant.now());
+        tickets.put(ticketId, ticket);
+        pendingUpdates.compute(patient.getId(), (id, pending) -> {
+            if (pending == null) {
+                return new PendingUpdate(patient, ticket);
+            }
+            pending.coalesce(patient, ticket);
+            return pending;
+        });
+        return ticket;
+    }
+
+    private List<PendingUpdate> drainBatch(int maxSize) {
+        List<PendingUpdate> batch = new ArrayList<>(maxSize);
+        Iterator<Long> ids = pendingUpdates.keySet().iterator();
+        while (ids.hasNext() && batch.size() < maxSize) {
+            PendingUpdate update = pendingUpdates.remove(ids.next());
+            if (update != null) {
+                batch.add(update);
+            }
+        }
+        return batch;
+    }
+
+    private void commitAlone(PendingUpdate update) {
+        try {
+            transactionTemplate.execute(status -> patientService.updatePatient(update.patient));
+            update.complete(UpdateStatus.Committed, null);
+        } catch (ResourceNotFoundException e) {
+            update.complete(UpdateStatus.Failed, "Patient not found");
+        } catch (ResourceAlreadyExistException e) {
+            update.complete(UpdateStatus.Failed, "A patient with the same last name and first name already exists");
+        } catch (RuntimeException e) {
+            logger.error("Patient update for patient with id {} failed", update.patient.getId(), e);
+            update.complete(UpdateStatus.Failed, e.getMessage());
+        }
+    }
+
+    /**
+     * Class materializing the update pending for a patient, with the tickets of all the updates it coalesces.
+     */
+    private static final class PendingUpdate {
+
+        private Patient patient;
+
+        private final List<PatientUpdateTicket> tickets = new ArrayList<>(1);
+
+        private PendingUpdate(Patient patient, PatientUpdateTicket ticket) {
+            this.patient = patient;
+            this.tickets.add(ticket);
+        }
+
+        private void coalesce(Patient laterPatient, PatientUpdateTicket laterTicket) {
+            this.patient = laterPatient;
+            this.tickets.add(laterTicket);
+        }
+
+        // the latest ticket first : the one the update is recovered with after a restart
+        private PatientUpdateJournal.Entry journalEntry() {
+            List<String> ticketIds = new ArrayList<>(tickets.size());
+            ticketIds.add(tickets.get(tickets.size() - 1).getTicketId());
+            for (int i = 0; i < tickets.size() - 1; i++) {
+                ticketIds.add(tickets.get(i).getTicketId());
+            }
+            return new PatientUpdateJournal.Entry(ticketIds, patient);
+        }
+
+        private void complete(UpdateStatus status, String message) {
+            PatientUpdateTicket latest = tickets.get(tickets.size() - 1);
+            for (PatientUpdateTicket ticket : tickets) {
+                ticket.complete(status, ticket == latest || status != UpdateStatus.Committed ? message : COALESCED_MESSAGE);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.domain.PatientPhoneColumns;
+import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.util.PhoneNumberNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class in charge of normalizing the phone numbers of the patients saved before phone numbers were normalized at write time.
+ * Patients are processed in chunks, each chunk being updated in its own short transaction so that the table is never locked.
+ * The backfill started at startup runs on its own thread, so that it does not delay the readiness of the Microservice.
+ */
+@Service
+public class PhoneNumberBackfillServiceImpl implements IPhoneNumberBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhoneNumberBackfillServiceImpl.class);
+
+    private final PatientRepository patientRepository;
+
+    private final PhoneNumberNormalizer phoneNumberNormalizer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int chunkSize;
+
+    private final long pauseMs;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "phone-number-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PhoneNumberBackfillServiceImpl(PatientRepository patientRepository, PhoneNumberNormalizer phoneNumberNormalizer, PlatformTransactionManager transactionManager,
+                                          @Value("${phoneNumberBackfill.enabled:true}") boolean enabled,
+                                          @Value("${phoneNumberBackfill.chunkSize:1000}") int chunkSize,
+                                          @Value("${phoneNumberBackfill.pauseMs:0}") long pauseMs) {
+        this.patientRepository = patientRepository;
+        this.phoneNumberNormalizer = phoneNumberNormalizer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+    }
+
+    /**
+     * Start the backfill in the background once the application is ready, if enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            backfillExecutor.execute(() -> {
+                try {
+                    backfillNormalizedPhoneNumbers();
+                } catch (RuntimeException e) {
+                    logger.error("Phone numbers backfill failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Normalize the phone numbers of the patients not yet normalized.
+     * Phone numbers that can not be normalized are left as is and skipped.
+     *
+     * @return The number of patients updated
+     */
+    @Override
+    public int backfillNormalizedPhoneNumbers() {
+
+        long start = System.currentTimeMillis();
+        int updated = 0;
+        long lastId = 0;
+        List<PatientPhoneColumns> chunk;
+
+        do {
+            chunk = patientRepository.findPhoneColumnsToNormalize(lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+
+            List<PatientPhoneColumns> patients = chunk;
+            Integer chunkUpdated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (PatientPhoneColumns patient : patients) {
+                    String normalizedPhoneNumber = phoneNumberNormalizer.normalize(patient.getPhoneNumber());
+                    if (normalizedPhoneNumber != null) {
+                        count += patientRepository.updateNormalizedPhoneNumber(patient.getId(), normalizedPhoneNumber);
+                    }
+                }
+                return count;
+            });
+            updated += chunkUpdated == null ? 0 : chunkUpdated;
+
+            pause();
+        } while (chunk.size() == chunkSize && !Thread.currentThread().isInterrupted());
+
+        logger.info("Phone numbers backfill done in {} ms : {} patients updated", System.currentTimeMillis() - start, updated);
+
+        return updated;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
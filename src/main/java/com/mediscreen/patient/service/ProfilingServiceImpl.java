@@ -0,0 +1,206 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.event.PatientRequestEvent;
+import com.mediscreen.patient.event.PatientServiceCallEvent;
+import com.mediscreen.patient.event.RapportCallEvent;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class in charge of the Flight Recorder recordings of the Microservice, so that it can be profiled without being restarted.
+ * The events of the requests, the patient service calls and the Rapport Microservice calls are enabled with a threshold each :
+ * only the slow operations are recorded, which keeps the overhead negligible.
+ * A continuous recording of these events only, bounded in age and size, is kept from startup to be dumped after a latency spike.
+ * An on-demand recording adds the JDK events of the "profile" settings (method sampling, allocations, locks, I/O), for a bounded duration :
+ * one at a time, its file is kept until the next one is started. The environment variables and system properties, holding the credentials
+ * of the database among others, are left out of the recordings.
+ */
+@Service
+@ConditionalOnProperty(name = "profiling.enabled", havingValue = "true")
+public class ProfilingServiceImpl implements IProfilingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilingServiceImpl.class);
+
+    private static final String ON_DEMAND_SETTINGS = "profile";
+
+    // JDK events of the "profile" settings whose values may be secrets
+    private static final String[] SENSITIVE_EVENTS = {"jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty"};
+
+    private final Map<String, Duration> thresholds = new LinkedHashMap<>();
+
+    private final long maxDurationSeconds;
+
+    private final long maxSizeBytes;
+
+    // null when the continuous recording is disabled
+    private final Recording continuousRecording;
+
+    private Recording recording;
+
+    private Path recordingFile;
+
+    private Path continuousDumpFile;
+
+    public ProfilingServiceImpl(@Value("${profiling.requestThresholdMs:100}") long requestThresholdMs,
+                                @Value("${profiling.serviceCallThresholdMs:50}") long serviceCallThresholdMs,
+                                @Value("${profiling.rapportCallThresholdMs:100}") long rapportCallThresholdMs,
+                                @Value("${profiling.maxDurationSeconds:600}") long maxDurationSeconds,
+                                @Value("${profiling.maxSizeMb:200}") long maxSizeMb,
+                                @Value("${profiling.continuous:true}") boolean continuous,
+                                @Value("${profiling.continuousMaxAgeMinutes:30}") long continuousMaxAgeMinutes) {
+        thresholds.put(PatientRequestEvent.NAME, Duration.ofMillis(requestThresholdMs));
+        thresholds.put(PatientServiceCallEvent.NAME, Duration.ofMillis(serviceCallThresholdMs));
+        thresholds.put(RapportCallEvent.NAME, Duration.ofMillis(rapportCallThresholdMs));
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        if (continuous) {
+            continuousRecording = new Recording();
+            continuousRecording.setName("patient-continuous");
+            enableEvents(continuousRecording);
+            continuousRecording.setToDisk(true);
+            continuousRecording.setMaxAge(Duration.ofMinutes(continuousMaxAgeMinutes));
+            continuousRecording.setMaxSize(maxSizeBytes);
+            continuousRecording.start();
+            logger.info("Continuous recording of the operations slower than {} started", thresholds);
+        } else {
+            continuousRecording = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean startRecording(long durationSeconds) throws IOException {
+
+        if (durationSeconds <= 0 || durationSeconds > maxDurationSeconds) {
+            throw new IllegalArgumentException("The duration of a recording must be between 1 and " + maxDurationSeconds + " seconds");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        closeRecording();
+
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration(ON_DEMAND_SETTINGS));
+        } catch (ParseException e) {
+            throw new IOException("Recording settings " + ON_DEMAND_SETTINGS + " not readable", e);
+        }
+        newRecording.setName("patient-on-demand");
+        enableEvents(newRecording);
+        for (String sensitiveEvent : SENSITIVE_EVENTS) {
+            newRecording.disable(sensitiveEvent);
+        }
+        newRecording.setToDisk(true);
+        newRecording.setMaxSize(maxSizeBytes);
+        newRecording.setDuration(Duration.ofSeconds(durationSeconds));
+        Path file = Files.createTempFile("patient-", ".jfr");
+        // written to the file once stopped, on demand or at the end of its duration
+        newRecording.setDestination(file);
+        newRecording.start();
+
+        recording = newRecording;
+        recordingFile = file;
+        logger.info("On-demand recording started for {} seconds", durationSeconds);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Path stopRecording() {
+
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return null;
+        }
+        try {
+            recording.stop();
+        } catch (IllegalStateException e) {
+            // stopped at the end of its duration meanwhile
+            logger.debug("On-demand recording already stopped : {}", e.toString());
+        }
+        logger.info("On-demand recording stopped, {} bytes", recordingFile.toFile().length());
+        return recordingFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Path getLastRecording() {
+        if (recording == null) {
+            return null;
+        }
+        RecordingState state = recording.getState();
+        return state == RecordingState.STOPPED || state == RecordingState.CLOSED ? recordingFile : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized Path dumpContinuousRecording() throws IOException {
+        if (continuousRecording == null) {
+            return null;
+        }
+        if (continuousDumpFile == null) {
+            continuousDumpFile = Files.createTempFile("patient-continuous-", ".jfr");
+        }
+        Files.deleteIfExists(continuousDumpFile);
+        continuousRecording.dump(continuousDumpFile);
+        return continuousDumpFile;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        closeRecording();
+        if (continuousRecording != null) {
+            continuousRecording.close();
+        }
+        deleteQuietly(continuousDumpFile);
+    }
+
+    private void enableEvents(Recording target) {
+        for (Map.Entry<String, Duration> threshold : thresholds.entrySet()) {
+            target.enable(threshold.getKey()).withThreshold(threshold.getValue());
+        }
+    }
+
+    // closes the previous on-demand recording and deletes its file
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteQuietly(recordingFile);
+        recordingFile = null;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Recording file {} not deleted : {}", file, e.toString());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mediscreen.patient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class in charge of warming up the Microservice at startup, before it reports itself ready :
+ * - the database connection pool is filled,
+ * - the lookups by id, names and phone number are requested on the Microservice itself for a sample of patients, through all its layers
+ *   (filters, controller, PatientServiceImpl, repository, Jackson), then the list page is rendered once,
+ * - patients and reports are serialized and deserialized as by the endpoints and the Rapport Microservice proxy.
+ * It runs as an application runner : the readiness state of the application is only set to accepting traffic once it is completed.
+ * A failure of the warm-up is logged and does not prevent the application from starting.
+ */
+@Service
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class StartupWarmUpServiceImpl implements IStartupWarmUpService, ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUpServiceImpl.class);
+
+    private static final int SAMPLE_PATIENTS = 10;
+
+    private final DataSource dataSource;
+
+    private final PatientRepository patientRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final RestTemplateBuilder restTemplateBuilder;
+
+    private final Environment environment;
+
+    private final int connections;
+
+    private final int iterations;
+
+    private final long maxDurationMs;
+
+    private final AtomicLong durationMs = new AtomicLong();
+
+    private volatile boolean warmingUp;
+
+    public StartupWarmUpServiceImpl(DataSource dataSource, PatientRepository patientRepository, ObjectMapper objectMapper, RestTemplateBuilder restTemplateBuilder,
+                                    Environment environment, MeterRegistry meterRegistry,
+                                    @Value("${warmup.connections:10}") int connections,
+                                    @Value("${warmup.iterations:1000}") int iterations,
+                                    @Value("${warmup.maxDurationMs:30000}") long maxDurationMs) {
+        this.dataSource = dataSource;
+        this.patientRepository = patientRepository;
+        this.objectMapper = objectMapper;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.environment = environment;
+        this.connections = connections;
+        this.iterations = iterations;
+        this.maxDurationMs = maxDurationMs;
+        TimeGauge.builder("warmup.duration", durationMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Duration of the warm-up at startup").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long warmUp() {
+
+        logger.info("Warm-up started");
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+
+        warmingUp = true;
+        try {
+            openConnections();
+
+            List<Patient> samplePatients = patientRepository.findAll(PageRequest.of(0, SAMPLE_PATIENTS)).getContent();
+            RestTemplate restTemplate = restTemplateBuilder
+                    .rootUri("http://localhost:" + environment.getRequiredProperty("local.server.port"))
+                    .build();
+            Rapport rapport = new Rapport("Ferguson", "Lucas", Sex.M, 52, Assessment.Borderline);
+
+            int iteration = 0;
+            while (iteration < iterations && System.nanoTime() < deadline) {
+                if (!samplePatients.isEmpty()) {
+                    Patient patient = samplePatients.get(iteration % samplePatients.size());
+                    requestQuietly(restTemplate, "/patients/patientById?id={id}", patient.getId());
+                    requestQuietly(restTemplate, "/patients/patientByFamilyAndGiven?family={family}&given={given}", patient.getLastName(), patient.getFirstName());
+                    if (patient.getPhoneNumber() != null) {
+                        requestQuietly(restTemplate, "/patients/byPhone?phone={phone}", patient.getPhoneNumber());
+                    }
+                }
+                objectMapper.readValue(objectMapper.writeValueAsBytes(rapport), Rapport.class);
+                objectMapper.readValue(objectMapper.writeValueAsBytes(new Patient("Ferguson", "Lucas", LocalDate.of(1968, 6, 22), Sex.M,
+                        "2 Warren Street", "387-866-1399")), Patient.class);
+                iteration++;
+            }
+            requestQuietly(restTemplate, "/patients/list");
+
+            logger.info("Warm-up completed : {} iterations on {} sample patients", iteration, samplePatients.size());
+        } catch (Exception e) {
+            logger.warn("Warm-up interrupted, starting anyway : {}", e.getMessage());
+        } finally {
+            warmingUp = false;
+        }
+
+        durationMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        logger.info("Warm-up duration : {} ms", durationMs.get());
+        return durationMs.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWarmingUp() {
+        return warmingUp;
+    }
+
+    // connections held together, so that the pool has to open them all
+    private void openConnections() throws SQLException {
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                opened.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : opened) {
+                connection.close();
+            }
+        }
+    }
+
+    private static void requestQuietly(RestTemplate restTemplate, String url, Object... uriVariables) {
+        try {
+            restTemplate.getForObject(url, String.class, uriVariables);
+        } catch (RestClientException e) {
+            // a rejected or failed request still warms up most of the path
+            logger.debug("Warm-up request {} failed : {}", url, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mediscreen.patient.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class materializing a concurrency limit adapted to the observed latency (AIMD) : the limit is decreased multiplicatively when requests
+ * take much longer than the latency without load, which means they are queueing (for database connections or threads), and increased
+ * additively when they do not while the limit is in use.
+ * The latency without load is the minimum latency of the last two windows of samples, so that it follows lasting changes.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final int WINDOW_SAMPLES = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double latencyTolerance;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private long previousWindowMinLatencyNs = Long.MAX_VALUE;
+
+    private long windowMinLatencyNs = Long.MAX_VALUE;
+
+    private int windowSamples;
+
+    private int samplesSinceDecrease;
+
+    /**
+     * Constructs the concurrency limit.
+     *
+     * @param initialLimit The initial limit
+     * @param minLimit The minimum limit
+     * @param maxLimit The maximum limit
+     * @param latencyTolerance The ratio of the latency without load above which requests are considered queueing (e.g. 2)
+     * @param backoffRatio The ratio applied to the limit when requests are queueing (e.g. 0.9)
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Admit a request if the limit is not reached. An admitted request must be released once completed.
+     *
+     * @return true if the request is admitted
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request and adapt the limit to its latency.
+     *
+     * @param latencyNs The latency of the request in nanoseconds
+     */
+    public void release(long latencyNs) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(latencyNs, inFlightBefore);
+    }
+
+    private synchronized void update(long latencyNs, int inFlightBefore) {
+
+        windowMinLatencyNs = Math.min(windowMinLatencyNs, latencyNs);
+        if (++windowSamples == WINDOW_SAMPLES) {
+            previousWindowMinLatencyNs = windowMinLatencyNs;
+            windowMinLatencyNs = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        long noLoadLatencyNs = Math.min(previousWindowMinLatencyNs, windowMinLatencyNs);
+
+        samplesSinceDecrease++;
+        if (latencyNs > noLoadLatencyNs * latencyTolerance) {
+            // decreased once for the requests in flight at the same time : they were all slowed down by the same queueing
+            if (samplesSinceDecrease >= limit) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                samplesSinceDecrease = 0;
+            }
+        } else if (inFlightBefore * 2 >= limit) {
+            // increased by one per limit samples, and only when in use : otherwise it would grow without bound under a light load
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,179 @@
+package com.mediscreen.patient.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class in charge of batching concurrent loads of distinct keys : the keys requested within a short window are loaded by one batch call,
+ * and each caller gets the value of its key. A batch is called once its window is elapsed, on a pool of dispatcher threads,
+ * or as soon as it is full, by the caller filling it. When all the dispatcher threads are busy, the timer thread calls the batch itself,
+ * so that the following batches fill up rather than queue. The same key requested twice in a window is loaded once.
+ *
+ * @param <K> The type of the keys, with equals and hashCode
+ * @param <V> The type of the values
+ */
+public class BatchLoader<K, V> {
+
+    /**
+     * Interface to be implemented by the batch calls.
+     *
+     * @param <K> The type of the keys
+     * @param <V> The type of the values
+     */
+    @FunctionalInterface
+    public interface BatchCall<K, V> {
+
+        /**
+         * Load the values of the keys.
+         *
+         * @param keys The distinct keys
+         * @return The values by key, a key without value being absent
+         */
+        Map<K, V> load(List<K> keys);
+    }
+
+    private final BatchCall<K, V> batchCall;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayMs;
+
+    private final long maxWaitMs;
+
+    private final ScheduledExecutorService timer;
+
+    private final ThreadPoolExecutor dispatcher;
+
+    private Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>();
+
+    // identifies the current batch, so that the timer of a batch already called does not call the next one early
+    private long batchNumber;
+
+    /**
+     * Constructs the batch loader.
+     *
+     * @param name The name of the threads of the loader
+     * @param batchCall The batch call
+     * @param maxBatchSize The maximum number of keys of a batch
+     * @param maxDelayMs The window of a batch, from its first key
+     * @param maxWaitMs The maximum wait of a caller for its value
+     * @param dispatcherThreads The maximum number of batches called concurrently by the dispatcher threads
+     */
+    public BatchLoader(String name, BatchCall<K, V> batchCall, int maxBatchSize, long maxDelayMs, long maxWaitMs, int dispatcherThreads) {
+        this.batchCall = batchCall;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.maxWaitMs = maxWaitMs;
+        this.timer = new ScheduledThreadPoolExecutor(1, threadFactory(name + "-batch-timer-"));
+        this.dispatcher = new ThreadPoolExecutor(0, dispatcherThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory(name + "-batch-"), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Load the value of a key with the other keys requested within the window of its batch.
+     *
+     * @param key The key
+     * @return The value of the key, null if the batch call returned no value for it
+     * @throws RuntimeException the exception thrown by the batch call
+     * @throws IllegalStateException if the value is not loaded within the maximum wait
+     */
+    public V load(K key) {
+
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> fullBatch = null;
+
+        synchronized (this) {
+            future = batch.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                batch.put(key, future);
+                if (batch.size() >= maxBatchSize) {
+                    fullBatch = takeBatch();
+                } else if (batch.size() == 1) {
+                    long number = batchNumber;
+                    timer.schedule(() -> callElapsedBatch(number), maxDelayMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (fullBatch != null) {
+            call(fullBatch);
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } catch (TimeoutException | CancellationException e) {
+            throw new IllegalStateException("Value not loaded within " + maxWaitMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batch", e);
+        }
+    }
+
+    /**
+     * Stop the threads of the loader : the batches not called yet are never called.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+    }
+
+    private Map<K, CompletableFuture<V>> takeBatch() {
+        Map<K, CompletableFuture<V>> taken = batch;
+        batch = new LinkedHashMap<>();
+        batchNumber++;
+        return taken;
+    }
+
+    private void callElapsedBatch(long number) {
+        Map<K, CompletableFuture<V>> elapsedBatch;
+        synchronized (this) {
+            if (number != batchNumber || batch.isEmpty()) {
+                return;
+            }
+            elapsedBatch = takeBatch();
+        }
+        dispatcher.execute(() -> call(elapsedBatch));
+    }
+
+    private void call(Map<K, CompletableFuture<V>> calledBatch) {
+        try {
+            Map<K, V> values = batchCall.load(new ArrayList<>(calledBatch.keySet()));
+            for (Map.Entry<K, CompletableFuture<V>> entry : calledBatch.entrySet()) {
+                entry.getValue().complete(values == null ? null : values.get(entry.getKey()));
+            }
+        } catch (RuntimeException | Error e) {
+            for (CompletableFuture<V> future : calledBatch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.mediscreen.patient.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class materializing a Bloom filter of strings : a key never added is reported absent with a probability depending on the number of bits
+ * per key, a key added is always reported present. Keys can not be removed.
+ * The bits of a key are chosen by double hashing of a 64 bits hash of the key. Keys can be added and looked up concurrently.
+ */
+public class BloomFilter {
+
+    private static final double LN_2 = Math.log(2);
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(long bitCount, int hashCount) {
+        if (bitCount < 1 || hashCount < 1) {
+            throw new IllegalArgumentException("The number of bits and the number of hashes must be positive");
+        }
+        long wordCount = (bitCount + Long.SIZE - 1) / Long.SIZE;
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many bits : " + bitCount);
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitCount = wordCount * Long.SIZE;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Create a Bloom filter sized for a number of keys and a false positive rate, within a memory budget.
+     * If the budget is too small for the false positive rate, the filter takes the whole budget and the false positive rate is higher.
+     *
+     * @param expectedKeys The number of keys expected
+     * @param falsePositiveRate The false positive rate wanted once the expected keys are added
+     * @param maxBytes The maximum size of the bit array in bytes
+     * @return The Bloom filter
+     */
+    public static BloomFilter create(long expectedKeys, double falsePositiveRate, long maxBytes) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1, found " + falsePositiveRate);
+        }
+        long keys = Math.max(1, expectedKeys);
+        long bitCount = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (LN_2 * LN_2));
+        bitCount = Math.max(Long.SIZE, Math.min(bitCount, maxBytes * Byte.SIZE));
+        int hashCount = (int) Math.max(1, Math.round((double) bitCount / keys * LN_2));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getMemoryBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    /**
+     * Add a key.
+     *
+     * @param key The key
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        long hash1 = mix(hash);
+        // odd, so that the successive bits do not cycle before the hash count
+        long hash2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    /**
+     * Return whether a key may have been added.
+     *
+     * @param key The key
+     * @return false if the key was never added, true if it may have been
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        long hash1 = mix(hash);
+        long hash2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the false positive rate expected once a number of keys are added.
+     *
+     * @param keys The number of keys added
+     * @return The false positive rate
+     */
+    public double expectedFalsePositiveRate(long keys) {
+        return Math.pow(1 - Math.exp(-(double) hashCount * keys / bitCount), hashCount);
+    }
+
+    // FNV-1a over the characters of the key
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // finalizer of MurmurHash3, spreading the FNV-1a hash over all the bits
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3b91c4b9e53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mediscreen.patient.util;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class materializing a bulkhead : at most a number of concurrent executions, and a bounded number of callers waiting for a slot
+ * for a bounded time. The callers beyond are rejected at once.
+ */
+public class Bulkhead {
+
+    private final Semaphore slots;
+
+    private final int maxConcurrent;
+
+    private final int maxQueued;
+
+    private final long maxWaitMs;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public Bulkhead(int maxConcurrent, int maxQueued, long maxWaitMs) {
+        // fair : the waiting callers get the slots in order
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public int getActive() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Take a slot, waiting for one if the queue is not full. A slot taken must be released once the execution is completed.
+     *
+     * @return true if a slot is taken, false if rejected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean tryEnter() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+        try {
+            return slots.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Release a slot taken.
+     */
+    public void exit() {
+        slots.release();
+    }
+}
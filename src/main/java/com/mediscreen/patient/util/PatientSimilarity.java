@@ -0,0 +1,185 @@
+package com.mediscreen.patient.util;
+
+import java.text.Normalizer;
+
+/**
+ * Class providing the string normalization and similarity functions used to detect duplicate patients.
+ */
+public final class PatientSimilarity {
+
+    private static final double WINKLER_SCALING_FACTOR = 0.1;
+
+    private static final int WINKLER_MAX_PREFIX = 4;
+
+    //                                         ABCDEFGHIJKLMNOPQRSTUVWXYZ
+    private static final String SOUNDEX_CODES = "01230120022455012623010202";
+
+    private PatientSimilarity() {
+    }
+
+    /**
+     * Normalize a name : accents, case and every character which is not a letter are removed, so that "O'Neil" and "ONeil" are equal.
+     *
+     * @param name The name to normalize
+     * @return The normalized name, empty if the name is null
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetter(c)) {
+                normalized.append(Character.toUpperCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Normalize an address : case, punctuation and repeated whitespaces are removed.
+     *
+     * @param address The address to normalize
+     * @return The normalized address, empty if the address is null
+     */
+    public static String normalizeAddress(String address) {
+        if (address == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(address.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toUpperCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Normalize a phone number by keeping its digits only.
+     *
+     * @param phoneNumber The phone number to normalize
+     * @return The digits of the phone number, empty if the phone number is null
+     */
+    public static String normalizePhoneDigits(String phoneNumber) {
+        if (phoneNumber == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Return the American Soundex phonetic key of a normalized name.
+     *
+     * @param normalizedName The name normalized using normalizeName
+     * @return The Soundex key, empty if the name contains no latin letter
+     */
+    public static String soundex(String normalizedName) {
+        char[] key = new char[4];
+        int length = 0;
+        char previousCode = 0;
+        for (int i = 0; i < normalizedName.length() && length < key.length; i++) {
+            char c = normalizedName.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                continue;
+            }
+            char code = SOUNDEX_CODES.charAt(c - 'A');
+            if (length == 0) {
+                key[length++] = c;
+            } else if (code != '0' && code != previousCode) {
+                key[length++] = code;
+            }
+            // H and W do not separate letters having the same code, vowels do
+            if (c != 'H' && c != 'W') {
+                previousCode = code;
+            }
+        }
+        if (length == 0) {
+            return "";
+        }
+        while (length < key.length) {
+            key[length++] = '0';
+        }
+        return new String(key);
+    }
+
+    /**
+     * Return the Jaro-Winkler similarity of two strings.
+     *
+     * @param s1 The first string
+     * @param s2 The second string
+     * @return The similarity, between 0 (no similarity) and 1 (equal strings)
+     */
+    public static double jaroWinkler(String s1, String s2) {
+
+        if (s1.equals(s2)) {
+            return 1.0;
+        }
+        int length1 = s1.length();
+        int length2 = s2.length();
+        if (length1 == 0 || length2 == 0) {
+            return 0.0;
+        }
+
+        int matchDistance = Math.max(0, Math.max(length1, length2) / 2 - 1);
+        boolean[] matched1 = new boolean[length1];
+        boolean[] matched2 = new boolean[length2];
+        int matches = 0;
+        for (int i = 0; i < length1; i++) {
+            int start = Math.max(0, i - matchDistance);
+            int end = Math.min(i + matchDistance + 1, length2);
+            for (int j = start; j < end; j++) {
+                if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < length1; i++) {
+            if (matched1[i]) {
+                while (!matched2[k]) {
+                    k++;
+                }
+                if (s1.charAt(i) != s2.charAt(k)) {
+                    transpositions++;
+                }
+                k++;
+            }
+        }
+
+        double jaro = ((double) matches / length1 + (double) matches / length2 + (matches - transpositions / 2.0) / matches) / 3.0;
+
+        int prefix = 0;
+        int maxPrefix = Math.min(WINKLER_MAX_PREFIX, Math.min(length1, length2));
+        while (prefix < maxPrefix && s1.charAt(prefix) == s2.charAt(prefix)) {
+            prefix++;
+        }
+
+        return jaro + prefix * WINKLER_SCALING_FACTOR * (1.0 - jaro);
+    }
+}
@@ -0,0 +1,80 @@
+package com.mediscreen.patient.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class in charge of normalizing free-form phone numbers to the E.164 format (e.g. "387-866-1399" to "+13878661399").
+ * Numbers without international prefix are considered national numbers of the configured default country.
+ */
+@Component
+public class PhoneNumberNormalizer {
+
+    private static final int E164_MIN_DIGITS = 8;
+
+    private static final int E164_MAX_DIGITS = 15;
+
+    private static final String NANP_COUNTRY_CODE = "1";
+
+    private static final int NANP_NATIONAL_DIGITS = 10;
+
+    private final String defaultCountryCode;
+
+    public PhoneNumberNormalizer(@Value("${phoneNumber.defaultCountryCode:1}") String defaultCountryCode) {
+        this.defaultCountryCode = defaultCountryCode;
+    }
+
+    /**
+     * Normalize a phone number to the E.164 format.
+     *
+     * @param phoneNumber The phone number to normalize
+     * @return The phone number in the E.164 format, or null if the phone number is missing or can not be normalized
+     */
+    public String normalize(String phoneNumber) {
+
+        if (phoneNumber == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(E164_MAX_DIGITS + 1);
+        boolean international = false;
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c == '+' && digits.length() == 0) {
+                international = true;
+            } else if (Character.isLetter(c)) {
+                // extension such as "x123" or "ext. 123" : not part of the number
+                break;
+            }
+        }
+
+        String number = digits.toString();
+        if (!international && number.startsWith("00")) {
+            international = true;
+            number = number.substring(2);
+        }
+
+        if (!international) {
+            number = toInternational(number);
+        }
+
+        if (number.length() < E164_MIN_DIGITS || number.length() > E164_MAX_DIGITS || number.charAt(0) == '0') {
+            return null;
+        }
+        return "+" + number;
+    }
+
+    private String toInternational(String nationalNumber) {
+        if (NANP_COUNTRY_CODE.equals(defaultCountryCode)) {
+            if (nationalNumber.length() == NANP_NATIONAL_DIGITS + 1 && nationalNumber.startsWith(NANP_COUNTRY_CODE)) {
+                return nationalNumber;
+            }
+            return nationalNumber.length() == NANP_NATIONAL_DIGITS ? NANP_COUNTRY_CODE + nationalNumber : "";
+        }
+        // most other numbering plans use a single leading 0 as national trunk prefix
+        String significantNumber = nationalNumber.startsWith("0") ? nationalNumber.substring(1) : nationalNumber;
+        return significantNumber.isEmpty() ? "" : defaultCountryCode + significantNumber;
+    }
+}
@@ -0,0 +1,104 @@
+package com.mediscreen.patient.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Class in charge of coalescing concurrent identical calls : the first caller for a key executes the call on its own thread,
+ * the callers arriving for the same key while it is in flight wait for its outcome and share its result or its exception.
+ * A waiting caller gives up after the maximum wait and executes the call itself. Results are not cached : a call arriving
+ * after the completion of the previous one for the same key is executed again.
+ */
+public class SingleFlight {
+
+    /**
+     * Interface to be implemented by the coalesced calls.
+     *
+     * @param <T> The type of the result
+     * @param <E> The type of the checked exception thrown
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+
+        T call() throws E;
+    }
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final long maxWaitMs;
+
+    public SingleFlight(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Execute a call, or wait for the same call already in flight.
+     *
+     * @param key The key identifying the call, with equals and hashCode
+     * @param call The call
+     * @param <T> The type of the result
+     * @param <E> The type of the checked exception thrown
+     * @return The result of the call, shared with the other callers : it must not be modified
+     * @throws E if the call throws it
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T execute(Object key, Call<T, E> call) throws E {
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leaderFlight = inFlight.putIfAbsent(key, flight);
+
+        if (leaderFlight == null) {
+            try {
+                T result = call.call();
+                flight.complete(result);
+                return result;
+            } catch (Exception | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        try {
+            return (T) leaderFlight.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            // the call only throws its checked exception E
+            throw (E) cause;
+        } catch (TimeoutException | CancellationException e) {
+            return call.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a call in flight", e);
+        }
+    }
+
+    /**
+     * Detach the calls in flight : the callers arriving from now on execute the calls again, e.g. after a change of the data read.
+     * The callers already waiting still get the outcome of the detached calls.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * Return the number of distinct calls in flight.
+     *
+     * @return The number of calls in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
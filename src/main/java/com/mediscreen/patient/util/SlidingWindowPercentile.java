@@ -0,0 +1,62 @@
+package com.mediscreen.patient.util;
+
+import java.util.Arrays;
+
+/**
+ * Class materializing the percentiles of the last samples recorded, e.g. latencies : the samples are kept in a ring buffer of a fixed size,
+ * so that the percentiles follow the recent behaviour and the memory used is bounded. A percentile sorts a copy of the window :
+ * it is meant to be computed periodically rather than for each sample.
+ */
+public class SlidingWindowPercentile {
+
+    private final long[] samples;
+
+    private int next;
+
+    private int size;
+
+    public SlidingWindowPercentile(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    /**
+     * Record a sample, replacing the oldest one once the window is full.
+     *
+     * @param value The sample
+     */
+    public synchronized void record(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Return the number of samples in the window.
+     *
+     * @return The number of samples
+     */
+    public synchronized int getCount() {
+        return size;
+    }
+
+    /**
+     * Return a percentile of the samples in the window (nearest rank).
+     *
+     * @param percentile The percentile, between 0 and 1
+     * @return The percentile, 0 if no sample is recorded
+     */
+    public long percentile(double percentile) {
+        long[] window;
+        synchronized (this) {
+            window = Arrays.copyOf(samples, size);
+        }
+        if (window.length == 0) {
+            return 0;
+        }
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(percentile * window.length);
+        return window[Math.min(window.length - 1, Math.max(0, rank - 1))];
+    }
+}
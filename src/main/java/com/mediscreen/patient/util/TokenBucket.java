@@ -0,0 +1,58 @@
+package com.mediscreen.patient.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class materializing a token bucket : tokens are added at a constant rate up to the burst size, each request takes one token.
+ * Requests are allowed at the rate on average, and up to the burst size at once after an idle period.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+
+    private final double burst;
+
+    private double tokens;
+
+    private long lastRefillNs;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNs) {
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNs = nowNs;
+    }
+
+    /**
+     * Take a token if one is available.
+     *
+     * @param nowNs The current time, from System.nanoTime
+     * @return 0 if a token is taken, otherwise the time to wait for the next token in nanoseconds
+     */
+    public synchronized long tryAcquire(long nowNs) {
+        refill(nowNs);
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * Return whether the bucket is full, i.e. no request was made during the time needed to refill it.
+     *
+     * @param nowNs The current time, from System.nanoTime
+     * @return true if the bucket is full
+     */
+    public synchronized boolean isFull(long nowNs) {
+        refill(nowNs);
+        return tokens >= burst;
+    }
+
+    private void refill(long nowNs) {
+        if (nowNs > lastRefillNs) {
+            tokens = Math.min(burst, tokens + (nowNs - lastRefillNs) * tokensPerNano);
+            lastRefillNs = nowNs;
+        }
+    }
+}
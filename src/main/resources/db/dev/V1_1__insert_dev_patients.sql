@@ -1,3 +1,4 @@
+-- Patients of the development database, inserted only with the dev profile (db/dev location)
 insert into patient
     (last_name, first_name, date_of_birth, sex, home_address, phone_number)
 values
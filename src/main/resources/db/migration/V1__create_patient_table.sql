@@ -0,0 +1,12 @@
+-- Patient table as previously created by Hibernate (spring.jpa.hibernate.ddl-auto).
+-- A database already created by Hibernate is baselined at version 1 (spring.flyway.baseline-on-migrate), so this migration is only run on an empty database.
+create table patient (
+    id bigint not null auto_increment,
+    last_name varchar(125) not null,
+    first_name varchar(125) not null,
+    date_of_birth date not null,
+    sex varchar(1) not null,
+    home_address varchar(255),
+    phone_number varchar(255),
+    primary key (id)
+) engine=InnoDB;
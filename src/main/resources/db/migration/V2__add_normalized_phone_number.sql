@@ -0,0 +1,20 @@
+-- Phone number in the E.164 format, and its index for the lookups by phone number.
+-- Run on every database, baselined or not : the column and the index are only added when missing (a database upgraded by Hibernate may already have them).
+-- Added online (in place, without locking) so that reads and writes on the patient table are not blocked.
+set @ddl = (select if(count(*) = 0,
+        'alter table patient add column normalized_phone_number varchar(16), algorithm=inplace, lock=none',
+        'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'patient' and column_name = 'normalized_phone_number');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = (select if(count(*) = 0,
+        'alter table patient add index idx_patient_normalized_phone_number (normalized_phone_number), algorithm=inplace, lock=none',
+        'do 0')
+    from information_schema.statistics
+    where table_schema = database() and table_name = 'patient' and index_name = 'idx_patient_normalized_phone_number');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
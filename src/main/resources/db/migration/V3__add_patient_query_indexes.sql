@@ -0,0 +1,6 @@
+-- Indexes of the query paths : search by last name and first name, keyset scan by date of birth of the duplicate detection.
+-- Created online (in place, without locking) so that reads and writes on the patient table are not blocked while the indexes are built.
+alter table patient
+    add index idx_patient_last_name_first_name (last_name, first_name),
+    add index idx_patient_date_of_birth (date_of_birth),
+    algorithm=inplace, lock=none;
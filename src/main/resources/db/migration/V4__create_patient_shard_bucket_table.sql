@@ -0,0 +1,7 @@
+-- Directory of the sharded patient registry : the shard holding each bucket of patients (hash of last name and first name).
+-- Only read in the first shard, and only when sharding is enabled. A bucket without row is held by the shard (bucket modulo number of shards).
+create table if not exists patient_shard_bucket (
+    bucket int not null,
+    shard int not null,
+    primary key (bucket)
+) engine=InnoDB;
@@ -0,0 +1,13 @@
+-- Requests sent with an Idempotency-Key header to the write endpoints, with their response once completed, shared by all the instances.
+-- The key is the SHA-256 of the client, the endpoint and the idempotency key. Expired rows are purged by the Microservice.
+create table if not exists idempotency_key (
+    key_hash char(64) not null,
+    fingerprint char(64) not null,
+    status int,
+    content_type varchar(255),
+    location varchar(2048),
+    body mediumblob,
+    expires_at timestamp(3) not null,
+    primary key (key_hash),
+    index idx_idempotency_key_expires_at (expires_at)
+) engine=InnoDB;
@@ -0,0 +1,10 @@
+-- Latest diabetes risk assessment of each patient, refreshed from the Rapport Microservice, so that the patients can be listed by risk without calling it.
+-- The assessment is stored as its risk level, from 0 (None) to 3 (EarlyOnset), so that the rows sort by risk. Removed with the patient.
+create table if not exists patient_risk (
+    patient_id bigint not null,
+    assessment tinyint not null,
+    assessed_at timestamp(3) not null,
+    primary key (patient_id),
+    index idx_patient_risk_assessment (assessment, patient_id),
+    constraint fk_patient_risk_patient foreign key (patient_id) references patient (id) on delete cascade
+) engine=InnoDB;
@@ -0,0 +1,202 @@
+package com.mediscreen.patient.configuration;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the HedgingLoadBalancingClient Class, against two local stubs of the Rapport Microservice.
+ */
+public class HedgingLoadBalancingClientTest {
+
+    private static final long SLOW_LATENCY_MS = 400;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Stub slowStub;
+
+    private Stub fastStub;
+
+    private HedgingLoadBalancingClient clientUnderTest;
+
+    // the Apache HttpClient aborting the requests losing to their hedge
+    private final CloseableHttpClient httpClient = HttpClients.custom().addInterceptorFirst(HedgingLoadBalancingClient.abortingInterceptor()).build();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        slowStub = new Stub("slow", SLOW_LATENCY_MS, 1);
+        fastStub = new Stub("fast", 0, 1);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        clientUnderTest.close();
+        httpClient.close();
+        slowStub.close();
+        fastStub.close();
+    }
+
+    @Test
+    public void execute_whenRequestSlow() throws IOException, InterruptedException {
+        // ARRANGE
+        // each request sent to the slow instance is hedged after 50 ms to the fast one
+        clientUnderTest = new HedgingLoadBalancingClient("rapport", new ApacheHttpClient(httpClient), Arrays.asList(slowStub.getUrl(), fastStub.getUrl()),
+                true, 50, 0, 100, 1.0, 20, 32, meterRegistry);
+
+        // ACT
+        long maxElapsedMs = 0;
+        long maxAbortMs = 0;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            assertEquals(200, status(clientUnderTest.execute(request(), new Request.Options())));
+            maxElapsedMs = Math.max(maxElapsedMs, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            // the request to the slow instance is aborted once the hedge is answered, rather than outstanding until its response
+            long answered = System.nanoTime();
+            while (outstanding(slowStub) > 0 && System.nanoTime() - answered < TimeUnit.MILLISECONDS.toNanos(SLOW_LATENCY_MS)) {
+                Thread.sleep(5);
+            }
+            maxAbortMs = Math.max(maxAbortMs, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - answered));
+        }
+
+        // ASSERT
+        assertTrue(maxElapsedMs < SLOW_LATENCY_MS, "slowest request : " + maxElapsedMs + " ms");
+        assertTrue(maxAbortMs < SLOW_LATENCY_MS / 2, "slowest abort : " + maxAbortMs + " ms");
+        assertTrue(meterRegistry.get("rapport.hedges").counter().count() > 0);
+        assertEquals(meterRegistry.get("rapport.hedges").counter().count(), meterRegistry.get("rapport.hedges.won").counter().count());
+    }
+
+    @Test
+    public void execute_whenSingleInstance() throws IOException {
+        // ARRANGE
+        clientUnderTest = new HedgingLoadBalancingClient("rapport", new ApacheHttpClient(httpClient), Collections.singletonList(slowStub.getUrl()),
+                true, 50, 0, 100, 1.0, 20, 32, meterRegistry);
+
+        // ACT
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, status(clientUnderTest.execute(request(), new Request.Options())));
+        }
+
+        // ASSERT
+        // a hedge would only be sent to the same slow instance
+        assertEquals(0, meterRegistry.get("rapport.hedges").counter().count());
+        assertEquals(3, slowStub.requests.get());
+    }
+
+    @Test
+    public void execute_whenHedgeBudgetSpent() throws IOException {
+        // ARRANGE
+        clientUnderTest = newClient(true, 0, 0, 0);
+
+        // ACT
+        for (int i = 0; i < 6; i++) {
+            assertEquals(200, status(clientUnderTest.execute(request(), new Request.Options())));
+        }
+
+        // ASSERT
+        assertEquals(0, meterRegistry.get("rapport.hedges").counter().count());
+        assertEquals(6, slowStub.requests.get() + fastStub.requests.get());
+    }
+
+    @Test
+    public void execute_whenHedgingDisabled() throws IOException {
+        // ARRANGE
+        clientUnderTest = newClient(false, 0, 1.0, 20);
+
+        // ACT
+        for (int i = 0; i < 40; i++) {
+            assertEquals(200, status(clientUnderTest.execute(request(), new Request.Options())));
+        }
+
+        // ASSERT
+        // spread over both instances, each request sent once
+        assertEquals(40, slowStub.requests.get() + fastStub.requests.get());
+        assertTrue(slowStub.requests.get() > 0 && fastStub.requests.get() > 0,
+                "slow : " + slowStub.requests.get() + ", fast : " + fastStub.requests.get());
+    }
+
+    private HedgingLoadBalancingClient newClient(boolean hedgingEnabled, int minSamples, double budgetRatio, int maxBurst) {
+        return new HedgingLoadBalancingClient("rapport", new Client.Default(null, null), Arrays.asList(slowStub.getUrl(), fastStub.getUrl()),
+                hedgingEnabled, 50, minSamples, 100, budgetRatio, maxBurst, 32, meterRegistry);
+    }
+
+    private double outstanding(Stub stub) {
+        return meterRegistry.get("rapport.requests.outstanding").tag("endpoint", "http://" + stub.getUrl()).gauge().value();
+    }
+
+    private static Request request() {
+        // the host of the proxy url, replaced by the one of an instance
+        return Request.create(Request.HttpMethod.GET, "http://localhost:8080/assess/id?id=1", Collections.emptyMap(), null, StandardCharsets.UTF_8, null);
+    }
+
+    private static int status(Response response) throws IOException {
+        try (Response closed = response) {
+            Util.toByteArray(closed.body().asInputStream());
+            return closed.status();
+        }
+    }
+
+    /**
+     * Class materializing a local HTTP stub of the Rapport Microservice, answering one request out of slowEvery after the given latency.
+     */
+    private static class Stub {
+
+        private final HttpServer server;
+
+        private final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private Stub(String name, long latencyMs, int slowEvery) throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/assess/id", exchange -> {
+                boolean slow = (requests.incrementAndGet() - 1) % slowEvery == 0;
+                try {
+                    Thread.sleep(slow ? latencyMs : 0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = ("{\"lastName\":\"" + name + "\",\"assessment\":\"None\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        private String getUrl() {
+            return "localhost:" + server.getAddress().getPort();
+        }
+
+        private void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.filter.SqlStatementBudgetFilter;
+import com.mediscreen.patient.repository.PatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Class including integration tests for the PatientController Class, through the whole application and the test database.
+ * The test profile makes a request exceeding the SQL statements budget of its endpoint fail ("sqlStatementBudget.failOnExceeded"),
+ * so that an endpoint executing more statements than budgeted, e.g. after a N+1 select is introduced, fails these tests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Sql({"/cleandb-test.sql", "/data-test.sql"})
+public class PatientControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    private long patientId;
+
+    @BeforeEach
+    public void setUpPerTest() {
+        patientId = patientRepository.findByLastNameAndFirstName("Ferguson", "Lucas").getId();
+    }
+
+    @Test
+    public void getPatients_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/patients/list"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void getPatientById_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/patients/patientById").param("id", String.valueOf(patientId)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void getPatientByLastNameAndFirstName_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/patients/patientByFamilyAndGiven").param("family", "Ferguson").param("given", "Lucas"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void getPatientsByPhoneNumber_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/patients/byPhone").param("phone", "387-866-1399"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void showPatientUpdateForm_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(get("/patients/updateform/" + patientId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void addPatientFromJson_withinStatementBudget() throws Exception {
+        // ACT & ASSERT
+        mockMvc.perform(post("/patients/add")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\"Budget\",\"firstName\":\"Lucas\",\"dateOfBirth\":\"1968-06-22\",\"sex\":\"M\","
+                        + "\"homeAddress\":\"2 Warren Street\",\"phoneNumber\":\"387-866-1300\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+    }
+}
@@ -3,10 +3,15 @@ package com.mediscreen.patient.controller;
 import com.mediscreen.patient.constant.Assessment;
 import com.mediscreen.patient.constant.Sex;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
+import com.mediscreen.patient.domain.PatientUpdateTicket;
 import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.exception.InvalidPhoneNumberException;
 import com.mediscreen.patient.exception.ResourceAlreadyExistException;
 import com.mediscreen.patient.exception.ResourceNotFoundException;
+import com.mediscreen.patient.service.IPatientChangeStreamService;
 import com.mediscreen.patient.service.IPatientService;
+import com.mediscreen.patient.service.IPatientUpdateQueueService;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,9 +19,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -45,34 +53,101 @@ public class PatientControllerTest {
     @MockBean
     private IPatientService mockPatientService;
 
+    @MockBean
+    private IPatientUpdateQueueService mockPatientUpdateQueueService;
+
+    @MockBean
+    private IPatientChangeStreamService mockPatientChangeStreamService;
+
     @Test
     public void getPatients() {
         //ARRANGE
-        Patient patientToFind1 = new Patient("PatientTestLastName1", "PatientTestFirstName1", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress1","111-111-1111");
-        patientToFind1.setId(1);
-        Patient patientToFind2 = new Patient("PatientTestLastName2", "PatientTestFirstName2", LocalDate.of(2000,02,02), Sex.F, "PatientTestHomeAddress2","222-222-2222");
-        patientToFind2.setId(2);
-        Patient patientToFind3 = new Patient("PatientTestLastName3", "PatientTestFirstName3", LocalDate.of(2000,03,03), Sex.M, "PatientTestHomeAddress3","333-333-3333");
-        patientToFind3.setId(3);
+        PatientListItem patientToFind1 = new PatientListItem(1, "PatientTestLastName1", "PatientTestFirstName1", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress1","111-111-1111");
+        PatientListItem patientToFind2 = new PatientListItem(2, "PatientTestLastName2", "PatientTestFirstName2", LocalDate.of(2000,02,02), Sex.F, "PatientTestHomeAddress2","222-222-2222");
+        PatientListItem patientToFind3 = new PatientListItem(3, "PatientTestLastName3", "PatientTestFirstName3", LocalDate.of(2000,03,03), Sex.M, "PatientTestHomeAddress3","333-333-3333");
 
-        List<Patient> listPatientsToFind = new ArrayList<>();
+        List<PatientListItem> listPatientsToFind = new ArrayList<>();
         listPatientsToFind.add(patientToFind1);
         listPatientsToFind.add(patientToFind2);
         listPatientsToFind.add(patientToFind3);
 
-        doReturn(listPatientsToFind).when(mockPatientService).findAllPatients();
+        doReturn(listPatientsToFind).when(mockPatientService).findAllPatientListItems();
+        doReturn("instance-3").when(mockPatientChangeStreamService).getLastChangeId();
 
         //ACT & ASSERT
         try {
             mockMvc.perform(get("/patients/list"))
                     .andExpect(status().isOk())
                     .andExpect(model().attribute("patients", listPatientsToFind))
+                    .andExpect(model().attribute("lastChangeId", "instance-3"))
+                    .andExpect(view().name("patients/list"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, times(1)).findAllPatientListItems();
+    }
+
+    @Test
+    public void getPatients_whenFilteredByRisk() {
+        //ARRANGE
+        PatientListItem patientToFind = new PatientListItem(1, "PatientTestLastName1", "PatientTestFirstName1", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress1","111-111-1111",
+                Assessment.InDanger, Instant.parse("2020-01-01T00:00:00Z"));
+        List<PatientListItem> listPatientsToFind = new ArrayList<>();
+        listPatientsToFind.add(patientToFind);
+
+        doReturn(listPatientsToFind).when(mockPatientService).findPatientListItemsByRisk(Assessment.InDanger);
+        doReturn("instance-3").when(mockPatientChangeStreamService).getLastChangeId();
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/list")
+                    .param("risk", "InDanger"))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("patients", listPatientsToFind))
+                    .andExpect(model().attribute("risk", Assessment.InDanger))
                     .andExpect(view().name("patients/list"));
         } catch (Exception e) {
             logger.error("Error in MockMvc", e);
         }
 
-        verify(mockPatientService, times(1)).findAllPatients();
+        verify(mockPatientService, times(1)).findPatientListItemsByRisk(Assessment.InDanger);
+        verify(mockPatientService, never()).findAllPatientListItems();
+    }
+
+    @Test
+    public void getPatientChanges() {
+        //ARRANGE
+        doReturn(new SseEmitter()).when(mockPatientChangeStreamService).subscribe("instance-3");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/list/changes")
+                    .param("since", "instance-3"))
+                    .andExpect(request().asyncStarted());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientChangeStreamService, times(1)).subscribe("instance-3");
+    }
+
+    @Test
+    public void getPatientChanges_whenReconnectingAndTooManySubscribers() {
+        //ARRANGE
+        doReturn(null).when(mockPatientChangeStreamService).subscribe("instance-5");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/list/changes")
+                    .param("since", "instance-3")
+                    .header("Last-Event-ID", "instance-5"))
+                    .andExpect(status().isServiceUnavailable());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientChangeStreamService, times(1)).subscribe("instance-5");
     }
 
     @Test
@@ -112,6 +187,44 @@ public class PatientControllerTest {
         verify(mockPatientService, times(1)).findPatientByLastNameAndFirstName("PatientTestLastName","PatientTestFirstName");
     }
 
+    @Test
+    public void getPatientByLastNameAndFirstName_whenLastNameAndFirstNameNotExistAndApiClient() {
+        //ARRANGE
+        doThrow(new ResourceNotFoundException("PatientTestLastName", "PatientTestFirstName")).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName","PatientTestFirstName");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/patientByFamilyAndGiven")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .param("family","PatientTestLastName")
+                    .param("given","PatientTestFirstName"))
+                    .andExpect(status().isNotFound())
+                    .andExpect(content().contentTypeCompatibleWith("application/problem+json"))
+                    .andExpect(jsonPath("$.status").value(404))
+                    .andExpect(jsonPath("$.instance").value("/patients/patientByFamilyAndGiven"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+    }
+
+    @Test
+    public void getPatientByLastNameAndFirstName_whenLastNameAndFirstNameNotExistAndBrowser() {
+        //ARRANGE
+        doThrow(new ResourceNotFoundException("PatientTestLastName", "PatientTestFirstName")).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName","PatientTestFirstName");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/patientByFamilyAndGiven")
+                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                    .param("family","PatientTestLastName")
+                    .param("given","PatientTestFirstName"))
+                    .andExpect(status().isNotFound())
+                    .andExpect(view().name("errorResourceNotFound"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+    }
+
     @Test
     public void getPatientById_whenIdExist() {
         //ARRANGE
@@ -147,6 +260,58 @@ public class PatientControllerTest {
         verify(mockPatientService, times(1)).findPatientById(1L);
     }
 
+    @Test
+    public void getPatientsByPhoneNumber_whenPhoneNumberExist() {
+        //ARRANGE
+        Patient patientToFind = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientToFind.setId(1L);
+        List<Patient> listPatientsToFind = new ArrayList<>();
+        listPatientsToFind.add(patientToFind);
+        doReturn(listPatientsToFind).when(mockPatientService).findPatientsByPhoneNumber("111-222-3333");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/byPhone")
+                    .param("phone","111-222-3333"))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+        verify(mockPatientService, times(1)).findPatientsByPhoneNumber("111-222-3333");
+    }
+
+    @Test
+    public void getPatientsByPhoneNumber_whenPhoneNumberNotExist() {
+        //ARRANGE
+        doThrow(ResourceNotFoundException.class).when(mockPatientService).findPatientsByPhoneNumber("111-222-3333");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/byPhone")
+                    .param("phone","111-222-3333"))
+                    .andExpect(status().isNotFound());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+        verify(mockPatientService, times(1)).findPatientsByPhoneNumber("111-222-3333");
+    }
+
+    @Test
+    public void getPatientsByPhoneNumber_whenPhoneNumberInvalid() {
+        //ARRANGE
+        doThrow(new InvalidPhoneNumberException("invalid")).when(mockPatientService).findPatientsByPhoneNumber("invalid");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/byPhone")
+                    .param("phone","invalid"))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+        verify(mockPatientService, times(1)).findPatientsByPhoneNumber("invalid");
+    }
+
     @Test
     public void showUpdatePatientForm() {
         //ARRANGE
@@ -350,6 +515,169 @@ public class PatientControllerTest {
         verify(mockPatientService, never()).updatePatient(any(Patient.class));
     }
 
+    @Test
+    public void updatePatientAsync_whenPatientExist() {
+        //ARRANGE
+        Patient patientTest = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientTest.setId(1L);
+        PatientUpdateTicket ticketTest = new PatientUpdateTicket("TicketTest", 1L, Instant.now());
+
+        doReturn(patientTest).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+        doReturn(ticketTest).when(mockPatientUpdateQueueService).enqueueUpdate(any(Patient.class));
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .header("Prefer", "respond-async")
+                    .param("family", "PatientTestLastName")
+                    .param("given", "PatientTestFirstName")
+                    .param("dob", LocalDate.of(2000,01,01).toString())
+                    .param("sex", "M")
+                    .param("address", "PatientTestHomeAddress")
+                    .param("phone", "111-222-3333"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "http://localhost/patients/update/status/TicketTest"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, times(1)).enqueueUpdate(any(Patient.class));
+        verify(mockPatientService, never()).updatePatient(any(Patient.class));
+    }
+
+    @Test
+    public void updatePatientAsync_whenPreferHasSeveralPreferences() {
+        //ARRANGE
+        Patient patientTest = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientTest.setId(1L);
+        PatientUpdateTicket ticketTest = new PatientUpdateTicket("TicketTest", 1L, Instant.now());
+
+        doReturn(patientTest).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+        doReturn(ticketTest).when(mockPatientUpdateQueueService).enqueueUpdate(any(Patient.class));
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .header("Prefer", "respond-async, wait=5")
+                    .param("family", "PatientTestLastName")
+                    .param("given", "PatientTestFirstName")
+                    .param("dob", LocalDate.of(2000,01,01).toString())
+                    .param("sex", "M"))
+                    .andExpect(status().isAccepted());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, times(1)).enqueueUpdate(any(Patient.class));
+        verify(mockPatientService, never()).updatePatient(any(Patient.class));
+    }
+
+    @Test
+    public void updatePatientAsync_whenJsonBody() {
+        //ARRANGE
+        Patient patientTest = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientTest.setId(1L);
+        PatientUpdateTicket ticketTest = new PatientUpdateTicket("TicketTest", 1L, Instant.now());
+
+        doReturn(patientTest).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+        doReturn(ticketTest).when(mockPatientUpdateQueueService).enqueueUpdate(any(Patient.class));
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .header("Prefer", "respond-async")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"lastName\":\"PatientTestLastName\",\"firstName\":\"PatientTestFirstName\",\"dateOfBirth\":\"2000-01-01\",\"sex\":\"M\",\"homeAddress\":\"PatientTestHomeAddress2\",\"phoneNumber\":\"111-222-3333\"}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string("Location", "http://localhost/patients/update/status/TicketTest"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, times(1)).enqueueUpdate(any(Patient.class));
+        verify(mockPatientService, never()).updatePatient(any(Patient.class));
+    }
+
+    @Test
+    public void updatePatient_whenPreferNotRespondAsync() {
+        //ARRANGE
+        Patient patientTest = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientTest.setId(1L);
+
+        doReturn(patientTest).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .header("Prefer", "return=minimal")
+                    .param("family", "PatientTestLastName")
+                    .param("given", "PatientTestFirstName")
+                    .param("dob", LocalDate.of(2000,01,01).toString())
+                    .param("sex", "M"))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, times(1)).updatePatient(any(Patient.class));
+        verify(mockPatientUpdateQueueService, never()).enqueueUpdate(any(Patient.class));
+    }
+
+    @Test
+    public void updatePatientAsync_whenPatientNotExist() {
+        //ARRANGE
+        doThrow(ResourceNotFoundException.class).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .header("Prefer", "respond-async")
+                    .param("family", "PatientTestLastName")
+                    .param("given", "PatientTestFirstName")
+                    .param("dob", LocalDate.of(2000,01,01).toString())
+                    .param("sex", "M"))
+                    .andExpect(status().isNotFound());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, never()).enqueueUpdate(any(Patient.class));
+    }
+
+    @Test
+    public void getPatientUpdateStatus_whenTicketExist() {
+        //ARRANGE
+        PatientUpdateTicket ticketTest = new PatientUpdateTicket("TicketTest", 1L, Instant.now());
+        doReturn(ticketTest).when(mockPatientUpdateQueueService).getTicket("TicketTest");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/update/status/TicketTest"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("Pending"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, times(1)).getTicket("TicketTest");
+    }
+
+    @Test
+    public void getPatientUpdateStatus_whenTicketNotExist() {
+        //ARRANGE
+        doThrow(ResourceNotFoundException.class).when(mockPatientUpdateQueueService).getTicket("TicketTest");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/update/status/TicketTest"))
+                    .andExpect(status().isNotFound());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientUpdateQueueService, times(1)).getTicket("TicketTest");
+    }
+
     @Test
     public void addPatient_whenPatientNotAlreadyExistAndNoErrorInFields() {
         //ARRANGE
@@ -419,6 +747,83 @@ public class PatientControllerTest {
         verify(mockPatientService, never()).updatePatient(any(Patient.class));
     }
 
+    @Test
+    public void addPatient_whenErrorInFieldsValues() {
+        //ARRANGE
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/add")
+                    // error : last name is blank
+                    .param("family", " ")
+                    .param("given", "PatientTestFirstName")
+                    .param("dob", "2000-1-1")
+                    .param("sex", "m"))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, never()).createPatient(any(Patient.class));
+    }
+
+    @Test
+    public void addPatientFromJson_whenNoErrorInFields() {
+        //ARRANGE
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/add")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"lastName\":\"PatientTestLastName\",\"firstName\":\"PatientTestFirstName\",\"dateOfBirth\":\"2000-01-01\",\"sex\":\"M\",\"homeAddress\":\"PatientTestHomeAddress\",\"phoneNumber\":\"111-222-3333\"}"))
+                    .andExpect(status().isCreated());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, times(1)).createPatient(any(Patient.class));
+    }
+
+    @Test
+    public void addPatientFromJson_whenErrorInFields() {
+        //ARRANGE
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/add")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    // error : mandatory date of birth is missing
+                    .content("{\"lastName\":\"PatientTestLastName\",\"firstName\":\"PatientTestFirstName\",\"sex\":\"M\"}"))
+                    .andExpect(status().isBadRequest());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, never()).createPatient(any(Patient.class));
+    }
+
+    @Test
+    public void updatePatientFromJson_whenPatientExist() {
+        //ARRANGE
+        Patient patientTest = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientTest.setId(1L);
+
+        doReturn(patientTest).when(mockPatientService).findPatientByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(post("/patients/update")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"lastName\":\"PatientTestLastName\",\"firstName\":\"PatientTestFirstName\",\"dateOfBirth\":\"2000-01-01\",\"sex\":\"M\",\"homeAddress\":\"PatientTestHomeAddress2\",\"phoneNumber\":\"111-222-3333\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientService, times(1)).updatePatient(any(Patient.class));
+    }
+
     @Test
     public void getPatientNotes() {
         //ARRANGE
@@ -0,0 +1,125 @@
+package com.mediscreen.patient.controller;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientSummary;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.service.IPatientSummaryService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Class including unit tests for the PatientSummaryController Class.
+ */
+@WebMvcTest(value = PatientSummaryController.class)
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PatientSummaryControllerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientSummaryControllerTest.class);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private IPatientSummaryService mockPatientSummaryService;
+
+    private final Patient patient = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000, 01, 01), Sex.M, "PatientTestHomeAddress", "111-111-1111");
+
+    private final Rapport rapport = new Rapport("PatientTestLastName", "PatientTestFirstName", Sex.M, 20, Assessment.None);
+
+    @Test
+    public void getPatientSummary() {
+        //ARRANGE
+        doReturn(new PatientSummary(patient, rapport, Collections.emptyList())).when(mockPatientSummaryService).getPatientSummary(1L);
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/summary/1")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.patient.lastName").value("PatientTestLastName"))
+                    .andExpect(jsonPath("$.rapport.assessment").value("None"))
+                    .andExpect(jsonPath("$.partial").value(false));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientSummaryService, times(1)).getPatientSummary(1L);
+    }
+
+    @Test
+    public void getPatientSummary_whenRapportUnavailable() {
+        //ARRANGE
+        doReturn(new PatientSummary(patient, null, Collections.singletonList(PatientSummary.RAPPORT))).when(mockPatientSummaryService).getPatientSummary(1L);
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/summary/1")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.patient.lastName").value("PatientTestLastName"))
+                    .andExpect(jsonPath("$.unavailableParts[0]").value(PatientSummary.RAPPORT));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientSummaryService, times(1)).getPatientSummary(1L);
+    }
+
+    @Test
+    public void getPatientSummary_whenSummaryUnavailable() {
+        //ARRANGE
+        doReturn(new PatientSummary(null, null, Arrays.asList(PatientSummary.PATIENT, PatientSummary.RAPPORT))).when(mockPatientSummaryService).getPatientSummary(1L);
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/summary/1")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isServiceUnavailable());
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientSummaryService, times(1)).getPatientSummary(1L);
+    }
+
+    @Test
+    public void getPatientSummaryPage() {
+        //ARRANGE
+        PatientSummary summary = new PatientSummary(patient, rapport, Collections.emptyList());
+        doReturn(summary).when(mockPatientSummaryService).getPatientSummary(1L);
+
+        //ACT & ASSERT
+        try {
+            mockMvc.perform(get("/patients/summary/1")
+                    .accept(MediaType.TEXT_HTML))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("summary", summary))
+                    .andExpect(model().attribute("patient", patient))
+                    .andExpect(model().attribute("rapport", rapport))
+                    .andExpect(view().name("patients/rapport"));
+        } catch (Exception e) {
+            logger.error("Error in MockMvc", e);
+        }
+
+        verify(mockPatientSummaryService, times(1)).getPatientSummary(1L);
+    }
+}
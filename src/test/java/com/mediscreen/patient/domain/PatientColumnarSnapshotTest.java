@@ -0,0 +1,165 @@
+package com.mediscreen.patient.domain;
+
+import com.mediscreen.patient.constant.Sex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Class including unit tests for the PatientColumnarSnapshot Class.
+ */
+public class PatientColumnarSnapshotTest {
+
+    private static final LocalDate REFERENCE_DATE = LocalDate.of(2020, 1, 1);
+
+    private PatientColumnarSnapshot snapshotUnderTest;
+
+    @BeforeEach
+    public void beforeEachTest() {
+        snapshotUnderTest = PatientColumnarSnapshot.builder(2)
+                .add(1L, "Ferguson", "Lucas", LocalDate.of(1968, 6, 22), Sex.M)
+                .add(2L, "Rees", "Pippa", LocalDate.of(1952, 9, 27), Sex.F)
+                .add(3L, "Arnold", "Edward", LocalDate.of(1952, 11, 11), Sex.M)
+                .add(4L, "Ince", "Wendy", LocalDate.of(1958, 6, 29), Sex.F)
+                .add(5L, "Ferguson", "Emma", LocalDate.of(2010, 1, 1), Sex.F)
+                .build();
+    }
+
+    @Test
+    public void count_whenNoFilter() {
+        // ACT & ASSERT
+        assertEquals(5, snapshotUnderTest.size());
+        assertEquals(5, snapshotUnderTest.count(PatientSnapshotQuery.all()));
+    }
+
+    @Test
+    public void count_whenFilteredBySexAndLastName() {
+        // ACT
+        long count = snapshotUnderTest.count(PatientSnapshotQuery.all().withSex(Sex.F).withLastName("Ferguson"));
+
+        // ASSERT
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void count_whenLastNameUnknown() {
+        // ACT
+        long count = snapshotUnderTest.count(PatientSnapshotQuery.all().withLastName("Unknown"));
+
+        // ASSERT
+        assertEquals(0, count);
+    }
+
+    @Test
+    public void count_whenFilteredByAge() {
+        // ACT
+        long count = snapshotUnderTest.count(PatientSnapshotQuery.all().agedBetween(51, 61, REFERENCE_DATE));
+
+        // ASSERT
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void countBySex() {
+        // ACT
+        Map<Sex, Long> countBySex = snapshotUnderTest.countBySex(PatientSnapshotQuery.all());
+
+        // ASSERT
+        assertEquals(Long.valueOf(3), countBySex.get(Sex.F));
+        assertEquals(Long.valueOf(2), countBySex.get(Sex.M));
+    }
+
+    @Test
+    public void countByAgeBracket() {
+        // ACT
+        SortedMap<Integer, Long> countByAgeBracket = snapshotUnderTest.countByAgeBracket(PatientSnapshotQuery.all(), 10, REFERENCE_DATE);
+
+        // ASSERT
+        assertEquals(3, countByAgeBracket.size());
+        assertEquals(Long.valueOf(1), countByAgeBracket.get(10));
+        assertEquals(Long.valueOf(1), countByAgeBracket.get(50));
+        assertEquals(Long.valueOf(3), countByAgeBracket.get(60));
+    }
+
+    @Test
+    public void countByAgeBracket_whenBracketWidthNotPositive() {
+        // ACT & ASSERT
+        assertThrows(IllegalArgumentException.class, () -> {
+            snapshotUnderTest.countByAgeBracket(PatientSnapshotQuery.all(), 0, REFERENCE_DATE);
+        });
+    }
+
+    @Test
+    public void findIds() {
+        // ACT
+        long[] ids = snapshotUnderTest.findIds(PatientSnapshotQuery.all().withSex(Sex.M));
+
+        // ASSERT
+        assertArrayEquals(new long[]{1L, 3L}, ids);
+    }
+
+    @Test
+    public void withChanges_whenPatientUpdatedAndCreated() {
+        // ARRANGE
+        Patient patientUpdated = new Patient("Ferguson", "Lucas", LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+        patientUpdated.setId(2L);
+        Patient patientCreated = new Patient("Sharp", "Anthony", LocalDate.of(1946, 11, 26), Sex.M, "894 Hall Street", "451-761-8383");
+        patientCreated.setId(6L);
+
+        // ACT
+        PatientColumnarSnapshot snapshotChanged = snapshotUnderTest.withChanges(Arrays.asList(patientCreated, patientUpdated));
+
+        // ASSERT
+        assertEquals(6, snapshotChanged.size());
+        assertArrayEquals(new long[]{1L, 2L, 3L, 6L}, snapshotChanged.findIds(PatientSnapshotQuery.all().withSex(Sex.M)));
+        assertEquals(0, snapshotChanged.count(PatientSnapshotQuery.all().withLastName("Rees")));
+        assertEquals(1, snapshotUnderTest.count(PatientSnapshotQuery.all().withLastName("Rees")));
+    }
+
+    @Test
+    public void withChanges_whenPatientsOnlyUpdated() {
+        // ARRANGE
+        Patient patientUpdated = new Patient("Sharp", "Anthony", LocalDate.of(1946, 11, 26), Sex.M, "894 Hall Street", "451-761-8383");
+        patientUpdated.setId(4L);
+
+        // ACT
+        PatientColumnarSnapshot snapshotChanged = snapshotUnderTest.withChanges(Collections.singletonList(patientUpdated));
+
+        // ASSERT
+        // the row patched in place, with a name added to the shared dictionary
+        assertEquals(5, snapshotChanged.size());
+        assertArrayEquals(new long[]{4L}, snapshotChanged.findIds(PatientSnapshotQuery.all().withLastName("Sharp").withSex(Sex.M)));
+        assertEquals(0, snapshotChanged.count(PatientSnapshotQuery.all().withLastName("Ince")));
+        assertEquals(1, snapshotChanged.count(PatientSnapshotQuery.all().withLastName("Ferguson").withFirstName("Lucas")));
+    }
+
+    @Test
+    public void build_whenAlreadyBuilt() {
+        // ARRANGE
+        PatientColumnarSnapshot.Builder builder = PatientColumnarSnapshot.builder(1).add(1L, "Ferguson", "Lucas", LocalDate.of(1968, 6, 22), Sex.M);
+        builder.build();
+
+        // ACT & ASSERT
+        // the columns are handed over to the snapshot built
+        assertThrows(IllegalStateException.class, () -> builder.add(2L, "Rees", "Pippa", LocalDate.of(1952, 9, 27), Sex.F));
+    }
+
+    @Test
+    public void withChanges_whenNoChange() {
+        // ACT
+        PatientColumnarSnapshot snapshotChanged = snapshotUnderTest.withChanges(Collections.emptyList());
+
+        // ASSERT
+        assertEquals(snapshotUnderTest.size(), snapshotChanged.size());
+        assertArrayEquals(snapshotUnderTest.findIds(PatientSnapshotQuery.all()), snapshotChanged.findIds(PatientSnapshotQuery.all()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Class including unit tests for the AdmissionControlFilter Class.
+ */
+public class AdmissionControlFilterTest {
+
+    @Test
+    public void doFilter_whenClientIdHeaderChanges() throws Exception {
+        // ARRANGE
+        AdmissionControlFilter admissionControlFilterUnderTest = filter(10);
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.1", "client-1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // ACT
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.1", "client-2"), response, new MockFilterChain());
+
+        // ASSERT
+        // the bucket is the one of the address : another header value does not get a fresh bucket
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    public void doFilter_whenClientAuthenticated() throws Exception {
+        // ARRANGE
+        AdmissionControlFilter admissionControlFilterUnderTest = filter(10);
+        MockHttpServletRequest firstRequest = request("10.0.0.1", null);
+        firstRequest.setUserPrincipal(() -> "rapport");
+        admissionControlFilterUnderTest.doFilter(firstRequest, new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletRequest secondRequest = request("10.0.0.2", null);
+        secondRequest.setUserPrincipal(() -> "rapport");
+
+        // ACT
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionControlFilterUnderTest.doFilter(secondRequest, response, new MockFilterChain());
+
+        // ASSERT
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    public void doFilter_whenMaxClientsReached() throws Exception {
+        // ARRANGE
+        AdmissionControlFilter admissionControlFilterUnderTest = filter(1);
+        MockHttpServletResponse firstClientResponse = new MockHttpServletResponse();
+        MockHttpServletResponse secondClientResponse = new MockHttpServletResponse();
+        MockHttpServletResponse thirdClientResponse = new MockHttpServletResponse();
+
+        // ACT
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.1", null), firstClientResponse, new MockFilterChain());
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.2", null), secondClientResponse, new MockFilterChain());
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.3", null), thirdClientResponse, new MockFilterChain());
+
+        // ASSERT
+        // the clients beyond the first one share one bucket
+        assertEquals(200, firstClientResponse.getStatus());
+        assertEquals(200, secondClientResponse.getStatus());
+        assertEquals(429, thirdClientResponse.getStatus());
+    }
+
+    @Test
+    public void doFilter_whenWarmingUp() throws Exception {
+        // ARRANGE
+        AdmissionControlFilter admissionControlFilterUnderTest = filter(10, () -> true);
+        MockHttpServletResponse warmUpResponse = new MockHttpServletResponse();
+        MockHttpServletResponse clientResponse = new MockHttpServletResponse();
+
+        // ACT
+        for (int i = 0; i < 3; i++) {
+            warmUpResponse = new MockHttpServletResponse();
+            admissionControlFilterUnderTest.doFilter(request("127.0.0.1", null), warmUpResponse, new MockFilterChain());
+        }
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.1", "warmup"), new MockHttpServletResponse(), new MockFilterChain());
+        admissionControlFilterUnderTest.doFilter(request("10.0.0.1", "warmup"), clientResponse, new MockFilterChain());
+
+        // ASSERT
+        // only the loopback address is exempted, whatever the header of the other clients
+        assertEquals(200, warmUpResponse.getStatus());
+        assertEquals(429, clientResponse.getStatus());
+    }
+
+    private static AdmissionControlFilter filter(int maxClients) {
+        return filter(maxClients, () -> false);
+    }
+
+    // one request per client and per second
+    private static AdmissionControlFilter filter(int maxClients, BooleanSupplier warmingUp) {
+        Map<TrafficClass, AdaptiveConcurrencyLimit> concurrencyLimits = new EnumMap<>(TrafficClass.class);
+        for (TrafficClass trafficClass : TrafficClass.values()) {
+            concurrencyLimits.put(trafficClass, new AdaptiveConcurrencyLimit(20, 4, 100, 2.0, 0.9));
+        }
+        return new AdmissionControlFilter(concurrencyLimits, maxClients, warmingUp, 1, 1, new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/patients/patientById");
+        request.setRemoteAddr(remoteAddress);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,189 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.domain.IdempotencyRecord;
+import com.mediscreen.patient.service.IIdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the IdempotencyFilter Class.
+ */
+public class IdempotencyFilterTest {
+
+    private final InMemoryIdempotencyService idempotencyService = new InMemoryIdempotencyService();
+
+    private final IdempotencyFilter idempotencyFilterUnderTest = new IdempotencyFilter(idempotencyService, new SimpleMeterRegistry());
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    public void doFilter_whenRequestRepeated() throws Exception {
+        // ARRANGE
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        MockHttpServletResponse repeatedResponse = new MockHttpServletResponse();
+
+        // ACT
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Ferguson\"}"), firstResponse, chain(201));
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Ferguson\"}"), repeatedResponse, chain(201));
+
+        // ASSERT
+        assertEquals(1, executions.get());
+        assertEquals(201, firstResponse.getStatus());
+        assertEquals("{\"id\":1}", firstResponse.getContentAsString());
+        assertEquals(201, repeatedResponse.getStatus());
+        assertEquals("/patients/add/1", repeatedResponse.getHeader("Location"));
+        assertEquals("{\"id\":1}", repeatedResponse.getContentAsString());
+        assertEquals("true", repeatedResponse.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void doFilter_whenKeyReusedForAnotherRequest() throws Exception {
+        // ARRANGE
+        MockHttpServletResponse otherResponse = new MockHttpServletResponse();
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Ferguson\"}"), new MockHttpServletResponse(), chain(201));
+
+        // ACT
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Rees\"}"), otherResponse, chain(201));
+
+        // ASSERT
+        assertEquals(1, executions.get());
+        assertEquals(422, otherResponse.getStatus());
+    }
+
+    @Test
+    public void doFilter_whenKeyRepeatedByAnotherClient() throws Exception {
+        // ARRANGE
+        MockHttpServletResponse otherClientResponse = new MockHttpServletResponse();
+        MockHttpServletRequest firstRequest = addRequest("key-1", "{\"lastName\":\"Ferguson\"}");
+        firstRequest.setRemoteAddr("10.0.0.1");
+        firstRequest.addHeader("X-Client-Id", "client-1");
+        idempotencyFilterUnderTest.doFilter(firstRequest, new MockHttpServletResponse(), chain(201));
+        // the client id header is chosen by the caller : it does not give access to the response of another client
+        MockHttpServletRequest otherClientRequest = addRequest("key-1", "{\"lastName\":\"Ferguson\"}");
+        otherClientRequest.setRemoteAddr("10.0.0.2");
+        otherClientRequest.addHeader("X-Client-Id", "client-1");
+
+        // ACT
+        idempotencyFilterUnderTest.doFilter(otherClientRequest, otherClientResponse, chain(201));
+
+        // ASSERT
+        assertEquals(2, executions.get());
+        assertNull(otherClientResponse.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void doFilter_whenRepeatedByAuthenticatedUserFromAnotherAddress() throws Exception {
+        // ARRANGE
+        MockHttpServletResponse repeatedResponse = new MockHttpServletResponse();
+        MockHttpServletRequest firstRequest = addRequest("key-1", "{\"lastName\":\"Ferguson\"}");
+        firstRequest.setRemoteAddr("10.0.0.1");
+        firstRequest.setUserPrincipal(() -> "user-1");
+        idempotencyFilterUnderTest.doFilter(firstRequest, new MockHttpServletResponse(), chain(201));
+        MockHttpServletRequest repeatedRequest = addRequest("key-1", "{\"lastName\":\"Ferguson\"}");
+        repeatedRequest.setRemoteAddr("10.0.0.2");
+        repeatedRequest.setUserPrincipal(() -> "user-1");
+
+        // ACT
+        idempotencyFilterUnderTest.doFilter(repeatedRequest, repeatedResponse, chain(201));
+
+        // ASSERT
+        assertEquals(1, executions.get());
+        assertEquals("true", repeatedResponse.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void doFilter_whenServerError() throws Exception {
+        // ARRANGE
+        MockHttpServletResponse retryResponse = new MockHttpServletResponse();
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Ferguson\"}"), new MockHttpServletResponse(), chain(500));
+
+        // ACT
+        idempotencyFilterUnderTest.doFilter(addRequest("key-1", "{\"lastName\":\"Ferguson\"}"), retryResponse, chain(201));
+
+        // ASSERT
+        assertEquals(2, executions.get());
+        assertEquals(201, retryResponse.getStatus());
+        assertNull(retryResponse.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void doFilter_whenNoIdempotencyKey() throws Exception {
+        // ACT
+        idempotencyFilterUnderTest.doFilter(addRequest(null, "{\"lastName\":\"Ferguson\"}"), new MockHttpServletResponse(), chain(201));
+        idempotencyFilterUnderTest.doFilter(addRequest(null, "{\"lastName\":\"Ferguson\"}"), new MockHttpServletResponse(), chain(201));
+
+        // ASSERT
+        assertEquals(2, executions.get());
+        assertTrue(idempotencyService.records.isEmpty());
+    }
+
+    private static MockHttpServletRequest addRequest(String idempotencyKey, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/patients/add");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return request;
+    }
+
+    private MockFilterChain chain(int status) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                executions.incrementAndGet();
+                // the controller reads the body already read by the filter
+                StreamUtils.copyToByteArray(request.getInputStream());
+                response.setStatus(status);
+                response.setHeader("Location", "/patients/add/1");
+                response.setContentType("application/json");
+                response.getWriter().write("{\"id\":1}");
+            }
+        });
+    }
+
+    /**
+     * Class materializing an idempotency service keeping the records in memory.
+     */
+    private static class InMemoryIdempotencyService implements IIdempotencyService {
+
+        private final Map<String, IdempotencyRecord> records = new HashMap<>();
+
+        @Override
+        public IdempotencyRecord claim(String keyHash, String fingerprint) {
+            return records.putIfAbsent(keyHash, IdempotencyRecord.inProgress(fingerprint));
+        }
+
+        @Override
+        public void complete(String keyHash, IdempotencyRecord record) {
+            records.put(keyHash, record);
+        }
+
+        @Override
+        public void release(String keyHash) {
+            records.remove(keyHash);
+        }
+
+        @Override
+        public void purgeExpiredKeys() {
+            records.clear();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.repository.SqlStatementContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Class including unit tests for the SqlStatementBudgetFilter Class.
+ */
+public class SqlStatementBudgetFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void doFilter_whenWithinBudget() throws Exception {
+        // ARRANGE
+        SqlStatementBudgetFilter filterUnderTest = newFilter(true, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ACT
+        filterUnderTest.doFilter(request("GET", "/patients/patientById"), response, new MockFilterChain(executing(2, "select * from patient where id=?")));
+
+        // ASSERT
+        assertEquals("2", response.getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+        assertEquals("3", response.getHeader(SqlStatementBudgetFilter.TIME_HEADER));
+        assertEquals("body", response.getContentAsString());
+        assertEquals(2, meterRegistry.get("http.server.requests.sql.statements").tag("uri", "/patients/patientById").summary().totalAmount());
+        assertNull(SqlStatementContext.get());
+    }
+
+    @Test
+    public void doFilter_whenBudgetExceeded() {
+        // ARRANGE
+        SqlStatementBudgetFilter filterUnderTest = newFilter(false, true);
+
+        // ACT & ASSERT
+        assertThrows(IllegalStateException.class, () -> filterUnderTest.doFilter(request("GET", "/patients/patientById"), new MockHttpServletResponse(),
+                new MockFilterChain(executing(3, "select * from patient where id=?"))));
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.overBudget").counter().count());
+    }
+
+    @Test
+    public void doFilter_whenStatementRepeated() throws Exception {
+        // ARRANGE
+        SqlStatementBudgetFilter filterUnderTest = newFilter(false, false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // ACT
+        filterUnderTest.doFilter(request("GET", "/patients/list"), response, new MockFilterChain(executing(12, "select * from patient_risk where patient_id=?")));
+
+        // ASSERT
+        assertNull(response.getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER));
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.repeated").counter().count());
+        assertEquals(1, meterRegistry.get("http.server.requests.sql.overBudget").counter().count());
+    }
+
+    private SqlStatementBudgetFilter newFilter(boolean headersEnabled, boolean failOnExceeded) {
+        return new SqlStatementBudgetFilter(Collections.singletonMap("GET /patients/patientById", 2), 5, 10, headersEnabled, failOnExceeded, meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    // a servlet executing the statement the given number of times, each in 1.5 ms
+    private static Servlet executing(int times, String sql) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                for (int i = 0; i < times; i++) {
+                    SqlStatementContext.get().record(sql, 1_500_000);
+                }
+                response.getWriter().write("body");
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.mediscreen.patient.filter;
+
+import com.mediscreen.patient.constant.TrafficClass;
+import com.mediscreen.patient.util.Bulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Class including unit tests for the TrafficClassFilter Class.
+ */
+public class TrafficClassFilterTest {
+
+    private final Bulkhead uiBulkhead = new Bulkhead(1, 0, 0);
+
+    private final TrafficClassFilter trafficClassFilterUnderTest = new TrafficClassFilter(Arrays.asList("/patients/list", "/patients/rapport/**"),
+            bulkheads(new Bulkhead(1, 0, 0), uiBulkhead), new SimpleMeterRegistry());
+
+    @Test
+    public void classify() {
+        // ACT & ASSERT
+        assertEquals(TrafficClass.Ui, trafficClassFilterUnderTest.classify(new MockHttpServletRequest("GET", "/patients/list")));
+        assertEquals(TrafficClass.Ui, trafficClassFilterUnderTest.classify(new MockHttpServletRequest("GET", "/patients/rapport/1")));
+        assertEquals(TrafficClass.Api, trafficClassFilterUnderTest.classify(new MockHttpServletRequest("GET", "/patients/patientById")));
+    }
+
+    @Test
+    public void doFilter_whenBulkheadOfClassFull() throws Exception {
+        // ARRANGE
+        uiBulkhead.tryEnter();
+        MockHttpServletResponse uiResponse = new MockHttpServletResponse();
+        MockFilterChain uiChain = new MockFilterChain();
+        MockHttpServletResponse apiResponse = new MockHttpServletResponse();
+        MockFilterChain apiChain = new MockFilterChain();
+
+        // ACT
+        trafficClassFilterUnderTest.doFilter(new MockHttpServletRequest("GET", "/patients/list"), uiResponse, uiChain);
+        trafficClassFilterUnderTest.doFilter(new MockHttpServletRequest("GET", "/patients/patientById"), apiResponse, apiChain);
+
+        // ASSERT
+        assertEquals(503, uiResponse.getStatus());
+        assertEquals("1", uiResponse.getHeader("Retry-After"));
+        assertNull(uiChain.getRequest());
+        assertEquals(200, apiResponse.getStatus());
+        assertNotNull(apiChain.getRequest());
+        assertEquals(TrafficClass.Api, apiChain.getRequest().getAttribute(TrafficClassFilter.TRAFFIC_CLASS_ATTRIBUTE));
+    }
+
+    private static Map<TrafficClass, Bulkhead> bulkheads(Bulkhead apiBulkhead, Bulkhead uiBulkhead) {
+        Map<TrafficClass, Bulkhead> bulkheads = new EnumMap<>(TrafficClass.class);
+        bulkheads.put(TrafficClass.Api, apiBulkhead);
+        bulkheads.put(TrafficClass.Ui, uiBulkhead);
+        return bulkheads;
+    }
+}
@@ -2,6 +2,7 @@ package com.mediscreen.patient.repository;
 
 import com.mediscreen.patient.constant.Sex;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -64,6 +65,17 @@ public class PatientRepositoryTest {
         assertEquals("387-866-1399", patient.getPhoneNumber());
     }
 
+    @Test
+    public void findPatientsByNormalizedPhoneNumber() {
+        // ACT
+        List<Patient> listPatients = patientRepositoryUnderTest.findByNormalizedPhoneNumber("+13878661399");
+
+        // ASSERT
+        assertEquals(1, listPatients.size());
+        assertEquals("Ferguson", listPatients.get(0).getLastName());
+        assertEquals("387-866-1399", listPatients.get(0).getPhoneNumber());
+    }
+
     @Test
     public void findAllPatients() {
         // ACT
@@ -73,6 +85,17 @@ public class PatientRepositoryTest {
         assertEquals(10, listPatients.size());
     }
 
+    @Test
+    public void findListItemsOrderById() {
+        // ACT
+        List<PatientListItem> listPatients = patientRepositoryUnderTest.findListItemsOrderById();
+
+        // ASSERT
+        assertEquals(10, listPatients.size());
+        assertEquals(Long.valueOf(1), Long.valueOf(listPatients.get(0).getId()));
+        assertNotNull(listPatients.get(0).getSex());
+    }
+
     @Test
     public void updatePatient() {
         // ARRANGE
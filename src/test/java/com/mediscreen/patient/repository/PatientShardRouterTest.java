@@ -0,0 +1,96 @@
+package com.mediscreen.patient.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Class including unit tests for the PatientShardRouter Class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PatientShardRouterTest {
+
+    @Mock
+    private JdbcTemplate directory;
+
+    @Test
+    public void bucketOf_whenNamesDifferByCaseAndSpaces() {
+        // ARRANGE
+        PatientShardRouter router = new PatientShardRouter(2, directory);
+
+        // ACT
+        int bucket = router.bucketOf("Ferguson", "Lucas");
+
+        // ASSERT
+        assertEquals(bucket, router.bucketOf(" FERGUSON ", "lucas"));
+        assertTrue(bucket >= 0 && bucket < PatientShardRouter.BUCKETS);
+    }
+
+    @Test
+    public void shardOfId() {
+        // ARRANGE
+        PatientShardRouter router = new PatientShardRouter(3, directory);
+
+        // ASSERT
+        assertEquals(0, router.shardOfId(1));
+        assertEquals(2, router.shardOfId(3));
+        assertEquals(1, router.shardOfId(PatientShardRouter.ID_SLOTS + 2));
+        // id generated with the offset of a shard no longer configured
+        assertEquals(0, router.shardOfId(PatientShardRouter.ID_SLOTS));
+    }
+
+    @Test
+    public void refresh() {
+        // ARRANGE
+        PatientShardRouter router = new PatientShardRouter(2, directory);
+        doAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getInt("bucket")).thenReturn(4);
+            when(resultSet.getInt("shard")).thenReturn(1);
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+            return null;
+        }).when(directory).query(anyString(), any(RowCallbackHandler.class));
+
+        // ACT
+        router.refresh();
+
+        // ASSERT
+        assertEquals(1, router.shardOfBucket(4));
+        assertEquals(0, router.shardOfBucket(6));
+    }
+
+    @Test
+    public void refresh_whenDirectoryNotLoaded() {
+        // ARRANGE
+        PatientShardRouter router = new PatientShardRouter(2, directory);
+        doThrow(new DataAccessResourceFailureException("shard 0 down")).when(directory).query(anyString(), any(RowCallbackHandler.class));
+
+        // ACT
+        router.refresh();
+
+        // ASSERT
+        assertEquals(1, router.shardOfBucket(5));
+    }
+
+    @Test
+    public void constructor_whenMoreShardsThanIdSlots() {
+        // ASSERT
+        assertThrows(IllegalArgumentException.class, () -> new PatientShardRouter(PatientShardRouter.ID_SLOTS + 1, directory));
+    }
+}
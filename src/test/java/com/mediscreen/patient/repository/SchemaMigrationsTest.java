@@ -0,0 +1,132 @@
+package com.mediscreen.patient.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including tests for the Flyway migrations of the schema, run against a MySQL server in a Docker container.
+ * The test context itself is started on a schema created by the migrations, Hibernate validating it as in the dev and prod profiles.
+ */
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.initialization-mode=never"})
+@Testcontainers(disabledWithoutDocker = true)
+public class SchemaMigrationsTest {
+
+    private static final String PASSWORD = "rootroot";
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.22")
+            .withDatabaseName("patientmigrated")
+            .withUsername("root")
+            .withPassword(PASSWORD);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void dataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+    }
+
+    @Test
+    public void migrate_whenDatabaseEmpty() {
+        // ASSERT
+        assertEquals(6, (int) jdbcTemplate.queryForObject(
+                "select max(cast(version as unsigned)) from flyway_schema_history where success = 1", Integer.class));
+        assertTrue(hasColumn(jdbcTemplate, "patient", "normalized_phone_number"));
+        assertTrue(hasIndex(jdbcTemplate, "patient", "idx_patient_normalized_phone_number"));
+    }
+
+    @Test
+    public void migrate_whenSchemaCreatedByHibernate() throws IOException {
+        // ARRANGE
+        JdbcTemplate existingDatabase = database("patienthibernate");
+        existingDatabase.execute("create table patient (id bigint not null auto_increment, date_of_birth DATE not null, first_name varchar(125) not null, "
+                + "home_address varchar(255), last_name varchar(125) not null, phone_number varchar(255), sex varchar(1) not null, primary key (id)) engine=InnoDB");
+        existingDatabase.update("insert into patient (last_name, first_name, date_of_birth, sex, phone_number) values ('Ferguson', 'Lucas', '1968-06-22', 'M', '387-866-1399')");
+
+        // ACT
+        productionFlyway(existingDatabase.getDataSource()).migrate();
+
+        // ASSERT
+        assertTrue(hasColumn(existingDatabase, "patient", "normalized_phone_number"));
+        assertTrue(hasIndex(existingDatabase, "patient", "idx_patient_normalized_phone_number"));
+        assertTrue(hasIndex(existingDatabase, "patient", "idx_patient_last_name_first_name"));
+        assertTrue(hasColumn(existingDatabase, "patient_risk", "assessment"));
+        assertEquals(1, (int) existingDatabase.queryForObject("select count(*) from patient", Integer.class));
+    }
+
+    @Test
+    public void migrate_whenSchemaUpdatedByHibernateWithNormalizedPhoneNumber() throws IOException {
+        // ARRANGE
+        JdbcTemplate existingDatabase = database("patienthibernateupdated");
+        existingDatabase.execute("create table patient (id bigint not null auto_increment, date_of_birth DATE not null, first_name varchar(125) not null, "
+                + "home_address varchar(255), last_name varchar(125) not null, phone_number varchar(255), sex varchar(1) not null, "
+                + "normalized_phone_number varchar(16), primary key (id)) engine=InnoDB");
+        existingDatabase.execute("create index idx_patient_normalized_phone_number on patient (normalized_phone_number)");
+
+        // ACT
+        productionFlyway(existingDatabase.getDataSource()).migrate();
+
+        // ASSERT
+        assertTrue(hasIndex(existingDatabase, "patient", "idx_patient_normalized_phone_number"));
+        assertEquals(6, (int) existingDatabase.queryForObject(
+                "select max(cast(version as unsigned)) from flyway_schema_history where success = 1", Integer.class));
+    }
+
+    /**
+     * The Flyway migrations as configured by the production profile.
+     */
+    private static Flyway productionFlyway(DataSource dataSource) throws IOException {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-prod.properties"));
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations(properties.getProperty("spring.flyway.locations"))
+                .baselineOnMigrate(Boolean.parseBoolean(properties.getProperty("spring.flyway.baseline-on-migrate")))
+                .baselineVersion(properties.getProperty("spring.flyway.baseline-version"))
+                .load();
+    }
+
+    private static JdbcTemplate database(String name) {
+        String url = mysql.getJdbcUrl().replace("/" + mysql.getDatabaseName(), "/" + name);
+        return new JdbcTemplate(new DriverManagerDataSource(url + (url.contains("?") ? "&" : "?") + "createDatabaseIfNotExist=true", mysql.getUsername(), PASSWORD));
+    }
+
+    private static boolean hasColumn(JdbcTemplate database, String table, String column) {
+        return database.queryForObject("select count(*) from information_schema.columns where table_schema = database() and table_name = ? and column_name = ?",
+                Integer.class, table, column) > 0;
+    }
+
+    private static boolean hasIndex(JdbcTemplate database, String table, String index) {
+        return database.queryForObject("select count(*) from information_schema.statistics where table_schema = database() and table_name = ? and index_name = ?",
+                Integer.class, table, index) > 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.mediscreen.patient.repository;
+
+import com.mediscreen.patient.configuration.ShardingConfig;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.service.PatientReshardingServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including integration tests for the ShardedPatientRepository Class, with two shards in a MySQL server in a Docker container.
+ * The calls are made in transactions as the services make them : the test methods themselves are not transactional.
+ */
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ShardingConfig.class, PatientReshardingServiceImpl.class})
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.initialization-mode=never",
+        "sharding.enabled=true",
+        "sharding.bucketRefreshIntervalMs=0"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+public class ShardedPatientRepositoryIntegrationTest {
+
+    @Container
+    private static final MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0.22")
+            .withDatabaseName("patientshard0")
+            .withUsername("root")
+            .withPassword("rootroot");
+
+    @Autowired
+    private PatientRepository shardedPatientRepositoryUnderTest;
+
+    @Autowired
+    private PatientShards patientShards;
+
+    @Autowired
+    private PatientShardRouter router;
+
+    @Autowired
+    private PatientReshardingServiceImpl patientReshardingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate serviceCall;
+
+    @DynamicPropertySource
+    static void dataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+        registry.add("sharding.urls", () -> shardUrl(0) + "," + shardUrl(1));
+    }
+
+    @BeforeEach
+    public void setUpPerTest() {
+        for (int shard = 0; shard < patientShards.getShardCount(); shard++) {
+            shard(shard).update("delete from patient");
+        }
+        shard(0).update("delete from patient_shard_bucket");
+        router.refresh();
+        serviceCall = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void save_whenPatientsOfBothShards() {
+        // ARRANGE
+        String lastNameOnShard1 = lastNameOnShard(1, "Lucas");
+        String lastNameOnShard0 = lastNameOnShard(0, "Lucas");
+
+        // ACT
+        Patient[] saved = serviceCall.execute(status -> new Patient[]{
+                shardedPatientRepositoryUnderTest.save(patient(lastNameOnShard0, "Lucas")),
+                shardedPatientRepositoryUnderTest.save(patient(lastNameOnShard1, "Lucas"))});
+
+        // ASSERT
+        assertEquals(1, (int) shard(0).queryForObject("select count(*) from patient where last_name = ?", Integer.class, lastNameOnShard0));
+        assertEquals(1, (int) shard(1).queryForObject("select count(*) from patient where last_name = ?", Integer.class, lastNameOnShard1));
+        // the ids encode the shard where the patients were created
+        assertEquals(0, router.shardOfId(saved[0].getId()));
+        assertEquals(1, router.shardOfId(saved[1].getId()));
+        assertEquals(lastNameOnShard1, shardedPatientRepositoryUnderTest.findById(saved[1].getId()).get().getLastName());
+        assertEquals(saved[0].getId(), shardedPatientRepositoryUnderTest.findByLastNameAndFirstName(lastNameOnShard0, "Lucas").getId());
+        assertEquals(2, shardedPatientRepositoryUnderTest.count());
+    }
+
+    @Test
+    public void save_whenServiceCallRolledBack() {
+        // ACT
+        serviceCall.execute(status -> {
+            shardedPatientRepositoryUnderTest.save(patient(lastNameOnShard(0, "Lucas"), "Lucas"));
+            shardedPatientRepositoryUnderTest.save(patient(lastNameOnShard(1, "Lucas"), "Lucas"));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        // ASSERT
+        assertEquals(0, (int) shard(0).queryForObject("select count(*) from patient", Integer.class));
+        assertEquals(0, (int) shard(1).queryForObject("select count(*) from patient", Integer.class));
+    }
+
+    @Test
+    public void save_whenReadAfterWriteInServiceCall() {
+        // ARRANGE
+        String lastName = lastNameOnShard(1, "Lucas");
+
+        // ACT
+        Patient found = serviceCall.execute(status -> {
+            Patient saved = shardedPatientRepositoryUnderTest.save(patient(lastName, "Lucas"));
+            return shardedPatientRepositoryUnderTest.findById(saved.getId()).orElse(null);
+        });
+
+        // ASSERT
+        assertEquals(lastName, found.getLastName());
+    }
+
+    @Test
+    public void moveBucket_whenBucketHoldsPatients() {
+        // ARRANGE
+        String lastName = lastNameOnShard(0, "Lucas");
+        Patient saved = serviceCall.execute(status -> shardedPatientRepositoryUnderTest.save(patient(lastName, "Lucas")));
+
+        // ACT
+        int moved = patientReshardingService.moveBucket(router.bucketOf(lastName, "Lucas"), 1);
+
+        // ASSERT
+        assertEquals(1, moved);
+        assertEquals(0L, (long) patientReshardingService.countPatientsByShard().get(0));
+        assertEquals(1L, (long) patientReshardingService.countPatientsByShard().get(1));
+        assertEquals(1, router.shardOfNames(lastName, "Lucas"));
+        // the patient is still found by its id, encoding the shard where it was created, and updated in its new shard
+        Optional<Patient> patient = shardedPatientRepositoryUnderTest.findById(saved.getId());
+        assertTrue(patient.isPresent());
+        patient.get().setHomeAddress("3 Warren Street");
+        serviceCall.execute(status -> shardedPatientRepositoryUnderTest.save(patient.get()));
+        assertEquals("3 Warren Street", shard(1).queryForObject("select home_address from patient where id = ?", String.class, saved.getId()));
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(patientShards.getDataSource(shard));
+    }
+
+    // a last name putting the patient in the given shard, with the default bucket directory
+    private String lastNameOnShard(int shard, String firstName) {
+        for (int i = 0; ; i++) {
+            if (router.shardOfNames("Ferguson" + i, firstName) == shard) {
+                return "Ferguson" + i;
+            }
+        }
+    }
+
+    private static String shardUrl(int shard) {
+        return mysql.getJdbcUrl().replace("/" + mysql.getDatabaseName(), "/patientshard" + shard)
+                + (mysql.getJdbcUrl().contains("?") ? "&" : "?") + "createDatabaseIfNotExist=true";
+    }
+
+    private static Patient patient(String lastName, String firstName) {
+        return new Patient(lastName, firstName, LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+    }
+}
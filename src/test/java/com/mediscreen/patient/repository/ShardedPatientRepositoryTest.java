@@ -0,0 +1,223 @@
+package com.mediscreen.patient.repository;
+
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Class including unit tests for the ShardedPatientRepository Class.
+ * Each shard is simulated by the mocked repository, answering according to the shard of the ShardContext.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ShardedPatientRepositoryTest {
+
+    @Mock
+    private PatientRepository shardRepository;
+
+    @Mock
+    private JdbcTemplate directory;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PatientShardRouter router;
+
+    private ShardedPatientRepository shardedPatientRepositoryUnderTest;
+
+    @BeforeEach
+    public void setUpPerTest() {
+        router = new PatientShardRouter(2, directory);
+        shardedPatientRepositoryUnderTest = new ShardedPatientRepository(shardRepository, router, transactionManager);
+    }
+
+    @AfterEach
+    public void tearDownPerTest() {
+        shardedPatientRepositoryUnderTest.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void findById_whenPatientInTheShardOfItsId() {
+        // ARRANGE
+        doAnswer(invocation -> ShardContext.get() == 1).when(shardRepository).existsById(anyLong());
+        doAnswer(invocation -> ShardContext.get() == 1 ? Optional.of(patient(2, "Ferguson", "Lucas")) : Optional.empty())
+                .when(shardRepository).findById(anyLong());
+
+        // ACT
+        Optional<Patient> patient = shardedPatientRepositoryUnderTest.findById(2L);
+
+        // ASSERT
+        assertEquals(Long.valueOf(2), Long.valueOf(patient.get().getId()));
+    }
+
+    @Test
+    public void findById_whenPatientMovedToAnotherShard() {
+        // ARRANGE
+        doAnswer(invocation -> ShardContext.get() == 0).when(shardRepository).existsById(anyLong());
+        doAnswer(invocation -> ShardContext.get() == 0 ? Optional.of(patient(2, "Ferguson", "Lucas")) : Optional.empty())
+                .when(shardRepository).findById(anyLong());
+
+        // ACT
+        Optional<Patient> patient = shardedPatientRepositoryUnderTest.findById(2L);
+
+        // ASSERT
+        assertEquals(Long.valueOf(2), Long.valueOf(patient.get().getId()));
+    }
+
+    @Test
+    public void findById_whenPatientNotFound() {
+        // ARRANGE
+        doAnswer(invocation -> false).when(shardRepository).existsById(anyLong());
+
+        // ACT
+        Optional<Patient> patient = shardedPatientRepositoryUnderTest.findById(2L);
+
+        // ASSERT
+        assertFalse(patient.isPresent());
+    }
+
+    @Test
+    public void findByLastNameAndFirstName_whenPatientNotInItsExpectedShard() {
+        // ARRANGE
+        int otherShard = 1 - router.shardOfNames("Ferguson", "Lucas");
+        doAnswer(invocation -> ShardContext.get() == otherShard ? patient(3, "Ferguson", "Lucas") : null)
+                .when(shardRepository).findByLastNameAndFirstName(anyString(), anyString());
+
+        // ACT
+        Patient patient = shardedPatientRepositoryUnderTest.findByLastNameAndFirstName("Ferguson", "Lucas");
+
+        // ASSERT
+        assertNotNull(patient);
+        assertEquals(Long.valueOf(3), Long.valueOf(patient.getId()));
+    }
+
+    @Test
+    public void findAll_whenPageSpansTheShards() {
+        // ARRANGE
+        doAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(0);
+            // shard 0 holds the odd ids, shard 1 the even ids, each returning its patients up to the end of the requested page
+            Page<Patient> shardPage = new PageImpl<>(Arrays.asList(
+                    patient(ShardContext.get() + 1, "A", "A"),
+                    patient(ShardContext.get() + 3, "B", "B"),
+                    patient(ShardContext.get() + 5, "C", "C"),
+                    patient(ShardContext.get() + 7, "D", "D")), pageable, 10);
+            return shardPage;
+        }).when(shardRepository).findAll(any(Pageable.class));
+
+        // ACT
+        Page<Patient> page = shardedPatientRepositoryUnderTest.findAll(PageRequest.of(1, 3, Sort.by("id")));
+
+        // ASSERT
+        assertEquals(Arrays.asList(4L, 5L, 6L), page.getContent().stream().map(Patient::getId).collect(Collectors.toList()));
+        assertEquals(20, page.getTotalElements());
+    }
+
+    @Test
+    public void save_whenServiceCallCommits() {
+        // ARRANGE
+        List<Integer> savedOnShards = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            savedOnShards.add(ShardContext.get());
+            return invocation.getArgument(0);
+        }).when(shardRepository).save(any(Patient.class));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        startServiceCallTransaction();
+
+        // ACT
+        shardedPatientRepositoryUnderTest.save(patient(0, "Ferguson", "Lucas"));
+        shardedPatientRepositoryUnderTest.save(patient(0, lastNameOnOtherShard("Ferguson", "Lucas"), "Lucas"));
+
+        // ASSERT
+        assertEquals(2, savedOnShards.size());
+        assertEquals(2, savedOnShards.stream().distinct().count());
+        // the transactions of the shards stay open until the transaction of the service call commits
+        verify(transactionManager, never()).commit(any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.beforeCommit(false));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void save_whenServiceCallRolledBack() {
+        // ARRANGE
+        List<TransactionStatus> shardTransactions = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> invocation.getArgument(0)).when(shardRepository).save(any(Patient.class));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            TransactionStatus status = new SimpleTransactionStatus();
+            shardTransactions.add(status);
+            return status;
+        });
+        startServiceCallTransaction();
+        shardedPatientRepositoryUnderTest.save(patient(0, "Ferguson", "Lucas"));
+        shardedPatientRepositoryUnderTest.save(patient(0, lastNameOnOtherShard("Ferguson", "Lucas"), "Lucas"));
+
+        // ACT
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // ASSERT
+        assertEquals(2, shardTransactions.size());
+        assertTrue(shardTransactions.stream().allMatch(TransactionStatus::isRollbackOnly));
+    }
+
+    private static void startServiceCallTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    // a last name putting the patient in another shard than the given names
+    private String lastNameOnOtherShard(String lastName, String firstName) {
+        int shard = router.shardOfNames(lastName, firstName);
+        for (int i = 0; ; i++) {
+            if (router.shardOfNames(lastName + i, firstName) != shard) {
+                return lastName + i;
+            }
+        }
+    }
+
+    private static Patient patient(long id, String lastName, String firstName) {
+        Patient patient = new Patient(lastName, firstName, LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+        patient.setId(id);
+        return patient;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mediscreen.patient.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Class including unit tests for the StatementCountingDataSource Class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class StatementCountingDataSourceTest {
+
+    private static final String SQL = "select * from patient where id=?";
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    @Mock
+    private Statement mockStatement;
+
+    @AfterEach
+    public void tearDown() {
+        SqlStatementContext.clear();
+    }
+
+    @Test
+    public void getConnection_whenStatementsCounted() throws Exception {
+        // ARRANGE
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(mockPreparedStatement).when(mockConnection).prepareStatement(SQL);
+        doReturn(mockStatement).when(mockConnection).createStatement();
+        SqlStatementStats stats = SqlStatementContext.start();
+
+        // ACT
+        try (Connection connection = new StatementCountingDataSource(mockDataSource).getConnection()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(SQL);
+            for (long id = 1; id <= 3; id++) {
+                preparedStatement.setLong(1, id);
+                preparedStatement.executeQuery();
+            }
+            connection.createStatement().execute("select count(*) from patient");
+        }
+
+        // ASSERT
+        assertEquals(4, stats.getStatementCount());
+        assertEquals(SQL, stats.getMostRepeatedSql());
+        assertEquals(3, stats.getMostRepeatedCount());
+    }
+
+    @Test
+    public void getConnection_whenStatementsNotCounted() throws Exception {
+        // ARRANGE
+        doReturn(mockConnection).when(mockDataSource).getConnection();
+        doReturn(mockPreparedStatement).when(mockConnection).prepareStatement(SQL);
+
+        // ACT
+        try (Connection connection = new StatementCountingDataSource(mockDataSource).getConnection()) {
+
+            // ASSERT
+            assertSame(mockPreparedStatement, connection.prepareStatement(SQL));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.proxy.RapportMicroserviceProxy;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Class including unit tests for the batching of the reports by the CoalescingPatientServiceImpl Class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CoalescingPatientServiceImplTest {
+
+    @Mock
+    private IPatientService mockPatientService;
+
+    @Mock
+    private IPatientNameFilterService mockPatientNameFilterService;
+
+    @Mock
+    private RapportMicroserviceProxy mockRapportProxy;
+
+    private CoalescingPatientServiceImpl coalescingPatientServiceImplUnderTest;
+
+    private final Rapport rapport = new Rapport("PatientTestLastName", "PatientTestFirstName", Sex.M, 20, Assessment.None);
+
+    @BeforeEach
+    public void setUpPerTest() {
+        coalescingPatientServiceImplUnderTest = new CoalescingPatientServiceImpl(mockPatientService, mockPatientNameFilterService, mockRapportProxy,
+                5000, true, 50, 1, 5000, 1);
+    }
+
+    @AfterEach
+    public void tearDownPerTest() {
+        coalescingPatientServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void getPatientRapport_whenBatchEndpointAnswersClientError() {
+        // ARRANGE
+        doThrow(feignException(405)).when(mockRapportProxy).getPatientRapportsByIds(anyList());
+        doReturn(rapport).when(mockPatientService).getPatientRapport(1L);
+        doReturn(rapport).when(mockPatientService).getPatientRapport(2L);
+
+        // ACT
+        Rapport firstRapport = coalescingPatientServiceImplUnderTest.getPatientRapport(1L);
+        Rapport secondRapport = coalescingPatientServiceImplUnderTest.getPatientRapport(2L);
+
+        // ASSERT
+        // the reports are requested one by one, the batch endpoint not being requested again
+        assertSame(rapport, firstRapport);
+        assertSame(rapport, secondRapport);
+        verify(mockRapportProxy, times(1)).getPatientRapportsByIds(anyList());
+    }
+
+    @Test
+    public void getPatientRapport_whenBatchEndpointAnswersServerError() {
+        // ARRANGE
+        FeignException serverError = feignException(503);
+        doThrow(serverError).when(mockRapportProxy).getPatientRapportsByIds(anyList());
+
+        // ACT & ASSERT
+        assertSame(serverError, assertThrows(FeignException.class, () -> coalescingPatientServiceImplUnderTest.getPatientRapport(1L)));
+        assertThrows(FeignException.class, () -> coalescingPatientServiceImplUnderTest.getPatientRapport(2L));
+        // the batch endpoint is still requested, not the reports one by one
+        verify(mockRapportProxy, times(2)).getPatientRapportsByIds(anyList());
+        verify(mockPatientService, never()).getPatientRapport(anyLong());
+    }
+
+    private static FeignException feignException(int status) {
+        FeignException exception = mock(FeignException.class);
+        doReturn(status).when(exception).status();
+        return exception;
+    }
+}
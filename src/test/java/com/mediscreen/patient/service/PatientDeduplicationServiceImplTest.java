@@ -0,0 +1,171 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.PatientChangeType;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.MergeCandidate;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientMatchColumns;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Class including unit tests for the PatientDeduplicationServiceImpl Class.
+ */
+@ActiveProfiles("test")
+@ExtendWith(MockitoExtension.class)
+public class PatientDeduplicationServiceImplTest {
+
+    private PatientDeduplicationServiceImpl patientDeduplicationServiceImplUnderTest;
+
+    @Mock
+    private PatientRepository mockPatientRepository;
+
+    @BeforeEach
+    public void beforeEachTest() {
+        patientDeduplicationServiceImplUnderTest = new PatientDeduplicationServiceImpl(mockPatientRepository, true, 0.88, 100, 500, 2);
+    }
+
+    @AfterEach
+    public void afterEachTest() {
+        patientDeduplicationServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void scanAllPatients_whenDuplicatesExist() {
+        // ARRANGE
+        List<PatientMatchColumns> patients = new ArrayList<>();
+        patients.add(columns(1L, "O'Neil", "Patrick", LocalDate.of(1970, 1, 1), "1 Main St", "111-222-3333"));
+        patients.add(columns(2L, "ONeil", "Patrick", LocalDate.of(1970, 1, 1), "1 Main Street", "(111) 222-3333"));
+        patients.add(columns(3L, "Ferguson", "Lucas", LocalDate.of(1970, 1, 1), "2 Warren Street", "387-866-1399"));
+        patients.add(columns(4L, "Smith", "John", LocalDate.of(1980, 5, 5), null, null));
+        patients.add(columns(5L, "John", "Smith", LocalDate.of(1980, 5, 5), null, null));
+        patients.add(columns(6L, "Smith", "John", LocalDate.of(1981, 5, 5), null, null));
+        doReturn(patients).when(mockPatientRepository).findMatchColumnsOrderByDateOfBirth(any(Pageable.class));
+
+        // ACT
+        patientDeduplicationServiceImplUnderTest.scanAllPatients();
+        List<MergeCandidate> mergeCandidates = patientDeduplicationServiceImplUnderTest.getMergeCandidates();
+
+        // ASSERT
+        assertEquals(2, mergeCandidates.size());
+        assertTrue(mergeCandidates.stream().anyMatch(candidate -> candidate.getFirstPatientId() == 1L && candidate.getSecondPatientId() == 2L));
+        assertTrue(mergeCandidates.stream().anyMatch(candidate -> candidate.getFirstPatientId() == 4L && candidate.getSecondPatientId() == 5L));
+        verify(mockPatientRepository, never()).findMatchColumnsOrderByDateOfBirthAfter(any(LocalDate.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void scanAllPatients_whenNoDuplicate() {
+        // ARRANGE
+        List<PatientMatchColumns> patients = new ArrayList<>();
+        patients.add(columns(1L, "Ferguson", "Lucas", LocalDate.of(1968, 6, 22), "2 Warren Street", "387-866-1399"));
+        patients.add(columns(2L, "Rees", "Pippa", LocalDate.of(1968, 6, 22), "745 West Valley Farms Drive", "628-423-0993"));
+        doReturn(patients).when(mockPatientRepository).findMatchColumnsOrderByDateOfBirth(any(Pageable.class));
+
+        // ACT
+        patientDeduplicationServiceImplUnderTest.scanAllPatients();
+
+        // ASSERT
+        assertTrue(patientDeduplicationServiceImplUnderTest.getMergeCandidates().isEmpty());
+    }
+
+    @Test
+    public void scanChangedPatients_whenChangedPatientIsDuplicate() {
+        // ARRANGE
+        Patient patientChanged = new Patient("Fergusson", "Lukas", LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+        patientChanged.setId(11L);
+        List<PatientMatchColumns> patients = Arrays.asList(
+                columns(1L, "Ferguson", "Lucas", LocalDate.of(1968, 6, 22), "2 Warren Street", "387-866-1399"),
+                columns(11L, "Fergusson", "Lukas", LocalDate.of(1968, 6, 22), "2 Warren Street", "387-866-1399"));
+        doReturn(patients).when(mockPatientRepository).findMatchColumnsByDateOfBirthIn(anyCollection());
+
+        // ACT
+        patientDeduplicationServiceImplUnderTest.onPatientChanged(new PatientChangedEvent(this, patientChanged, PatientChangeType.Created));
+        patientDeduplicationServiceImplUnderTest.scanChangedPatients();
+        List<MergeCandidate> mergeCandidates = patientDeduplicationServiceImplUnderTest.getMergeCandidates();
+
+        // ASSERT
+        assertEquals(1, mergeCandidates.size());
+        assertEquals(1L, mergeCandidates.get(0).getFirstPatientId());
+        assertEquals(11L, mergeCandidates.get(0).getSecondPatientId());
+    }
+
+    @Test
+    public void scanChangedPatients_whenNoPatientChanged() {
+        // ACT
+        patientDeduplicationServiceImplUnderTest.scanChangedPatients();
+
+        // ASSERT
+        verify(mockPatientRepository, never()).findMatchColumnsByDateOfBirthIn(anyCollection());
+    }
+
+    @Test
+    public void scanChangedPatients_whenDisabled() {
+        // ARRANGE
+        PatientDeduplicationServiceImpl disabledService = new PatientDeduplicationServiceImpl(mockPatientRepository, false, 0.88, 100, 500, 2);
+        Patient patientChanged = new Patient("Fergusson", "Lukas", LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+        patientChanged.setId(11L);
+
+        // ACT
+        try {
+            disabledService.onPatientChanged(new PatientChangedEvent(this, patientChanged, PatientChangeType.Created));
+            disabledService.scanChangedPatients();
+        } finally {
+            disabledService.shutdown();
+        }
+
+        // ASSERT
+        verify(mockPatientRepository, never()).findMatchColumnsByDateOfBirthIn(anyCollection());
+    }
+
+    private static PatientMatchColumns columns(long id, String lastName, String firstName, LocalDate dateOfBirth, String homeAddress, String phoneNumber) {
+        return new PatientMatchColumns() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getLastName() {
+                return lastName;
+            }
+
+            @Override
+            public String getFirstName() {
+                return firstName;
+            }
+
+            @Override
+            public LocalDate getDateOfBirth() {
+                return dateOfBirth;
+            }
+
+            @Override
+            public String getHomeAddress() {
+                return homeAddress;
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return phoneNumber;
+            }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.PatientChangeType;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Class including unit tests for the PatientNameFilterServiceImpl Class.
+ * The database is simulated by the mocked repository, holding no committed patient unless written by another instance.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PatientNameFilterServiceImplTest {
+
+    @Mock
+    private PatientRepository mockPatientRepository;
+
+    private PatientNameFilterServiceImpl patientNameFilterServiceImplUnderTest;
+
+    @BeforeEach
+    public void setUpPerTest() {
+        patientNameFilterServiceImplUnderTest = new PatientNameFilterServiceImpl(mockPatientRepository, new SimpleMeterRegistry(),
+                true, true, 1000, 0.01, 4096, 100);
+    }
+
+    @AfterEach
+    public void tearDownPerTest() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void rebuildFilter_whenChangeNotCommittedWhenRebuildStarts() {
+        // ARRANGE
+        doReturn(Collections.emptyList()).when(mockPatientRepository).findColumnsByIdGreaterThan(anyLong(), any(Pageable.class));
+        patientNameFilterServiceImplUnderTest.rebuildFilter();
+        // the patient is created in a transaction not committed yet : the rebuild does not read it
+        TransactionSynchronizationManager.initSynchronization();
+        patientNameFilterServiceImplUnderTest.onPatientChanged(patientChanged("Ferguson", "Lucas"));
+
+        // ACT
+        patientNameFilterServiceImplUnderTest.rebuildFilter();
+
+        // ASSERT
+        assertTrue(patientNameFilterServiceImplUnderTest.mightExist("Ferguson", "Lucas"));
+    }
+
+    @Test
+    public void rebuildFilter_whenChangeDuringRebuild() {
+        // ARRANGE
+        doAnswer(invocation -> {
+            // committed once the rebuild has read the page of the patient
+            patientNameFilterServiceImplUnderTest.onPatientChanged(patientChanged("Ferguson", "Lucas"));
+            return Collections.emptyList();
+        }).when(mockPatientRepository).findColumnsByIdGreaterThan(anyLong(), any(Pageable.class));
+
+        // ACT
+        patientNameFilterServiceImplUnderTest.rebuildFilter();
+
+        // ASSERT
+        assertTrue(patientNameFilterServiceImplUnderTest.mightExist("Ferguson", "Lucas"));
+    }
+
+    @Test
+    public void rebuildFilter_whenChangeRolledBackBeforeRebuild() {
+        // ARRANGE
+        doReturn(Collections.emptyList()).when(mockPatientRepository).findColumnsByIdGreaterThan(anyLong(), any(Pageable.class));
+        TransactionSynchronizationManager.initSynchronization();
+        patientNameFilterServiceImplUnderTest.onPatientChanged(patientChanged("Ferguson", "Lucas"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // ACT
+        patientNameFilterServiceImplUnderTest.rebuildFilter();
+
+        // ASSERT
+        assertFalse(patientNameFilterServiceImplUnderTest.mightExist("Ferguson", "Lucas"));
+    }
+
+    @Test
+    public void mightExist_whenCreatedByAnotherInstance() {
+        // ARRANGE
+        PatientNameFilterServiceImpl sharedFilterService = new PatientNameFilterServiceImpl(mockPatientRepository, new SimpleMeterRegistry(),
+                true, false, 1000, 0.01, 4096, 100);
+        doReturn(Collections.emptyList()).when(mockPatientRepository).findColumnsByIdGreaterThan(anyLong(), any(Pageable.class));
+        sharedFilterService.rebuildFilter();
+        // committed by another instance after the rebuild : no change event received
+        doReturn(true).when(mockPatientRepository).existsByLastNameAndFirstName("Ferguson", "Lucas");
+
+        // ACT
+        boolean mightExist = sharedFilterService.mightExist("Ferguson", "Lucas");
+        boolean mightExistAgain = sharedFilterService.mightExist("Ferguson", "Lucas");
+
+        // ASSERT
+        assertTrue(mightExist);
+        assertTrue(mightExistAgain);
+        verify(mockPatientRepository, times(1)).existsByLastNameAndFirstName("Ferguson", "Lucas");
+    }
+
+    @Test
+    public void mightExist_whenNotFoundInDatabase() {
+        // ARRANGE
+        PatientNameFilterServiceImpl sharedFilterService = new PatientNameFilterServiceImpl(mockPatientRepository, new SimpleMeterRegistry(),
+                true, false, 1000, 0.01, 4096, 100);
+        doReturn(Collections.emptyList()).when(mockPatientRepository).findColumnsByIdGreaterThan(anyLong(), any(Pageable.class));
+        sharedFilterService.rebuildFilter();
+        doReturn(false).when(mockPatientRepository).existsByLastNameAndFirstName("Ferguson", "Lucas");
+
+        // ACT
+        boolean mightExist = sharedFilterService.mightExist("Ferguson", "Lucas");
+
+        // ASSERT
+        assertFalse(mightExist);
+    }
+
+    private PatientChangedEvent patientChanged(String lastName, String firstName) {
+        Patient patient = new Patient(lastName, firstName, LocalDate.of(1968, 6, 22), Sex.M, "2 Warren Street", "387-866-1399");
+        patient.setId(1);
+        return new PatientChangedEvent(this, patient, PatientChangeType.Created);
+    }
+}
@@ -0,0 +1,145 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.PatientColumns;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Class including unit tests for the PatientRiskServiceImpl Class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PatientRiskServiceImplTest {
+
+    @Mock
+    private IPatientService mockPatientService;
+
+    @Mock
+    private PatientRepository mockPatientRepository;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
+    private PatientRiskServiceImpl patientRiskServiceImplUnderTest;
+
+    @AfterEach
+    public void tearDown() {
+        patientRiskServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void refreshAllAssessments_whenRapportFailsForOnePatient() {
+        // ARRANGE
+        patientRiskServiceImplUnderTest = newService(2, 2);
+        doReturn(Arrays.asList(columns(1), columns(2))).when(mockPatientRepository).findColumnsByIdGreaterThan(eq(0L), any(Pageable.class));
+        doReturn(Collections.singletonList(columns(3))).when(mockPatientRepository).findColumnsByIdGreaterThan(eq(2L), any(Pageable.class));
+        doReturn(rapport(Assessment.InDanger)).when(mockPatientService).getPatientRapport(1L);
+        doThrow(new IllegalStateException("Rapport Microservice unavailable")).when(mockPatientService).getPatientRapport(2L);
+        doReturn(rapport(Assessment.None)).when(mockPatientService).getPatientRapport(3L);
+
+        // ACT
+        patientRiskServiceImplUnderTest.refreshAllAssessments();
+
+        // ASSERT
+        verify(mockPatientRepository, timeout(5000).times(1)).upsertRisk(eq(1L), eq(Assessment.InDanger.ordinal()), any(Instant.class));
+        verify(mockPatientRepository, timeout(5000).times(1)).upsertRisk(eq(3L), eq(Assessment.None.ordinal()), any(Instant.class));
+        verify(mockPatientService, timeout(5000).times(1)).getPatientRapport(2L);
+        verify(mockPatientRepository, never()).upsertRisk(eq(2L), anyInt(), any(Instant.class));
+    }
+
+    @Test
+    public void refreshAllAssessments_whenManyPatients() {
+        // ARRANGE
+        patientRiskServiceImplUnderTest = newService(2, 100);
+        List<PatientColumns> page = new ArrayList<>();
+        for (int id = 1; id <= 8; id++) {
+            page.add(columns(id));
+        }
+        doReturn(page).when(mockPatientRepository).findColumnsByIdGreaterThan(eq(0L), any(Pageable.class));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return rapport(Assessment.Borderline);
+        }).when(mockPatientService).getPatientRapport(anyLong());
+
+        // ACT
+        patientRiskServiceImplUnderTest.refreshAllAssessments();
+
+        // ASSERT
+        // never more requests in flight than threads
+        verify(mockPatientRepository, timeout(5000).times(8)).upsertRisk(anyLong(), eq(Assessment.Borderline.ordinal()), any(Instant.class));
+        assertTrue(maxInFlight.get() <= 2, "requests in flight : " + maxInFlight.get());
+    }
+
+    @Test
+    public void refreshAllAssessments_whenRequestsInFlight() throws InterruptedException {
+        // ARRANGE
+        patientRiskServiceImplUnderTest = newService(1, 100);
+        doReturn(Arrays.asList(columns(1), columns(2))).when(mockPatientRepository).findColumnsByIdGreaterThan(eq(0L), any(Pageable.class));
+        CountDownLatch rapportReturned = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rapportReturned.await();
+            return rapport(Assessment.None);
+        }).when(mockPatientService).getPatientRapport(anyLong());
+
+        // ACT
+        patientRiskServiceImplUnderTest.refreshAllAssessments();
+        patientRiskServiceImplUnderTest.refreshAllAssessments();
+
+        // ASSERT
+        // the scheduler thread is not held by the refresh in progress, which is not started twice
+        verify(mockPatientService, timeout(5000).times(1)).getPatientRapport(1L);
+        verify(mockPatientRepository, never()).upsertRisk(anyLong(), anyInt(), any(Instant.class));
+        rapportReturned.countDown();
+        verify(mockPatientRepository, timeout(5000).times(2)).upsertRisk(anyLong(), eq(Assessment.None.ordinal()), any(Instant.class));
+        verify(mockPatientRepository, times(1)).findColumnsByIdGreaterThan(eq(0L), any(Pageable.class));
+    }
+
+    private PatientRiskServiceImpl newService(int threads, int pageSize) {
+        return new PatientRiskServiceImpl(mockPatientService, mockPatientRepository, mockTransactionManager, new SimpleMeterRegistry(), true, threads, 10, pageSize);
+    }
+
+    private static PatientColumns columns(long id) {
+        PatientColumns columns = mock(PatientColumns.class);
+        doReturn(id).when(columns).getId();
+        return columns;
+    }
+
+    private static Rapport rapport(Assessment assessment) {
+        return new Rapport("PatientTestLastName", "PatientTestFirstName", Sex.M, 20, assessment);
+    }
+}
@@ -3,16 +3,21 @@ package com.mediscreen.patient.service;
 import com.mediscreen.patient.constant.Assessment;
 import com.mediscreen.patient.constant.Sex;
 import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientListItem;
 import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.event.PatientChangedEvent;
+import com.mediscreen.patient.exception.InvalidPhoneNumberException;
 import com.mediscreen.patient.exception.ResourceAlreadyExistException;
 import com.mediscreen.patient.exception.ResourceNotFoundException;
 import com.mediscreen.patient.proxy.RapportMicroserviceProxy;
 import com.mediscreen.patient.repository.PatientRepository;
+import com.mediscreen.patient.util.PhoneNumberNormalizer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
@@ -41,6 +46,12 @@ public class PatientServiceImplTest {
     @Mock
     private RapportMicroserviceProxy mockRapportProxy;
 
+    @Mock
+    private ApplicationEventPublisher mockEventPublisher;
+
+    @Mock
+    private PhoneNumberNormalizer mockPhoneNumberNormalizer;
+
     @Test
     public void findPatientById_whenIdExist() {
         // ARRANGE
@@ -95,6 +106,48 @@ public class PatientServiceImplTest {
         verify(mockPatientRepository, times(1)).findByLastNameAndFirstName("PatientTestLastName", "PatientTestFirstName");
     }
 
+    @Test
+    public void findPatientsByPhoneNumber_whenPhoneNumberExist() {
+        // ARRANGE
+        Patient patientToFind = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+        patientToFind.setId(1L);
+        List<Patient> listPatientsToFind = new ArrayList<>();
+        listPatientsToFind.add(patientToFind);
+        doReturn("+11112223333").when(mockPhoneNumberNormalizer).normalize("(111) 222-3333");
+        doReturn(listPatientsToFind).when(mockPatientRepository).findByNormalizedPhoneNumber("+11112223333");
+
+        // ACT
+        List<Patient> listPatientsFound = patientServiceImplUnderTest.findPatientsByPhoneNumber("(111) 222-3333");
+
+        // ASSERT
+        verify(mockPatientRepository, times(1)).findByNormalizedPhoneNumber("+11112223333");
+        assertEquals(listPatientsToFind, listPatientsFound);
+    }
+
+    @Test
+    public void findPatientsByPhoneNumber_whenPhoneNumberNotExist() {
+        // ARRANGE
+        doReturn("+11112223333").when(mockPhoneNumberNormalizer).normalize("111-222-3333");
+        doReturn(new ArrayList<>()).when(mockPatientRepository).findByNormalizedPhoneNumber("+11112223333");
+
+        // ACT & ASSERT
+        assertThrows(ResourceNotFoundException.class, () -> {
+            patientServiceImplUnderTest.findPatientsByPhoneNumber("111-222-3333");
+        });
+    }
+
+    @Test
+    public void findPatientsByPhoneNumber_whenPhoneNumberInvalid() {
+        // ARRANGE
+        doReturn(null).when(mockPhoneNumberNormalizer).normalize("invalid");
+
+        // ACT & ASSERT
+        assertThrows(InvalidPhoneNumberException.class, () -> {
+            patientServiceImplUnderTest.findPatientsByPhoneNumber("invalid");
+        });
+        verify(mockPatientRepository, never()).findByNormalizedPhoneNumber(anyString());
+    }
+
     @Test
     public void findAllPatients() {
         // ARRANGE
@@ -120,6 +173,23 @@ public class PatientServiceImplTest {
         assertEquals(listPatientsToFind, listPatientsFound);
     }
 
+    @Test
+    public void findAllPatientListItems() {
+        // ARRANGE
+        List<PatientListItem> listPatientsToFind = new ArrayList<>();
+        listPatientsToFind.add(new PatientListItem(1, "PatientTestLastName1", "PatientTestFirstName1", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress1","111-111-1111"));
+        listPatientsToFind.add(new PatientListItem(2, "PatientTestLastName2", "PatientTestFirstName2", LocalDate.of(2000,02,02), Sex.F, "PatientTestHomeAddress2","222-222-2222"));
+
+        doReturn(listPatientsToFind).when(mockPatientRepository).findListItemsOrderById();
+
+        // ACT
+        List<PatientListItem> listPatientsFound = patientServiceImplUnderTest.findAllPatientListItems();
+
+        // ASSERT
+        verify(mockPatientRepository, times(1)).findListItemsOrderById();
+        assertEquals(listPatientsToFind, listPatientsFound);
+    }
+
     @Test
     public void updatePatient_whenIdExistAndPatientWithSameNameAndFirstNameNotAlreadyExist() {
         // ARRANGE
@@ -134,6 +204,7 @@ public class PatientServiceImplTest {
 
         // ASSERT
         verify(mockPatientRepository, times(1)).save(patientToUpdate);
+        verify(mockEventPublisher, times(1)).publishEvent(any(PatientChangedEvent.class));
         assertEquals(patientToUpdate, patientUpdated);
     }
 
@@ -179,6 +250,7 @@ public class PatientServiceImplTest {
 
         // ASSERT
         verify(mockPatientRepository, times(1)).save(patientToCreate);
+        verify(mockEventPublisher, times(1)).publishEvent(any(PatientChangedEvent.class));
         assertEquals(patientToCreate, patientCreated);
     }
 
@@ -194,6 +266,7 @@ public class PatientServiceImplTest {
             patientServiceImplUnderTest.createPatient(patientToCreate);
         });
         verify(mockPatientRepository, never()).save(any(Patient.class));
+        verify(mockEventPublisher, never()).publishEvent(any(PatientChangedEvent.class));
     }
 
     @Test
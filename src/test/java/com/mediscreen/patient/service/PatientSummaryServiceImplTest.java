@@ -0,0 +1,128 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.constant.Assessment;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientSummary;
+import com.mediscreen.patient.domain.Rapport;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Class including unit tests for the PatientSummaryServiceImpl Class.
+ */
+@ExtendWith(MockitoExtension.class)
+public class PatientSummaryServiceImplTest {
+
+    private static final long CALL_DELAY_MS = 300;
+
+    @Mock
+    private IPatientService mockPatientService;
+
+    private PatientSummaryServiceImpl patientSummaryServiceImplUnderTest;
+
+    private final Patient patient = new Patient("PatientTestLastName", "PatientTestFirstName", LocalDate.of(2000,01,01), Sex.M, "PatientTestHomeAddress","111-222-3333");
+
+    private final Rapport rapport = new Rapport("PatientTestLastName", "PatientTestFirstName", Sex.M, 20, Assessment.None);
+
+    @BeforeEach
+    public void setUp() {
+        patient.setId(1L);
+        patientSummaryServiceImplUnderTest = new PatientSummaryServiceImpl(mockPatientService, new SimpleMeterRegistry(), 1000, 1000, 4, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        patientSummaryServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void getPatientSummary_whenBothPartsLoaded() {
+        // ARRANGE
+        doAnswer(invocation -> {
+            Thread.sleep(CALL_DELAY_MS);
+            return patient;
+        }).when(mockPatientService).findPatientById(1L);
+        doAnswer(invocation -> {
+            Thread.sleep(CALL_DELAY_MS);
+            return rapport;
+        }).when(mockPatientService).getPatientRapport(1L);
+
+        // ACT
+        long start = System.currentTimeMillis();
+        PatientSummary summary = patientSummaryServiceImplUnderTest.getPatientSummary(1L);
+        long elapsedMs = System.currentTimeMillis() - start;
+
+        // ASSERT
+        assertSame(patient, summary.getPatient());
+        assertSame(rapport, summary.getRapport());
+        assertFalse(summary.isPartial());
+        // loaded concurrently : about the slower of both rather than their sum
+        assertTrue(elapsedMs < 2 * CALL_DELAY_MS, "elapsed : " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void getPatientSummary_whenRapportOverBudget() {
+        // ARRANGE
+        patientSummaryServiceImplUnderTest.shutdown();
+        patientSummaryServiceImplUnderTest = new PatientSummaryServiceImpl(mockPatientService, new SimpleMeterRegistry(), 1000, 50, 4, 4);
+        doReturn(patient).when(mockPatientService).findPatientById(1L);
+        doAnswer(invocation -> {
+            Thread.sleep(CALL_DELAY_MS);
+            return rapport;
+        }).when(mockPatientService).getPatientRapport(1L);
+
+        // ACT
+        PatientSummary summary = patientSummaryServiceImplUnderTest.getPatientSummary(1L);
+
+        // ASSERT
+        assertSame(patient, summary.getPatient());
+        assertNull(summary.getRapport());
+        assertEquals(Collections.singletonList(PatientSummary.RAPPORT), summary.getUnavailableParts());
+    }
+
+    @Test
+    public void getPatientSummary_whenRapportFails() {
+        // ARRANGE
+        doReturn(patient).when(mockPatientService).findPatientById(1L);
+        doThrow(new IllegalStateException("Rapport Microservice unavailable")).when(mockPatientService).getPatientRapport(1L);
+
+        // ACT
+        PatientSummary summary = patientSummaryServiceImplUnderTest.getPatientSummary(1L);
+
+        // ASSERT
+        assertSame(patient, summary.getPatient());
+        assertEquals(Collections.singletonList(PatientSummary.RAPPORT), summary.getUnavailableParts());
+    }
+
+    @Test
+    public void getPatientSummary_whenPatientNotExist() {
+        // ARRANGE
+        doThrow(new ResourceNotFoundException(1L)).when(mockPatientService).findPatientById(1L);
+        // the report may be cancelled before it is requested
+        lenient().doReturn(rapport).when(mockPatientService).getPatientRapport(1L);
+
+        // ACT & ASSERT
+        assertThrows(ResourceNotFoundException.class, () -> patientSummaryServiceImplUnderTest.getPatientSummary(1L));
+    }
+}
@@ -0,0 +1,167 @@
+package com.mediscreen.patient.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mediscreen.patient.constant.Sex;
+import com.mediscreen.patient.constant.UpdateStatus;
+import com.mediscreen.patient.domain.Patient;
+import com.mediscreen.patient.domain.PatientUpdateTicket;
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Class including unit tests for the PatientUpdateQueueServiceImpl Class.
+ */
+@ActiveProfiles("test")
+@ExtendWith(MockitoExtension.class)
+public class PatientUpdateQueueServiceImplTest {
+
+    private PatientUpdateQueueServiceImpl patientUpdateQueueServiceImplUnderTest;
+
+    @Mock
+    private IPatientService mockPatientService;
+
+    @Mock
+    private PlatformTransactionManager mockTransactionManager;
+
+    @TempDir
+    Path journalDirectory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    public void beforeEachTest() throws IOException {
+        patientUpdateQueueServiceImplUnderTest = newService();
+    }
+
+    @AfterEach
+    public void afterEachTest() throws IOException {
+        patientUpdateQueueServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void flush_whenSeveralUpdatesOfSamePatient() {
+        // ARRANGE
+        Patient firstUpdate = patient(1L, "111-111-1111");
+        Patient secondUpdate = patient(1L, "222-222-2222");
+        PatientUpdateTicket firstTicket = patientUpdateQueueServiceImplUnderTest.enqueueUpdate(firstUpdate);
+        PatientUpdateTicket secondTicket = patientUpdateQueueServiceImplUnderTest.enqueueUpdate(secondUpdate);
+
+        // ACT
+        patientUpdateQueueServiceImplUnderTest.flush();
+
+        // ASSERT
+        verify(mockPatientService, times(1)).updatePatient(any(Patient.class));
+        verify(mockPatientService, times(1)).updatePatient(secondUpdate);
+        assertEquals(UpdateStatus.Committed, firstTicket.getStatus());
+        assertEquals(UpdateStatus.Committed, secondTicket.getStatus());
+    }
+
+    @Test
+    public void flush_whenOneUpdateOfBatchFails() {
+        // ARRANGE
+        Patient validUpdate = patient(1L, "111-111-1111");
+        Patient invalidUpdate = patient(2L, "222-222-2222");
+        doAnswer(invocation -> {
+            Patient patient = invocation.getArgument(0);
+            if (patient.getId() == 2L) {
+                throw new ResourceNotFoundException(2L);
+            }
+            return patient;
+        }).when(mockPatientService).updatePatient(any(Patient.class));
+        PatientUpdateTicket validTicket = patientUpdateQueueServiceImplUnderTest.enqueueUpdate(validUpdate);
+        PatientUpdateTicket invalidTicket = patientUpdateQueueServiceImplUnderTest.enqueueUpdate(invalidUpdate);
+
+        // ACT
+        patientUpdateQueueServiceImplUnderTest.flush();
+
+        // ASSERT
+        assertEquals(UpdateStatus.Committed, validTicket.getStatus());
+        assertEquals(UpdateStatus.Failed, invalidTicket.getStatus());
+    }
+
+    @Test
+    public void recover_whenUpdatesNotCommittedBeforeRestart() throws IOException {
+        // ARRANGE
+        Patient update = patient(1L, "111-111-1111");
+        PatientUpdateTicket ticket = patientUpdateQueueServiceImplUnderTest.enqueueUpdate(update);
+
+        // ACT
+        PatientUpdateQueueServiceImpl restartedService = newService();
+        restartedService.flush();
+
+        // ASSERT
+        verify(mockPatientService, times(1)).updatePatient(argThat(patient -> patient.getId() == 1L && "111-111-1111".equals(patient.getPhoneNumber())));
+        assertEquals(UpdateStatus.Committed, restartedService.getTicket(ticket.getTicketId()).getStatus());
+        restartedService.shutdown();
+    }
+
+    @Test
+    public void flush_whenUpdateAcceptedWhileFlushing() throws IOException {
+        // ARRANGE
+        Patient firstUpdate = patient(1L, "111-111-1111");
+        Patient laterUpdate = patient(2L, "222-222-2222");
+        // steady load : an update accepted during each flush, the queue never empty
+        doAnswer(invocation -> {
+            Patient patient = invocation.getArgument(0);
+            if (patient.getId() == 1L) {
+                patientUpdateQueueServiceImplUnderTest.enqueueUpdate(laterUpdate);
+            }
+            return patient;
+        }).when(mockPatientService).updatePatient(any(Patient.class));
+        patientUpdateQueueServiceImplUnderTest.enqueueUpdate(firstUpdate);
+
+        // ACT
+        patientUpdateQueueServiceImplUnderTest.flush();
+
+        // ASSERT
+        // compacted to the update still pending
+        assertEquals(1, Files.readAllLines(journalPath()).size());
+        PatientUpdateQueueServiceImpl restartedService = newService();
+        restartedService.flush();
+        verify(mockPatientService, times(1)).updatePatient(firstUpdate);
+        verify(mockPatientService, times(1)).updatePatient(argThat(patient -> patient.getId() == 2L));
+        restartedService.shutdown();
+    }
+
+    @Test
+    public void getTicket_whenTicketNotExist() {
+        // ACT & ASSERT
+        assertThrows(ResourceNotFoundException.class, () -> patientUpdateQueueServiceImplUnderTest.getTicket("UnknownTicket"));
+    }
+
+    private PatientUpdateQueueServiceImpl newService() throws IOException {
+        PatientUpdateQueueServiceImpl service = new PatientUpdateQueueServiceImpl(mockPatientService, mockTransactionManager, objectMapper,
+                journalPath().toString(), false, 100, 3600000, 0);
+        service.recover();
+        return service;
+    }
+
+    private Path journalPath() {
+        return journalDirectory.resolve("patient-update-queue.journal");
+    }
+
+    private static Patient patient(long id, String phoneNumber) {
+        Patient patient = new Patient("PatientTestLastName" + id, "PatientTestFirstName" + id, LocalDate.of(2000, 1, 1), Sex.M, "PatientTestHomeAddress", phoneNumber);
+        patient.setId(id);
+        return patient;
+    }
+}
@@ -0,0 +1,117 @@
+package com.mediscreen.patient.service;
+
+import com.mediscreen.patient.event.PatientServiceCallEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the ProfilingServiceImpl Class.
+ */
+public class ProfilingServiceImplTest {
+
+    private static final long THRESHOLD_MS = 50;
+
+    private ProfilingServiceImpl profilingServiceImplUnderTest;
+
+    @BeforeEach
+    public void setUp() {
+        profilingServiceImplUnderTest = new ProfilingServiceImpl(THRESHOLD_MS, THRESHOLD_MS, THRESHOLD_MS, 60, 10, true, 5);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        profilingServiceImplUnderTest.shutdown();
+    }
+
+    @Test
+    public void stopRecording_whenSlowAndFastCalls() throws Exception {
+        // ARRANGE
+        assertTrue(profilingServiceImplUnderTest.startRecording(30));
+        assertFalse(profilingServiceImplUnderTest.startRecording(30));
+        recordCall(1L, 0);
+        recordCall(2L, THRESHOLD_MS * 2);
+
+        // ACT
+        Path file = profilingServiceImplUnderTest.stopRecording();
+
+        // ASSERT
+        assertNotNull(file);
+        assertEquals(file, profilingServiceImplUnderTest.getLastRecording());
+        List<Long> patientIds = serviceCallPatientIds(file);
+        // the fast call under the threshold not recorded
+        assertEquals(1, patientIds.size());
+        assertEquals(2L, patientIds.get(0));
+        assertNull(profilingServiceImplUnderTest.stopRecording());
+    }
+
+    @Test
+    public void stopRecording_whenEnvironmentRecorded() throws Exception {
+        // ARRANGE
+        profilingServiceImplUnderTest.startRecording(30);
+
+        // ACT
+        Path file = profilingServiceImplUnderTest.stopRecording();
+
+        // ASSERT
+        // the environment variables and system properties, which may hold secrets, are not in the file
+        assertTrue(Files.size(file) > 0);
+        assertEquals(0, RecordingFile.readAllEvents(file).stream()
+                .map(event -> event.getEventType().getName())
+                .filter(name -> "jdk.InitialEnvironmentVariable".equals(name) || "jdk.InitialSystemProperty".equals(name))
+                .count());
+    }
+
+    @Test
+    public void dumpContinuousRecording_whenSlowCall() throws Exception {
+        // ARRANGE
+        recordCall(3L, THRESHOLD_MS * 2);
+
+        // ACT
+        Path file = profilingServiceImplUnderTest.dumpContinuousRecording();
+
+        // ASSERT
+        assertTrue(serviceCallPatientIds(file).contains(3L));
+    }
+
+    @Test
+    public void startRecording_whenDurationTooLong() {
+        // ACT & ASSERT
+        assertThrows(IllegalArgumentException.class, () -> profilingServiceImplUnderTest.startRecording(61));
+        assertNull(profilingServiceImplUnderTest.getLastRecording());
+    }
+
+    private static void recordCall(long patientId, long durationMs) throws InterruptedException {
+        PatientServiceCallEvent event = new PatientServiceCallEvent();
+        event.begin();
+        Thread.sleep(durationMs);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "findPatientById";
+            event.patientId = patientId;
+            event.outcome = "success";
+            event.commit();
+        }
+    }
+
+    private static List<Long> serviceCallPatientIds(Path file) throws Exception {
+        assertTrue(Files.size(file) > 0);
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> PatientServiceCallEvent.NAME.equals(event.getEventType().getName()))
+                .map(event -> event.getLong("patientId"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the AdaptiveConcurrencyLimit Class.
+ */
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long LATENCY_NS = 10_000_000;
+
+    @Test
+    public void tryAcquire_whenLimitReached() {
+        // ARRANGE
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(2, 1, 10, 2.0, 0.5);
+
+        // ACT & ASSERT
+        assertTrue(concurrencyLimit.tryAcquire());
+        assertTrue(concurrencyLimit.tryAcquire());
+        assertFalse(concurrencyLimit.tryAcquire());
+        concurrencyLimit.release(LATENCY_NS);
+        assertTrue(concurrencyLimit.tryAcquire());
+    }
+
+    @Test
+    public void release_whenRequestsQueueing() {
+        // ARRANGE
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(8, 2, 10, 2.0, 0.5);
+        concurrencyLimit.tryAcquire();
+        concurrencyLimit.release(LATENCY_NS);
+
+        // ACT : the requests in flight at the same time take 3 times the latency without load
+        for (int i = 0; i < 8; i++) {
+            concurrencyLimit.tryAcquire();
+        }
+        for (int i = 0; i < 8; i++) {
+            concurrencyLimit.release(3 * LATENCY_NS);
+        }
+
+        // ASSERT : decreased once for the whole round
+        assertEquals(4, concurrencyLimit.getLimit());
+        assertEquals(0, concurrencyLimit.getInFlight());
+    }
+
+    @Test
+    public void release_whenLimitInUseWithoutQueueing() {
+        // ARRANGE
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 2, 10, 2.0, 0.5);
+
+        // ACT : the limit is used, the latency stays the one without load
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < concurrencyLimit.getLimit(); i++) {
+                concurrencyLimit.tryAcquire();
+            }
+            while (concurrencyLimit.getInFlight() > 0) {
+                concurrencyLimit.release(LATENCY_NS);
+            }
+        }
+
+        // ASSERT
+        assertTrue(concurrencyLimit.getLimit() > 4);
+    }
+
+    @Test
+    public void release_whenLimitNotInUse() {
+        // ARRANGE
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 2, 10, 2.0, 0.5);
+
+        // ACT
+        for (int i = 0; i < 100; i++) {
+            concurrencyLimit.tryAcquire();
+            concurrencyLimit.release(LATENCY_NS);
+        }
+
+        // ASSERT
+        assertEquals(4, concurrencyLimit.getLimit());
+    }
+}
@@ -0,0 +1,121 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the BatchLoader Class.
+ */
+public class BatchLoaderTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(20);
+
+    // sizes of the batches called by the stub
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    private BatchLoader<Long, String> batchLoader;
+
+    @AfterEach
+    public void tearDownPerTest() {
+        executor.shutdownNow();
+        batchLoader.shutdown();
+    }
+
+    @Test
+    public void load_whenConcurrentLoads() throws Exception {
+        // ARRANGE
+        batchLoader = new BatchLoader<>("test", this::stubLoad, 50, 100, 5000, 2);
+        List<Future<String>> values = new ArrayList<>();
+
+        // ACT
+        for (long key = 1; key <= 20; key++) {
+            long requestedKey = key;
+            values.add(executor.submit(() -> batchLoader.load(requestedKey)));
+        }
+
+        // ASSERT
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals("value-" + (i + 1), values.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(batchSizes.size() < 20, "batches : " + batchSizes);
+        assertEquals(20, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void load_whenBatchFull() throws Exception {
+        // ARRANGE
+        batchLoader = new BatchLoader<>("test", this::stubLoad, 4, 60000, 5000, 2);
+        List<Future<String>> values = new ArrayList<>();
+
+        // ACT
+        for (long key = 1; key <= 4; key++) {
+            long requestedKey = key;
+            values.add(executor.submit(() -> batchLoader.load(requestedKey)));
+        }
+
+        // ASSERT
+        // called by the caller filling the batch, long before the window is elapsed
+        for (Future<String> value : values) {
+            value.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(Collections.singletonList(4), batchSizes);
+    }
+
+    @Test
+    public void load_whenKeyWithoutValue() {
+        // ARRANGE
+        batchLoader = new BatchLoader<>("test", this::stubLoad, 50, 1, 5000, 2);
+
+        // ACT
+        String value = batchLoader.load(-1L);
+
+        // ASSERT
+        assertNull(value);
+    }
+
+    @Test
+    public void load_whenBatchCallThrows() throws Exception {
+        // ARRANGE
+        IllegalStateException unavailable = new IllegalStateException("Rapport Microservice unavailable");
+        batchLoader = new BatchLoader<>("test", keys -> {
+            throw unavailable;
+        }, 2, 60000, 5000, 2);
+
+        // ACT
+        Future<String> first = executor.submit(() -> batchLoader.load(1L));
+        Future<String> second = executor.submit(() -> batchLoader.load(2L));
+
+        // ASSERT
+        assertSame(unavailable, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(unavailable, assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    // a stub of the batch endpoint : the value of each positive key
+    private Map<Long, String> stubLoad(List<Long> keys) {
+        batchSizes.add(keys.size());
+        Map<Long, String> values = new HashMap<>();
+        for (Long key : keys) {
+            if (key > 0) {
+                values.put(key, "value-" + key);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,84 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the BloomFilter Class.
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void mightContain_whenKeysAdded() {
+        // ARRANGE
+        BloomFilter bloomFilter = BloomFilter.create(10000, 0.01, 1 << 20);
+        for (int i = 0; i < 10000; i++) {
+            bloomFilter.put("PATIENT" + i + "\u0000FIRST" + i);
+        }
+
+        // ACT & ASSERT
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(bloomFilter.mightContain("PATIENT" + i + "\u0000FIRST" + i));
+        }
+    }
+
+    @Test
+    public void mightContain_whenKeysNotAdded() {
+        // ARRANGE
+        BloomFilter bloomFilter = BloomFilter.create(10000, 0.01, 1 << 20);
+        for (int i = 0; i < 10000; i++) {
+            bloomFilter.put("PATIENT" + i + "\u0000FIRST" + i);
+        }
+
+        // ACT
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) {
+            if (bloomFilter.mightContain("PATIENT" + i + "\u0000FIRST" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // ASSERT
+        assertTrue(falsePositives < 2000, "false positives : " + falsePositives);
+    }
+
+    @Test
+    public void mightContain_whenEmpty() {
+        // ARRANGE
+        BloomFilter bloomFilter = BloomFilter.create(100, 0.01, 1 << 20);
+
+        // ACT & ASSERT
+        assertFalse(bloomFilter.mightContain("FERGUSON\u0000LUCAS"));
+    }
+
+    @Test
+    public void create_whenMemoryBudgetExceeded() {
+        // ACT
+        BloomFilter bloomFilter = BloomFilter.create(1000000, 0.01, 1024);
+
+        // ASSERT
+        assertEquals(1024, bloomFilter.getMemoryBytes());
+        assertTrue(bloomFilter.expectedFalsePositiveRate(1000000) > 0.01);
+    }
+
+    @Test
+    public void create_whenSizedForFalsePositiveRate() {
+        // ACT
+        BloomFilter bloomFilter = BloomFilter.create(100000, 0.01, 1 << 20);
+
+        // ASSERT
+        // about 9.6 bits and 7 hashes per key for 1%
+        assertEquals(7, bloomFilter.getHashCount());
+        assertEquals(0.01, bloomFilter.expectedFalsePositiveRate(100000), 0.001);
+    }
+
+    @Test
+    public void create_whenFalsePositiveRateInvalid() {
+        // ACT & ASSERT
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 0, 1024));
+    }
+}
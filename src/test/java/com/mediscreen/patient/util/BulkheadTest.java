@@ -0,0 +1,67 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the Bulkhead Class.
+ */
+public class BulkheadTest {
+
+    @Test
+    public void tryEnter_whenQueueFull() throws Exception {
+        // ARRANGE
+        Bulkhead bulkhead = new Bulkhead(1, 0, 5000);
+        bulkhead.tryEnter();
+
+        // ACT & ASSERT
+        assertFalse(bulkhead.tryEnter());
+        assertEquals(1, bulkhead.getActive());
+    }
+
+    @Test
+    public void tryEnter_whenMaxWaitExceeded() throws Exception {
+        // ARRANGE
+        Bulkhead bulkhead = new Bulkhead(1, 1, 50);
+        bulkhead.tryEnter();
+
+        // ACT & ASSERT
+        assertFalse(bulkhead.tryEnter());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    public void tryEnter_whenSlotReleasedWhileWaiting() throws Exception {
+        // ARRANGE
+        Bulkhead bulkhead = new Bulkhead(1, 1, 5000);
+        bulkhead.tryEnter();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        try {
+            // ACT
+            Future<Boolean> waiter = executor.submit(() -> {
+                waiting.countDown();
+                return bulkhead.tryEnter();
+            });
+            waiting.await();
+            TimeUnit.MILLISECONDS.sleep(100);
+            bulkhead.exit();
+
+            // ASSERT
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(1, bulkhead.getActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
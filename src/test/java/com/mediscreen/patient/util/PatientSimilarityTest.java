@@ -0,0 +1,57 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the PatientSimilarity Class.
+ */
+public class PatientSimilarityTest {
+
+    @Test
+    public void normalizeName() {
+        // ACT & ASSERT
+        assertEquals("ONEIL", PatientSimilarity.normalizeName("O'Neil"));
+        assertEquals("ONEIL", PatientSimilarity.normalizeName("ONeil"));
+        assertEquals("HELENE", PatientSimilarity.normalizeName("H\u00e9l\u00e8ne"));
+        assertEquals("", PatientSimilarity.normalizeName(null));
+    }
+
+    @Test
+    public void normalizeAddress() {
+        // ACT & ASSERT
+        assertEquals("2 WARREN STREET", PatientSimilarity.normalizeAddress(" 2,  Warren street. "));
+        assertEquals("", PatientSimilarity.normalizeAddress(null));
+    }
+
+    @Test
+    public void normalizePhoneDigits() {
+        // ACT & ASSERT
+        assertEquals("3878661399", PatientSimilarity.normalizePhoneDigits("(387) 866-1399"));
+        assertEquals("", PatientSimilarity.normalizePhoneDigits(null));
+    }
+
+    @Test
+    public void soundex() {
+        // ACT & ASSERT
+        assertEquals("R163", PatientSimilarity.soundex("ROBERT"));
+        assertEquals("R163", PatientSimilarity.soundex("RUPERT"));
+        assertEquals("A261", PatientSimilarity.soundex("ASHCRAFT"));
+        assertEquals("T522", PatientSimilarity.soundex("TYMCZAK"));
+        assertEquals("P236", PatientSimilarity.soundex("PFISTER"));
+        assertEquals("L000", PatientSimilarity.soundex("LEE"));
+        assertEquals("", PatientSimilarity.soundex(""));
+    }
+
+    @Test
+    public void jaroWinkler() {
+        // ACT & ASSERT
+        assertEquals(1.0, PatientSimilarity.jaroWinkler("MARTHA", "MARTHA"), 0.0001);
+        assertEquals(0.9611, PatientSimilarity.jaroWinkler("MARTHA", "MARHTA"), 0.0001);
+        assertEquals(0.8133, PatientSimilarity.jaroWinkler("DIXON", "DICKSONX"), 0.0001);
+        assertEquals(0.0, PatientSimilarity.jaroWinkler("ABC", ""), 0.0001);
+        assertTrue(PatientSimilarity.jaroWinkler("FERGUSON", "REES") < 0.6);
+    }
+}
@@ -0,0 +1,48 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Class including unit tests for the PhoneNumberNormalizer Class.
+ */
+public class PhoneNumberNormalizerTest {
+
+    private final PhoneNumberNormalizer phoneNumberNormalizerUnderTest = new PhoneNumberNormalizer("1");
+
+    @Test
+    public void normalize_whenNationalNumber() {
+        // ACT & ASSERT
+        assertEquals("+13878661399", phoneNumberNormalizerUnderTest.normalize("387-866-1399"));
+        assertEquals("+13878661399", phoneNumberNormalizerUnderTest.normalize("(387) 866 1399"));
+        assertEquals("+13878661399", phoneNumberNormalizerUnderTest.normalize("1-387-866-1399"));
+        assertEquals("+13878661399", phoneNumberNormalizerUnderTest.normalize("387.866.1399 ext. 12"));
+    }
+
+    @Test
+    public void normalize_whenInternationalNumber() {
+        // ACT & ASSERT
+        assertEquals("+13878661399", phoneNumberNormalizerUnderTest.normalize("+1 387 866 1399"));
+        assertEquals("+33123456789", phoneNumberNormalizerUnderTest.normalize("0033 1 23 45 67 89"));
+    }
+
+    @Test
+    public void normalize_whenOtherDefaultCountry() {
+        // ARRANGE
+        PhoneNumberNormalizer frenchPhoneNumberNormalizer = new PhoneNumberNormalizer("33");
+
+        // ACT & ASSERT
+        assertEquals("+33123456789", frenchPhoneNumberNormalizer.normalize("01 23 45 67 89"));
+    }
+
+    @Test
+    public void normalize_whenInvalidNumber() {
+        // ACT & ASSERT
+        assertNull(phoneNumberNormalizerUnderTest.normalize(null));
+        assertNull(phoneNumberNormalizerUnderTest.normalize(""));
+        assertNull(phoneNumberNormalizerUnderTest.normalize("866-1399"));
+        assertNull(phoneNumberNormalizerUnderTest.normalize("+1234567890123456"));
+    }
+}
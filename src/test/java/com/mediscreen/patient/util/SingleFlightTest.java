@@ -0,0 +1,145 @@
+package com.mediscreen.patient.util;
+
+import com.mediscreen.patient.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Class including unit tests for the SingleFlight Class.
+ */
+public class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDownPerTest() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void execute_whenConcurrentCallsForSameKey() throws Exception {
+        // ARRANGE
+        SingleFlight singleFlight = new SingleFlight(5000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            leaderStarted.countDown();
+            release.await();
+            return "result";
+        }));
+        leaderStarted.await();
+
+        // ACT
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> {
+            executions.incrementAndGet();
+            return "other result";
+        }));
+        waitForFollower();
+        release.countDown();
+
+        // ASSERT
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void execute_whenCallInFlightThrows() throws Exception {
+        // ARRANGE
+        SingleFlight singleFlight = new SingleFlight(5000);
+        ResourceNotFoundException notFound = new ResourceNotFoundException(1);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderStarted.countDown();
+            release.await();
+            throw notFound;
+        }));
+        leaderStarted.await();
+
+        // ACT
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "other result"));
+        waitForFollower();
+        release.countDown();
+
+        // ASSERT
+        assertSame(notFound, causeOf(leader));
+        assertSame(notFound, causeOf(follower));
+    }
+
+    @Test
+    public void execute_whenMaxWaitExceeded() throws Exception {
+        // ARRANGE
+        SingleFlight singleFlight = new SingleFlight(50);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderStarted.countDown();
+            release.await();
+            return "result";
+        }));
+        leaderStarted.await();
+
+        // ACT
+        String followerResult = singleFlight.execute("key", () -> "own result");
+        release.countDown();
+
+        // ASSERT
+        assertEquals("own result", followerResult);
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void execute_whenCallsInFlightForgotten() throws Exception {
+        // ARRANGE
+        SingleFlight singleFlight = new SingleFlight(5000);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderStarted.countDown();
+            release.await();
+            return "stale result";
+        }));
+        leaderStarted.await();
+
+        // ACT
+        singleFlight.forgetAll();
+        String result = singleFlight.execute("key", () -> "fresh result");
+        release.countDown();
+
+        // ASSERT
+        assertEquals("fresh result", result);
+        assertEquals("stale result", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    // the follower can not be observed waiting : leaves it the time to join the call in flight
+    private static void waitForFollower() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(200);
+    }
+
+    private static Throwable causeOf(Future<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("An exception was expected");
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Class including unit tests for the SlidingWindowPercentile Class.
+ */
+public class SlidingWindowPercentileTest {
+
+    @Test
+    public void percentile_whenWindowNotFull() {
+        // ARRANGE
+        SlidingWindowPercentile window = new SlidingWindowPercentile(1000);
+        for (long value = 1; value <= 100; value++) {
+            window.record(value);
+        }
+
+        // ACT & ASSERT
+        assertEquals(100, window.getCount());
+        assertEquals(50, window.percentile(0.5));
+        assertEquals(95, window.percentile(0.95));
+        assertEquals(100, window.percentile(1));
+    }
+
+    @Test
+    public void percentile_whenOldSamplesReplaced() {
+        // ARRANGE
+        SlidingWindowPercentile window = new SlidingWindowPercentile(10);
+        for (int i = 0; i < 10; i++) {
+            window.record(1000);
+        }
+
+        // ACT
+        for (int i = 0; i < 10; i++) {
+            window.record(1);
+        }
+
+        // ASSERT
+        assertEquals(10, window.getCount());
+        assertEquals(1, window.percentile(0.95));
+    }
+
+    @Test
+    public void percentile_whenNoSample() {
+        // ACT & ASSERT
+        assertEquals(0, new SlidingWindowPercentile(10).percentile(0.95));
+    }
+}
@@ -0,0 +1,52 @@
+package com.mediscreen.patient.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class including unit tests for the TokenBucket Class.
+ */
+public class TokenBucketTest {
+
+    private static final long SECOND_NS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_whenBurstExhausted() {
+        // ARRANGE
+        TokenBucket tokenBucket = new TokenBucket(10, 3, 0);
+
+        // ACT & ASSERT
+        assertEquals(0, tokenBucket.tryAcquire(0));
+        assertEquals(0, tokenBucket.tryAcquire(0));
+        assertEquals(0, tokenBucket.tryAcquire(0));
+        // next token in 1/10 s
+        assertEquals(SECOND_NS / 10.0, tokenBucket.tryAcquire(0), 1.0);
+    }
+
+    @Test
+    public void tryAcquire_whenRefilled() {
+        // ARRANGE
+        TokenBucket tokenBucket = new TokenBucket(10, 1, 0);
+        tokenBucket.tryAcquire(0);
+
+        // ACT & ASSERT
+        assertTrue(tokenBucket.tryAcquire(SECOND_NS / 20) > 0);
+        assertEquals(0, tokenBucket.tryAcquire(SECOND_NS / 5));
+    }
+
+    @Test
+    public void isFull_whenIdle() {
+        // ARRANGE
+        TokenBucket tokenBucket = new TokenBucket(10, 5, 0);
+        tokenBucket.tryAcquire(0);
+
+        // ACT & ASSERT
+        assertFalse(tokenBucket.isFull(0));
+        assertTrue(tokenBucket.isFull(SECOND_NS));
+    }
+}
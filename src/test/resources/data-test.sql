@@ -1,14 +1,14 @@
 insert into patient
-    (last_name, first_name, date_of_birth, sex, home_address, phone_number)
+    (last_name, first_name, date_of_birth, sex, home_address, phone_number, normalized_phone_number)
 values
-    ('Ferguson', 'Lucas', '1968-06-22', 'M','2 Warren Street', '387-866-1399'),
-    ('Rees', 'Pippa', '1952-09-27', 'F','745 West Valley Farms Drive', '628-423-0993'),
-    ('Arnold', 'Edward', '1952-11-11', 'M','599 East Garden Ave', '123-727-2779'),
-    ('Sharp', 'Anthony', '1946-11-26', 'M','894 Hall Street', '451-761-8383'),
-    ('Ince', 'Wendy', '1958-06-29', 'F','4 Southampton Road', '802-911-9975'),
-    ('Ross', 'Tracey', '1949-12-07', 'F','40 Sulphur Springs Dr', '131-396-5049'),
-    ('Wilson', 'Claire', '1966-12-31', 'F','12 Cobblestone St', '300-452-1091'),
-    ('Buckland', 'Max', '1945-06-24', 'M','193 Vale St', '833-534-0864'),
-    ('Clark', 'Natalie', '1964-06-18', 'F','12 Beechwood Road', '241-467-9197'),
-    ('Bailey', 'Piers', '1959-06-28', 'M','1202 Bumble Dr', '747-815-0557')
+    ('Ferguson', 'Lucas', '1968-06-22', 'M','2 Warren Street', '387-866-1399', '+13878661399'),
+    ('Rees', 'Pippa', '1952-09-27', 'F','745 West Valley Farms Drive', '628-423-0993', '+16284230993'),
+    ('Arnold', 'Edward', '1952-11-11', 'M','599 East Garden Ave', '123-727-2779', '+11237272779'),
+    ('Sharp', 'Anthony', '1946-11-26', 'M','894 Hall Street', '451-761-8383', '+14517618383'),
+    ('Ince', 'Wendy', '1958-06-29', 'F','4 Southampton Road', '802-911-9975', '+18029119975'),
+    ('Ross', 'Tracey', '1949-12-07', 'F','40 Sulphur Springs Dr', '131-396-5049', '+11313965049'),
+    ('Wilson', 'Claire', '1966-12-31', 'F','12 Cobblestone St', '300-452-1091', '+13004521091'),
+    ('Buckland', 'Max', '1945-06-24', 'M','193 Vale St', '833-534-0864', '+18335340864'),
+    ('Clark', 'Natalie', '1964-06-18', 'F','12 Beechwood Road', '241-467-9197', '+12414679197'),
+    ('Bailey', 'Piers', '1959-06-28', 'M','1202 Bumble Dr', '747-815-0557', '+17478150557')
 ;
\ No newline at end of file